@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.commands.operations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * <p>
+ * A CompressedSnapshot holds the bytes of a snapshot kept by an undoable
+ * operation, such as the contents of a document before a change. A snapshot
+ * starts out in memory as it was created. When it is
+ * {@link #compact(boolean) compacted}, it is compressed and, if requested,
+ * moved to a temporary file, so that it holds little or no heap memory. The
+ * bytes are restored transparently when they are requested.
+ * </p>
+ * <p>
+ * Snapshots are typically held by operations implementing
+ * {@link IMemoryAwareOperation}, which report their size with
+ * {@link #getApproximateSize()} and compact them in
+ * {@link IMemoryAwareOperation#compact()}. A snapshot must be disposed when its
+ * operation is disposed, so that any temporary file is deleted. Temporary
+ * files are not otherwise deleted, not even when the VM exits.
+ * </p>
+ * <p>
+ * This class is thread safe. It may be instantiated by clients, but is not
+ * intended to be subclassed.
+ * </p>
+ * 
+ * @since 3.7
+ */
+public final class CompressedSnapshot {
+
+	/*
+	 * Snapshots smaller than this are not worth the cost of a temporary file.
+	 */
+	private static final int MIN_SPILL_SIZE = 64 * 1024;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final int length;
+
+	/*
+	 * The uncompressed bytes, or null if compacted.
+	 */
+	private byte[] bytes;
+
+	/*
+	 * The compressed bytes if compacted in memory, or null.
+	 */
+	private byte[] compressed;
+
+	/*
+	 * The temporary file holding the compressed bytes if compacted to disk,
+	 * or null.
+	 */
+	private File file;
+
+	private boolean disposed;
+
+	/**
+	 * Create a snapshot holding the specified bytes. The snapshot takes
+	 * ownership of the array, which must not be modified afterwards.
+	 * 
+	 * @param bytes
+	 *            the bytes of the snapshot, not <code>null</code>
+	 */
+	public CompressedSnapshot(byte[] bytes) {
+		Assert.isNotNull(bytes);
+		this.bytes = bytes;
+		this.length = bytes.length;
+	}
+
+	/**
+	 * Return the number of bytes in the snapshot.
+	 * 
+	 * @return the length of the snapshot in bytes
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Return the approximate number of bytes of heap memory held by the
+	 * snapshot.
+	 * 
+	 * @return the approximate size of the snapshot in bytes
+	 */
+	public synchronized long getApproximateSize() {
+		if (bytes != null) {
+			return bytes.length;
+		}
+		if (compressed != null) {
+			return compressed.length;
+		}
+		return 0;
+	}
+
+	/**
+	 * Return whether the snapshot is compacted, which means that its bytes are
+	 * held compressed or on disk.
+	 * 
+	 * @return <code>true</code> if the snapshot is compacted, and
+	 *         <code>false</code> if its bytes are held as they are
+	 */
+	public synchronized boolean isCompacted() {
+		return bytes == null;
+	}
+
+	/**
+	 * Compress the bytes of the snapshot, and optionally move them to a
+	 * temporary file. This method does nothing if the snapshot is already
+	 * compacted. If the temporary file cannot be written, the compressed bytes
+	 * are kept in memory.
+	 * 
+	 * @param spill
+	 *            <code>true</code> if large snapshots should be moved to a
+	 *            temporary file, and <code>false</code> if they should only
+	 *            be compressed in memory
+	 * @throws IOException
+	 *             if the bytes cannot be compressed
+	 */
+	public synchronized void compact(boolean spill) throws IOException {
+		if (disposed) {
+			return;
+		}
+		if (bytes != null) {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+					Math.max(32, length / 4));
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try {
+				OutputStream out = new DeflaterOutputStream(buffer, deflater,
+						BUFFER_SIZE);
+				out.write(bytes);
+				out.close();
+			} finally {
+				deflater.end();
+			}
+			compressed = buffer.toByteArray();
+			bytes = null;
+		}
+		if (spill && compressed != null && file == null
+				&& compressed.length >= MIN_SPILL_SIZE) {
+			File spillFile = File.createTempFile("snapshot", ".undo"); //$NON-NLS-1$ //$NON-NLS-2$
+			OutputStream out = new FileOutputStream(spillFile);
+			try {
+				out.write(compressed);
+				out.close();
+				out = null;
+				file = spillFile;
+				compressed = null;
+			} catch (IOException e) {
+				// keep the compressed bytes in memory
+				spillFile.delete();
+			} finally {
+				if (out != null) {
+					try {
+						out.close();
+					} catch (IOException e) {
+						// nothing more we can do
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the bytes of the snapshot, restoring them if the snapshot is
+	 * compacted. The snapshot stays compacted, so the returned array is not
+	 * held by the snapshot unless it was never compacted. Callers must not
+	 * modify the returned array.
+	 * 
+	 * @return the bytes of the snapshot
+	 * @throws IOException
+	 *             if the bytes cannot be restored
+	 */
+	public synchronized byte[] getBytes() throws IOException {
+		Assert.isTrue(!disposed, "Snapshot is disposed"); //$NON-NLS-1$
+		if (bytes != null) {
+			return bytes;
+		}
+		InputStream in;
+		if (compressed != null) {
+			in = new ByteArrayInputStream(compressed);
+		} else {
+			in = new FileInputStream(file);
+		}
+		byte[] result = new byte[length];
+		InflaterInputStream inflater = new InflaterInputStream(in);
+		try {
+			int offset = 0;
+			while (offset < length) {
+				int read = inflater.read(result, offset, length - offset);
+				if (read < 0) {
+					throw new IOException("Snapshot is truncated"); //$NON-NLS-1$
+				}
+				offset += read;
+			}
+		} finally {
+			inflater.close();
+		}
+		return result;
+	}
+
+	/**
+	 * Release the snapshot, deleting any temporary file. The bytes cannot be
+	 * retrieved afterwards.
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		bytes = null;
+		compressed = null;
+		if (file != null) {
+			file.delete();
+			file = null;
+		}
+	}
+}
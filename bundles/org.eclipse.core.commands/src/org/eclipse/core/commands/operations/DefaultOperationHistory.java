@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,15 +9,20 @@
  *     IBM Corporation - initial API and implementation
  *     Tasktop Technologies -  Bug 323444 - [Undo] [Commands] java.util.ConcurrentModificationException 
  *     		when trying to get the undo history from a source viewer
+ *     IBM Corporation - memory limit for the history, notification outside
+ *     		of the history lock and asynchronous listeners
  *******************************************************************************/
 package org.eclipse.core.commands.operations;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.commands.util.Tracing;
@@ -50,11 +55,21 @@ import org.eclipse.core.runtime.Status;
  * its undo contexts.
  * </p>
  * <p>
+ * Besides the limit on the number of operations per undo context, a limit on
+ * the memory held by all operations in the history can be set with
+ * {@link #setMemoryLimit(long)}. Operations report the memory they hold by
+ * implementing {@link IMemoryAwareOperation}.
+ * </p>
+ * <p>
  * The data structures used by the DefaultOperationHistory are synchronized, and
  * entry points that modify the undo and redo history concurrently are also
  * synchronized. This means that the DefaultOperationHistory is relatively
- * "thread-friendly" in its implementation. Outbound notifications or operation
- * approval requests will occur on the thread that initiated the request.
+ * "thread-friendly" in its implementation. Queries read a snapshot of the
+ * history and do not wait for modifications in progress, and listeners are
+ * never notified while the history is locked. Outbound notifications or
+ * operation approval requests will occur on the thread that initiated the
+ * request, except for listeners added with
+ * {@link #addAsynchronousOperationHistoryListener(IOperationHistoryListener)}.
  * Clients may use DefaultOperationHistory API from any thread; however,
  * listeners or operation approvers that receive notifications from the
  * DefaultOperationHistory must be prepared to receive these notifications from
@@ -111,6 +126,140 @@ public final class DefaultOperationHistory implements IOperationHistory {
 
 	static final int DEFAULT_LIMIT = 20;
 
+	/**
+	 * the time in milliseconds the asynchronous notification thread waits for
+	 * further events before it ends
+	 */
+	static final int NOTIFICATION_IDLE_TIME = 5000;
+
+	/*
+	 * A list of operations that keeps an array copy of its contents, so that
+	 * the history can be read without taking the history lock. The list must
+	 * only be modified while holding the history lock. Every method of the
+	 * list that modifies it drops the copy, and so do its iterators, but a
+	 * list returned by subList() must not be used to modify it.
+	 */
+	private static final class OperationList extends ArrayList {
+		private static final long serialVersionUID = 1L;
+
+		private volatile IUndoableOperation[] snapshot;
+
+		public boolean add(Object operation) {
+			snapshot = null;
+			return super.add(operation);
+		}
+
+		public void add(int index, Object operation) {
+			snapshot = null;
+			super.add(index, operation);
+		}
+
+		public boolean remove(Object operation) {
+			snapshot = null;
+			return super.remove(operation);
+		}
+
+		public Object remove(int index) {
+			snapshot = null;
+			return super.remove(index);
+		}
+
+		public Object set(int index, Object operation) {
+			snapshot = null;
+			return super.set(index, operation);
+		}
+
+		public boolean addAll(Collection operations) {
+			snapshot = null;
+			return super.addAll(operations);
+		}
+
+		public boolean addAll(int index, Collection operations) {
+			snapshot = null;
+			return super.addAll(index, operations);
+		}
+
+		public boolean removeAll(Collection operations) {
+			snapshot = null;
+			return super.removeAll(operations);
+		}
+
+		public boolean retainAll(Collection operations) {
+			snapshot = null;
+			return super.retainAll(operations);
+		}
+
+		protected void removeRange(int fromIndex, int toIndex) {
+			snapshot = null;
+			super.removeRange(fromIndex, toIndex);
+		}
+
+		public void clear() {
+			snapshot = null;
+			super.clear();
+		}
+
+		/*
+		 * Return the operations in the list. The array must not be modified.
+		 */
+		IUndoableOperation[] getSnapshot(Object lock) {
+			IUndoableOperation[] result = snapshot;
+			if (result == null) {
+				synchronized (lock) {
+					result = (IUndoableOperation[]) toArray(new IUndoableOperation[size()]);
+					snapshot = result;
+				}
+			}
+			return result;
+		}
+	}
+
+	/*
+	 * Delivers events to the asynchronous listeners in the order they
+	 * occurred, from a thread that ends when there have been no events for a
+	 * while. We do not use Jobs since this code must be able to run
+	 * independently of the Eclipse runtime.
+	 */
+	private final class NotificationQueue implements Runnable {
+		// pairs of an event and the listeners to notify about it
+		private final LinkedList events = new LinkedList();
+
+		private Thread thread;
+
+		synchronized void post(OperationHistoryEvent event, Object[] listenerArray) {
+			events.add(new Object[] { event, listenerArray });
+			if (thread == null) {
+				thread = new Thread(this, "Operation History Notifications"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.start();
+			} else {
+				notifyAll();
+			}
+		}
+
+		public void run() {
+			while (true) {
+				Object[] next;
+				synchronized (this) {
+					if (events.isEmpty()) {
+						try {
+							wait(NOTIFICATION_IDLE_TIME);
+						} catch (InterruptedException e) {
+							// check for events and end if there are none
+						}
+					}
+					if (events.isEmpty()) {
+						thread = null;
+						return;
+					}
+					next = (Object[]) events.removeFirst();
+				}
+				notifyListeners((OperationHistoryEvent) next[0],
+						(Object[]) next[1]);
+			}
+		}
+	}
+
 	/**
 	 * the list of {@link IOperationApprover}s
 	 */
@@ -121,20 +270,42 @@ public final class DefaultOperationHistory implements IOperationHistory {
 	 */
 	private Map limits = Collections.synchronizedMap(new HashMap());
 
+	/**
+	 * the number of bytes the operations in the history may hold, or 0 if
+	 * there is no memory limit
+	 */
+	private volatile long memoryLimit = 0;
+
 	/**
 	 * the list of {@link IOperationHistoryListener}s
 	 */
 	ListenerList listeners = new ListenerList(ListenerList.IDENTITY);
 
+	/**
+	 * the list of {@link IOperationHistoryListener}s notified asynchronously
+	 */
+	ListenerList asynchronousListeners = new ListenerList(ListenerList.IDENTITY);
+
+	/**
+	 * the queue of events for the asynchronous listeners
+	 */
+	private final NotificationQueue notificationQueue = new NotificationQueue();
+
 	/**
 	 * the list of operations available for redo, LIFO
 	 */
-	private List redoList = Collections.synchronizedList(new ArrayList());
+	private OperationList redoList = new OperationList();
 
 	/**
 	 * the list of operations available for undo, LIFO
 	 */
-	private List undoList = Collections.synchronizedList(new ArrayList());
+	private OperationList undoList = new OperationList();
+
+	/**
+	 * the operations removed from the history while it was locked, which are
+	 * disposed and announced to listeners once the lock is released
+	 */
+	private List removedOperations = new ArrayList();
 
 	/**
 	 * a lock that is used to synchronize access between the undo and redo
@@ -185,7 +356,9 @@ public final class DefaultOperationHistory implements IOperationHistory {
 			}
 		}
 
-		if (checkUndoLimit(operation)) {
+		boolean withinLimit = checkUndoLimit(operation);
+		flushRemovedOperations();
+		if (withinLimit) {
 			synchronized (undoRedoHistoryLock) {
 				undoList.add(operation);
 			}
@@ -196,6 +369,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 			for (int i = 0; i < contexts.length; i++) {
 				flushRedo(contexts[i]);
 			}
+			checkMemoryLimit();
 		} else {
 			// Dispose the operation since we will not have a reference to it.
 			operation.dispose();
@@ -249,6 +423,39 @@ public final class DefaultOperationHistory implements IOperationHistory {
 		listeners.add(listener);
 	}
 
+	/**
+	 * <p>
+	 * Add the specified listener to the list of operation history listeners
+	 * that are notified asynchronously about changes in the history or
+	 * operations that are executed, undone, or redone. This method has no
+	 * effect if the instance being added is already in the list.
+	 * </p>
+	 * <p>
+	 * Unlike the listeners added with
+	 * {@link #addOperationHistoryListener(IOperationHistoryListener)}, an
+	 * asynchronous listener does not delay the thread that changed the
+	 * history. It receives all events, in the order they occurred, from a
+	 * background thread shared by the asynchronous listeners of this history,
+	 * some time after they occurred. The history may have changed further by
+	 * then, so asynchronous listeners should be used for informational
+	 * purposes, such as updating labels or logging, and not to veto or
+	 * complete operations.
+	 * </p>
+	 * <p>
+	 * The listener is removed with
+	 * {@link #removeOperationHistoryListener(IOperationHistoryListener)}.
+	 * </p>
+	 * 
+	 * @param listener
+	 *            the IOperationHistoryListener to be added as an asynchronous
+	 *            listener.
+	 * @since 3.7
+	 */
+	public void addAsynchronousOperationHistoryListener(
+			IOperationHistoryListener listener) {
+		asynchronousListeners.add(listener);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -387,6 +594,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 					addedToUndo = false;
 				}
 			}
+			flushRemovedOperations();
 			// dispose the operation since we could not add it to the
 			// stack and will no longer have a reference to it.
 			if (!addedToUndo) {
@@ -395,6 +603,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 
 			// notify listeners must happen after history is updated
 			notifyRedone(operation);
+			checkMemoryLimit();
 		} else {
 			notifyNotOK(operation, status);
 		}
@@ -446,6 +655,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 					addedToRedo = false;
 				}
 			}
+			flushRemovedOperations();
 			// dispose the operation since we could not add it to the
 			// stack and will no longer have a reference to it.
 			if (!addedToRedo) {
@@ -454,6 +664,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 			// notification occurs after the undo and redo histories are
 			// adjusted
 			notifyUndone(operation);
+			checkMemoryLimit();
 		} else {
 			notifyNotOK(operation, status);
 		}
@@ -542,25 +753,21 @@ public final class DefaultOperationHistory implements IOperationHistory {
 	/*
 	 * Filter the specified list to include only the specified undo context.
 	 */
-	private IUndoableOperation[] filter(List list, IUndoContext context) {
+	private IUndoableOperation[] filter(OperationList list, IUndoContext context) {
 		/*
 		 * This method is used whenever there is a need to filter the undo or
-		 * redo history on a particular context. Currently there are no caches
-		 * kept to optimize repeated requests for the same filter. If benchmarks
-		 * show this to be a common pattern that causes performances problems,
-		 * we could implement a filtered cache here that is nullified whenever
-		 * the global history changes.
+		 * redo history on a particular context. No caches are kept per
+		 * context: contexts may match each other in arbitrary ways, and the
+		 * contexts of an operation may change without the history being told,
+		 * so a cache could not be kept accurate. Filtering a snapshot does not
+		 * block modifications of the history, though.
 		 */
 
+		IUndoableOperation[] operations = list.getSnapshot(undoRedoHistoryLock);
 		List filtered = new ArrayList();
-		synchronized (undoRedoHistoryLock) {
-			Iterator iterator = list.iterator();
-			while (iterator.hasNext()) {
-				IUndoableOperation operation = (IUndoableOperation) iterator
-						.next();
-				if (operation.hasContext(context)) {
-					filtered.add(operation);
-				}
+		for (int i = 0; i < operations.length; i++) {
+			if (operations[i].hasContext(context)) {
+				filtered.add(operations[i]);
 			}
 		}
 		return (IUndoableOperation[]) filtered
@@ -586,7 +793,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 					// remove the operation if it only has the context or we are
 					// flushing all
 					redoList.remove(operation);
-					internalRemove(operation);
+					removedOperations.add(operation);
 				} else {
 					// remove the reference to the context.
 					// See https://bugs.eclipse.org/bugs/show_bug.cgi?id=161786
@@ -601,11 +808,12 @@ public final class DefaultOperationHistory implements IOperationHistory {
 					}
 					if (operation.getContexts().length == 0) {
 						redoList.remove(operation);
-						internalRemove(operation);
+						removedOperations.add(operation);
 					}
 				}
 			}
 		}
+		flushRemovedOperations();
 	}
 
 	/*
@@ -628,7 +836,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 					// remove the operation if it only has the context or we are
 					// flushing all
 					undoList.remove(operation);
-					internalRemove(operation);
+					removedOperations.add(operation);
 				} else {
 					// remove the reference to the context.
 					// See https://bugs.eclipse.org/bugs/show_bug.cgi?id=161786
@@ -643,11 +851,12 @@ public final class DefaultOperationHistory implements IOperationHistory {
 					}
 					if (operation.getContexts().length == 0) {
 						undoList.remove(operation);
-						internalRemove(operation);
+						removedOperations.add(operation);
 					}
 				}
 			}
 		}
+		flushRemovedOperations();
 		/*
 		 * There may be an open composite. If it has this context, then the
 		 * context must be removed. If it has only this context or we are
@@ -693,7 +902,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 						 * or if the operation only has the specified context
 						 */
 						redoList.remove(removed);
-						internalRemove(removed);
+						removedOperations.add(removed);
 					} else {
 						/*
 						 * if the operation has multiple contexts and we've reached
@@ -728,7 +937,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 						 * or if the operation only has the specified context
 						 */
 						undoList.remove(removed);
-						internalRemove(removed);
+						removedOperations.add(removed);
 					} else {
 						/*
 						 * if the operation has multiple contexts and we've reached
@@ -798,13 +1007,11 @@ public final class DefaultOperationHistory implements IOperationHistory {
 	 */
 	public IUndoableOperation getRedoOperation(IUndoContext context) {
 		Assert.isNotNull(context);
-		synchronized (undoRedoHistoryLock) {
-			for (int i = redoList.size() - 1; i >= 0; i--) {
-				IUndoableOperation operation = (IUndoableOperation) redoList
-						.get(i);
-				if (operation.hasContext(context)) {
-					return operation;
-				}
+		IUndoableOperation[] operations = redoList
+				.getSnapshot(undoRedoHistoryLock);
+		for (int i = operations.length - 1; i >= 0; i--) {
+			if (operations[i].hasContext(context)) {
+				return operations[i];
 			}
 		}
 		return null;
@@ -852,13 +1059,11 @@ public final class DefaultOperationHistory implements IOperationHistory {
 	 */
 	public IUndoableOperation getUndoOperation(IUndoContext context) {
 		Assert.isNotNull(context);
-		synchronized (undoRedoHistoryLock) {
-			for (int i = undoList.size() - 1; i >= 0; i--) {
-				IUndoableOperation operation = (IUndoableOperation) undoList
-						.get(i);
-				if (operation.hasContext(context)) {
-					return operation;
-				}
+		IUndoableOperation[] operations = undoList
+				.getSnapshot(undoRedoHistoryLock);
+		for (int i = operations.length - 1; i >= 0; i--) {
+			if (operations[i].hasContext(context)) {
+				return operations[i];
 			}
 		}
 		return null;
@@ -902,6 +1107,24 @@ public final class DefaultOperationHistory implements IOperationHistory {
 		notifyRemoved(operation);
 	}
 
+	/*
+	 * Dispose the operations removed while the history was locked and notify
+	 * listeners. Must not be called while holding the history lock.
+	 */
+	private void flushRemovedOperations() {
+		Object[] removed;
+		synchronized (undoRedoHistoryLock) {
+			if (removedOperations.isEmpty()) {
+				return;
+			}
+			removed = removedOperations.toArray();
+			removedOperations.clear();
+		}
+		for (int i = 0; i < removed.length; i++) {
+			internalRemove((IUndoableOperation) removed[i]);
+		}
+	}
+
 	/*
 	 * Notify listeners of an operation event.
 	 */
@@ -924,7 +1147,17 @@ public final class DefaultOperationHistory implements IOperationHistory {
 				}
 			});
 		}
-		final Object[] listenerArray = listeners.getListeners();
+		notifyListeners(event, listeners.getListeners());
+		if (!asynchronousListeners.isEmpty()) {
+			notificationQueue.post(event, asynchronousListeners.getListeners());
+		}
+	}
+
+	/*
+	 * Notify the specified listeners of an operation event.
+	 */
+	private void notifyListeners(final OperationHistoryEvent event,
+			Object[] listenerArray) {
 		for (int i = 0; i < listenerArray.length; i++) {
 			final IOperationHistoryListener listener = (IOperationHistoryListener) listenerArray[i];
 			SafeRunner.run(new ISafeRunnable() {
@@ -1152,6 +1385,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 	public void removeOperationHistoryListener(
 			IOperationHistoryListener listener) {
 		listeners.remove(listener);
+		asynchronousListeners.remove(listener);
 	}
 
 	/*
@@ -1190,10 +1424,12 @@ public final class DefaultOperationHistory implements IOperationHistory {
 		}
 		if (inUndo) {
 			// notify listeners of operations added and removed
+			flushRemovedOperations();
 			internalRemove(operation);
 			for (int i = 0; i < replacements.length; i++) {
 				notifyAdd(replacements[i]);
 			}
+			checkMemoryLimit();
 			return;
 		}
 
@@ -1223,10 +1459,12 @@ public final class DefaultOperationHistory implements IOperationHistory {
 			}
 		}
 		// send listener notifications after we release the lock on the history
+		flushRemovedOperations();
 		internalRemove(operation);
 		for (int i = 0; i < replacements.length; i++) {
 			notifyAdd(replacements[i]);
 		}
+		checkMemoryLimit();
 	}
 
 	/*
@@ -1250,6 +1488,7 @@ public final class DefaultOperationHistory implements IOperationHistory {
 			forceUndoLimit(context, limit);
 			forceRedoLimit(context, limit);
 		}
+		flushRemovedOperations();
 
 	}
 
@@ -1389,8 +1628,280 @@ public final class DefaultOperationHistory implements IOperationHistory {
 	 * @see org.eclipse.core.commands.operations.IOperationHistory#operationChanged(org.eclipse.core.commands.operations.IUndoableOperation)
 	 */
 	public void operationChanged(IUndoableOperation operation) {
-		if (undoList.contains(operation) || redoList.contains(operation)) {
+		if (contains(undoList, operation) || contains(redoList, operation)) {
 			notifyChanged(operation);
+			// the operation may hold more memory now
+			checkMemoryLimit();
+		}
+	}
+
+	/*
+	 * Return whether the list contains the operation, without taking the
+	 * history lock.
+	 */
+	private boolean contains(OperationList list, IUndoableOperation operation) {
+		IUndoableOperation[] operations = list.getSnapshot(undoRedoHistoryLock);
+		for (int i = 0; i < operations.length; i++) {
+			if (operations[i].equals(operation)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * <p>
+	 * Set the approximate number of bytes of memory that the operations in the
+	 * undo and redo history may hold, across all undo contexts. Only
+	 * operations implementing {@link IMemoryAwareOperation} are counted.
+	 * </p>
+	 * <p>
+	 * When the history exceeds the limit, the oldest operations are asked to
+	 * compact themselves. If that is not enough, the oldest operations are
+	 * removed from the history, starting with the oldest undoable operations
+	 * and continuing with the redoable operations that would be redone last.
+	 * The most recent undoable and redoable operation of each undo context are
+	 * neither compacted nor removed, and operations are only removed from the
+	 * oldest end of either history, so the history may hold more memory than
+	 * the limit.
+	 * </p>
+	 * 
+	 * @param limit
+	 *            the memory limit in bytes, or 0 if the memory held by the
+	 *            history should not be limited
+	 * @since 3.7
+	 */
+	public void setMemoryLimit(long limit) {
+		Assert.isTrue(limit >= 0);
+		memoryLimit = limit;
+		checkMemoryLimit();
+	}
+
+	/**
+	 * Return the approximate number of bytes of memory that the operations in
+	 * the undo and redo history may hold.
+	 * 
+	 * @return the memory limit in bytes, or 0 if the memory held by the
+	 *         history is not limited
+	 * @since 3.7
+	 */
+	public long getMemoryLimit() {
+		return memoryLimit;
+	}
+
+	/**
+	 * Return the approximate number of bytes of memory held by the operations
+	 * in the undo and redo history, as reported by the operations implementing
+	 * {@link IMemoryAwareOperation}.
+	 * 
+	 * @return the approximate memory held by the history in bytes
+	 * @since 3.7
+	 */
+	public long getMemoryUsage() {
+		long usage = 0;
+		synchronized (undoRedoHistoryLock) {
+			for (int i = 0; i < undoList.size(); i++) {
+				usage += getApproximateSize((IUndoableOperation) undoList.get(i));
+			}
+			for (int i = 0; i < redoList.size(); i++) {
+				usage += getApproximateSize((IUndoableOperation) redoList.get(i));
+			}
+		}
+		return usage;
+	}
+
+	/*
+	 * Return the approximate size of an operation, 0 if it does not report it.
+	 */
+	private long getApproximateSize(IUndoableOperation operation) {
+		if (operation instanceof IMemoryAwareOperation) {
+			return Math.max(0,
+					((IMemoryAwareOperation) operation).getApproximateSize());
+		}
+		return 0;
+	}
+
+	/*
+	 * Return the operations that may be compacted or removed to enforce the
+	 * memory limit, in the order they should be: the undo history from the
+	 * oldest operation, then the redo history from the operation that would be
+	 * redone last. The most recent operation of each context in either history
+	 * is left out. Operations may only be removed from the oldest end of the
+	 * history of each of their contexts, so that no context is left with a
+	 * gap in its history, so when removing, an operation is left out as well
+	 * if an older operation of one of its contexts is left out. Removing a
+	 * prefix of the candidates keeps this so. Must be called with the history
+	 * locked.
+	 */
+	private List getMemoryLimitCandidates(boolean removing) {
+		List candidates = new ArrayList(undoList.size() + redoList.size());
+		addMemoryLimitCandidates(undoList, candidates, removing);
+		addMemoryLimitCandidates(redoList, candidates, removing);
+		return candidates;
+	}
+
+	private void addMemoryLimitCandidates(List list, List candidates,
+			boolean removing) {
+		Set mostRecent = getMostRecentOperations(list);
+		// the contexts with an operation that is left out
+		Set keptContexts = new HashSet();
+		for (int i = 0; i < list.size(); i++) {
+			IUndoableOperation operation = (IUndoableOperation) list.get(i);
+			IUndoContext[] contexts = operation.getContexts();
+			boolean candidate = !mostRecent.contains(operation);
+			if (candidate && removing) {
+				for (int j = 0; j < contexts.length; j++) {
+					if (keptContexts.contains(contexts[j])) {
+						candidate = false;
+						break;
+					}
+				}
+			}
+			if (candidate) {
+				candidates.add(operation);
+			} else if (removing) {
+				for (int j = 0; j < contexts.length; j++) {
+					keptContexts.add(contexts[j]);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Return the operations of the list that are the most recent ones in at
+	 * least one of their contexts.
+	 */
+	private Set getMostRecentOperations(List list) {
+		Set mostRecent = new HashSet();
+		Set seenContexts = new HashSet();
+		for (int i = list.size() - 1; i >= 0; i--) {
+			IUndoableOperation operation = (IUndoableOperation) list.get(i);
+			IUndoContext[] contexts = operation.getContexts();
+			boolean recent = false;
+			for (int j = 0; j < contexts.length; j++) {
+				if (seenContexts.add(contexts[j])) {
+					recent = true;
+				}
+			}
+			if (recent) {
+				mostRecent.add(operation);
+			}
+		}
+		return mostRecent;
+	}
+
+	/*
+	 * Return whether the operation is still in the history and not the most
+	 * recent operation of any of its contexts, that is, whether it may still
+	 * be compacted. Must be called with the history locked.
+	 */
+	private boolean isCompactionCandidate(IUndoableOperation operation) {
+		List list = undoList;
+		int index = list.indexOf(operation);
+		if (index < 0) {
+			list = redoList;
+			index = list.indexOf(operation);
+			if (index < 0) {
+				return false;
+			}
+		}
+		IUndoContext[] contexts = operation.getContexts();
+		for (int i = 0; i < contexts.length; i++) {
+			if (!hasLaterOperation(list, index, contexts[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Return whether an operation after the index in the list has the context.
+	 */
+	private boolean hasLaterOperation(List list, int index, IUndoContext context) {
+		for (int i = index + 1; i < list.size(); i++) {
+			IUndoContext[] contexts = ((IUndoableOperation) list.get(i))
+					.getContexts();
+			for (int j = 0; j < contexts.length; j++) {
+				if (contexts[j].equals(context)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Compact and if needed remove the oldest operations until the history is
+	 * within the memory limit. Operations are compacted outside of the history
+	 * lock since compacting may be slow. Since the history may change in the
+	 * meantime, each candidate is checked again under the lock just before it
+	 * is compacted, and IMemoryAwareOperation requires compact() to be safe
+	 * against a concurrent undo or redo of the operation.
+	 */
+	private void checkMemoryLimit() {
+		long limit = memoryLimit;
+		if (limit == 0) {
+			return;
+		}
+		long usage = getMemoryUsage();
+		if (usage <= limit) {
+			return;
+		}
+		Object[] candidates;
+		synchronized (undoRedoHistoryLock) {
+			candidates = getMemoryLimitCandidates(false).toArray();
+		}
+		for (int i = 0; i < candidates.length && usage > limit; i++) {
+			if (candidates[i] instanceof IMemoryAwareOperation) {
+				final IMemoryAwareOperation operation = (IMemoryAwareOperation) candidates[i];
+				synchronized (undoRedoHistoryLock) {
+					// it may have been undone, redone or removed meanwhile
+					if (!isCompactionCandidate((IUndoableOperation) operation)) {
+						continue;
+					}
+				}
+				long size = Math.max(0, operation.getApproximateSize());
+				SafeRunner.run(new ISafeRunnable() {
+					public void handleException(Throwable exception) {
+						if (DEBUG_OPERATION_HISTORY_UNEXPECTED) {
+							Tracing.printTrace("OPERATIONHISTORY", //$NON-NLS-1$
+									"Exception while compacting " + operation); //$NON-NLS-1$
+						}
+					}
+
+					public void run() throws Exception {
+						operation.compact();
+					}
+				});
+				usage -= size - Math.max(0, operation.getApproximateSize());
+			}
+		}
+		if (usage <= limit) {
+			return;
+		}
+
+		List removed = new ArrayList();
+		synchronized (undoRedoHistoryLock) {
+			// the history may have changed while compacting
+			usage = getMemoryUsage();
+			List candidateList = getMemoryLimitCandidates(true);
+			for (int i = 0; i < candidateList.size() && usage > limit; i++) {
+				IUndoableOperation operation = (IUndoableOperation) candidateList
+						.get(i);
+				usage -= getApproximateSize(operation);
+				if (!undoList.remove(operation)) {
+					redoList.remove(operation);
+				}
+				removed.add(operation);
+			}
+		}
+		if (DEBUG_OPERATION_HISTORY_DISPOSE && !removed.isEmpty()) {
+			Tracing.printTrace("OPERATIONHISTORY", "Removed " + removed.size() //$NON-NLS-1$ //$NON-NLS-2$
+					+ " operations to enforce the memory limit"); //$NON-NLS-1$
+		}
+		// notify listeners after we release the lock on the history
+		for (int i = 0; i < removed.size(); i++) {
+			internalRemove((IUndoableOperation) removed.get(i));
 		}
 	}
 }
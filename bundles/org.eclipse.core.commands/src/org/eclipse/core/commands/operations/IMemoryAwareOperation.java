@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.commands.operations;
+
+/**
+ * <p>
+ * IMemoryAwareOperation defines methods for operations that hold on to a
+ * significant amount of memory, such as snapshots of text or resources that
+ * are restored on undo. An operation history that enforces a memory limit, such
+ * as {@link DefaultOperationHistory#setMemoryLimit(long)}, uses the reported
+ * size to decide when the history is too large. It first asks the oldest
+ * operations to compact themselves, and only removes operations from the
+ * history if that is not enough.
+ * </p>
+ * <p>
+ * {@link CompressedSnapshot} can be used to hold snapshots in a compacted
+ * form.
+ * </p>
+ * 
+ * @since 3.7
+ */
+public interface IMemoryAwareOperation {
+
+	/**
+	 * Return the approximate number of bytes of heap memory held by the
+	 * operation. The size does not need to be exact, but it should account for
+	 * the large structures only reachable from the operation, and should be
+	 * cheap to compute.
+	 * 
+	 * @return the approximate size of the operation in bytes
+	 */
+	long getApproximateSize();
+
+	/**
+	 * Reduce the memory held by the operation, for example by compressing its
+	 * snapshots or moving them to disk. The operation must still be able to
+	 * undo or redo afterwards, restoring what it needs when it does. This
+	 * method is called by the operation history when the history exceeds its
+	 * memory limit, and may be called more than once. Operations that cannot
+	 * reduce their memory should do nothing.
+	 * <p>
+	 * The history does not hold any lock while calling this method, so an
+	 * operation may be undone, redone or disposed while it compacts itself.
+	 * Implementors must synchronize compacting with those methods.
+	 * </p>
+	 */
+	void compact();
+}
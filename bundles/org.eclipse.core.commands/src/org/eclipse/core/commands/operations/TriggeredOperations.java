@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,7 +38,7 @@ import org.eclipse.core.commands.ExecutionException;
  */
 public final class TriggeredOperations extends AbstractOperation implements
 		ICompositeOperation, IAdvancedUndoableOperation, IAdvancedUndoableOperation2,
-		IContextReplacingOperation {
+		IContextReplacingOperation, IMemoryAwareOperation {
 
 	private IUndoableOperation triggeringOperation;
 
@@ -293,6 +293,45 @@ public final class TriggeredOperations extends AbstractOperation implements
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.core.commands.operations.IMemoryAwareOperation#getApproximateSize()
+	 * @since 3.7
+	 */
+	public long getApproximateSize() {
+		long size = 0;
+		if (triggeringOperation instanceof IMemoryAwareOperation) {
+			size += ((IMemoryAwareOperation) triggeringOperation)
+					.getApproximateSize();
+		}
+		for (int i = 0; i < children.size(); i++) {
+			Object child = children.get(i);
+			if (child instanceof IMemoryAwareOperation) {
+				size += ((IMemoryAwareOperation) child).getApproximateSize();
+			}
+		}
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.core.commands.operations.IMemoryAwareOperation#compact()
+	 * @since 3.7
+	 */
+	public void compact() {
+		if (triggeringOperation instanceof IMemoryAwareOperation) {
+			((IMemoryAwareOperation) triggeringOperation).compact();
+		}
+		for (int i = 0; i < children.size(); i++) {
+			Object child = children.get(i);
+			if (child instanceof IMemoryAwareOperation) {
+				((IMemoryAwareOperation) child).compact();
+			}
+		}
+	}
+
 	/*
 	 * Recompute contexts in light of some change in the children
 	 */
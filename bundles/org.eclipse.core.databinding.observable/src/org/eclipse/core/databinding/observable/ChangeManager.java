@@ -9,16 +9,21 @@
  *     IBM Corporation - initial API and implementation
  *     Matthew Hall - bugs 118516, 255734
  *     Chris Audley - bug 273265
+ *     IBM Corporation - weakly referenced listeners
  *******************************************************************************/
 
 package org.eclipse.core.databinding.observable;
 
+import java.lang.ref.WeakReference;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.ListenerList;
 
 /**
  * Listener management implementation. Exposed to subclasses in form of
- * {@link AbstractObservable} and {@link ChangeSupport}.
+ * {@link AbstractObservable} and {@link ChangeSupport}. Listeners implementing
+ * {@link IWeakListener} are held through weak references which are purged
+ * when they are found cleared.
  * 
  * @since 1.0
  * 
@@ -65,7 +70,14 @@ import org.eclipse.core.runtime.ListenerList;
 			listenerTypeIndex = length;
 		}
 		boolean hadListeners = hasListeners();
-		listenerLists[listenerTypeIndex].add(listener);
+		ListenerList listenerList = listenerLists[listenerTypeIndex];
+		if (listener instanceof IWeakListener) {
+			purge(listenerList);
+			if (findReference(listenerList, listener) == null)
+				listenerList.add(new ListenerReference(listener));
+		} else {
+			listenerList.add(listener);
+		}
 		if (!hadListeners && hasListeners()) {
 			firstListenerAdded();
 		}
@@ -80,7 +92,15 @@ import org.eclipse.core.runtime.ListenerList;
 		int listenerTypeIndex = findListenerTypeIndex(listenerType);
 		if (listenerTypeIndex != -1) {
 			boolean hadListeners = hasListeners();
-			listenerLists[listenerTypeIndex].remove(listener);
+			ListenerList listenerList = listenerLists[listenerTypeIndex];
+			if (listener instanceof IWeakListener) {
+				Object reference = findReference(listenerList, listener);
+				if (reference != null)
+					listenerList.remove(reference);
+				purge(listenerList);
+			} else {
+				listenerList.remove(listener);
+			}
 			if (listenerLists[listenerTypeIndex].size() == 0) {
 				if (hadListeners && !hasListeners()) {
 					this.lastListenerRemoved();
@@ -115,9 +135,61 @@ import org.eclipse.core.runtime.ListenerList;
 		if (listenerTypeIndex != -1) {
 			Object[] listeners = listenerLists[listenerTypeIndex]
 					.getListeners();
+			boolean collected = false;
 			for (int i = 0; i < listeners.length; i++) {
-				event.dispatch((IObservablesListener) listeners[i]);
+				Object listener = listeners[i];
+				if (listener instanceof ListenerReference) {
+					listener = ((ListenerReference) listener).get();
+					if (listener == null) {
+						collected = true;
+						continue;
+					}
+				}
+				event.dispatch((IObservablesListener) listener);
 			}
+			if (collected && listenerLists != null) {
+				boolean hadListeners = hasListeners();
+				// A collected listener is usually registered for other event
+				// types too, e.g. a computed value's stale listener
+				for (int i = 0; i < listenerLists.length; i++)
+					purge(listenerLists[i]);
+				if (hadListeners && !hasListeners())
+					lastListenerRemoved();
+			}
+		}
+	}
+
+	/*
+	 * Removes the references to weak listeners which have been garbage
+	 * collected.
+	 */
+	private static void purge(ListenerList listenerList) {
+		Object[] listeners = listenerList.getListeners();
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] instanceof ListenerReference
+					&& ((ListenerReference) listeners[i]).get() == null)
+				listenerList.remove(listeners[i]);
+		}
+	}
+
+	private static Object findReference(ListenerList listenerList,
+			IObservablesListener listener) {
+		Object[] listeners = listenerList.getListeners();
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] instanceof ListenerReference
+					&& ((ListenerReference) listeners[i]).get() == listener)
+				return listeners[i];
+		}
+		return null;
+	}
+
+	/*
+	 * Holder for an IWeakListener. Equality is identity, so the reference can
+	 * be removed from the (equality based) listener list.
+	 */
+	private static final class ListenerReference extends WeakReference {
+		ListenerReference(IObservablesListener listener) {
+			super(listener);
 		}
 	}
 
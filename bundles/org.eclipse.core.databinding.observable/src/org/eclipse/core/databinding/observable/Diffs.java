@@ -26,6 +26,10 @@ import org.eclipse.core.databinding.observable.list.ListDiff;
 import org.eclipse.core.databinding.observable.list.ListDiffEntry;
 import org.eclipse.core.databinding.observable.map.MapDiff;
 import org.eclipse.core.databinding.observable.set.SetDiff;
+import org.eclipse.core.databinding.observable.value.BooleanValueDiff;
+import org.eclipse.core.databinding.observable.value.DoubleValueDiff;
+import org.eclipse.core.databinding.observable.value.IntValueDiff;
+import org.eclipse.core.databinding.observable.value.LongValueDiff;
 import org.eclipse.core.databinding.observable.value.ValueDiff;
 import org.eclipse.core.internal.databinding.observable.Util;
 
@@ -371,6 +375,98 @@ public class Diffs {
 		};
 	}
 
+	/**
+	 * Returns a value diff of an <code>int</code> value which holds the old
+	 * and new values unboxed.
+	 * 
+	 * @param oldValue
+	 * @param newValue
+	 * @return an <code>int</code> value diff
+	 * @since 1.5
+	 */
+	public static IntValueDiff createIntValueDiff(final int oldValue,
+			final int newValue) {
+		return new IntValueDiff() {
+
+			public int getOldIntValue() {
+				return oldValue;
+			}
+
+			public int getNewIntValue() {
+				return newValue;
+			}
+		};
+	}
+
+	/**
+	 * Returns a value diff of a <code>long</code> value which holds the old
+	 * and new values unboxed.
+	 * 
+	 * @param oldValue
+	 * @param newValue
+	 * @return a <code>long</code> value diff
+	 * @since 1.5
+	 */
+	public static LongValueDiff createLongValueDiff(final long oldValue,
+			final long newValue) {
+		return new LongValueDiff() {
+
+			public long getOldLongValue() {
+				return oldValue;
+			}
+
+			public long getNewLongValue() {
+				return newValue;
+			}
+		};
+	}
+
+	/**
+	 * Returns a value diff of a <code>double</code> value which holds the old
+	 * and new values unboxed.
+	 * 
+	 * @param oldValue
+	 * @param newValue
+	 * @return a <code>double</code> value diff
+	 * @since 1.5
+	 */
+	public static DoubleValueDiff createDoubleValueDiff(final double oldValue,
+			final double newValue) {
+		return new DoubleValueDiff() {
+
+			public double getOldDoubleValue() {
+				return oldValue;
+			}
+
+			public double getNewDoubleValue() {
+				return newValue;
+			}
+		};
+	}
+
+	/**
+	 * Returns a value diff of a <code>boolean</code> value which holds the old
+	 * and new values unboxed.
+	 * 
+	 * @param oldValue
+	 * @param newValue
+	 * @return a <code>boolean</code> value diff
+	 * @since 1.5
+	 */
+	public static BooleanValueDiff createBooleanValueDiff(final boolean oldValue,
+			final boolean newValue) {
+		return new BooleanValueDiff() {
+
+			public boolean getOldBooleanValue() {
+				return oldValue;
+			}
+
+			public boolean getNewBooleanValue() {
+				return newValue;
+			}
+		};
+	}
+
 	/**
 	 * @param additions
 	 * @param removals
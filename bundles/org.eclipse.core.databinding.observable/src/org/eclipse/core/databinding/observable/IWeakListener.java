@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable;
+
+/**
+ * Marker interface for listeners which observables should reference weakly.
+ * <p>
+ * Observables derived from the framework's abstract base classes hold
+ * listeners implementing this interface through a weak reference only. Once
+ * such a listener has been garbage collected it is dropped from the observable
+ * without an explicit call to the corresponding <code>remove...Listener</code>
+ * method. The owner of the listener must therefore keep a strong reference to
+ * it for as long as it wants to receive events; this is typically a field of
+ * the object on whose behalf the listener is registered.
+ * </p>
+ * <p>
+ * Listeners not implementing this interface continue to be referenced
+ * strongly, so anonymous listeners are not affected.
+ * </p>
+ * 
+ * @see org.eclipse.core.databinding.observable.value.ComputedValue#setWeakDependencyListeners(boolean)
+ * 
+ * @since 1.5
+ */
+public interface IWeakListener extends IObservablesListener {
+
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.core.databinding.util.Policy;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Diagnostic registry of the observables created while it is
+ * {@link #setEnabled(boolean) enabled}. Observables are referenced weakly and
+ * never kept alive by the detector.
+ * <p>
+ * Observables created while an {@link ObservableTracker#runAndCollect(Runnable)
+ * collecting runnable} runs (as done by <code>ObservablesManager</code> and
+ * <code>DataBindingContext</code>) or while the tracker
+ * {@link ObservableTracker#setIgnore(boolean) ignores} notifications are
+ * considered managed. All other observables must be disposed by whoever
+ * created them; {@link #findLeaks(Realm)} reports the ones which were not
+ * disposed and still have listeners attached. Clients typically call
+ * {@link #reportLeaks(Realm)} once the widget owning a realm has been disposed.
+ * </p>
+ * <p>
+ * {@link #getLiveObservableCounts()} returns the number of live, undisposed
+ * observables per type, which is useful when analyzing heap growth.
+ * </p>
+ * <p>
+ * Tracking adds a weak reference per created observable, so it is disabled by
+ * default. The methods of this class may be called from any thread.
+ * </p>
+ * 
+ * @noinstantiate This class is not intended to be instantiated by clients.
+ * @since 1.5
+ */
+public final class ObservableLeakDetector {
+	private static volatile boolean enabled = false;
+
+	private static final ReferenceQueue queue = new ReferenceQueue();
+
+	private static final Set entries = new HashSet();
+
+	private static final class Entry extends WeakReference {
+		final boolean managed;
+
+		Entry(IObservable observable, boolean managed) {
+			super(observable, queue);
+			this.managed = managed;
+		}
+	}
+
+	private ObservableLeakDetector() {
+	}
+
+	/**
+	 * Enables or disables tracking of newly created observables. Disabling
+	 * discards everything tracked so far.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to track observables created from now on
+	 */
+	public static void setEnabled(boolean enabled) {
+		synchronized (entries) {
+			ObservableLeakDetector.enabled = enabled;
+			if (!enabled) {
+				entries.clear();
+				while (queue.poll() != null) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return whether newly created observables are tracked
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/* package */static void observableCreated(IObservable observable,
+			boolean managed) {
+		if (!enabled)
+			return;
+		synchronized (entries) {
+			expunge();
+			entries.add(new Entry(observable, managed));
+		}
+	}
+
+	private static void expunge() {
+		Reference reference;
+		while ((reference = queue.poll()) != null)
+			entries.remove(reference);
+	}
+
+	/**
+	 * Returns the number of tracked observables which have neither been
+	 * garbage collected nor disposed, keyed by the fully qualified name of
+	 * their class.
+	 * 
+	 * @return a sorted map from class name (String) to count (Integer)
+	 */
+	public static Map getLiveObservableCounts() {
+		List live = new ArrayList();
+		synchronized (entries) {
+			expunge();
+			for (Iterator it = entries.iterator(); it.hasNext();) {
+				Object observable = ((Entry) it.next()).get();
+				if (observable != null)
+					live.add(observable);
+			}
+		}
+
+		// Checked outside the lock, observables synchronize on themselves
+		Map counts = new TreeMap();
+		for (Iterator it = live.iterator(); it.hasNext();) {
+			IObservable observable = (IObservable) it.next();
+			if (observable.isDisposed())
+				continue;
+			String typeName = observable.getClass().getName();
+			Integer count = (Integer) counts.get(typeName);
+			counts.put(typeName, new Integer(count == null ? 1 : count
+					.intValue() + 1));
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the unmanaged observables of the given realm which have not been
+	 * disposed and still have listeners attached. Observables which do not
+	 * derive from the framework's base classes cannot be asked for their
+	 * listeners and are reported as long as they are not disposed.
+	 * 
+	 * @param realm
+	 *            the realm whose observables to check
+	 * @return the suspected leaks, never <code>null</code>
+	 */
+	public static IObservable[] findLeaks(Realm realm) {
+		List candidates = new ArrayList();
+		synchronized (entries) {
+			expunge();
+			for (Iterator it = entries.iterator(); it.hasNext();) {
+				Entry entry = (Entry) it.next();
+				if (entry.managed)
+					continue;
+				Object observable = entry.get();
+				if (observable != null)
+					candidates.add(observable);
+			}
+		}
+
+		// Checked outside the lock, observables synchronize on themselves
+		List leaks = new ArrayList();
+		for (Iterator it = candidates.iterator(); it.hasNext();) {
+			IObservable observable = (IObservable) it.next();
+			if (observable.getRealm() == realm && !observable.isDisposed()
+					&& isListening(observable))
+				leaks.add(observable);
+		}
+		return (IObservable[]) leaks.toArray(new IObservable[leaks.size()]);
+	}
+
+	private static boolean isListening(IObservable observable) {
+		if (observable instanceof ChangeManager)
+			return ((ChangeManager) observable).hasListeners();
+		return true;
+	}
+
+	/**
+	 * Logs a warning listing the {@link #findLeaks(Realm) suspected leaks} of
+	 * the given realm, if there are any.
+	 * 
+	 * @param realm
+	 *            the realm whose observables to check
+	 * @return the number of suspected leaks
+	 */
+	public static int reportLeaks(Realm realm) {
+		IObservable[] leaks = findLeaks(realm);
+		if (leaks.length > 0) {
+			MultiStatus status = new MultiStatus(Policy.JFACE_DATABINDING, 0,
+					leaks.length
+							+ " observables were not disposed and are still listening", //$NON-NLS-1$
+					null);
+			for (int i = 0; i < leaks.length; i++) {
+				status.add(new Status(IStatus.WARNING,
+						Policy.JFACE_DATABINDING, leaks[i].getClass()
+								.getName()
+								+ "@" //$NON-NLS-1$
+								+ Integer.toHexString(System
+										.identityHashCode(leaks[i]))));
+			}
+			Policy.getLog().log(status);
+		}
+		return leaks.length;
+	}
+}
@@ -281,9 +281,12 @@ public class ObservableTracker {
 	 * @since 1.2
 	 */
 	public static void observableCreated(IObservable observable) {
+		Set observableCreatedSet = (Set) currentObservableCreatedSet.get();
+		if (ObservableLeakDetector.isEnabled())
+			ObservableLeakDetector.observableCreated(observable, isIgnore()
+					|| observableCreatedSet != null);
 		if (isIgnore())
 			return;
-		Set observableCreatedSet = (Set) currentObservableCreatedSet.get();
 		if (observableCreatedSet != null) {
 			observableCreatedSet.add(observable);
 		}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable.value;
+
+/**
+ * A {@link ValueDiff} describing a change of a <code>boolean</code> value. The
+ * old and new values are held unboxed; {@link #getOldValue()} and
+ * {@link #getNewValue()} box them on request only.
+ * 
+ * @see org.eclipse.core.databinding.observable.Diffs#createBooleanValueDiff(boolean,
+ *      boolean)
+ * 
+ * @since 1.5
+ */
+public abstract class BooleanValueDiff extends ValueDiff {
+	/**
+	 * Creates a <code>boolean</code> value diff.
+	 */
+	public BooleanValueDiff() {
+	}
+
+	/**
+	 * @return the old value
+	 */
+	public abstract boolean getOldBooleanValue();
+
+	/**
+	 * @return the new value
+	 */
+	public abstract boolean getNewBooleanValue();
+
+	public Object getOldValue() {
+		return getOldBooleanValue() ? Boolean.TRUE : Boolean.FALSE;
+	}
+
+	public Object getNewValue() {
+		return getNewBooleanValue() ? Boolean.TRUE : Boolean.FALSE;
+	}
+}
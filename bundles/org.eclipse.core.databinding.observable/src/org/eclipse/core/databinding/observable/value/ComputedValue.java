@@ -9,6 +9,7 @@
  *     IBM Corporation - initial API and implementation
  *     Brad Reynolds - bugs 116920, 147515
  *     Matthew Hall - bug 274081
+ *     IBM Corporation - weak dependency listeners
  *******************************************************************************/
 package org.eclipse.core.databinding.observable.value;
 
@@ -16,6 +17,7 @@ import org.eclipse.core.databinding.observable.ChangeEvent;
 import org.eclipse.core.databinding.observable.IChangeListener;
 import org.eclipse.core.databinding.observable.IObservable;
 import org.eclipse.core.databinding.observable.IStaleListener;
+import org.eclipse.core.databinding.observable.IWeakListener;
 import org.eclipse.core.databinding.observable.ObservableTracker;
 import org.eclipse.core.databinding.observable.Realm;
 import org.eclipse.core.databinding.observable.StaleEvent;
@@ -148,6 +150,25 @@ public abstract class ComputedValue extends AbstractObservableValue {
 
 	private PrivateInterface privateInterface = new PrivateInterface();
 
+	/**
+	 * Delegate to the private interface which the dependencies reference
+	 * weakly. This computed value keeps it reachable.
+	 */
+	private class WeakDependencyListener implements IChangeListener,
+			IStaleListener, IWeakListener {
+		public void handleStale(StaleEvent event) {
+			privateInterface.handleStale(event);
+		}
+
+		public void handleChange(ChangeEvent event) {
+			privateInterface.handleChange(event);
+		}
+	}
+
+	private IChangeListener dependencyChangeListener = privateInterface;
+
+	private IStaleListener dependencyStaleListener = privateInterface;
+
 	private Object valueType;
 
 	protected final Object doGetValue() {
@@ -157,7 +178,7 @@ public abstract class ComputedValue extends AbstractObservableValue {
 			// - While doing so, add any observable that is touched to the
 			// dependencies list
 			IObservable[] newDependencies = ObservableTracker.runAndMonitor(
-					privateInterface, privateInterface, null);
+					privateInterface, dependencyChangeListener, null);
 
 			stale = false;
 			for (int i = 0; i < newDependencies.length; i++) {
@@ -166,7 +187,7 @@ public abstract class ComputedValue extends AbstractObservableValue {
 				if (observable.isStale()) {
 					stale = true;
 				} else {
-					observable.addStaleListener(privateInterface);
+					observable.addStaleListener(dependencyStaleListener);
 				}
 			}
 
@@ -220,13 +241,63 @@ public abstract class ComputedValue extends AbstractObservableValue {
 			for (int i = 0; i < dependencies.length; i++) {
 				IObservable observable = dependencies[i];
 
-				observable.removeChangeListener(privateInterface);
-				observable.removeStaleListener(privateInterface);
+				observable.removeChangeListener(dependencyChangeListener);
+				observable.removeStaleListener(dependencyStaleListener);
 			}
 			dependencies = null;
 		}
 	}
 
+	/**
+	 * Sets whether the observables this computed value depends on reference it
+	 * weakly.
+	 * <p>
+	 * By default every dependency holds a strong reference to this computed
+	 * value, so a computed value which is never disposed stays reachable, along
+	 * with all listeners registered with it, for as long as any of its
+	 * dependencies is. With weak dependency listeners it can be garbage
+	 * collected as soon as it is no longer referenced elsewhere. Clients opting
+	 * in must keep a strong reference to this computed value for as long as
+	 * they rely on its change events.
+	 * </p>
+	 * <p>
+	 * This is typically called from the constructor of the subclass.
+	 * </p>
+	 * 
+	 * @param weak
+	 *            <code>true</code> to have dependencies reference this computed
+	 *            value weakly, <code>false</code> for strong references
+	 * @see IWeakListener
+	 * @since 1.5
+	 */
+	protected final void setWeakDependencyListeners(boolean weak) {
+		if (weak == (dependencyChangeListener != privateInterface))
+			return;
+
+		IChangeListener oldChangeListener = dependencyChangeListener;
+		IStaleListener oldStaleListener = dependencyStaleListener;
+		if (weak) {
+			WeakDependencyListener listener = new WeakDependencyListener();
+			dependencyChangeListener = listener;
+			dependencyStaleListener = listener;
+		} else {
+			dependencyChangeListener = privateInterface;
+			dependencyStaleListener = privateInterface;
+		}
+
+		if (dependencies != null) {
+			for (int i = 0; i < dependencies.length; i++) {
+				IObservable observable = dependencies[i];
+
+				observable.removeChangeListener(oldChangeListener);
+				observable.addChangeListener(dependencyChangeListener);
+				observable.removeStaleListener(oldStaleListener);
+				if (!observable.isStale())
+					observable.addStaleListener(dependencyStaleListener);
+			}
+		}
+	}
+
 	public boolean isStale() {
 		// we need to recompute, otherwise staleness wouldn't mean anything
 		getValue();
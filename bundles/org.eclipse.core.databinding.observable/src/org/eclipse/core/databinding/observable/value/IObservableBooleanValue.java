@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable.value;
+
+import org.eclipse.core.databinding.observable.Realm;
+
+/**
+ * An observable value of type <code>boolean</code> which can be read and written
+ * without boxing. The {@link #getValueType() value type} is
+ * <code>Boolean.TYPE</code>, and the boxed accessors of {@link IObservableValue}
+ * remain available as a compatibility view. Value change events fired by
+ * implementations carry {@link BooleanValueDiff}s.
+ * 
+ * @noimplement This interface is not intended to be implemented by clients.
+ *              Clients should instead subclass one of the classes that
+ *              implement this interface.
+ * 
+ * @see WritableBooleanValue
+ * 
+ * @since 1.5
+ */
+public interface IObservableBooleanValue extends IObservableValue {
+
+	/**
+	 * Returns the value without boxing. Must be invoked in the {@link Realm}
+	 * of the observable.
+	 * 
+	 * @return the current value
+	 * @TrackedGetter
+	 */
+	public boolean getBooleanValue();
+
+	/**
+	 * Sets the value without boxing. Must be invoked in the {@link Realm} of
+	 * the observable.
+	 * 
+	 * @param value
+	 *            the value to set
+	 * @throws UnsupportedOperationException
+	 *             if this observable value cannot be set.
+	 */
+	public void setBooleanValue(boolean value);
+}
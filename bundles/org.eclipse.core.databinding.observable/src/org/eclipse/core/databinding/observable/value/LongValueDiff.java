@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable.value;
+
+/**
+ * A {@link ValueDiff} describing a change of a <code>long</code> value. The
+ * old and new values are held unboxed; {@link #getOldValue()} and
+ * {@link #getNewValue()} box them on request only.
+ * 
+ * @see org.eclipse.core.databinding.observable.Diffs#createLongValueDiff(long,
+ *      long)
+ * 
+ * @since 1.5
+ */
+public abstract class LongValueDiff extends ValueDiff {
+	/**
+	 * Creates a <code>long</code> value diff.
+	 */
+	public LongValueDiff() {
+	}
+
+	/**
+	 * @return the old value
+	 */
+	public abstract long getOldLongValue();
+
+	/**
+	 * @return the new value
+	 */
+	public abstract long getNewLongValue();
+
+	public Object getOldValue() {
+		return new Long(getOldLongValue());
+	}
+
+	public Object getNewValue() {
+		return new Long(getNewLongValue());
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable.value;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.ObservableTracker;
+import org.eclipse.core.databinding.observable.Realm;
+
+/**
+ * Mutable (writable) implementation of {@link IObservableBooleanValue}. The value
+ * is stored unboxed and changes are reported as {@link BooleanValueDiff}s, so
+ * reading and writing through {@link #getBooleanValue()} and
+ * {@link #setBooleanValue(boolean)} does not allocate boxed values.
+ * 
+ * <p>
+ * This class is thread safe. All state accessing methods must be invoked from
+ * the {@link Realm#isCurrent() current realm}. Methods for adding and removing
+ * listeners may be invoked from any thread.
+ * </p>
+ * 
+ * @since 1.5
+ */
+public class WritableBooleanValue extends AbstractObservableValue implements
+		IObservableBooleanValue {
+	private boolean value;
+
+	/**
+	 * Constructs a new instance with the default realm and an initial value of
+	 * <code>false</code>.
+	 */
+	public WritableBooleanValue() {
+		this(Realm.getDefault());
+	}
+
+	/**
+	 * Constructs a new instance with the default realm.
+	 * 
+	 * @param initialValue
+	 */
+	public WritableBooleanValue(boolean initialValue) {
+		this(Realm.getDefault(), initialValue);
+	}
+
+	/**
+	 * Constructs a new instance with the provided <code>realm</code> and an
+	 * initial value of <code>false</code>.
+	 * 
+	 * @param realm
+	 */
+	public WritableBooleanValue(Realm realm) {
+		super(realm);
+	}
+
+	/**
+	 * Constructs a new instance.
+	 * 
+	 * @param realm
+	 * @param initialValue
+	 */
+	public WritableBooleanValue(Realm realm, boolean initialValue) {
+		super(realm);
+		this.value = initialValue;
+	}
+
+	public boolean getBooleanValue() {
+		ObservableTracker.getterCalled(this);
+		return value;
+	}
+
+	public void setBooleanValue(boolean value) {
+		checkRealm();
+		if (this.value != value) {
+			boolean oldValue = this.value;
+			this.value = value;
+			fireValueChange(Diffs.createBooleanValueDiff(oldValue, value));
+		}
+	}
+
+	protected Object doGetValue() {
+		return value ? Boolean.TRUE : Boolean.FALSE;
+	}
+
+	protected void doSetValue(Object value) {
+		setBooleanValue(((Boolean) value).booleanValue());
+	}
+
+	public Object getValueType() {
+		return Boolean.TYPE;
+	}
+}
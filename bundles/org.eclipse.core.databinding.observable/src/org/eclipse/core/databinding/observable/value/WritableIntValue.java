@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable.value;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.ObservableTracker;
+import org.eclipse.core.databinding.observable.Realm;
+
+/**
+ * Mutable (writable) implementation of {@link IObservableIntValue}. The value
+ * is stored unboxed and changes are reported as {@link IntValueDiff}s, so
+ * reading and writing through {@link #getIntValue()} and
+ * {@link #setIntValue(int)} does not allocate boxed values.
+ * 
+ * <p>
+ * This class is thread safe. All state accessing methods must be invoked from
+ * the {@link Realm#isCurrent() current realm}. Methods for adding and removing
+ * listeners may be invoked from any thread.
+ * </p>
+ * 
+ * @since 1.5
+ */
+public class WritableIntValue extends AbstractObservableValue implements
+		IObservableIntValue {
+	private int value;
+
+	/**
+	 * Constructs a new instance with the default realm and an initial value of
+	 * <code>0</code>.
+	 */
+	public WritableIntValue() {
+		this(Realm.getDefault());
+	}
+
+	/**
+	 * Constructs a new instance with the default realm.
+	 * 
+	 * @param initialValue
+	 */
+	public WritableIntValue(int initialValue) {
+		this(Realm.getDefault(), initialValue);
+	}
+
+	/**
+	 * Constructs a new instance with the provided <code>realm</code> and an
+	 * initial value of <code>0</code>.
+	 * 
+	 * @param realm
+	 */
+	public WritableIntValue(Realm realm) {
+		super(realm);
+	}
+
+	/**
+	 * Constructs a new instance.
+	 * 
+	 * @param realm
+	 * @param initialValue
+	 */
+	public WritableIntValue(Realm realm, int initialValue) {
+		super(realm);
+		this.value = initialValue;
+	}
+
+	public int getIntValue() {
+		ObservableTracker.getterCalled(this);
+		return value;
+	}
+
+	public void setIntValue(int value) {
+		checkRealm();
+		if (this.value != value) {
+			int oldValue = this.value;
+			this.value = value;
+			fireValueChange(Diffs.createIntValueDiff(oldValue, value));
+		}
+	}
+
+	protected Object doGetValue() {
+		return new Integer(value);
+	}
+
+	protected void doSetValue(Object value) {
+		setIntValue(((Integer) value).intValue());
+	}
+
+	public Object getValueType() {
+		return Integer.TYPE;
+	}
+}
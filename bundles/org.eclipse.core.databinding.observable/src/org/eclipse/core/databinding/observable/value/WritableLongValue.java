@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.observable.value;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.ObservableTracker;
+import org.eclipse.core.databinding.observable.Realm;
+
+/**
+ * Mutable (writable) implementation of {@link IObservableLongValue}. The value
+ * is stored unboxed and changes are reported as {@link LongValueDiff}s, so
+ * reading and writing through {@link #getLongValue()} and
+ * {@link #setLongValue(long)} does not allocate boxed values.
+ * 
+ * <p>
+ * This class is thread safe. All state accessing methods must be invoked from
+ * the {@link Realm#isCurrent() current realm}. Methods for adding and removing
+ * listeners may be invoked from any thread.
+ * </p>
+ * 
+ * @since 1.5
+ */
+public class WritableLongValue extends AbstractObservableValue implements
+		IObservableLongValue {
+	private long value;
+
+	/**
+	 * Constructs a new instance with the default realm and an initial value of
+	 * <code>0</code>.
+	 */
+	public WritableLongValue() {
+		this(Realm.getDefault());
+	}
+
+	/**
+	 * Constructs a new instance with the default realm.
+	 * 
+	 * @param initialValue
+	 */
+	public WritableLongValue(long initialValue) {
+		this(Realm.getDefault(), initialValue);
+	}
+
+	/**
+	 * Constructs a new instance with the provided <code>realm</code> and an
+	 * initial value of <code>0</code>.
+	 * 
+	 * @param realm
+	 */
+	public WritableLongValue(Realm realm) {
+		super(realm);
+	}
+
+	/**
+	 * Constructs a new instance.
+	 * 
+	 * @param realm
+	 * @param initialValue
+	 */
+	public WritableLongValue(Realm realm, long initialValue) {
+		super(realm);
+		this.value = initialValue;
+	}
+
+	public long getLongValue() {
+		ObservableTracker.getterCalled(this);
+		return value;
+	}
+
+	public void setLongValue(long value) {
+		checkRealm();
+		if (this.value != value) {
+			long oldValue = this.value;
+			this.value = value;
+			fireValueChange(Diffs.createLongValueDiff(oldValue, value));
+		}
+	}
+
+	protected Object doGetValue() {
+		return new Long(value);
+	}
+
+	protected void doSetValue(Object value) {
+		setLongValue(((Long) value).longValue());
+	}
+
+	public Object getValueType() {
+		return Long.TYPE;
+	}
+}
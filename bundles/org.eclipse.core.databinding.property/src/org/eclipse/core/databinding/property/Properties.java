@@ -8,6 +8,7 @@
  * Contributors:
  *     Matthew Hall - initial API and implementation (bug 194734)
  *     Matthew Hall - bugs 195222, 263868, 264954
+ *     IBM Corporation - columnar observable maps
  ******************************************************************************/
 
 package org.eclipse.core.databinding.property;
@@ -25,9 +26,11 @@ import org.eclipse.core.databinding.property.list.IListProperty;
 import org.eclipse.core.databinding.property.map.IMapProperty;
 import org.eclipse.core.databinding.property.set.ISetProperty;
 import org.eclipse.core.databinding.property.value.IValueProperty;
+import org.eclipse.core.databinding.property.value.SimpleValueProperty;
 import org.eclipse.core.internal.databinding.property.list.SelfListProperty;
 import org.eclipse.core.internal.databinding.property.map.SelfMapProperty;
 import org.eclipse.core.internal.databinding.property.set.SelfSetProperty;
+import org.eclipse.core.internal.databinding.property.value.ColumnarValueStore;
 import org.eclipse.core.internal.databinding.property.value.ObservableValueProperty;
 import org.eclipse.core.internal.databinding.property.value.SelfValueProperty;
 
@@ -82,6 +85,60 @@ public class Properties {
 		return maps;
 	}
 
+	/**
+	 * Returns an array of observable maps where each map observes the
+	 * corresponding value property on all elements in the given domain set,
+	 * for each property in the given array. Unlike
+	 * {@link #observeEach(IObservableSet, IValueProperty[])}, the returned maps
+	 * share a single column oriented store: elements are indexed once for all
+	 * maps, cached values are held in one array per map, and each map uses a
+	 * single native listener for all elements. This keeps the per element
+	 * overhead to a few array slots, which matters for tables with very many
+	 * rows.
+	 * <p>
+	 * Only instances of {@link SimpleValueProperty} can share the store. Any
+	 * other property is observed with
+	 * {@link IValueProperty#observeDetail(IObservableSet)} as usual.
+	 * 
+	 * @param domainSet
+	 *            the set of elements whose properties will be observed
+	 * @param properties
+	 *            array of value properties to observe on each element in the
+	 *            domain set.
+	 * @return an array of observable maps where each map observes the
+	 *         corresponding value property of the given domain set.
+	 * @since 1.5
+	 */
+	public static IObservableMap[] observeColumns(IObservableSet domainSet,
+			IValueProperty[] properties) {
+		IObservableMap[] maps = new IObservableMap[properties.length];
+
+		int simpleCount = 0;
+		for (int i = 0; i < properties.length; i++) {
+			if (properties[i] instanceof SimpleValueProperty)
+				simpleCount++;
+		}
+
+		SimpleValueProperty[] simpleProperties = new SimpleValueProperty[simpleCount];
+		int[] simpleIndices = new int[simpleCount];
+		for (int i = 0, j = 0; i < properties.length; i++) {
+			if (properties[i] instanceof SimpleValueProperty) {
+				simpleProperties[j] = (SimpleValueProperty) properties[i];
+				simpleIndices[j++] = i;
+			} else {
+				maps[i] = properties[i].observeDetail(domainSet);
+			}
+		}
+
+		if (simpleCount > 0) {
+			IObservableMap[] columns = new ColumnarValueStore(domainSet,
+					simpleProperties).getColumns();
+			for (int j = 0; j < columns.length; j++)
+				maps[simpleIndices[j]] = columns[j];
+		}
+		return maps;
+	}
+
 	/**
 	 * Returns a value property which takes the source object itself as the
 	 * property value. This property may be used to wrap an object in an
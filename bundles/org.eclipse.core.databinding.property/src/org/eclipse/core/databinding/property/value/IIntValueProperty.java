@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.property.value;
+
+import org.eclipse.core.databinding.observable.value.IObservableIntValue;
+
+/**
+ * A value property of type <code>int</code> which can be read and written
+ * without boxing. The {@link #getValueType() value type} is
+ * <code>Integer.TYPE</code>.
+ * <p>
+ * A {@link SimpleValueProperty} implementing this interface creates
+ * observables which implement {@link IObservableIntValue}: they cache the
+ * unboxed value, compare values without allocating and report changes as
+ * {@link org.eclipse.core.databinding.observable.value.IntValueDiff}s.
+ * </p>
+ * 
+ * @noextend This interface is not intended to be extended by clients.
+ *            Clients implementing it should also subclass
+ *            {@link SimpleValueProperty}.
+ * 
+ * @since 1.5
+ */
+public interface IIntValueProperty extends IValueProperty {
+	/**
+	 * Returns the current value of this property on the specified property
+	 * source, without boxing.
+	 * 
+	 * @param source
+	 *            the property source (may be null)
+	 * @return the current value of this property on the specified property
+	 *         source, or <code>0</code> if the source is <code>null</code>.
+	 */
+	public int getIntValue(Object source);
+
+	/**
+	 * Sets this property on the specified property source to the specified
+	 * value, without boxing.
+	 * 
+	 * @param source
+	 *            the property source (may be null)
+	 * @param value
+	 *            the new property value
+	 */
+	public void setIntValue(Object source, int value);
+}
@@ -22,6 +22,7 @@ import org.eclipse.core.databinding.property.ISimplePropertyListener;
 import org.eclipse.core.internal.databinding.property.value.ListSimpleValueObservableList;
 import org.eclipse.core.internal.databinding.property.value.MapSimpleValueObservableMap;
 import org.eclipse.core.internal.databinding.property.value.SetSimpleValueObservableMap;
+import org.eclipse.core.internal.databinding.property.value.SimplePropertyObservableIntValue;
 import org.eclipse.core.internal.databinding.property.value.SimplePropertyObservableValue;
 
 /**
@@ -66,7 +67,23 @@ public abstract class SimpleValueProperty extends ValueProperty {
 	public abstract INativePropertyListener adaptListener(
 			ISimplePropertyListener listener);
 
+	/**
+	 * Returns an observable value observing this value property on the given
+	 * property source. If this property implements {@link IIntValueProperty}
+	 * the returned observable implements
+	 * {@link org.eclipse.core.databinding.observable.value.IObservableIntValue}
+	 * and tracks the value without boxing.
+	 *
+	 * @param realm
+	 *            the observable's realm
+	 * @param source
+	 *            the property source
+	 * @return an observable value observing this value property on the given
+	 *         property source
+	 */
 	public IObservableValue observe(Realm realm, Object source) {
+		if (this instanceof IIntValueProperty)
+			return new SimplePropertyObservableIntValue(realm, source, this);
 		return new SimplePropertyObservableValue(realm, source, this);
 	}
 
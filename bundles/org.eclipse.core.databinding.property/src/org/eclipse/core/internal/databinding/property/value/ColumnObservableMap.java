@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.property.value;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.databinding.observable.ObservableTracker;
+import org.eclipse.core.databinding.observable.map.AbstractObservableMap;
+import org.eclipse.core.databinding.observable.map.MapDiff;
+import org.eclipse.core.databinding.observable.set.IObservableSet;
+import org.eclipse.core.databinding.property.IProperty;
+import org.eclipse.core.databinding.property.IPropertyObservable;
+
+/**
+ * Observable map for one column of a {@link ColumnarValueStore}. All values
+ * and listener registrations are held by the store, so the map itself carries
+ * no per-key state.
+ *
+ * @since 1.5
+ */
+public class ColumnObservableMap extends AbstractObservableMap implements
+		IPropertyObservable {
+	private ColumnarValueStore store;
+	private final int column;
+	private IObservableSet keySet;
+	private Object valueType;
+
+	private Set entrySet = new EntrySet();
+
+	private class EntrySet extends AbstractSet {
+		public Iterator iterator() {
+			final Iterator keyIterator = keySet.iterator();
+			return new Iterator() {
+				public boolean hasNext() {
+					return keyIterator.hasNext();
+				}
+
+				public Object next() {
+					final Object key = keyIterator.next();
+					return new Map.Entry() {
+						public Object getKey() {
+							getterCalled();
+							return key;
+						}
+
+						public Object getValue() {
+							return get(getKey());
+						}
+
+						public Object setValue(Object value) {
+							return put(getKey(), value);
+						}
+					};
+				}
+
+				public void remove() {
+					keyIterator.remove();
+				}
+			};
+		}
+
+		public int size() {
+			return keySet.size();
+		}
+	}
+
+	ColumnObservableMap(ColumnarValueStore store, int column) {
+		super(store.getRealm());
+		this.store = store;
+		this.column = column;
+		this.keySet = store.getKeySet();
+		this.valueType = store.getProperty(column).getValueType();
+	}
+
+	protected void firstListenerAdded() {
+		getRealm().exec(new Runnable() {
+			public void run() {
+				if (store != null && hasListeners())
+					store.activate(column);
+			}
+		});
+	}
+
+	protected void lastListenerRemoved() {
+		if (store != null)
+			store.deactivate(column);
+	}
+
+	void fireColumnStale() {
+		fireStale();
+	}
+
+	void fireColumnChange(MapDiff diff) {
+		fireMapChange(diff);
+	}
+
+	private void getterCalled() {
+		ObservableTracker.getterCalled(this);
+	}
+
+	public Object getKeyType() {
+		return keySet.getElementType();
+	}
+
+	public Object getValueType() {
+		return valueType;
+	}
+
+	public Set keySet() {
+		return keySet;
+	}
+
+	public Set entrySet() {
+		return entrySet;
+	}
+
+	public boolean containsKey(Object key) {
+		getterCalled();
+		return keySet.contains(key);
+	}
+
+	public Object get(Object key) {
+		getterCalled();
+		if (!keySet.contains(key))
+			return null;
+		return store.get(column, key);
+	}
+
+	public Object put(Object key, Object value) {
+		checkRealm();
+		if (!keySet.contains(key))
+			return null;
+		return store.put(column, key, value);
+	}
+
+	public Object remove(Object key) {
+		checkRealm();
+
+		Object oldValue = get(key);
+		keySet.remove(key);
+
+		return oldValue;
+	}
+
+	public boolean isStale() {
+		return super.isStale() || keySet.isStale()
+				|| store != null && store.hasStaleRows(column);
+	}
+
+	public Object getObserved() {
+		return keySet;
+	}
+
+	public IProperty getProperty() {
+		return store == null ? null : store.getProperty(column);
+	}
+
+	public synchronized void dispose() {
+		if (store != null) {
+			ColumnarValueStore oldStore = store;
+			store = null;
+			oldStore.columnDisposed(column);
+		}
+		entrySet = null;
+		super.dispose();
+	}
+}
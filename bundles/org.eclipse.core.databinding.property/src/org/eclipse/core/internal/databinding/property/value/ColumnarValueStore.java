@@ -0,0 +1,544 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.property.value;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.DisposeEvent;
+import org.eclipse.core.databinding.observable.IDisposeListener;
+import org.eclipse.core.databinding.observable.IStaleListener;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.StaleEvent;
+import org.eclipse.core.databinding.observable.map.IObservableMap;
+import org.eclipse.core.databinding.observable.map.MapDiff;
+import org.eclipse.core.databinding.observable.set.IObservableSet;
+import org.eclipse.core.databinding.observable.set.ISetChangeListener;
+import org.eclipse.core.databinding.observable.set.SetChangeEvent;
+import org.eclipse.core.databinding.property.INativePropertyListener;
+import org.eclipse.core.databinding.property.ISimplePropertyListener;
+import org.eclipse.core.databinding.property.SimplePropertyEvent;
+import org.eclipse.core.databinding.property.value.SimpleValueProperty;
+import org.eclipse.core.internal.databinding.identity.IdentityMap;
+import org.eclipse.core.internal.databinding.property.Util;
+
+/**
+ * Shared, column oriented backing store for a group of observable maps which
+ * observe several value properties over the same key set.
+ * <p>
+ * The store keeps a single identity index from key to row number, and one
+ * value array per column. Adding a key to the key set costs a few array slots
+ * per column instead of the wrapper objects and hash map entries allocated by
+ * {@link SetSimpleValueObservableMap} for each key of each column. Only one
+ * native listener is created per column, and it is registered on all keys of
+ * the column in a single pass when the key set grows.
+ *
+ * @since 1.5
+ */
+public class ColumnarValueStore {
+	private static final int MIN_CAPACITY = 16;
+
+	private IObservableSet keySet;
+	private Realm realm;
+
+	private SimpleValueProperty[] properties;
+	private ColumnObservableMap[] columns;
+	private INativePropertyListener[] listeners;
+
+	private int activeColumns;
+	private int disposedColumns;
+
+	/* row -> key; null marks a free row */
+	private Object[] keys;
+	/* column -> row -> cached value, null while the column is inactive */
+	private Object[][] values;
+	/* column -> bit set of stale rows, null while no row is stale */
+	private int[][] staleRows;
+	private int[] staleCounts;
+
+	/* open addressing identity hash table, slot -> row + 1 (0 is empty) */
+	private int[] table;
+	private int size;
+	private int rowLimit;
+	private int[] freeRows;
+	private int freeCount;
+
+	private boolean updating;
+
+	private ISetChangeListener setChangeListener = new ISetChangeListener() {
+		public void handleSetChange(SetChangeEvent event) {
+			handleKeySetChange(event.diff.getAdditions(),
+					event.diff.getRemovals());
+		}
+	};
+
+	private IStaleListener staleListener = new IStaleListener() {
+		public void handleStale(StaleEvent staleEvent) {
+			for (int i = 0; i < columns.length; i++) {
+				if (values[i] != null)
+					columns[i].fireColumnStale();
+			}
+		}
+	};
+
+	/**
+	 * @param keySet
+	 *            the set of keys observed by every column
+	 * @param properties
+	 *            the value property observed in each column
+	 */
+	public ColumnarValueStore(IObservableSet keySet,
+			SimpleValueProperty[] properties) {
+		this.keySet = keySet;
+		this.realm = keySet.getRealm();
+		this.properties = properties;
+		this.columns = new ColumnObservableMap[properties.length];
+		this.listeners = new INativePropertyListener[properties.length];
+		this.values = new Object[properties.length][];
+		this.staleRows = new int[properties.length][];
+		this.staleCounts = new int[properties.length];
+		for (int i = 0; i < properties.length; i++)
+			columns[i] = new ColumnObservableMap(this, i);
+
+		keySet.addDisposeListener(new IDisposeListener() {
+			public void handleDispose(DisposeEvent staleEvent) {
+				for (int i = 0; i < columns.length; i++)
+					columns[i].dispose();
+			}
+		});
+	}
+
+	/**
+	 * @return one observable map per observed property, in the order the
+	 *         properties were passed to the constructor
+	 */
+	public IObservableMap[] getColumns() {
+		IObservableMap[] result = new IObservableMap[columns.length];
+		System.arraycopy(columns, 0, result, 0, columns.length);
+		return result;
+	}
+
+	IObservableSet getKeySet() {
+		return keySet;
+	}
+
+	Realm getRealm() {
+		return realm;
+	}
+
+	SimpleValueProperty getProperty(int column) {
+		return properties[column];
+	}
+
+	boolean hasStaleRows(int column) {
+		return staleCounts[column] > 0;
+	}
+
+	/**
+	 * Starts caching and listening for the given column. Populates the whole
+	 * column in one pass over the current rows.
+	 */
+	void activate(final int column) {
+		if (keySet == null || values[column] != null)
+			return;
+		if (activeColumns++ == 0)
+			hookKeySet();
+
+		SimpleValueProperty property = properties[column];
+		Object[] columnValues = new Object[keys.length];
+		values[column] = columnValues;
+
+		if (listeners[column] == null)
+			listeners[column] = property
+					.adaptListener(new ISimplePropertyListener() {
+						public void handleEvent(final SimplePropertyEvent event) {
+							if (updating || keySet == null)
+								return;
+							realm.exec(new Runnable() {
+								public void run() {
+									handleNativeEvent(column, event);
+								}
+							});
+						}
+					});
+		INativePropertyListener listener = listeners[column];
+
+		for (int row = 0; row < rowLimit; row++) {
+			Object key = keys[row];
+			if (key != null) {
+				columnValues[row] = property.getValue(key);
+				if (listener != null)
+					listener.addTo(key);
+			}
+		}
+	}
+
+	/**
+	 * Stops caching and listening for the given column. Releases the row index
+	 * once no column is active any more.
+	 */
+	void deactivate(int column) {
+		if (values[column] == null)
+			return;
+		INativePropertyListener listener = listeners[column];
+		if (listener != null) {
+			for (int row = 0; row < rowLimit; row++) {
+				Object key = keys[row];
+				if (key != null)
+					listener.removeFrom(key);
+			}
+		}
+		values[column] = null;
+		staleRows[column] = null;
+		staleCounts[column] = 0;
+
+		if (--activeColumns == 0)
+			unhookKeySet();
+	}
+
+	Object get(int column, Object key) {
+		Object[] columnValues = values[column];
+		if (columnValues != null && listeners[column] != null) {
+			int row = indexOf(key);
+			if (row >= 0)
+				return columnValues[row];
+		}
+		return properties[column].getValue(key);
+	}
+
+	Object put(int column, Object key, Object value) {
+		SimpleValueProperty property = properties[column];
+		Object oldValue = property.getValue(key);
+
+		updating = true;
+		try {
+			property.setValue(key, value);
+		} finally {
+			updating = false;
+		}
+
+		notifyIfChanged(column, key);
+
+		return oldValue;
+	}
+
+	private void handleNativeEvent(int column, SimplePropertyEvent event) {
+		if (values[column] == null)
+			return;
+		if (event.type == SimplePropertyEvent.CHANGE) {
+			notifyIfChanged(column, event.getSource());
+		} else if (event.type == SimplePropertyEvent.STALE) {
+			int row = indexOf(event.getSource());
+			if (row >= 0) {
+				boolean wasStale = staleCounts[column] > 0;
+				markStale(column, row);
+				if (!wasStale)
+					columns[column].fireColumnStale();
+			}
+		}
+	}
+
+	private void notifyIfChanged(int column, Object key) {
+		Object[] columnValues = values[column];
+		if (columnValues == null)
+			return;
+		int row = indexOf(key);
+		if (row < 0)
+			return;
+		Object oldValue = columnValues[row];
+		Object newValue = properties[column].getValue(key);
+		boolean wasStale = clearStale(column, row);
+		if (!Util.equals(oldValue, newValue) || wasStale) {
+			columnValues[row] = newValue;
+			columns[column].fireColumnChange(Diffs.createMapDiffSingleChange(
+					key, oldValue, newValue));
+		}
+	}
+
+	private void hookKeySet() {
+		keys = new Object[MIN_CAPACITY];
+		table = new int[MIN_CAPACITY * 2];
+		freeRows = new int[MIN_CAPACITY];
+		size = 0;
+		rowLimit = 0;
+		freeCount = 0;
+
+		keySet.addSetChangeListener(setChangeListener);
+		keySet.addStaleListener(staleListener);
+		ensureCapacity(keySet.size());
+		for (Iterator it = keySet.iterator(); it.hasNext();) {
+			Object key = it.next();
+			if (key != null)
+				addRow(key);
+		}
+	}
+
+	private void unhookKeySet() {
+		if (keySet != null) {
+			keySet.removeSetChangeListener(setChangeListener);
+			keySet.removeStaleListener(staleListener);
+		}
+		keys = null;
+		table = null;
+		freeRows = null;
+		size = 0;
+		rowLimit = 0;
+		freeCount = 0;
+	}
+
+	private void handleKeySetChange(Set additions, Set removals) {
+		int columnCount = columns.length;
+
+		// Collect old values of removed keys before their rows are recycled
+		Map[] oldValues = new Map[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			if (values[i] != null)
+				oldValues[i] = removals.isEmpty() ? Collections.EMPTY_MAP
+						: new IdentityMap();
+		}
+		for (Iterator it = removals.iterator(); it.hasNext();) {
+			Object key = it.next();
+			if (key == null)
+				continue;
+			int row = indexOf(key);
+			if (row < 0)
+				continue;
+			for (int i = 0; i < columnCount; i++) {
+				if (values[i] != null) {
+					oldValues[i].put(key, values[i][row]);
+					if (listeners[i] != null)
+						listeners[i].removeFrom(key);
+				}
+			}
+			removeRow(key, row);
+		}
+
+		ensureCapacity(size + additions.size());
+		for (Iterator it = additions.iterator(); it.hasNext();) {
+			Object key = it.next();
+			if (key != null && indexOf(key) < 0)
+				addRow(key);
+		}
+
+		for (int i = 0; i < columnCount; i++) {
+			if (values[i] != null)
+				columns[i].fireColumnChange(new ColumnMapDiff(i, additions,
+						removals, oldValues[i]));
+		}
+	}
+
+	private int addRow(Object key) {
+		int row;
+		if (freeCount > 0) {
+			row = freeRows[--freeCount];
+		} else {
+			if (rowLimit == keys.length)
+				growRows(keys.length * 2);
+			row = rowLimit++;
+		}
+		keys[row] = key;
+		insertSlot(key, row);
+		size++;
+
+		for (int i = 0; i < columns.length; i++) {
+			Object[] columnValues = values[i];
+			if (columnValues != null) {
+				columnValues[row] = properties[i].getValue(key);
+				if (listeners[i] != null)
+					listeners[i].addTo(key);
+			}
+		}
+		return row;
+	}
+
+	private void removeRow(Object key, int row) {
+		removeSlot(key);
+		keys[row] = null;
+		for (int i = 0; i < columns.length; i++) {
+			if (values[i] != null) {
+				values[i][row] = null;
+				clearStale(i, row);
+			}
+		}
+		if (freeCount == freeRows.length) {
+			int[] newFreeRows = new int[freeRows.length * 2];
+			System.arraycopy(freeRows, 0, newFreeRows, 0, freeCount);
+			freeRows = newFreeRows;
+		}
+		freeRows[freeCount++] = row;
+		size--;
+	}
+
+	private void ensureCapacity(int rows) {
+		if (rows > keys.length) {
+			int capacity = keys.length;
+			while (capacity < rows)
+				capacity *= 2;
+			growRows(capacity);
+		}
+	}
+
+	private void growRows(int capacity) {
+		Object[] newKeys = new Object[capacity];
+		System.arraycopy(keys, 0, newKeys, 0, rowLimit);
+		keys = newKeys;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				Object[] newValues = new Object[capacity];
+				System.arraycopy(values[i], 0, newValues, 0, rowLimit);
+				values[i] = newValues;
+			}
+			if (staleRows[i] != null) {
+				int[] newStale = new int[(capacity + 31) >>> 5];
+				System.arraycopy(staleRows[i], 0, newStale, 0,
+						staleRows[i].length);
+				staleRows[i] = newStale;
+			}
+		}
+
+		// Keep the load factor of the index at or below one half
+		table = new int[capacity * 2];
+		for (int row = 0; row < rowLimit; row++) {
+			if (keys[row] != null)
+				insertSlot(keys[row], row);
+		}
+	}
+
+	private int indexOf(Object key) {
+		if (table == null || key == null)
+			return -1;
+		int mask = table.length - 1;
+		int slot = hash(key) & mask;
+		int entry;
+		while ((entry = table[slot]) != 0) {
+			if (keys[entry - 1] == key)
+				return entry - 1;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void insertSlot(Object key, int row) {
+		int mask = table.length - 1;
+		int slot = hash(key) & mask;
+		while (table[slot] != 0)
+			slot = (slot + 1) & mask;
+		table[slot] = row + 1;
+	}
+
+	private void removeSlot(Object key) {
+		int mask = table.length - 1;
+		int slot = hash(key) & mask;
+		while (table[slot] != 0 && keys[table[slot] - 1] != key)
+			slot = (slot + 1) & mask;
+		if (table[slot] == 0)
+			return;
+
+		// Backward shift deletion keeps probe sequences intact without
+		// tombstones
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (table[next] != 0) {
+			int home = hash(keys[table[next] - 1]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				table[hole] = table[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		table[hole] = 0;
+	}
+
+	private static int hash(Object key) {
+		int h = System.identityHashCode(key);
+		return h ^ (h >>> 16);
+	}
+
+	private void markStale(int column, int row) {
+		int[] bits = staleRows[column];
+		if (bits == null) {
+			bits = new int[(keys.length + 31) >>> 5];
+			staleRows[column] = bits;
+		}
+		int mask = 1 << (row & 31);
+		if ((bits[row >>> 5] & mask) == 0) {
+			bits[row >>> 5] |= mask;
+			staleCounts[column]++;
+		}
+	}
+
+	private boolean clearStale(int column, int row) {
+		int[] bits = staleRows[column];
+		if (bits == null)
+			return false;
+		int mask = 1 << (row & 31);
+		if ((bits[row >>> 5] & mask) == 0)
+			return false;
+		bits[row >>> 5] &= ~mask;
+		if (--staleCounts[column] == 0)
+			staleRows[column] = null;
+		return true;
+	}
+
+	void columnDisposed(int column) {
+		deactivate(column);
+		listeners[column] = null;
+		if (++disposedColumns < columns.length)
+			return;
+		keySet = null;
+		setChangeListener = null;
+		staleListener = null;
+	}
+
+	/**
+	 * Map diff for a key set change which reads new values from the column
+	 * instead of copying them into a separate map.
+	 */
+	private class ColumnMapDiff extends MapDiff {
+		private final int column;
+		private final Set addedKeys;
+		private final Set removedKeys;
+		private final Map oldValues;
+
+		ColumnMapDiff(int column, Set addedKeys, Set removedKeys, Map oldValues) {
+			this.column = column;
+			this.addedKeys = addedKeys;
+			this.removedKeys = removedKeys;
+			this.oldValues = oldValues;
+		}
+
+		public Set getAddedKeys() {
+			return addedKeys;
+		}
+
+		public Set getRemovedKeys() {
+			return removedKeys;
+		}
+
+		public Set getChangedKeys() {
+			return Collections.EMPTY_SET;
+		}
+
+		public Object getOldValue(Object key) {
+			return oldValues.get(key);
+		}
+
+		public Object getNewValue(Object key) {
+			if (!addedKeys.contains(key))
+				return null;
+			return get(column, key);
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.internal.databinding.property.value;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.ObservableTracker;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.AbstractObservableValue;
+import org.eclipse.core.databinding.observable.value.IObservableIntValue;
+import org.eclipse.core.databinding.property.INativePropertyListener;
+import org.eclipse.core.databinding.property.IProperty;
+import org.eclipse.core.databinding.property.IPropertyObservable;
+import org.eclipse.core.databinding.property.ISimplePropertyListener;
+import org.eclipse.core.databinding.property.SimplePropertyEvent;
+import org.eclipse.core.databinding.property.value.IIntValueProperty;
+import org.eclipse.core.databinding.property.value.SimpleValueProperty;
+
+/**
+ * Observable value for a {@link SimpleValueProperty} which also implements
+ * {@link IIntValueProperty}. The cached value is held unboxed, and native
+ * change events which do not change the value do not allocate.
+ * 
+ * @since 1.5
+ */
+public class SimplePropertyObservableIntValue extends AbstractObservableValue
+		implements IObservableIntValue, IPropertyObservable {
+	private Object source;
+	private SimpleValueProperty property;
+	private IIntValueProperty intProperty;
+
+	private boolean updating = false;
+	private int cachedValue;
+	private boolean stale;
+
+	private INativePropertyListener listener;
+
+	/**
+	 * @param realm
+	 * @param source
+	 * @param property
+	 *            a simple value property which implements
+	 *            {@link IIntValueProperty}
+	 */
+	public SimplePropertyObservableIntValue(Realm realm, Object source,
+			SimpleValueProperty property) {
+		super(realm);
+		this.source = source;
+		this.property = property;
+		this.intProperty = (IIntValueProperty) property;
+	}
+
+	protected void firstListenerAdded() {
+		if (!isDisposed()) {
+			if (listener == null) {
+				listener = property
+						.adaptListener(new ISimplePropertyListener() {
+							public void handleEvent(
+									final SimplePropertyEvent event) {
+								if (!isDisposed() && !updating) {
+									// Avoid the runnable for the common case
+									// of events arriving in the realm
+									if (getRealm().isCurrent()) {
+										handlePropertyEvent(event);
+									} else {
+										getRealm().exec(new Runnable() {
+											public void run() {
+												handlePropertyEvent(event);
+											}
+										});
+									}
+								}
+							}
+						});
+			}
+			getRealm().exec(new Runnable() {
+				public void run() {
+					cachedValue = intProperty.getIntValue(source);
+					stale = false;
+					if (listener != null)
+						listener.addTo(source);
+				}
+			});
+		}
+	}
+
+	private void handlePropertyEvent(SimplePropertyEvent event) {
+		if (isDisposed())
+			return;
+		if (event.type == SimplePropertyEvent.CHANGE) {
+			// the diff of the native listener is boxed
+			notifyIfChanged();
+		} else if (event.type == SimplePropertyEvent.STALE && !stale) {
+			stale = true;
+			fireStale();
+		}
+	}
+
+	protected void lastListenerRemoved() {
+		if (listener != null)
+			listener.removeFrom(source);
+		cachedValue = 0;
+		stale = false;
+	}
+
+	public int getIntValue() {
+		ObservableTracker.getterCalled(this);
+		if (hasListeners()) {
+			notifyIfChanged();
+			return cachedValue;
+		}
+		return intProperty.getIntValue(source);
+	}
+
+	public void setIntValue(int value) {
+		checkRealm();
+		updating = true;
+		try {
+			intProperty.setIntValue(source, value);
+		} finally {
+			updating = false;
+		}
+
+		notifyIfChanged();
+	}
+
+	protected Object doGetValue() {
+		notifyIfChanged();
+		return property.getValue(source);
+	}
+
+	protected void doSetValue(Object value) {
+		updating = true;
+		try {
+			property.setValue(source, value);
+		} finally {
+			updating = false;
+		}
+
+		notifyIfChanged();
+	}
+
+	private void notifyIfChanged() {
+		if (hasListeners()) {
+			int oldValue = cachedValue;
+			int newValue = cachedValue = intProperty.getIntValue(source);
+			if (oldValue != newValue || stale) {
+				stale = false;
+				fireValueChange(Diffs.createIntValueDiff(oldValue, newValue));
+			}
+		}
+	}
+
+	public Object getValueType() {
+		return property.getValueType();
+	}
+
+	public Object getObserved() {
+		return source;
+	}
+
+	public IProperty getProperty() {
+		return property;
+	}
+
+	public boolean isStale() {
+		ObservableTracker.getterCalled(this);
+		return stale;
+	}
+
+	public synchronized void dispose() {
+		if (!isDisposed()) {
+			if (listener != null)
+				listener.removeFrom(source);
+			source = null;
+			property = null;
+			intProperty = null;
+			listener = null;
+			stale = false;
+		}
+		super.dispose();
+	}
+}
@@ -18,11 +18,18 @@ import java.util.Date;
 import java.util.HashMap;
 
 import org.eclipse.core.databinding.conversion.IConverter;
+import org.eclipse.core.databinding.observable.value.IObservableBooleanValue;
+import org.eclipse.core.databinding.observable.value.IObservableDoubleValue;
+import org.eclipse.core.databinding.observable.value.IObservableIntValue;
+import org.eclipse.core.databinding.observable.value.IObservableLongValue;
 import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.validation.IAsyncValidator;
 import org.eclipse.core.databinding.validation.IValidator;
+import org.eclipse.core.databinding.validation.ValidationRequest;
 import org.eclipse.core.databinding.validation.ValidationStatus;
 import org.eclipse.core.internal.databinding.BindingMessages;
 import org.eclipse.core.internal.databinding.Pair;
+import org.eclipse.core.internal.databinding.conversion.IdentityConverter;
 import org.eclipse.core.internal.databinding.conversion.NumberToBigDecimalConverter;
 import org.eclipse.core.internal.databinding.conversion.NumberToBigIntegerConverter;
 import org.eclipse.core.internal.databinding.conversion.NumberToByteConverter;
@@ -69,6 +76,9 @@ import org.eclipse.core.runtime.Status;
  * <li>Conversion - {@link #convert(Object)}</li>
  * <li>Validate after conversion - {@link #validateAfterConvert(Object)}</li>
  * <li>Validate before set - {@link #validateBeforeSet(Object)}</li>
+ * <li>Asynchronous validation - {@link #validateAsync(Object, ValidationRequest)}
+ * (only if an {@link #setAsyncValidator(IAsyncValidator) asynchronous
+ * validator} is set)</li>
  * <li>Value set - {@link #doSet(IObservableValue, Object)}</li>
  * </ol>
  * </p>
@@ -82,6 +92,16 @@ import org.eclipse.core.runtime.Status;
  * {@link Binding#getValidationStatus() binding validation status}.
  * </p>
  * <p>
+ * Validators which are too slow to run in the realm on every change can be
+ * set as an {@link IAsyncValidator asynchronous validator}. It runs last, once
+ * the source value has not changed for the
+ * {@link #setAsyncValidationDelay(int) asynchronous validation delay}. Until
+ * its result arrives the binding reports a
+ * {@link ValidationStatus#pending(String) pending} status, and the value is
+ * only set on the destination if the result does not abort the update. A
+ * newer source value cancels the running validation.
+ * </p>
+ * <p>
  * Conversion:<br/>
  * A {@link IConverter converter} will convert the value from the type of the
  * source observable into the type of the destination. The strategy has the
@@ -94,7 +114,17 @@ import org.eclipse.core.runtime.Status;
  * {@link #POLICY_NEVER}, {@link #POLICY_CONVERT}, {@link #POLICY_ON_REQUEST},
  * {@link #POLICY_UPDATE}).
  * </p>
- * 
+ * <p>
+ * Primitive values:<br/>
+ * If both observables are primitive observable values of the same kind (e.g.
+ * {@link org.eclipse.core.databinding.observable.value.IObservableIntValue})
+ * in the same realm, and the strategy neither validates nor converts beyond
+ * the default identity conversion, the value is copied through the unboxed
+ * accessors without going through {@link #convert(Object)} and
+ * {@link #doSet(IObservableValue, Object)}. Subclasses always take the boxed
+ * path.
+ * </p>
+ *
  * @see DataBindingContext#bindValue(IObservableValue, IObservableValue,
  *      UpdateValueStrategy, UpdateValueStrategy)
  * @see Binding#getValidationStatus()
@@ -152,6 +182,13 @@ public class UpdateValueStrategy extends UpdateStrategy {
 	protected IValidator beforeSetValidator;
 	protected IConverter converter;
 
+	/**
+	 * @since 1.5
+	 */
+	protected IAsyncValidator asyncValidator;
+
+	private int asyncValidationDelay;
+
 	private int updatePolicy;
 
 	private static ValidatorRegistry validatorRegistry = new ValidatorRegistry();
@@ -413,6 +450,57 @@ public class UpdateValueStrategy extends UpdateStrategy {
 		return this;
 	}
 
+	/**
+	 * Sets the asynchronous validator to be invoked after the
+	 * {@link #setBeforeSetValidator(IValidator) before set validator}, before
+	 * the value is set on the destination.
+	 * 
+	 * @param validator
+	 *            the validator, or <code>null</code> to validate synchronously
+	 *            only
+	 * @return the receiver, to enable method call chaining
+	 * @since 1.5
+	 */
+	public UpdateValueStrategy setAsyncValidator(IAsyncValidator validator) {
+		this.asyncValidator = validator;
+		return this;
+	}
+
+	/**
+	 * @return the asynchronous validator, or <code>null</code> if the value is
+	 *         only validated synchronously
+	 * @since 1.5
+	 */
+	public IAsyncValidator getAsyncValidator() {
+		return asyncValidator;
+	}
+
+	/**
+	 * Sets the time the source value must remain unchanged before the
+	 * {@link #setAsyncValidator(IAsyncValidator) asynchronous validator} is
+	 * started. Changes within this period restart the delay, so typing into a
+	 * bound text field starts a single validation once the user pauses.
+	 * Explicit updates are not delayed.
+	 * 
+	 * @param milliseconds
+	 *            the delay in milliseconds, or <code>0</code> (the default) to
+	 *            start the validation immediately
+	 * @return the receiver, to enable method call chaining
+	 * @since 1.5
+	 */
+	public UpdateValueStrategy setAsyncValidationDelay(int milliseconds) {
+		this.asyncValidationDelay = milliseconds;
+		return this;
+	}
+
+	/**
+	 * @return the asynchronous validation delay in milliseconds
+	 * @since 1.5
+	 */
+	public int getAsyncValidationDelay() {
+		return asyncValidationDelay;
+	}
+
 	/**
 	 * Sets the converter to be invoked when converting from the source type to
 	 * the destination type.
@@ -473,6 +561,28 @@ public class UpdateValueStrategy extends UpdateStrategy {
 				: beforeSetValidator.validate(value);
 	}
 
+	/**
+	 * Starts the asynchronous validation of the value before it is set on the
+	 * destination. This method is only called if an
+	 * {@link #setAsyncValidator(IAsyncValidator) asynchronous validator} is
+	 * set.
+	 * <p>
+	 * Default implementation passes the value and the request to the
+	 * asynchronous validator.
+	 * </p>
+	 * 
+	 * @param value
+	 * @param request
+	 *            the request through which the result must be reported
+	 * @since 1.5
+	 */
+	public void validateAsync(Object value, ValidationRequest request) {
+		if (asyncValidator == null)
+			request.done(Status.OK_STATUS);
+		else
+			asyncValidator.validate(value, request);
+	}
+
 	/**
 	 * Sets the current value of the given observable to the given value.
 	 * Clients may extend but must call the super implementation.
@@ -494,6 +604,70 @@ public class UpdateValueStrategy extends UpdateStrategy {
 		return Status.OK_STATUS;
 	}
 
+	/*
+	 * Returns whether the value of the source can be copied to the destination
+	 * through the unboxed accessors of the primitive observable value types.
+	 * This is only the case if both are of the same primitive kind and live in
+	 * the same realm, and this strategy neither converts nor validates. Since
+	 * subclasses may override any step of an update, they always take the
+	 * boxed path.
+	 */
+	/* package */boolean canCopyUnboxed(IObservableValue source,
+			IObservableValue destination) {
+		if (getClass() != UpdateValueStrategy.class)
+			return false;
+		if (afterGetValidator != null || afterConvertValidator != null
+				|| beforeSetValidator != null || asyncValidator != null)
+			return false;
+		if (converter != null && !(converter instanceof IdentityConverter))
+			return false;
+		if (source.getRealm() != destination.getRealm())
+			return false;
+		return source instanceof IObservableIntValue
+				&& destination instanceof IObservableIntValue
+				|| source instanceof IObservableLongValue
+				&& destination instanceof IObservableLongValue
+				|| source instanceof IObservableDoubleValue
+				&& destination instanceof IObservableDoubleValue
+				|| source instanceof IObservableBooleanValue
+				&& destination instanceof IObservableBooleanValue;
+	}
+
+	/*
+	 * Copies the value of the source to the destination without boxing. Must
+	 * only be called from the realm of both observables, and only if
+	 * canCopyUnboxed(source, destination) returns true.
+	 */
+	/* package */IStatus copyUnboxed(IObservableValue source,
+			IObservableValue destination) {
+		try {
+			if (source instanceof IObservableIntValue) {
+				((IObservableIntValue) destination)
+						.setIntValue(((IObservableIntValue) source)
+								.getIntValue());
+			} else if (source instanceof IObservableLongValue) {
+				((IObservableLongValue) destination)
+						.setLongValue(((IObservableLongValue) source)
+								.getLongValue());
+			} else if (source instanceof IObservableDoubleValue) {
+				((IObservableDoubleValue) destination)
+						.setDoubleValue(((IObservableDoubleValue) source)
+								.getDoubleValue());
+			} else {
+				((IObservableBooleanValue) destination)
+						.setBooleanValue(((IObservableBooleanValue) source)
+								.getBooleanValue());
+			}
+		} catch (Exception ex) {
+			return ValidationStatus
+					.error(
+							BindingMessages
+									.getString(BindingMessages.VALUEBINDING_ERROR_WHILE_SETTING_VALUE),
+							ex);
+		}
+		return Status.OK_STATUS;
+	}
+
 	private static class ValidatorRegistry {
 
 		private HashMap validators = new HashMap();
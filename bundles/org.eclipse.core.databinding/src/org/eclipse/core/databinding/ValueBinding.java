@@ -18,6 +18,9 @@ import org.eclipse.core.databinding.observable.value.IValueChangeListener;
 import org.eclipse.core.databinding.observable.value.ValueChangeEvent;
 import org.eclipse.core.databinding.observable.value.WritableValue;
 import org.eclipse.core.databinding.util.Policy;
+import org.eclipse.core.databinding.validation.ValidationRequest;
+import org.eclipse.core.databinding.validation.ValidationStatus;
+import org.eclipse.core.internal.databinding.BindingMessages;
 import org.eclipse.core.internal.databinding.BindingStatus;
 import org.eclipse.core.internal.databinding.Util;
 import org.eclipse.core.runtime.IStatus;
@@ -37,6 +40,9 @@ class ValueBinding extends Binding {
 
 	private boolean updatingTarget;
 	private boolean updatingModel;
+
+	private ValidationRequest targetToModelValidation;
+	private ValidationRequest modelToTargetValidation;
 	private IValueChangeListener targetChangeListener = new IValueChangeListener() {
 		public void handleValueChange(ValueChangeEvent event) {
 			if (!updatingTarget
@@ -150,6 +156,17 @@ class ValueBinding extends Binding {
 
 		source.getRealm().exec(new Runnable() {
 			public void run() {
+				// A newer source value supersedes any running validation
+				cancelAsyncValidation(destination);
+
+				if (!validateOnly
+						&& (policy != UpdateValueStrategy.POLICY_CONVERT || explicit)
+						&& updateValueStrategy.canCopyUnboxed(source,
+								destination)) {
+					copyUnboxed(source, destination, updateValueStrategy);
+					return;
+				}
+
 				boolean destinationRealmReached = false;
 				final MultiStatus multiStatus = BindingStatus.ok();
 				try {
@@ -180,33 +197,24 @@ class ValueBinding extends Binding {
 							.validateBeforeSet(convertedValue);
 					if (!mergeStatus(multiStatus, status))
 						return;
+
+					// Validate asynchronously, the value is set once the
+					// result arrives
+					if (updateValueStrategy.getAsyncValidator() != null) {
+						destinationRealmReached = true;
+						startAsyncValidation(source, destination,
+								updateValueStrategy, convertedValue,
+								multiStatus, explicit, validateOnly);
+						return;
+					}
+
 					if (validateOnly)
 						return;
 
 					// Set value
 					destinationRealmReached = true;
-					destination.getRealm().exec(new Runnable() {
-						public void run() {
-							if (destination == target) {
-								updatingTarget = true;
-							} else {
-								updatingModel = true;
-							}
-							try {
-								IStatus setterStatus = updateValueStrategy
-										.doSet(destination, convertedValue);
-
-								mergeStatus(multiStatus, setterStatus);
-							} finally {
-								if (destination == target) {
-									updatingTarget = false;
-								} else {
-									updatingModel = false;
-								}
-								setValidationStatus(multiStatus);
-							}
-						}
-					});
+					doSet(destination, updateValueStrategy, convertedValue,
+							multiStatus);
 				} catch (Exception ex) {
 					// This check is necessary as in 3.2.2 Status
 					// doesn't accept a null message (bug 177264).
@@ -226,6 +234,148 @@ class ValueBinding extends Binding {
 		});
 	}
 
+	private void doSet(final IObservableValue destination,
+			final UpdateValueStrategy updateValueStrategy,
+			final Object convertedValue, final MultiStatus multiStatus) {
+		destination.getRealm().exec(new Runnable() {
+			public void run() {
+				if (destination == target) {
+					updatingTarget = true;
+				} else {
+					updatingModel = true;
+				}
+				try {
+					IStatus setterStatus = updateValueStrategy.doSet(
+							destination, convertedValue);
+
+					mergeStatus(multiStatus, setterStatus);
+				} finally {
+					if (destination == target) {
+						updatingTarget = false;
+					} else {
+						updatingModel = false;
+					}
+					setValidationStatus(multiStatus);
+				}
+			}
+		});
+	}
+
+	/*
+	 * Copies a primitive value without boxing. Must be called in the realm of
+	 * both observables. The validation status is only replaced if the copy
+	 * failed or the previous update left a non-OK status behind.
+	 */
+	private void copyUnboxed(IObservableValue source,
+			IObservableValue destination,
+			UpdateValueStrategy updateValueStrategy) {
+		IStatus status;
+		if (destination == target) {
+			updatingTarget = true;
+		} else {
+			updatingModel = true;
+		}
+		try {
+			status = updateValueStrategy.copyUnboxed(source, destination);
+		} finally {
+			if (destination == target) {
+				updatingTarget = false;
+			} else {
+				updatingModel = false;
+			}
+		}
+
+		if (status.isOK() && validationStatusObservable.getRealm().isCurrent()
+				&& ((IStatus) validationStatusObservable.getValue()).isOK())
+			return;
+		MultiStatus multiStatus = BindingStatus.ok();
+		mergeStatus(multiStatus, status);
+		setValidationStatus(multiStatus);
+	}
+
+	/*
+	 * Runs the asynchronous validator of the given strategy and completes the
+	 * update once its result arrives. Must be called in the source realm.
+	 */
+	private void startAsyncValidation(final IObservableValue source,
+			final IObservableValue destination,
+			final UpdateValueStrategy updateValueStrategy,
+			final Object convertedValue, final MultiStatus multiStatus,
+			boolean explicit, final boolean validateOnly) {
+		MultiStatus pendingStatus = BindingStatus.ok();
+		pendingStatus.merge(multiStatus);
+		pendingStatus.add(ValidationStatus.pending(BindingMessages
+				.getString(BindingMessages.VALIDATE_PENDING)));
+		setValidationStatus(pendingStatus);
+
+		final ValidationRequest request = new ValidationRequest(convertedValue) {
+			protected void completed(final IStatus status) {
+				final ValidationRequest current = this;
+				source.getRealm().asyncExec(new Runnable() {
+					public void run() {
+						if (getAsyncValidation(destination) != current)
+							return;
+						setAsyncValidation(destination, null);
+
+						if (!mergeStatus(multiStatus, status) || validateOnly) {
+							setValidationStatus(multiStatus);
+							return;
+						}
+						doSet(destination, updateValueStrategy,
+								convertedValue, multiStatus);
+					}
+				});
+			}
+		};
+		setAsyncValidation(destination, request);
+
+		Runnable validation = new Runnable() {
+			public void run() {
+				if (request.isCancelled())
+					return;
+				try {
+					updateValueStrategy.validateAsync(convertedValue, request);
+				} catch (RuntimeException ex) {
+					String message = (ex.getMessage() != null) ? ex
+							.getMessage() : ""; //$NON-NLS-1$
+					request.done(new Status(IStatus.ERROR,
+							Policy.JFACE_DATABINDING, IStatus.ERROR, message,
+							ex));
+				}
+			}
+		};
+
+		// Debounce implicit updates: a change within the delay cancels this
+		// request before the validator is started
+		int delay = explicit ? 0 : updateValueStrategy
+				.getAsyncValidationDelay();
+		if (delay > 0)
+			source.getRealm().timerExec(delay, validation);
+		else
+			validation.run();
+	}
+
+	private ValidationRequest getAsyncValidation(IObservableValue destination) {
+		return destination == model ? targetToModelValidation
+				: modelToTargetValidation;
+	}
+
+	private void setAsyncValidation(IObservableValue destination,
+			ValidationRequest request) {
+		if (destination == model)
+			targetToModelValidation = request;
+		else
+			modelToTargetValidation = request;
+	}
+
+	private void cancelAsyncValidation(IObservableValue destination) {
+		ValidationRequest request = getAsyncValidation(destination);
+		if (request != null) {
+			setAsyncValidation(destination, null);
+			request.cancel();
+		}
+	}
+
 	public void validateModelToTarget() {
 		doUpdate(model, target, modelToTarget, true, true);
 	}
@@ -243,6 +393,14 @@ class ValueBinding extends Binding {
 	}
 
 	public void dispose() {
+		if (targetToModelValidation != null) {
+			targetToModelValidation.cancel();
+			targetToModelValidation = null;
+		}
+		if (modelToTargetValidation != null) {
+			modelToTargetValidation.cancel();
+			modelToTargetValidation = null;
+		}
 		if (targetChangeListener != null) {
 			target.removeValueChangeListener(targetChangeListener);
 			targetChangeListener = null;
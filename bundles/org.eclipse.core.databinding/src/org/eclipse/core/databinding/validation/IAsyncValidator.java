@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.validation;
+
+/**
+ * A validator which computes its result asynchronously. Unlike
+ * {@link IValidator}, which runs in the realm of the binding and therefore
+ * blocks it until the result is known, an asynchronous validator starts the
+ * validation and reports the result later through the given
+ * {@link ValidationRequest}, from any thread.
+ * <p>
+ * While the validation is running, the binding reports a
+ * {@link ValidationStatus#pending(String) pending} validation status. When
+ * the source value changes again before the result is reported, the request
+ * is {@link ValidationRequest#isCancelled() cancelled} and its result is
+ * ignored. Long running validators should poll for cancellation and stop
+ * early.
+ * </p>
+ * 
+ * @see org.eclipse.core.databinding.UpdateValueStrategy#setAsyncValidator(IAsyncValidator)
+ * @since 1.5
+ */
+public interface IAsyncValidator {
+
+	/**
+	 * Starts validating the given value. Implementations must eventually call
+	 * {@link ValidationRequest#done(org.eclipse.core.runtime.IStatus)} on the
+	 * given request unless it has been cancelled. This method is called in
+	 * the realm of the binding and should return quickly.
+	 * 
+	 * @param value
+	 *            the value to validate
+	 * @param request
+	 *            the request through which the result is reported
+	 */
+	public void validate(Object value, ValidationRequest request);
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.databinding.validation;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * A single run of an {@link IAsyncValidator}. The request acts as the future
+ * result of the validation: the validator completes it by calling
+ * {@link #done(IStatus)} from any thread, and the party which started the
+ * validation may {@link #cancel() cancel} it once the result is no longer of
+ * interest.
+ * <p>
+ * A request is completed at most once. Calls to {@link #done(IStatus)} after
+ * the request was completed or cancelled are ignored.
+ * </p>
+ * 
+ * @since 1.5
+ */
+public abstract class ValidationRequest {
+	private final Object value;
+
+	private boolean cancelled;
+	private boolean done;
+
+	/**
+	 * Constructs a request to validate the given value.
+	 * 
+	 * @param value
+	 *            the value to validate
+	 */
+	protected ValidationRequest(Object value) {
+		this.value = value;
+	}
+
+	/**
+	 * @return the value being validated
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns whether this request was cancelled. Validators should check this
+	 * periodically and abandon their work once it returns <code>true</code>.
+	 * This method may be called from any thread.
+	 * 
+	 * @return whether this request was cancelled
+	 */
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns whether the result of this request was reported.
+	 * 
+	 * @return whether {@link #done(IStatus)} was called before the request was
+	 *         cancelled
+	 */
+	public synchronized boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Cancels this request. The result of the validation, if reported later,
+	 * is discarded. This method may be called from any thread.
+	 */
+	public void cancel() {
+		synchronized (this) {
+			if (done || cancelled)
+				return;
+			cancelled = true;
+		}
+		cancelled();
+	}
+
+	/**
+	 * Reports the result of the validation. This method may be called from
+	 * any thread.
+	 * 
+	 * @param status
+	 *            the validation result, or <code>null</code> for an OK status
+	 */
+	public void done(IStatus status) {
+		synchronized (this) {
+			if (done || cancelled)
+				return;
+			done = true;
+		}
+		completed(status == null ? Status.OK_STATUS : status);
+	}
+
+	/**
+	 * Called exactly once when the validation result is reported, on the
+	 * thread which called {@link #done(IStatus)}. Implementations are
+	 * responsible for returning to their realm before touching any
+	 * observables.
+	 * 
+	 * @param status
+	 *            the validation result, never <code>null</code>
+	 */
+	protected abstract void completed(IStatus status);
+
+	/**
+	 * Called when the request is cancelled before a result was reported. The
+	 * default implementation does nothing.
+	 */
+	protected void cancelled() {
+	}
+}
@@ -23,6 +23,13 @@ import org.eclipse.core.runtime.Status;
  */
 public class ValidationStatus extends Status {
 
+	/**
+	 * Status code of the statuses returned by {@link #pending(String)}.
+	 * 
+	 * @since 1.5
+	 */
+	public static final int PENDING = 1;
+
 	/**
 	 * Creates a new validation status with the given severity, message, and
 	 * exception.
@@ -35,6 +42,18 @@ public class ValidationStatus extends Status {
 		super(severity, Policy.JFACE_DATABINDING, IStatus.OK, message, exception);
 	}
 
+	/**
+	 * Creates a new validation status with the given severity, code and
+	 * message.
+	 * 
+	 * @param severity
+	 * @param code
+	 * @param message
+	 */
+	private ValidationStatus(int severity, int code, String message) {
+		super(severity, Policy.JFACE_DATABINDING, code, message, null);
+	}
+
 	/**
 	 * Creates a new validation status with the given severity and message.
 	 * 
@@ -97,6 +116,40 @@ public class ValidationStatus extends Status {
 		return new ValidationStatus(IStatus.INFO, message);
 	}
 	
+	/**
+	 * Creates a new validation status which denotes that an asynchronous
+	 * validation is still running. The status has a severity of
+	 * <code>INFO</code>, so bindings and aggregated validation statuses report
+	 * it until the validation result replaces it, without it being mistaken
+	 * for a validation error.
+	 * 
+	 * @param message
+	 * @return a new pending status with the given message
+	 * @see #isPending(IStatus)
+	 * @see IAsyncValidator
+	 * @since 1.5
+	 */
+	public static IStatus pending(String message) {
+		return new ValidationStatus(IStatus.INFO, PENDING, message);
+	}
+
+	/**
+	 * Returns whether the given status denotes a running asynchronous
+	 * validation. This is also true for a multi-status whose most severe child
+	 * is a pending status, as reported by bindings while their asynchronous
+	 * validation is running.
+	 * 
+	 * @param status
+	 * @return <code>true</code> if the status is a pending status
+	 * @see #pending(String)
+	 * @since 1.5
+	 */
+	public static boolean isPending(IStatus status) {
+		return status != null && status.getSeverity() == IStatus.INFO
+				&& status.getCode() == PENDING
+				&& Policy.JFACE_DATABINDING.equals(status.getPlugin());
+	}
+
 	/**
 	 * Returns an OK status.
 	 * 
@@ -0,0 +1,376 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.jface.databinding.viewers;
+
+import org.eclipse.core.databinding.observable.IObservable;
+import org.eclipse.core.databinding.observable.Observables;
+import org.eclipse.core.databinding.observable.list.IListChangeListener;
+import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.ListChangeEvent;
+import org.eclipse.core.databinding.observable.list.ListDiffVisitor;
+import org.eclipse.core.databinding.observable.masterdetail.IObservableFactory;
+import org.eclipse.core.databinding.observable.masterdetail.MasterDetailObservables;
+import org.eclipse.core.databinding.observable.set.IObservableSet;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.jface.databinding.swt.SWTObservables;
+import org.eclipse.jface.internal.databinding.viewers.ObservableViewerElementSet;
+import org.eclipse.jface.viewers.AbstractTableViewer;
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.IIndexableLazyContentProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Table;
+
+/**
+ * An {@link ILazyContentProvider lazy content provider} for
+ * {@link AbstractTableViewer}s created with the {@link SWT#VIRTUAL} style that
+ * provides elements of an {@link IObservableList} when set as the viewer's
+ * input.
+ * <p>
+ * Unlike {@link ObservableListContentProvider}, this content provider never
+ * pushes the whole list into the viewer. Elements are handed to the viewer
+ * only when a row becomes visible, and list changes are translated into
+ * {@link AbstractTableViewer#setItemCount(int) item count} updates and
+ * {@link AbstractTableViewer#replace(Object, int) replace} calls for realized
+ * rows only. The {@link #getKnownElements() known elements} are the elements
+ * of the realized rows; rows which have not been requested for a while are
+ * cleared from the viewer again, so the known elements, and any label provider
+ * state attached to them, stay proportional to the size of the viewport rather
+ * than to the size of the list.
+ * </p>
+ *
+ * @noextend This class is not intended to be subclassed by clients.
+ * @since 1.7
+ */
+public class ObservableListLazyContentProvider implements
+		IIndexableLazyContentProvider {
+	private static final int MIN_REALIZED_LIMIT = 64;
+
+	private Display display;
+
+	private IObservableValue viewerObservable;
+
+	private IObservableFactory elementSetFactory;
+
+	private AbstractTableViewer viewer;
+
+	private IElementComparer comparer;
+
+	private IObservableList list;
+
+	private IObservableSet knownElements;
+	private IObservableSet unmodifiableKnownElements;
+
+	private final int realizedLimit;
+
+	/*
+	 * Realized rows in least recently requested order: row indices and the
+	 * elements handed to the viewer for them.
+	 */
+	private int[] rowIndices = new int[MIN_REALIZED_LIMIT];
+	private Object[] rowElements = new Object[MIN_REALIZED_LIMIT];
+	private int rowCount;
+
+	private IListChangeListener listChangeListener = new IListChangeListener() {
+		public void handleListChange(ListChangeEvent event) {
+			if (isViewerDisposed() || event.getObservableList() != list)
+				return;
+			handleChange(event);
+		}
+	};
+
+	/**
+	 * Constructs an ObservableListLazyContentProvider which keeps about three
+	 * viewports worth of rows realized. Must be called from the display
+	 * thread.
+	 */
+	public ObservableListLazyContentProvider() {
+		this(0);
+	}
+
+	/**
+	 * Constructs an ObservableListLazyContentProvider. Must be called from the
+	 * display thread.
+	 *
+	 * @param realizedLimit
+	 *            the maximum number of rows to keep realized in the viewer, or
+	 *            <code>0</code> to derive the limit from the height of the
+	 *            table
+	 */
+	public ObservableListLazyContentProvider(int realizedLimit) {
+		this.realizedLimit = realizedLimit;
+
+		display = Display.getDefault();
+		viewerObservable = new WritableValue(SWTObservables.getRealm(display));
+
+		elementSetFactory = new IObservableFactory() {
+			public IObservable createObservable(Object target) {
+				IElementComparer comparer = null;
+				if (target instanceof StructuredViewer)
+					comparer = ((StructuredViewer) target).getComparer();
+				return ObservableViewerElementSet.withComparer(SWTObservables
+						.getRealm(display), null, comparer);
+			}
+		};
+		knownElements = MasterDetailObservables.detailSet(viewerObservable,
+				elementSetFactory, null);
+		unmodifiableKnownElements = Observables
+				.unmodifiableObservableSet(knownElements);
+	}
+
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		if (list != null) {
+			list.removeListChangeListener(listChangeListener);
+			list = null;
+		}
+		rowCount = 0;
+
+		Assert.isTrue(viewer == null || viewer instanceof AbstractTableViewer,
+				"This content provider only works with AbstractTableViewer"); //$NON-NLS-1$
+		this.viewer = (AbstractTableViewer) viewer;
+		comparer = viewer instanceof StructuredViewer ? ((StructuredViewer) viewer)
+				.getComparer() : null;
+		viewerObservable.setValue(viewer); // (clears knownElements)
+
+		if (newInput != null) {
+			Assert.isTrue(newInput instanceof IObservableList,
+					"This content provider only works with input of type IObservableList"); //$NON-NLS-1$
+			list = (IObservableList) newInput;
+			list.addListChangeListener(listChangeListener);
+		}
+
+		if (!isViewerDisposed())
+			this.viewer.setItemCount(list == null ? 0 : list.size());
+	}
+
+	public void updateElement(int index) {
+		if (list == null || isViewerDisposed() || index >= list.size())
+			return;
+
+		Object element = list.get(index);
+
+		int row = findRow(index);
+		Object oldElement = null;
+		if (row >= 0) {
+			oldElement = rowElements[row];
+			removeRowAt(row);
+		}
+
+		knownElements.add(element);
+		viewer.replace(element, index);
+		addRow(index, element);
+
+		if (row >= 0)
+			release(oldElement);
+
+		evictRows();
+	}
+
+	public int findElement(Object element) {
+		if (list == null)
+			return -1;
+		if (comparer == null)
+			return list.indexOf(element);
+		for (int i = 0, size = list.size(); i < size; i++) {
+			if (comparer.equals(element, list.get(i)))
+				return i;
+		}
+		return -1;
+	}
+
+	private void handleChange(ListChangeEvent event) {
+		// Indexes below the first structural change are the same before,
+		// during and after the diff, so replacements there can be applied in
+		// place. Everything at or after it has shifted and is re-requested.
+		final int[] firstShift = new int[] { Integer.MAX_VALUE };
+		final int[] replaced = new int[event.diff.getDifferences().length];
+		final int[] replacedCount = new int[] { 0 };
+		event.diff.accept(new ListDiffVisitor() {
+			public void handleAdd(int index, Object element) {
+				firstShift[0] = Math.min(firstShift[0], index);
+			}
+
+			public void handleRemove(int index, Object element) {
+				firstShift[0] = Math.min(firstShift[0], index);
+			}
+
+			public void handleMove(int oldIndex, int newIndex, Object element) {
+				firstShift[0] = Math.min(firstShift[0], Math.min(oldIndex,
+						newIndex));
+			}
+
+			public void handleReplace(int index, Object oldElement,
+					Object newElement) {
+				replaced[replacedCount[0]++] = index;
+			}
+		});
+
+		for (int i = 0; i < replacedCount[0]; i++) {
+			int index = replaced[i];
+			if (index < firstShift[0] && findRow(index) >= 0)
+				updateElement(index);
+		}
+
+		if (firstShift[0] == Integer.MAX_VALUE)
+			return;
+
+		int size = list.size();
+		Object[] cleared = new Object[rowCount];
+		int clearedCount = 0;
+		boolean redraw = rowCount > MIN_REALIZED_LIMIT;
+		if (redraw)
+			viewer.getControl().setRedraw(false);
+		try {
+			for (int row = rowCount - 1; row >= 0; row--) {
+				if (rowIndices[row] >= firstShift[0]) {
+					viewer.clear(rowIndices[row]);
+					cleared[clearedCount++] = rowElements[row];
+					removeRowAt(row);
+				}
+			}
+			viewer.setItemCount(size);
+		} finally {
+			if (redraw)
+				viewer.getControl().setRedraw(true);
+		}
+
+		for (int i = 0; i < clearedCount; i++)
+			release(cleared[i]);
+	}
+
+	private void evictRows() {
+		int limit = getRealizedLimit();
+		while (rowCount > limit) {
+			int index = rowIndices[0];
+			Object element = rowElements[0];
+			removeRowAt(0);
+			viewer.clear(index);
+			release(element);
+		}
+	}
+
+	private int getRealizedLimit() {
+		if (realizedLimit > 0)
+			return realizedLimit;
+		int visible = 0;
+		if (viewer.getControl() instanceof Table) {
+			Table table = (Table) viewer.getControl();
+			int itemHeight = table.getItemHeight();
+			if (itemHeight > 0)
+				visible = table.getClientArea().height / itemHeight + 1;
+		}
+		return Math.max(MIN_REALIZED_LIMIT, 3 * visible);
+	}
+
+	/*
+	 * Removes the element from the known elements unless another realized row
+	 * still shows it. Must be called after the element was removed from the
+	 * viewer.
+	 */
+	private void release(Object element) {
+		for (int row = 0; row < rowCount; row++) {
+			if (elementsEqual(element, rowElements[row]))
+				return;
+		}
+		knownElements.remove(element);
+	}
+
+	private boolean elementsEqual(Object a, Object b) {
+		if (comparer != null)
+			return comparer.equals(a, b);
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private int findRow(int index) {
+		for (int row = rowCount - 1; row >= 0; row--) {
+			if (rowIndices[row] == index)
+				return row;
+		}
+		return -1;
+	}
+
+	private void addRow(int index, Object element) {
+		if (rowCount == rowIndices.length) {
+			int[] newIndices = new int[rowCount * 2];
+			System.arraycopy(rowIndices, 0, newIndices, 0, rowCount);
+			rowIndices = newIndices;
+			Object[] newElements = new Object[rowCount * 2];
+			System.arraycopy(rowElements, 0, newElements, 0, rowCount);
+			rowElements = newElements;
+		}
+		rowIndices[rowCount] = index;
+		rowElements[rowCount] = element;
+		rowCount++;
+	}
+
+	private void removeRowAt(int row) {
+		int tail = rowCount - row - 1;
+		System.arraycopy(rowIndices, row + 1, rowIndices, row, tail);
+		System.arraycopy(rowElements, row + 1, rowElements, row, tail);
+		rowElements[--rowCount] = null;
+	}
+
+	private boolean isViewerDisposed() {
+		return viewer == null || viewer.getControl() == null
+				|| viewer.getControl().isDisposed();
+	}
+
+	/**
+	 * Disposes of this content provider. This is called by the viewer when a
+	 * content provider is replaced, or when the viewer itself is disposed.
+	 * <p>
+	 * The viewer should not be updated during this call, as it is in the
+	 * process of being disposed.
+	 * </p>
+	 * <p>
+	 * <em>Note:</em> Data binding content providers become unusable on
+	 * disposal.
+	 * </p>
+	 */
+	public void dispose() {
+		if (list != null) {
+			list.removeListChangeListener(listChangeListener);
+			list = null;
+		}
+		if (viewerObservable != null) {
+			viewerObservable.dispose();
+			viewerObservable = null;
+		}
+		viewer = null;
+		comparer = null;
+		knownElements = null;
+		unmodifiableKnownElements = null;
+		rowIndices = null;
+		rowElements = null;
+		rowCount = 0;
+		display = null;
+	}
+
+	/**
+	 * Returns the set of elements known to this content provider, which are
+	 * the elements of the rows currently realized in the viewer. Label
+	 * providers may track this set if they need to be notified about additions
+	 * before the viewer sees the added element, and notified about removals
+	 * after the element was removed from the viewer. This is intended for use
+	 * by label providers, as it will always return the items that need labels.
+	 *
+	 * @return unmodifiable observable set of items that will need labels
+	 */
+	public IObservableSet getKnownElements() {
+		return unmodifiableKnownElements;
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.jface.internal.databinding.swt;
+
+import org.eclipse.core.databinding.observable.value.IObservableIntValue;
+import org.eclipse.swt.widgets.Widget;
+
+/**
+ * {@link SWTObservableValueDecorator} which keeps the unboxed accessors of the
+ * decorated {@link IObservableIntValue} visible.
+ * 
+ * @since 1.7
+ */
+public class SWTObservableIntValueDecorator extends SWTObservableValueDecorator
+		implements IObservableIntValue {
+	private IObservableIntValue decorated;
+
+	/**
+	 * @param decorated
+	 * @param widget
+	 */
+	public SWTObservableIntValueDecorator(IObservableIntValue decorated,
+			Widget widget) {
+		super(decorated, widget);
+		this.decorated = decorated;
+	}
+
+	public int getIntValue() {
+		getterCalled();
+		return decorated.getIntValue();
+	}
+
+	public void setIntValue(int value) {
+		checkRealm();
+		decorated.setIntValue(value);
+	}
+
+	public synchronized void dispose() {
+		decorated = null;
+		super.dispose();
+	}
+}
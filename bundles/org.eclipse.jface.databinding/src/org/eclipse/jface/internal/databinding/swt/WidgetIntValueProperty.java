@@ -8,17 +8,24 @@
  * Contributors:
  *     Matthew Hall - initial API and implementation (bug 194734)
  *     Matthew Hall - bug 195222, 263413
+ *     IBM Corporation - unboxed int access
  ******************************************************************************/
 
 package org.eclipse.jface.internal.databinding.swt;
 
+import org.eclipse.core.databinding.observable.value.IObservableIntValue;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.property.value.IIntValueProperty;
+import org.eclipse.jface.databinding.swt.ISWTObservableValue;
 import org.eclipse.jface.databinding.swt.WidgetValueProperty;
+import org.eclipse.swt.widgets.Widget;
 
 /**
  * @since 3.3
  * 
  */
-public abstract class WidgetIntValueProperty extends WidgetValueProperty {
+public abstract class WidgetIntValueProperty extends WidgetValueProperty
+		implements IIntValueProperty {
 	WidgetIntValueProperty() {
 		super();
 	}
@@ -43,6 +50,23 @@ public abstract class WidgetIntValueProperty extends WidgetValueProperty {
 		doSetIntValue(source, ((Integer) value).intValue());
 	}
 
+	public int getIntValue(Object source) {
+		return source == null ? 0 : doGetIntValue(source);
+	}
+
+	public void setIntValue(Object source, int value) {
+		if (source != null)
+			doSetIntValue(source, value);
+	}
+
+	protected ISWTObservableValue wrapObservable(IObservableValue observable,
+			Widget widget) {
+		if (observable instanceof IObservableIntValue)
+			return new SWTObservableIntValueDecorator(
+					(IObservableIntValue) observable, widget);
+		return super.wrapObservable(observable, widget);
+	}
+
 	abstract int doGetIntValue(Object source);
 
 	abstract void doSetIntValue(Object source, int intValue);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2013 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,17 +8,27 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Hannes Erven <hannes@erven.at> - Bug 293841 - [FieldAssist] NumLock keyDown event should not close the proposal popup [with patch]
+ *     IBM Corporation - asynchronous proposal computation
  *******************************************************************************/
 package org.eclipse.jface.fieldassist;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.bindings.keys.KeyStroke;
 import org.eclipse.jface.dialogs.PopupDialog;
 import org.eclipse.jface.preference.JFacePreferences;
 import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.util.Policy;
 import org.eclipse.jface.util.Util;
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.swt.SWT;
@@ -36,6 +46,7 @@ import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.ScrollBar;
@@ -567,10 +578,29 @@ public class ContentProposalAdapter {
 		private Table proposalTable;
 
 		/*
-		 * The proposals to be shown (cached to avoid repeated requests).
+		 * The proposals obtained from the provider, before filtering by the
+		 * filter text (cached to avoid repeated requests).
 		 */
 		private IContentProposal[] proposals;
 
+		/*
+		 * The labels of the proposals, each computed when first needed.
+		 */
+		private String[] labels;
+
+		/*
+		 * The indices of the proposals shown in the table, in table order, or
+		 * null if all proposals are shown. Only the first shownCount indices
+		 * are valid.
+		 */
+		private int[] shownIndices;
+		private int shownCount;
+
+		/*
+		 * The filter text the shown indices were computed for.
+		 */
+		private String shownFilterText = EMPTY;
+
 		/*
 		 * Secondary popup used to show detailed information about the selected
 		 * proposal..
@@ -657,7 +687,7 @@ public class ContentProposalAdapter {
 			}
 
 			// set the proposals to force population of the table.
-			setProposals(filterProposals(proposals, filterText));
+			setProposals(proposals, filterText, false);
 
 			proposalTable.setHeaderVisible(false);
 			proposalTable.addSelectionListener(new SelectionListener() {
@@ -742,15 +772,18 @@ public class ContentProposalAdapter {
 
 		/*
 		 * Handle the set data event. Set the item data of the requested item to
-		 * the corresponding proposal in the proposal cache.
+		 * the corresponding proposal in the proposal cache. Labels and images
+		 * are only computed for the items the table asks for, which are the
+		 * visible ones.
 		 */
 		private void handleSetData(Event event) {
 			TableItem item = (TableItem) event.item;
-			int index = proposalTable.indexOf(item);
+			int index = event.index;
 
-			if (0 <= index && index < proposals.length) {
-				IContentProposal current = proposals[index];
-				item.setText(getString(current));
+			if (0 <= index && index < getShownCount()) {
+				int proposalIndex = getProposalIndex(index);
+				IContentProposal current = proposals[proposalIndex];
+				item.setText(getLabel(proposalIndex));
 				item.setImage(getImage(current));
 				item.setData(current);
 			} else {
@@ -759,18 +792,28 @@ public class ContentProposalAdapter {
 		}
 
 		/*
-		 * Caches the specified proposals and repopulates the table if it has
-		 * been created.
+		 * Caches the specified proposals, filters them by the filter text and
+		 * repopulates the table if it has been created. If keepSelection is
+		 * true, the selected proposal stays selected if it is still shown.
 		 */
-		private void setProposals(IContentProposal[] newProposals) {
-			if (newProposals == null || newProposals.length == 0) {
+		private void setProposals(IContentProposal[] newProposals,
+				String filterText, boolean keepSelection) {
+			IContentProposal selected = keepSelection ? getSelectedProposal()
+					: null;
+			if (newProposals == null) {
 				newProposals = getEmptyProposalArray();
 			}
-			this.proposals = newProposals;
+			if (newProposals != proposals) {
+				labels = copyLabels(proposals, newProposals);
+				proposals = newProposals;
+				shownIndices = null;
+				shownFilterText = EMPTY;
+			}
+			filterProposals(filterText);
 
 			// If there is a table
 			if (isValid()) {
-				final int newSize = newProposals.length;
+				final int newSize = getShownCount();
 				if (USE_VIRTUAL) {
 					// Set and clear the virtual table. Data will be
 					// provided in the SWT.SetData event handler.
@@ -783,16 +826,26 @@ public class ContentProposalAdapter {
 					TableItem[] items = proposalTable.getItems();
 					for (int i = 0; i < items.length; i++) {
 						TableItem item = items[i];
-						IContentProposal proposal = newProposals[i];
-						item.setText(getString(proposal));
+						int proposalIndex = getProposalIndex(i);
+						IContentProposal proposal = proposals[proposalIndex];
+						item.setText(getLabel(proposalIndex));
 						item.setImage(getImage(proposal));
 						item.setData(proposal);
 					}
 					proposalTable.setRedraw(true);
 				}
 				// Default to the first selection if there is content.
-				if (newProposals.length > 0) {
-					selectProposal(0);
+				if (newSize > 0) {
+					int index = 0;
+					if (selected != null) {
+						for (int i = 0; i < newSize; i++) {
+							if (proposals[getProposalIndex(i)] == selected) {
+								index = i;
+								break;
+							}
+						}
+					}
+					selectProposal(index);
 				} else {
 					// No selection, close the secondary popup if it was open
 					if (infoPopup != null) {
@@ -803,6 +856,57 @@ public class ContentProposalAdapter {
 			}
 		}
 
+		/*
+		 * Return the labels of the new proposals that are known from the old
+		 * proposals, which is the case when proposals are added to the end.
+		 */
+		private String[] copyLabels(IContentProposal[] oldProposals,
+				IContentProposal[] newProposals) {
+			if (labels == null || oldProposals == null) {
+				return null;
+			}
+			String[] newLabels = null;
+			int length = Math.min(oldProposals.length, newProposals.length);
+			for (int i = 0; i < length && oldProposals[i] == newProposals[i]; i++) {
+				if (newLabels == null) {
+					newLabels = new String[newProposals.length];
+				}
+				newLabels[i] = labels[i];
+			}
+			return newLabels;
+		}
+
+		/*
+		 * Return the label of the proposal at the specified index in the
+		 * cached proposals, computing it if needed.
+		 */
+		private String getLabel(int proposalIndex) {
+			if (labels == null) {
+				labels = new String[proposals.length];
+			}
+			String label = labels[proposalIndex];
+			if (label == null) {
+				label = getString(proposals[proposalIndex]);
+				labels[proposalIndex] = label;
+			}
+			return label;
+		}
+
+		/*
+		 * Return the number of proposals shown in the table.
+		 */
+		private int getShownCount() {
+			return shownIndices == null ? proposals.length : shownCount;
+		}
+
+		/*
+		 * Return the index in the cached proposals of the proposal shown at
+		 * the specified table index.
+		 */
+		private int getProposalIndex(int tableIndex) {
+			return shownIndices == null ? tableIndex : shownIndices[tableIndex];
+		}
+
 		/*
 		 * Get the string for the specified proposal. Always return a String of
 		 * some kind.
@@ -868,10 +972,10 @@ public class ContentProposalAdapter {
 		private IContentProposal getSelectedProposal() {
 			if (isValid()) {
 				int i = proposalTable.getSelectionIndex();
-				if (proposals == null || i < 0 || i >= proposals.length) {
+				if (proposals == null || i < 0 || i >= getShownCount()) {
 					return null;
 				}
-				return proposals[i];
+				return proposals[getProposalIndex(i)];
 			}
 			return null;
 		}
@@ -883,7 +987,7 @@ public class ContentProposalAdapter {
 			Assert
 					.isTrue(index >= 0,
 							"Proposal index should never be negative"); //$NON-NLS-1$
-			if (!isValid() || proposals == null || index >= proposals.length) {
+			if (!isValid() || proposals == null || index >= getShownCount()) {
 				return;
 			}
 			proposalTable.setSelection(index);
@@ -924,6 +1028,7 @@ public class ContentProposalAdapter {
 		 */
 		@Override
 		public boolean close() {
+			cancelProposalRequest();
 			popupCloser.removeListeners();
 			if (infoPopup != null) {
 				infoPopup.close();
@@ -1015,18 +1120,39 @@ public class ContentProposalAdapter {
 		 * caches. Repopulate the popup if it is open.
 		 */
 		private void recomputeProposals(String filterText) {
+			if (proposalProvider instanceof IAsyncContentProposalProvider) {
+				// Refilter the proposals we have while the provider computes
+				// the new ones. They are replaced when the first new
+				// proposals come in.
+				if (filterText.length() > 0) {
+					setProposals(proposals, filterText, false);
+				}
+				requestProposals(true);
+				return;
+			}
 			IContentProposal[] allProposals = getProposals();
 			if (allProposals == null)
 				 allProposals = getEmptyProposalArray();
+			proposalsComputed(allProposals, filterText, true, false);
+		}
+
+		/*
+		 * Show the proposals obtained from the provider, filtered by the
+		 * filter text. If they are complete and there are none, close the
+		 * popup.
+		 */
+		private void proposalsComputed(IContentProposal[] newProposals,
+				String filterText, boolean complete, boolean keepSelection) {
 			// If the non-filtered proposal list is empty, we should
 			// close the popup.
 			// See https://bugs.eclipse.org/bugs/show_bug.cgi?id=147377
-			if (allProposals.length == 0) {
-				proposals = allProposals;
-				close();
+			if (newProposals.length == 0) {
+				if (complete) {
+					close();
+				}
 			} else {
 				// Keep the popup open, but filter by any provided filter text
-				setProposals(filterProposals(allProposals, filterText));
+				setProposals(newProposals, filterText, keepSelection);
 			}
 		}
 
@@ -1051,29 +1177,41 @@ public class ContentProposalAdapter {
 		}
 
 		/*
-		 * Filter the provided list of content proposals according to the filter
-		 * text.
+		 * Filter the cached proposals according to the filter text, updating
+		 * the indices of the shown proposals. When the filter text extends
+		 * the previous one, only the proposals shown so far are checked.
 		 */
-		private IContentProposal[] filterProposals(
-				IContentProposal[] proposals, String filterString) {
+		private void filterProposals(String filterString) {
 			if (filterString.length() == 0) {
-				return proposals;
+				shownIndices = null;
+				shownFilterText = EMPTY;
+				return;
 			}
 
+			int[] candidates = null;
+			int candidateCount = proposals.length;
+			if (shownIndices != null
+					&& filterString.startsWith(shownFilterText)) {
+				// Every match of the filter text also matches its prefixes,
+				// so the matches can be compacted in place.
+				candidates = shownIndices;
+				candidateCount = shownCount;
+			}
+			int[] matches = candidates == null ? new int[candidateCount]
+					: candidates;
+			int matchCount = 0;
 			// Check each string for a match. Use the string displayed to the
 			// user, not the proposal content.
-			ArrayList<IContentProposal> list = new ArrayList<IContentProposal>();
-			for (int i = 0; i < proposals.length; i++) {
-				String string = getString(proposals[i]);
-				if (string.length() >= filterString.length()
-						&& string.substring(0, filterString.length())
-								.equalsIgnoreCase(filterString)) {
-					list.add(proposals[i]);
+			for (int i = 0; i < candidateCount; i++) {
+				int proposalIndex = candidates == null ? i : candidates[i];
+				if (getLabel(proposalIndex).regionMatches(true, 0,
+						filterString, 0, filterString.length())) {
+					matches[matchCount++] = proposalIndex;
 				}
-
 			}
-			return list.toArray(new IContentProposal[list
-					.size()]);
+			shownIndices = matches;
+			shownCount = matchCount;
+			shownFilterText = filterString;
 		}
 
 		Listener getTargetControlListener() {
@@ -1084,6 +1222,106 @@ public class ContentProposalAdapter {
 		}
 	}
 
+	/*
+	 * A request for the proposals of an asynchronous provider. The proposals
+	 * are computed in one of the shared proposal computer threads and handed
+	 * to the UI thread in batches as they are collected. Batches collected
+	 * while the UI thread is busy are shown together.
+	 */
+	private final class ProposalRequest implements IContentProposalCollector,
+			Runnable {
+		private final IAsyncContentProposalProvider provider;
+		private final String contents;
+		private final int position;
+		private final boolean autoActivated;
+		private final Display display;
+		private final NullProgressMonitor monitor = new NullProgressMonitor();
+
+		// The proposals collected but not shown yet, guarded by this
+		private final List<IContentProposal> collected = new ArrayList<IContentProposal>();
+		private boolean updatePending;
+		private boolean done;
+
+		// The proposals shown so far, only accessed in the UI thread
+		private final List<IContentProposal> shown = new ArrayList<IContentProposal>();
+		private boolean updated;
+
+		ProposalRequest(IAsyncContentProposalProvider provider,
+				String contents, int position, boolean autoActivated) {
+			this.provider = provider;
+			this.contents = contents;
+			this.position = position;
+			this.autoActivated = autoActivated;
+			this.display = getControl().getDisplay();
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!monitor.isCanceled()) {
+					provider.computeProposals(contents, position, this,
+							monitor);
+				}
+			} catch (RuntimeException e) {
+				Policy.logException(e);
+			} finally {
+				synchronized (this) {
+					done = true;
+				}
+				scheduleUpdate();
+			}
+		}
+
+		@Override
+		public void addProposals(IContentProposal[] proposals) {
+			if (proposals == null || proposals.length == 0
+					|| monitor.isCanceled()) {
+				return;
+			}
+			synchronized (this) {
+				collected.addAll(Arrays.asList(proposals));
+			}
+			scheduleUpdate();
+		}
+
+		private void scheduleUpdate() {
+			synchronized (this) {
+				if (updatePending || monitor.isCanceled()) {
+					return;
+				}
+				updatePending = true;
+			}
+			if (!display.isDisposed()) {
+				display.asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						update();
+					}
+				});
+			}
+		}
+
+		/*
+		 * Show the proposals collected so far. Called in the UI thread.
+		 */
+		private void update() {
+			boolean complete;
+			synchronized (this) {
+				shown.addAll(collected);
+				collected.clear();
+				updatePending = false;
+				complete = done;
+			}
+			if (pendingRequest != this || monitor.isCanceled() || !isValid()) {
+				return;
+			}
+			boolean firstUpdate = !updated;
+			updated = true;
+			proposalsComputed(this, shown.toArray(new IContentProposal[shown
+					.size()]), complete, firstUpdate);
+		}
+	}
+
 	/**
 	 * Flag that controls the printing of debug info.
 	 */
@@ -1195,6 +1433,32 @@ public class ContentProposalAdapter {
 	 */
 	private ContentProposalPopup popup;
 
+	/*
+	 * The threads computing the proposals of asynchronous providers, shared by
+	 * all adapters. We do not use Jobs since this code must be able to run
+	 * independently of the Eclipse runtime.
+	 */
+	private static ExecutorService proposalComputer;
+
+	/*
+	 * The number of threads computing proposals. More than one, so that a
+	 * provider that is slow to notice the cancellation of a superseded request
+	 * only delays the requests queued behind it. Superseded requests that are
+	 * still queued return at once when they are run.
+	 */
+	private static final int PROPOSAL_COMPUTER_THREADS = 2;
+
+	/*
+	 * The request for proposals of an asynchronous provider that has not
+	 * completed yet, or null.
+	 */
+	private ProposalRequest pendingRequest;
+
+	/*
+	 * The runnable opening the popup once the autoactivation delay has passed.
+	 */
+	private Runnable autoActivationRunnable;
+
 	/*
 	 * The keystroke that signifies content proposals should be shown.
 	 */
@@ -1251,12 +1515,6 @@ public class ContentProposalAdapter {
 	 */
 	private int autoActivationDelay = 0;
 
-	/*
-	 * A boolean indicating whether a keystroke has been received. Used to see
-	 * if an autoactivation delay was interrupted by a keystroke.
-	 */
-	private boolean receivedKeyDown;
-
 	/*
 	 * The desired size in pixels of the proposal popup.
 	 */
@@ -1779,11 +2037,10 @@ public class ContentProposalAdapter {
 							if (autoActivateString.indexOf(e.character) >= 0) {
 								autoActivate();
 							} else {
-								// No autoactivation occurred, so record the key
-								// down as a means to interrupt any
-								// autoactivation that is pending due to
-								// autoactivation delay.
-								receivedKeyDown = true;
+								// No autoactivation occurred, so use the key
+								// down to interrupt any autoactivation that is
+								// pending due to autoactivation delay.
+								cancelAutoActivation();
 								// watch the modify so we can close the popup in
 								// cases where there is no longer a trigger
 								// character in the content
@@ -1801,7 +2058,7 @@ public class ContentProposalAdapter {
 					} else {
 						// A non-character key has been pressed. Interrupt any
 						// autoactivation that is pending due to autoactivation delay.
-						receivedKeyDown = true;
+						cancelAutoActivation();
 					}
 					break;
 
@@ -1900,22 +2157,14 @@ public class ContentProposalAdapter {
 			if (popup == null) {
 				// Check whether there are any proposals to be shown.
 				recordCursorPosition(); // must be done before getting proposals
+				if (proposalProvider instanceof IAsyncContentProposalProvider) {
+					// The popup is opened when the first proposals come in
+					requestProposals(autoActivated);
+					return;
+				}
 				IContentProposal[] proposals = getProposals();
 				if (proposals.length > 0) {
-					if (DEBUG) {
-						System.out.println("POPUP OPENED BY PRECEDING EVENT"); //$NON-NLS-1$
-					}
-					recordCursorPosition();
-					popup = new ContentProposalPopup(null, proposals);
-					popup.open();
-					popup.getShell().addDisposeListener(new DisposeListener() {
-						@Override
-						public void widgetDisposed(DisposeEvent event) {
-							popup = null;
-						}
-					});
-					internalPopupOpened();
-					notifyPopupOpened();
+					openProposalPopup(proposals);
 				} else if (!autoActivated) {
 					getControl().getDisplay().beep();
 				}
@@ -1923,6 +2172,26 @@ public class ContentProposalAdapter {
 		}
 	}
 
+	/*
+	 * Open the proposal popup showing the specified proposals.
+	 */
+	private void openProposalPopup(IContentProposal[] proposals) {
+		if (DEBUG) {
+			System.out.println("POPUP OPENED BY PRECEDING EVENT"); //$NON-NLS-1$
+		}
+		recordCursorPosition();
+		popup = new ContentProposalPopup(null, proposals);
+		popup.open();
+		popup.getShell().addDisposeListener(new DisposeListener() {
+			@Override
+			public void widgetDisposed(DisposeEvent event) {
+				popup = null;
+			}
+		});
+		internalPopupOpened();
+		notifyPopupOpened();
+	}
+
 	/**
 	 * Open the proposal popup and display the proposals provided by the
 	 * proposal provider. This method returns immediately. That is, it does not
@@ -2059,33 +2328,106 @@ public class ContentProposalAdapter {
 		return proposals;
 	}
 
+	/*
+	 * Request the proposals from an asynchronous proposal provider, cancelling
+	 * any request that has not completed yet. The proposals are shown in the
+	 * popup as they come in, and the popup is opened if it is not open yet.
+	 */
+	private void requestProposals(boolean autoActivated) {
+		cancelProposalRequest();
+		if (!isValid()) {
+			return;
+		}
+		if (DEBUG) {
+			System.out.println(">>> requesting proposals from provider"); //$NON-NLS-1$
+		}
+		int position = insertionPos;
+		if (position == -1) {
+			position = getControlContentAdapter().getCursorPosition(
+					getControl());
+		}
+		String contents = getControlContentAdapter().getControlContents(
+				getControl());
+		pendingRequest = new ProposalRequest(
+				(IAsyncContentProposalProvider) proposalProvider, contents,
+				position, autoActivated);
+		getProposalComputer().execute(pendingRequest);
+	}
+
+	/*
+	 * Cancel the request for proposals that has not completed yet, if any.
+	 */
+	private void cancelProposalRequest() {
+		if (pendingRequest != null) {
+			pendingRequest.monitor.setCanceled(true);
+			pendingRequest = null;
+		}
+	}
+
+	/*
+	 * Proposals of the pending request have come in. Show them, opening the
+	 * popup if needed.
+	 */
+	private void proposalsComputed(ProposalRequest request,
+			IContentProposal[] proposals, boolean complete, boolean firstUpdate) {
+		if (complete) {
+			pendingRequest = null;
+		}
+		if (popup != null) {
+			popup.proposalsComputed(proposals, popup.filterText, complete,
+					!firstUpdate);
+		} else if (proposals.length > 0) {
+			openProposalPopup(proposals);
+		} else if (complete && !request.autoActivated) {
+			getControl().getDisplay().beep();
+		}
+	}
+
+	/*
+	 * Return the shared threads computing the proposals of asynchronous
+	 * providers.
+	 */
+	private static synchronized ExecutorService getProposalComputer() {
+		if (proposalComputer == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(
+					PROPOSAL_COMPUTER_THREADS, PROPOSAL_COMPUTER_THREADS, 30,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable,
+									"Content Proposal Computation"); //$NON-NLS-1$
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			// Do not keep idle threads around
+			executor.allowCoreThreadTimeOut(true);
+			proposalComputer = executor;
+		}
+		return proposalComputer;
+	}
+
 	/**
 	 * Autoactivation has been triggered. Open the popup using any specified
 	 * delay.
 	 */
 	private void autoActivate() {
 		if (autoActivationDelay > 0) {
-			Runnable runnable = new Runnable() {
-				@Override
-				public void run() {
-					receivedKeyDown = false;
-					try {
-						Thread.sleep(autoActivationDelay);
-					} catch (InterruptedException e) {
-					}
-					if (!isValid() || receivedKeyDown) {
-						return;
-					}
-					getControl().getDisplay().syncExec(new Runnable() {
-						@Override
-						public void run() {
+			// Scheduling the runnable again restarts the delay, so the popup
+			// opens once the user pauses typing.
+			if (autoActivationRunnable == null) {
+				autoActivationRunnable = new Runnable() {
+					@Override
+					public void run() {
+						if (isValid()) {
 							openProposalPopup(true);
 						}
-					});
-				}
-			};
-			Thread t = new Thread(runnable);
-			t.start();
+					}
+				};
+			}
+			getControl().getDisplay().timerExec(autoActivationDelay,
+					autoActivationRunnable);
 		} else {
 			// Since we do not sleep, we must open the popup
 			// in an async exec. This is necessary because
@@ -2104,6 +2446,19 @@ public class ContentProposalAdapter {
 		}
 	}
 
+	/*
+	 * Interrupt any autoactivation that is pending due to the autoactivation
+	 * delay or to an asynchronous provider computing the proposals.
+	 */
+	private void cancelAutoActivation() {
+		if (autoActivationRunnable != null && isValid()) {
+			getControl().getDisplay().timerExec(-1, autoActivationRunnable);
+		}
+		if (popup == null) {
+			cancelProposalRequest();
+		}
+	}
+
 	/*
 	 * A proposal has been accepted. Notify interested listeners.
 	 */
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.fieldassist;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * IAsyncContentProposalProvider is an {@link IContentProposalProvider} whose
+ * proposals may take long to compute. A {@link ContentProposalAdapter} computes
+ * the proposals of such a provider outside of the UI thread, so that typing in
+ * the control is not blocked, and shows the proposals as they are collected.
+ * <p>
+ * A request is cancelled as soon as its proposals are no longer needed, for
+ * example because the user typed another character or closed the popup.
+ * Providers should check the progress monitor regularly and return when it is
+ * cancelled.
+ * </p>
+ * 
+ * @since 3.10
+ * 
+ * @see IContentProposalCollector
+ */
+public interface IAsyncContentProposalProvider extends IContentProposalProvider {
+
+	/**
+	 * Compute the content proposals for a field, passing them to the collector
+	 * as they are found. This method is not called in the UI thread and must
+	 * not access any widgets. It may pass proposals to the collector any
+	 * number of times before it returns, and must not use the collector after
+	 * it returned.
+	 * 
+	 * @param contents
+	 *            the contents of the text field when the proposals were
+	 *            requested
+	 * @param position
+	 *            the position of the cursor in the contents
+	 * @param collector
+	 *            the collector to pass the proposals to
+	 * @param monitor
+	 *            the progress monitor that is cancelled when the proposals are
+	 *            no longer needed
+	 */
+	void computeProposals(String contents, int position,
+			IContentProposalCollector collector, IProgressMonitor monitor);
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jface.fieldassist;
+
+/**
+ * IContentProposalCollector receives the proposals computed by an
+ * {@link IAsyncContentProposalProvider}. Its methods may be called from any
+ * thread.
+ * <p>
+ * This interface is not intended to be implemented by clients.
+ * </p>
+ * 
+ * @since 3.10
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+public interface IContentProposalCollector {
+
+	/**
+	 * Add proposals to the proposals shown for the request. Proposals added
+	 * after the request was cancelled are ignored.
+	 * 
+	 * @param proposals
+	 *            the proposals to add, in the order they should be shown after
+	 *            the proposals added before
+	 */
+	void addProposals(IContentProposal[] proposals);
+}
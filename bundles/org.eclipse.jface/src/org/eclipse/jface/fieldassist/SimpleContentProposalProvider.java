@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2013 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,6 +8,7 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Amir Kouchekinia <amir@pyrus.us> - bug 200762
+ *     IBM Corporation - refilter the previous matches when the contents are extended
  *******************************************************************************/
 package org.eclipse.jface.fieldassist;
 
@@ -39,6 +40,13 @@ public class SimpleContentProposalProvider implements IContentProposalProvider {
 	 */
 	private boolean filterProposals = false;
 
+	/*
+	 * The contents the proposals were last filtered by, and the proposals
+	 * that matched them. Only these can match contents extending them.
+	 */
+	private String lastFilterContents;
+	private String[] lastMatches;
+
 	/**
 	 * Construct a SimpleContentProposalProvider whose content proposals are
 	 * always the specified array of Objects.
@@ -67,14 +75,23 @@ public class SimpleContentProposalProvider implements IContentProposalProvider {
 	@Override
 	public IContentProposal[] getProposals(String contents, int position) {
 		if (filterProposals) {
+			String[] candidates = proposals;
+			if (lastFilterContents != null
+					&& contents.startsWith(lastFilterContents)) {
+				candidates = lastMatches;
+			}
+			ArrayList<String> matches = new ArrayList<String>();
 			ArrayList<ContentProposal> list = new ArrayList<ContentProposal>();
-			for (int i = 0; i < proposals.length; i++) {
-				if (proposals[i].length() >= contents.length()
-						&& proposals[i].substring(0, contents.length())
-								.equalsIgnoreCase(contents)) {
-					list.add(new ContentProposal(proposals[i]));
+			for (int i = 0; i < candidates.length; i++) {
+				if (candidates[i].length() >= contents.length()
+						&& candidates[i].regionMatches(true, 0, contents, 0,
+								contents.length())) {
+					matches.add(candidates[i]);
+					list.add(new ContentProposal(candidates[i]));
 				}
 			}
+			lastFilterContents = contents;
+			lastMatches = matches.toArray(new String[matches.size()]);
 			return list.toArray(new IContentProposal[list
 					.size()]);
 		}
@@ -96,6 +113,8 @@ public class SimpleContentProposalProvider implements IContentProposalProvider {
 	public void setProposals(String[] items) {
 		this.proposals = items;
 		contentProposals = null;
+		lastFilterContents = null;
+		lastMatches = null;
 	}
 
 	/**
@@ -113,5 +132,7 @@ public class SimpleContentProposalProvider implements IContentProposalProvider {
 		this.filterProposals = filterProposals;
 		// Clear any cached proposals.
 		contentProposals = null;
+		lastFilterContents = null;
+		lastMatches = null;
 	}
 }
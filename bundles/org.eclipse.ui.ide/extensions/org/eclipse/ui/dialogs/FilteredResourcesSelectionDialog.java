@@ -9,6 +9,8 @@
  *     IBM Corporation - initial API and implementation
  *     James Blackburn (Broadcom Corp.) Bug 86973 Allow path pattern matching
  *     Anton Leherbauer (Wind River Systems, Inc.) - Bug 415099 Terminating with "<" or " " (space) does not work for extensions
+ *     IBM Corporation - answer queries from the resource name index
+ *     IBM Corporation - match resources concurrently
  *******************************************************************************/
 package org.eclipse.ui.dialogs;
 
@@ -182,6 +184,9 @@ public class FilteredResourcesSelectionDialog extends
 
 		setListLabelProvider(resourceItemLabelProvider);
 		setDetailsLabelProvider(resourceItemDetailsLabelProvider);
+
+		// start loading the index, so it is likely ready by the first query
+		IDEWorkbenchPlugin.getDefault().getResourceNameIndex();
 	}
 
 	/*
@@ -563,6 +568,30 @@ public class FilteredResourcesSelectionDialog extends
 			ItemsFilter itemsFilter, IProgressMonitor progressMonitor)
 			throws CoreException {
 		if (itemsFilter instanceof ResourceFilter) {
+			ResourceFilter resourceFilter = (ResourceFilter) itemsFilter;
+			// the index can only narrow down by name for filters matching the
+			// way ResourceFilter does
+			IResource[] candidates = null;
+			if (itemsFilter.getClass() == ResourceFilter.class) {
+				candidates = IDEWorkbenchPlugin.getDefault()
+						.getResourceNameIndex().getCandidates(container,
+								itemsFilter.getPattern(),
+								resourceFilter.isShowDerived());
+			}
+			if (candidates != null) {
+				progressMonitor
+						.beginTask(
+								WorkbenchMessages.FilteredItemsSelectionDialog_searchJob_taskName,
+								candidates.length);
+				for (int i = 0; i < candidates.length; i++) {
+					contentProvider.add(candidates[i], itemsFilter);
+					if (progressMonitor.isCanceled())
+						break;
+				}
+				progressMonitor.done();
+				return;
+			}
+
 			IResource[] members = container.members();
 			progressMonitor
 					.beginTask(
@@ -570,7 +599,7 @@ public class FilteredResourcesSelectionDialog extends
 							members.length);
 			
 			ResourceProxyVisitor visitor = new ResourceProxyVisitor(
-					contentProvider, (ResourceFilter) itemsFilter,
+					contentProvider, resourceFilter,
 					progressMonitor);
 			
 			if (visitor.visit(container.createProxy())) {
@@ -1075,6 +1104,18 @@ public class FilteredResourcesSelectionDialog extends
 			return matches(name);
 		}
 
+		/**
+		 * The patterns of this filter are not changed while matching, and
+		 * resources may be read from any thread. Subclasses may override
+		 * {@link #matchItem(Object)}, so only this class answers
+		 * <code>true</code>.
+		 * 
+		 * @see org.eclipse.ui.dialogs.FilteredItemsSelectionDialog.ItemsFilter#allowsConcurrentMatching()
+		 */
+		public boolean allowsConcurrentMatching() {
+			return getClass() == ResourceFilter.class;
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * 
@@ -1007,6 +1007,8 @@ public class IDEWorkbenchMessages extends NLS {
 	public static String editorAssociationOverride_error_invalidElementName_message;
 	public static String editorAssociationOverride_error_invalidExtension_message;
 
+	public static String ResourceNameIndex_building;
+
 	static {
 		// load message values from bundle file
 		NLS.initializeMessages(BUNDLE_NAME, IDEWorkbenchMessages.class);
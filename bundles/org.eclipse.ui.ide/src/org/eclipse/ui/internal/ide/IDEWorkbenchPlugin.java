@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - resource name index
  *******************************************************************************/
 
 package org.eclipse.ui.internal.ide;
@@ -101,6 +102,11 @@ public class IDEWorkbenchPlugin extends AbstractUIPlugin {
 
 	private ResourceManager resourceManager;
 
+	/**
+	 * Resource name index; lazily initialized.
+	 */
+	private ResourceNameIndex resourceNameIndex;
+
 	/**
 	 * Create an instance of the receiver.
 	 */
@@ -264,6 +270,20 @@ public class IDEWorkbenchPlugin extends AbstractUIPlugin {
         return projectImageRegistry;
     }
 
+    /**
+     * Returns the index of the names of the resources in the workspace,
+     * starting to build it on first access.
+     *
+     * @return the resource name index
+     */
+    public synchronized ResourceNameIndex getResourceNameIndex() {
+        if (resourceNameIndex == null) {
+            resourceNameIndex = new ResourceNameIndex();
+            resourceNameIndex.start();
+        }
+        return resourceNameIndex;
+    }
+
     /**
      * Returns the marker image provider registry for the workbench.
      *
@@ -336,6 +356,12 @@ public class IDEWorkbenchPlugin extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		synchronized (this) {
+			if (resourceNameIndex != null) {
+				resourceNameIndex.dispose();
+				resourceNameIndex = null;
+			}
+		}
 		super.stop(context);
 		if (resourceManager != null)
 			resourceManager.dispose();
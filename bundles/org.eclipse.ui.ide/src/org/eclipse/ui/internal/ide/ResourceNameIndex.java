@@ -0,0 +1,755 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.internal.ide;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.ISavedState;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * An index of the names of all resources in the workspace, used to answer
+ * name queries without walking the resource tree. Closed projects are
+ * indexed, but not their contents.
+ * <p>
+ * Resources are kept in postings lists keyed by the lower case first
+ * character of their name. Every non wildcard search pattern, whether it is
+ * matched as prefix, exactly or as camel case, only matches names starting
+ * with its own first character, so a query only needs to look at one or two
+ * lists. The index is kept up to date from resource deltas, and is saved to
+ * the plug-in state location on every full workspace save. On the next
+ * session it is restored from there and brought up to date with the delta
+ * the workspace kept since the save; only if that is not possible is the
+ * resource tree walked, in a background job.
+ * </p>
+ * <p>
+ * The index is loaded without holding a scheduling rule or its own lock, so
+ * neither workspace operations nor queries wait for it. Changes made while it
+ * is loaded are queued, and applied once it is complete. Applying a change
+ * reads the current state of the resource tree, so changes the load has
+ * already seen are applied again without harm. Changes which require walking
+ * a folder or project, such as opening a project, are applied the same way:
+ * the index is not ready until a job has applied them.
+ * </p>
+ */
+public class ResourceNameIndex implements IResourceChangeListener,
+		ISaveParticipant {
+
+	private static final IPath SAVE_KEY = new Path("resourceNameIndex"); //$NON-NLS-1$
+
+	private static final String SAVE_FILE_PREFIX = "resourceNames-"; //$NON-NLS-1$
+
+	private static final int FORMAT_VERSION = 1;
+
+	/** No folder above the resource is derived. */
+	private static final int NOT_DERIVED = -1;
+
+	/** Index the resource and everything below it. */
+	private static final int ADD_TREE = 0;
+
+	/** Remove the resource; the removed children have updates of their own. */
+	private static final int REMOVE = 1;
+
+	/** Index the resource and everything below it again. */
+	private static final int REPLACE_TREE = 2;
+
+	/**
+	 * An indexed resource. Entries are immutable, so they can be handed out
+	 * while the index changes.
+	 */
+	private static final class Entry {
+		final IPath path;
+		final int type;
+		final boolean derived;
+		/**
+		 * The number of segments of the deepest derived folder above the
+		 * resource, or {@link #NOT_DERIVED}.
+		 */
+		final int derivedAncestorDepth;
+
+		Entry(IPath path, int type, boolean derived, int derivedAncestorDepth) {
+			this.path = path;
+			this.type = type;
+			this.derived = derived;
+			this.derivedAncestorDepth = derivedAncestorDepth;
+		}
+
+		/**
+		 * @return the derived ancestor depth of the children of this entry
+		 */
+		int getChildDerivedAncestorDepth() {
+			if (type == IResource.FOLDER && derived) {
+				return path.segmentCount();
+			}
+			return derivedAncestorDepth;
+		}
+	}
+
+	/**
+	 * A change to apply to the index, taken from a resource delta. Deltas are
+	 * only valid while they are being reported, so they are not kept.
+	 */
+	private static final class Update {
+		final IResource resource;
+		final int kind;
+
+		Update(IResource resource, int kind) {
+			this.resource = resource;
+			this.kind = kind;
+		}
+	}
+
+	/**
+	 * The postings lists of an index. Not thread safe; the index guards the
+	 * ones it answers queries from, and loads new ones in a single thread.
+	 */
+	private static final class Postings {
+		/*
+		 * Lower case first character of the name (Character) -> full path
+		 * (IPath) -> Entry
+		 */
+		final Map lists = new HashMap();
+
+		int size;
+
+		void put(Entry entry) {
+			Character key = keyFor(entry.path);
+			Map entries = (Map) lists.get(key);
+			if (entries == null) {
+				entries = new HashMap();
+				lists.put(key, entries);
+			}
+			if (entries.put(entry.path, entry) == null) {
+				size++;
+			}
+		}
+
+		Entry get(IPath path) {
+			if (path.segmentCount() == 0) {
+				return null;
+			}
+			Map entries = (Map) lists.get(keyFor(path));
+			return entries == null ? null : (Entry) entries.get(path);
+		}
+
+		void remove(IPath path) {
+			Character key = keyFor(path);
+			Map entries = (Map) lists.get(key);
+			if (entries != null && entries.remove(path) != null) {
+				size--;
+				if (entries.isEmpty()) {
+					lists.remove(key);
+				}
+			}
+		}
+
+		void removeTree(IPath path) {
+			for (Iterator it = lists.values().iterator(); it.hasNext();) {
+				Map entries = (Map) it.next();
+				for (Iterator it2 = entries.keySet().iterator(); it2.hasNext();) {
+					if (path.isPrefixOf((IPath) it2.next())) {
+						it2.remove();
+						size--;
+					}
+				}
+				if (entries.isEmpty()) {
+					it.remove();
+				}
+			}
+		}
+
+		/**
+		 * Indexes the given resource and everything below it, the way the
+		 * Open Resource dialog would find them.
+		 */
+		void addTree(IResource resource) throws CoreException {
+			if (!resource.exists()) {
+				return;
+			}
+			final IPath top = resource.getFullPath();
+			if (!resource.isAccessible()) {
+				// a closed project is found, but its contents are not
+				put(new Entry(top, resource.getType(), false, NOT_DERIVED));
+				return;
+			}
+			final int topDepth = getDerivedAncestorDepth(resource.getParent());
+			resource.accept(new IResourceProxyVisitor() {
+				public boolean visit(IResourceProxy proxy) {
+					IPath path = proxy.requestFullPath();
+					int depth = topDepth;
+					if (!path.equals(top)) {
+						// parents are visited, and indexed, before their
+						// children
+						Entry parent = get(path.removeLastSegments(1));
+						depth = parent == null ? NOT_DERIVED : parent
+								.getChildDerivedAncestorDepth();
+					}
+					put(new Entry(path, proxy.getType(), proxy.isDerived(),
+							depth));
+					return proxy.getType() != IResource.FILE;
+				}
+			}, IResource.NONE);
+		}
+
+		void apply(List updates) throws CoreException {
+			for (Iterator it = updates.iterator(); it.hasNext();) {
+				Update update = (Update) it.next();
+				switch (update.kind) {
+				case ADD_TREE:
+					addTree(update.resource);
+					break;
+				case REMOVE:
+					remove(update.resource.getFullPath());
+					break;
+				default:
+					if (update.resource.getType() == IResource.FILE) {
+						remove(update.resource.getFullPath());
+					} else {
+						removeTree(update.resource.getFullPath());
+					}
+					addTree(update.resource);
+					break;
+				}
+			}
+		}
+
+		void write(File file) throws IOException {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(size);
+				for (Iterator it = lists.values().iterator(); it.hasNext();) {
+					Map entries = (Map) it.next();
+					for (Iterator it2 = entries.values().iterator(); it2
+							.hasNext();) {
+						Entry entry = (Entry) it2.next();
+						out.writeUTF(entry.path.toPortableString());
+						out.writeByte(entry.type);
+						out.writeBoolean(entry.derived);
+						out.writeInt(entry.derivedAncestorDepth);
+					}
+				}
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	/* guarded by this */
+	private Postings postings = new Postings();
+
+	/*
+	 * The updates that arrived while the index is loaded, or null when it is
+	 * not being loaded; guarded by this
+	 */
+	private List pendingUpdates;
+
+	private volatile boolean ready;
+
+	private boolean started;
+
+	private Job initializeJob;
+
+	private Job updateJob;
+
+	/**
+	 * Starts loading or building the index in the background, and keeping it
+	 * up to date. Does nothing if the index is already started.
+	 */
+	public synchronized void start() {
+		if (started) {
+			return;
+		}
+		started = true;
+		initializeJob = new Job(IDEWorkbenchMessages.ResourceNameIndex_building) {
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					initialize(monitor);
+				} catch (CoreException e) {
+					return e.getStatus();
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		initializeJob.setSystem(true);
+		initializeJob.schedule();
+		updateJob = new Job(IDEWorkbenchMessages.ResourceNameIndex_building) {
+			protected IStatus run(IProgressMonitor monitor) {
+				Postings current;
+				synchronized (ResourceNameIndex.this) {
+					current = postings;
+				}
+				try {
+					applyPendingUpdates(current);
+				} catch (CoreException e) {
+					return e.getStatus();
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		updateJob.setSystem(true);
+	}
+
+	/**
+	 * Stops keeping the index up to date and forgets its contents.
+	 */
+	public void dispose() {
+		Job job;
+		Job update;
+		synchronized (this) {
+			if (!started) {
+				return;
+			}
+			started = false;
+			job = initializeJob;
+			initializeJob = null;
+			update = updateJob;
+			updateJob = null;
+		}
+		if (job != null) {
+			job.cancel();
+		}
+		if (update != null) {
+			update.cancel();
+		}
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		workspace.removeResourceChangeListener(this);
+		workspace.removeSaveParticipant(IDEWorkbenchPlugin.IDE_WORKBENCH);
+		synchronized (this) {
+			ready = false;
+			pendingUpdates = null;
+			postings = new Postings();
+		}
+	}
+
+	/**
+	 * @return whether the index can answer queries
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	private void initialize(IProgressMonitor monitor) throws CoreException {
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		synchronized (this) {
+			pendingUpdates = new ArrayList();
+		}
+		workspace.addResourceChangeListener(this,
+				IResourceChangeEvent.POST_CHANGE);
+		load(workspace.addSaveParticipant(IDEWorkbenchPlugin.IDE_WORKBENCH,
+				this), monitor);
+	}
+
+	/**
+	 * Restores the index from the given saved state, or builds it if that is
+	 * not possible, and then applies the updates that arrived meanwhile.
+	 *
+	 * @param savedState
+	 *            the state saved in the previous session, or <code>null</code>
+	 * @param monitor
+	 *            the monitor to check for cancellation
+	 */
+	private void load(ISavedState savedState, IProgressMonitor monitor)
+			throws CoreException {
+		synchronized (this) {
+			// updates arriving from now on wait until the index is loaded
+			if (pendingUpdates == null) {
+				pendingUpdates = new ArrayList();
+			}
+		}
+		Postings loaded = savedState == null ? null : restore(savedState);
+		if (loaded == null) {
+			loaded = build(monitor);
+		}
+		applyPendingUpdates(loaded);
+	}
+
+	/**
+	 * Applies the queued updates to the given postings, which queries do not
+	 * read meanwhile, and answers queries from them once no updates are left.
+	 *
+	 * @param target
+	 *            the postings to update, or <code>null</code> if loading them
+	 *            was cancelled
+	 */
+	private void applyPendingUpdates(Postings target) throws CoreException {
+		while (true) {
+			List updates;
+			synchronized (this) {
+				if (target == null || !started || pendingUpdates == null) {
+					// cancelled
+					pendingUpdates = null;
+					return;
+				}
+				if (pendingUpdates.isEmpty()) {
+					pendingUpdates = null;
+					postings = target;
+					ready = true;
+					return;
+				}
+				updates = pendingUpdates;
+				pendingUpdates = new ArrayList();
+			}
+			try {
+				target.apply(updates);
+			} catch (CoreException e) {
+				synchronized (this) {
+					// stop queueing; rebuild on the next session
+					pendingUpdates = null;
+				}
+				throw e;
+			}
+		}
+	}
+
+	private Postings restore(ISavedState savedState) throws CoreException {
+		IPath saveFile = savedState.lookup(SAVE_KEY);
+		if (saveFile == null) {
+			return null;
+		}
+		Postings restored = read(getStateFile(saveFile.toString()));
+		if (restored == null) {
+			return null;
+		}
+		final List updates = new ArrayList();
+		final CoreException[] failure = new CoreException[1];
+		savedState.processResourceChangeEvents(new IResourceChangeListener() {
+			public void resourceChanged(IResourceChangeEvent event) {
+				try {
+					if (event.getDelta() != null) {
+						collectUpdates(event.getDelta(), updates);
+					}
+				} catch (CoreException e) {
+					failure[0] = e;
+				}
+			}
+		});
+		if (failure[0] != null) {
+			IDEWorkbenchPlugin.log(failure[0].getMessage(), failure[0]);
+			return null;
+		}
+		restored.apply(updates);
+		return restored;
+	}
+
+	private Postings build(IProgressMonitor monitor) throws CoreException {
+		Postings built = new Postings();
+		IProject[] projects = ResourcesPlugin.getWorkspace().getRoot()
+				.getProjects();
+		for (int i = 0; i < projects.length; i++) {
+			if (monitor.isCanceled()) {
+				return null;
+			}
+			built.addTree(projects[i]);
+		}
+		return built;
+	}
+
+	/**
+	 * Returns the resources in the given container, the container included,
+	 * which may match the given file name pattern, or <code>null</code> if
+	 * the index is not ready yet. All resources that match are returned, but
+	 * not all resources returned match; callers still have to apply their
+	 * filter.
+	 *
+	 * @param container
+	 *            the container to search
+	 * @param namePattern
+	 *            the file name pattern, as understood by
+	 *            {@link org.eclipse.ui.dialogs.SearchPattern}
+	 * @param showDerived
+	 *            whether to return resources in derived folders
+	 * @return the candidate resources, or <code>null</code>
+	 */
+	public IResource[] getCandidates(IContainer container, String namePattern,
+			boolean showDerived) {
+		if (!ready) {
+			return null;
+		}
+		IPath containerPath = container.getFullPath();
+		int containerDepth = containerPath.segmentCount();
+		IWorkspaceRoot root = container.getWorkspace().getRoot();
+		List result = new ArrayList();
+		result.add(container);
+		synchronized (this) {
+			if (!ready) {
+				return null;
+			}
+			List lists = new ArrayList(2);
+			char first = namePattern.length() == 0 ? '*' : namePattern.charAt(0);
+			if (first == '*' || first == '?' || first == '.') {
+				// wild cards, and a name pattern matched against the
+				// extension only, may match any name
+				lists.addAll(postings.lists.values());
+			} else {
+				addList(lists, Character.toLowerCase(first));
+				addList(lists, Character.toLowerCase(Character.toUpperCase(first)));
+			}
+			for (Iterator it = lists.iterator(); it.hasNext();) {
+				Map entries = (Map) it.next();
+				for (Iterator it2 = entries.values().iterator(); it2.hasNext();) {
+					Entry entry = (Entry) it2.next();
+					if (entry.path.segmentCount() <= containerDepth
+							|| !containerPath.isPrefixOf(entry.path)) {
+						continue;
+					}
+					// the derived folder has been found, but not searched
+					if (!showDerived && entry.derivedAncestorDepth >= containerDepth) {
+						continue;
+					}
+					result.add(getResource(root, entry));
+				}
+			}
+		}
+		return (IResource[]) result.toArray(new IResource[result.size()]);
+	}
+
+	private void addList(List lists, char key) {
+		Map entries = (Map) postings.lists.get(new Character(key));
+		if (entries != null && !lists.contains(entries)) {
+			lists.add(entries);
+		}
+	}
+
+	/**
+	 * @return the number of indexed resources
+	 */
+	public synchronized int size() {
+		return postings.size;
+	}
+
+	private static IResource getResource(IWorkspaceRoot root, Entry entry) {
+		switch (entry.type) {
+		case IResource.FILE:
+			return root.getFile(entry.path);
+		case IResource.FOLDER:
+			return root.getFolder(entry.path);
+		default:
+			return root.getProject(entry.path.segment(0));
+		}
+	}
+
+	private static Character keyFor(IPath path) {
+		return new Character(Character.toLowerCase(path.lastSegment().charAt(0)));
+	}
+
+	private static int getDerivedAncestorDepth(IContainer parent) {
+		for (IContainer container = parent; container != null; container = container
+				.getParent()) {
+			if (container.getType() == IResource.FOLDER && container.isDerived()) {
+				return container.getFullPath().segmentCount();
+			}
+		}
+		return NOT_DERIVED;
+	}
+
+	private static void collectUpdates(IResourceDelta delta, final List updates)
+			throws CoreException {
+		delta.accept(new IResourceDeltaVisitor() {
+			public boolean visit(IResourceDelta child) {
+				IResource resource = child.getResource();
+				if (resource.getType() == IResource.ROOT) {
+					return true;
+				}
+				switch (child.getKind()) {
+				case IResourceDelta.ADDED:
+					updates.add(new Update(resource, ADD_TREE));
+					return false;
+				case IResourceDelta.REMOVED:
+					updates.add(new Update(resource, REMOVE));
+					return true;
+				case IResourceDelta.CHANGED:
+					int flags = child.getFlags();
+					if ((flags & (IResourceDelta.OPEN | IResourceDelta.DERIVED_CHANGED)) != 0) {
+						updates.add(new Update(resource, REPLACE_TREE));
+						return false;
+					}
+					return true;
+				}
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @return whether applying one of the given updates walks a folder or
+	 *         project
+	 */
+	private static boolean walksTree(List updates) {
+		for (Iterator it = updates.iterator(); it.hasNext();) {
+			Update update = (Update) it.next();
+			if (update.kind != REMOVE
+					&& update.resource.getType() != IResource.FILE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.core.resources.IResourceChangeListener#resourceChanged(org.eclipse.core.resources.IResourceChangeEvent)
+	 */
+	public synchronized void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (!started || delta == null || (pendingUpdates == null && !ready)) {
+			return;
+		}
+		try {
+			if (pendingUpdates != null) {
+				collectUpdates(delta, pendingUpdates);
+				return;
+			}
+			List updates = new ArrayList();
+			collectUpdates(delta, updates);
+			if (!walksTree(updates)) {
+				postings.apply(updates);
+				return;
+			}
+			// walk outside the lock, as when loading the index
+			ready = false;
+			pendingUpdates = updates;
+			updateJob.schedule();
+		} catch (CoreException e) {
+			IDEWorkbenchPlugin.log(e.getMessage(), e);
+			// rebuild on the next session rather than trusting the index
+			ready = false;
+		}
+	}
+
+	private File getStateFile(String name) {
+		return IDEWorkbenchPlugin.getDefault().getStateLocation().append(name)
+				.toFile();
+	}
+
+	private static Postings read(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			if (in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			Postings read = new Postings();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				IPath path = Path.fromPortableString(in.readUTF());
+				int type = in.readByte();
+				boolean derived = in.readBoolean();
+				int depth = in.readInt();
+				read.put(new Entry(path, type, derived, depth));
+			}
+			return read;
+		} catch (IOException e) {
+			IDEWorkbenchPlugin.log(e.getMessage(), e);
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.core.resources.ISaveParticipant#saving(org.eclipse.core.resources.ISaveContext)
+	 */
+	public synchronized void saving(ISaveContext context) throws CoreException {
+		if (context.getKind() != ISaveContext.FULL_SAVE || !ready) {
+			return;
+		}
+		String fileName = SAVE_FILE_PREFIX + context.getSaveNumber();
+		try {
+			postings.write(getStateFile(fileName));
+		} catch (IOException e) {
+			IDEWorkbenchPlugin.log(e.getMessage(), e);
+			return;
+		}
+		context.map(SAVE_KEY, new Path(fileName));
+		context.needSaveNumber();
+		context.needDelta();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.core.resources.ISaveParticipant#doneSaving(org.eclipse.core.resources.ISaveContext)
+	 */
+	public void doneSaving(ISaveContext context) {
+		if (context.getKind() == ISaveContext.FULL_SAVE) {
+			getStateFile(SAVE_FILE_PREFIX + context.getPreviousSaveNumber())
+					.delete();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.core.resources.ISaveParticipant#prepareToSave(org.eclipse.core.resources.ISaveContext)
+	 */
+	public void prepareToSave(ISaveContext context) {
+		// nothing to prepare
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.eclipse.core.resources.ISaveParticipant#rollback(org.eclipse.core.resources.ISaveContext)
+	 */
+	public void rollback(ISaveContext context) {
+		if (context.getKind() == ISaveContext.FULL_SAVE) {
+			getStateFile(SAVE_FILE_PREFIX + context.getSaveNumber()).delete();
+		}
+	}
+}
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - incremental marker updates
  *******************************************************************************/
 package org.eclipse.ui.internal.views.markers;
 
@@ -134,10 +135,8 @@ public class CachedMarkerBuilder {
 			.removePropertyChangeListener(getWorkingSetListener());
 		}
 		
-		if (isIncremental()) {
-			if(incrementJob!=null){
-				incrementJob.clearEntries();
-			}
+		if (incrementJob != null) {
+			incrementJob.clearUpdates();
 		}
 	}
 
@@ -307,6 +306,7 @@ public class CachedMarkerBuilder {
 	 */
 	void scheduleUpdate() {
 		if (active) {
+			requestRebuild();
 			scheduler.scheduleUpdate(MarkerUpdateScheduler.SHORT_DELAY,true);
 		}
 	}
@@ -317,6 +317,7 @@ public class CachedMarkerBuilder {
 	 */
 	void scheduleUpdate(long delay) {
 		if (active) {
+			requestRebuild();
 			scheduler.scheduleUpdate(delay,true);
 		}
 	}
@@ -462,14 +463,19 @@ public class CachedMarkerBuilder {
 			if (generator == null || !active) {
 				return null;
 			}
+			if (!clean && isIncremental()) {
+				IncrementUpdateJob job = getIncrementJob();
+				if (progressService != null) {
+					progressService.schedule(job, delay);
+				} else {
+					job.schedule(delay);
+				}
+				return job;
+			}
 			if (updateJob != null) {
 				// ensure cancellation before calling the method
 				// updateJob.cancel();
 			} else {
-				/*
-				 * updateJob = isIncremental() ? new IncrementUpdateJob(this):
-				 * new MarkerUpdateJob(this);
-				 */
 				updateJob = new MarkerUpdateJob(this);
 				updateJob.setPriority(Job.LONG);
 				updateJob.setSystem(true);
@@ -497,6 +503,9 @@ public class CachedMarkerBuilder {
 			if (updateJob != null) {
 				updateJob.cancel();
 			}
+			if (incrementJob != null) {
+				incrementJob.cancel();
+			}
 		}
 	}
 	/**
@@ -613,22 +622,68 @@ public class CachedMarkerBuilder {
 	}
 	 
 ///////	<Incremental update code>///////
-		private IncrementUpdateJob incrementJob;
+	private IncrementUpdateJob incrementJob;
+
+	// Whether the markers reflect the current filters, so that marker deltas
+	// can be applied to them instead of gathering them again
+	private volatile boolean incremental;
+
+	// Counts the requests for a full update, see rebuildDone(int)
+	private int rebuildStamp;
+
 	/**
-	 * Checks whether the builder should perform incrementally Note : Incremental
-	 * updating method is NOT used and tested yet but left out for further
-	 * investigation(*).
+	 * Checks whether the builder should perform incrementally. This is the
+	 * case once a full update has gathered the markers for the current
+	 * filters, scope and grouping, and no other full update has been requested
+	 * since.
 	 * 
 	 * @return Returns true if we should collect markers incrementally.
 	 */
 	boolean isIncremental() {
-		/*
-		 * We do not update incrementally. We have 
-		 * code for further investigation(*) for this anyway.
-		 */
-		return false;
+		return incremental;
 	}
-	
+
+	/**
+	 * The markers no longer match what the view should show, the next update
+	 * has to gather them all over again.
+	 */
+	private void requestRebuild() {
+		synchronized (getUpdateScheduler().getSchedulingLock()) {
+			rebuildStamp++;
+			incremental = false;
+		}
+	}
+
+	/**
+	 * A full update is about to gather the markers. Marker deltas queued so
+	 * far are covered by the gathering.
+	 * 
+	 * @return the stamp to pass to {@link #rebuildDone(int)}
+	 */
+	int rebuildStarted() {
+		synchronized (getUpdateScheduler().getSchedulingLock()) {
+			if (incrementJob != null) {
+				incrementJob.clearUpdates();
+			}
+			return rebuildStamp;
+		}
+	}
+
+	/**
+	 * A full update has finished. Switch to incremental updates unless another
+	 * full update was requested in the meantime.
+	 * 
+	 * @param stamp
+	 *            the value returned by {@link #rebuildStarted()}
+	 */
+	void rebuildDone(int stamp) {
+		synchronized (getUpdateScheduler().getSchedulingLock()) {
+			if (stamp == rebuildStamp) {
+				incremental = true;
+			}
+		}
+	}
+
 	/**
 	 * @return Returns the changeFlags {added,removed,changed}.
 	 */
@@ -652,16 +707,27 @@ public class CachedMarkerBuilder {
 	}
 
 	/**
-	 * Handles an incremental update
-	 * @param update
+	 * @return the job that applies the queued marker deltas
 	 */
-	void incrementalUpdate(MarkerUpdate update) {
+	private IncrementUpdateJob getIncrementJob() {
 		synchronized (getUpdateScheduler().getSchedulingLock()) {
 			if (incrementJob == null) {
-				scheduleUpdateJob(MarkerUpdateScheduler.SHORT_DELAY, true);
+				incrementJob = new IncrementUpdateJob(this);
+				incrementJob.setPriority(Job.LONG);
+				incrementJob.setSystem(true);
 			}
+			return incrementJob;
 		}
-		incrementJob.addUpdate(update);
+	}
+
+	/**
+	 * Queue an incremental update, it is applied by the next update job
+	 * scheduled while the builder is incremental.
+	 * 
+	 * @param update
+	 */
+	void incrementalUpdate(MarkerUpdate update) {
+		getIncrementJob().addUpdate(update);
 	}
 ///////	</Incremental update code>///////
 	
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008 IBM Corporation and others.
+ * Copyright (c) 2008, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,4 +35,13 @@ abstract class CompatibilityFieldFilter extends MarkerFieldFilter {
 	 * @param problemFilter
 	 */
 	abstract void initialize(ProblemFilter problemFilter);
+
+	/**
+	 * The internal filters only read their settings when selecting.
+	 * 
+	 * @see org.eclipse.ui.views.markers.MarkerFieldFilter#allowsConcurrentSelection()
+	 */
+	public boolean allowsConcurrentSelection() {
+		return true;
+	}
 }
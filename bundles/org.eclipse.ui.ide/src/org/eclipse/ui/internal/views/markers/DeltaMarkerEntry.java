@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - read attributes through MarkerEntry#readAttribute
  *******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
@@ -16,10 +17,9 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.ui.views.markers.MarkerViewUtil;
 import org.eclipse.ui.views.markers.internal.MarkerTypesModel;
 
-import com.ibm.icu.text.CollationKey;
-
 /**
- * The DeltaMarkerEntry is the class that wraps an {@link IMarkerDelta} for testing.
+ * The DeltaMarkerEntry is the class that wraps an {@link IMarkerDelta}. It
+ * answers the attribute values the marker had before the change.
 
  * 
  * @since 3.6
@@ -39,17 +39,13 @@ class DeltaMarkerEntry extends MarkerEntry {
 		this.markerDelta=markerDelta;
 	}
 
-	Object getAttributeValue(String attribute) {
-		Object value = getCache().get(attribute);
-		if(value == null) {
-			value = markerDelta.getAttribute(attribute);
-			if(value != null) {
-				getCache().put(attribute, value);
-			}
-		}
-		if (value instanceof CollationKey)
-			return ((CollationKey) value).getSourceString();
-		return value;
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.ui.internal.views.markers.MarkerEntry#readAttribute(java.lang.String)
+	 */
+	Object readAttribute(String attribute) {
+		return markerDelta.getAttribute(attribute);
 	}
 
 	/*
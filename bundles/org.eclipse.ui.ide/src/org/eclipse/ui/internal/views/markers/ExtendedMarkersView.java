@@ -8,6 +8,7 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Andrew Gvozdev -  Bug 364039 - Add "Delete All Markers"
+ *     IBM Corporation - incremental marker updates
  *******************************************************************************/
 package org.eclipse.ui.internal.views.markers;
 
@@ -1687,6 +1688,20 @@ public class ExtendedMarkersView extends ViewPart {
 	 * @return UIUpdateJob
 	 */
 	UIUpdateJob scheduleUpdate(long delay) {
+		return scheduleUpdate(delay, null);
+	}
+
+	/**
+	 * The method should not be called directly, see
+	 * {@link MarkerUpdateScheduler}
+	 *
+	 * @param delay
+	 * @param categoryNames
+	 *            the names of the categories to refresh, or <code>null</code>
+	 *            to refresh the whole viewer
+	 * @return UIUpdateJob
+	 */
+	UIUpdateJob scheduleUpdate(long delay, Collection categoryNames) {
 		synchronized (builder.getUpdateScheduler().getSchedulingLock()) {
 			if (uiUpdateJob != null) {
 				// ensure cancellation before calling the method
@@ -1696,6 +1711,7 @@ public class ExtendedMarkersView extends ViewPart {
 				// uiUpdateJob.setPriority(Job.SHORT);
 				uiUpdateJob.setSystem(true);
 			}
+			uiUpdateJob.addRefresh(categoryNames);
 			IWorkbenchSiteProgressService progressService = builder
 					.getProgressService();
 			if (progressService != null) {
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - incremental marker updates
  *******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
@@ -14,6 +15,7 @@ package org.eclipse.ui.internal.views.markers;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.ui.views.markers.MarkerItem;
+import org.eclipse.ui.views.markers.internal.MarkerGroupingEntry;
 import org.eclipse.ui.views.markers.internal.MarkerMessages;
 
 class MarkerCategory extends MarkerSupportItem {
@@ -26,6 +28,12 @@ class MarkerCategory extends MarkerSupportItem {
 
 	MarkerEntry[] children;
 
+	/**
+	 * The grouping entry the children were grouped by, used to place markers
+	 * arriving incrementally.
+	 */
+	MarkerGroupingEntry groupingEntry;
+
 	private String name;
 
 	private int severity = -1;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -128,11 +128,45 @@ class MarkerComparator implements Comparator {
 	 * @return Comparator
 	 */
 	Comparator getFieldsComparator(){
-		return new Comparator(){
-			public int compare(Object o1, Object o2) {
-				return compareFields(o1, o2);
-			}			
-		};
+		return new FieldsComparator();
+	}
+
+	/**
+	 * The comparator returned by {@link MarkerComparator#getFieldsComparator()}.
+	 */
+	class FieldsComparator implements Comparator {
+		public int compare(Object o1, Object o2) {
+			return compareFields(o1, o2);
+		}
+
+		/**
+		 * @return boolean <code>true</code> if the fields may be compared
+		 *         from several threads at the same time
+		 */
+		boolean allowsConcurrentComparison() {
+			return fieldsAllowConcurrentComparison();
+		}
+	}
+
+	/**
+	 * Return whether or not the category and the fields of the receiver may
+	 * compare markers from several threads at the same time.
+	 * 
+	 * @return boolean
+	 * @see MarkerField#allowsConcurrentComparison()
+	 */
+	boolean allowsConcurrentComparison() {
+		if (category != null && !category.allowsConcurrentComparison())
+			return false;
+		return fieldsAllowConcurrentComparison();
+	}
+
+	private boolean fieldsAllowConcurrentComparison() {
+		for (int i = 0; i < fields.length; i++) {
+			if (!fields[i].allowsConcurrentComparison())
+				return false;
+		}
+		return true;
 	}
 
 	/**
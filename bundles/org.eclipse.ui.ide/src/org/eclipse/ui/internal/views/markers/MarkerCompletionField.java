@@ -227,4 +227,13 @@ public class MarkerCompletionField extends MarkerField {
 		super.update(cell);
 		cell.setImage(getImage(cell.getElement()));
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.ui.views.markers.MarkerField#allowsConcurrentComparison()
+	 */
+	public boolean allowsConcurrentComparison() {
+		return true;
+	}
 }
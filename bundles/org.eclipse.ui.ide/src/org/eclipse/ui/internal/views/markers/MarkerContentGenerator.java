@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - gather markers of projects concurrently
  *******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
@@ -25,11 +26,16 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.mapping.ResourceMapping;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
@@ -44,6 +50,7 @@ import org.eclipse.ui.views.markers.FilterConfigurationArea;
 import org.eclipse.ui.views.markers.MarkerField;
 import org.eclipse.ui.views.markers.internal.ContentGeneratorDescriptor;
 import org.eclipse.ui.views.markers.internal.MarkerGroup;
+import org.eclipse.ui.views.markers.internal.MarkerMessages;
 import org.eclipse.ui.views.markers.internal.MarkerSupportRegistry;
 import org.eclipse.ui.views.markers.internal.MarkerType;
 import org.eclipse.ui.views.markers.internal.MarkerTypesModel;
@@ -1065,7 +1072,10 @@ public class MarkerContentGenerator {
 	}
 
 	/**
-	 * Gather markers into result.
+	 * Gather markers into result. The resources are split into gather scopes,
+	 * see {@link #getGatherScopes(Collection)}, which are searched
+	 * concurrently when there is more than one of them, more than one
+	 * processor, and all enabled filters allow concurrent selection.
 	 * @param typeIds
 	 * @param includeSubTypes
 	 * @param result
@@ -1073,30 +1083,86 @@ public class MarkerContentGenerator {
 	 */
 	boolean gatherMarkers(String[] typeIds, boolean includeSubTypes,
 			Collection result, IProgressMonitor monitor) {
+		return gatherMarkers(typeIds, includeSubTypes, result, monitor, Runtime
+				.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Gather markers into result using at most maxWorkers threads. The result
+	 * does not depend on the number of workers.
+	 * 
+	 * @param typeIds
+	 * @param includeSubTypes
+	 * @param result
+	 * @param monitor
+	 * @param maxWorkers
+	 *            the maximum number of scopes searched at the same time
+	 * @see #gatherMarkers(String[], boolean, Collection, IProgressMonitor)
+	 */
+	boolean gatherMarkers(String[] typeIds, boolean includeSubTypes,
+			Collection result, IProgressMonitor monitor, int maxWorkers) {
 		try {
 			Collection resources = getResourcesForBuild();
+			String[] types = typeIds;
 			if (includeSubTypes) {
 				// Optimize and calculate super types
-				String[] superTypes = MarkerResourceUtil
+				types = MarkerResourceUtil
 						.getMutuallyExclusiveSupersIds(typeIds);
-				if (monitor.isCanceled()) {
-					return false;
-				}
-				for (int i = 0; i < superTypes.length; i++) {
-					boolean success = internalGatherMarkers(resources,superTypes[i],
-							includeSubTypes, result, monitor);
+			}
+			if (monitor.isCanceled()) {
+				return false;
+			}
+			GatherScope[] scopes = getGatherScopes(resources);
+			IResource[] selected = getSelectedResources();
+			Collection filters = getEnabledFilters();
+			boolean andFilters = andFilters();
+			int workers = 1;
+			if (prepareSelection(filters)) {
+				workers = Math.min(scopes.length, maxWorkers);
+			}
+			if (workers <= 1) {
+				for (int i = 0; i < scopes.length; i++) {
+					boolean success = internalGatherMarkers(scopes[i], types,
+							includeSubTypes, selected, filters, andFilters,
+							result, monitor);
 					if (!success || monitor.isCanceled()) {
 						return false;
 					}
 				}
-			} else {
-				for (int i = 0; i < typeIds.length; i++) {
-					boolean success = internalGatherMarkers(resources,typeIds[i],
-							includeSubTypes, result, monitor);
-					if (!success || monitor.isCanceled()) {
-						return false;
-					}
+				return true;
+			}
+			GatherMarkersJob[] jobs = new GatherMarkersJob[workers];
+			Collection[] results = new Collection[scopes.length];
+			int[] next = new int[] { 0 };
+			for (int i = 0; i < workers; i++) {
+				jobs[i] = new GatherMarkersJob(scopes, next, results, types,
+						includeSubTypes, selected, filters, andFilters, monitor);
+				jobs[i].schedule();
+			}
+			try {
+				for (int i = 0; i < workers; i++) {
+					jobs[i].join();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				for (int i = 0; i < workers; i++) {
+					jobs[i].cancel();
+				}
+				return false;
+			}
+			for (int i = 0; i < workers; i++) {
+				if (jobs[i].failure != null) {
+					throw jobs[i].failure;
+				}
+			}
+			if (monitor.isCanceled()) {
+				return false;
+			}
+			for (int i = 0; i < results.length; i++) {
+				if (results[i] == null) {
+					return false;
 				}
+				result.addAll(results[i]);
 			}
 		} catch (Exception e) {
 			//do not propagate but do show the error
@@ -1107,34 +1173,85 @@ public class MarkerContentGenerator {
 		return true;
 	}
 
+	/**
+	 * Compute the state the filters would otherwise compute lazily while
+	 * selecting, so that selecting only reads it.
+	 * 
+	 * @param filters
+	 *            the enabled {@link MarkerFieldFilterGroup}s
+	 * @return <code>true</code> if the filters may select entries on several
+	 *         threads at once
+	 */
+	private boolean prepareSelection(Collection filters) {
+		// the type filters look up the types in the shared model
+		MarkerTypesModel.getInstance();
+		boolean concurrent = true;
+		Iterator iterator = filters.iterator();
+		while (iterator.hasNext()) {
+			MarkerFieldFilterGroup group = (MarkerFieldFilterGroup) iterator
+					.next();
+			if (!group.prepareSelection()) {
+				concurrent = false;
+			}
+		}
+		return concurrent;
+	}
+
+	/**
+	 * Split the resources to gather markers from into independent pieces of
+	 * work. The workspace root is split into its projects, and the root
+	 * itself searched without its members.
+	 * 
+	 * @param resources
+	 * @return GatherScope[]
+	 */
+	private GatherScope[] getGatherScopes(Collection resources) {
+		List scopes = new ArrayList(resources.size());
+		Iterator iterator = resources.iterator();
+		while (iterator.hasNext()) {
+			IResource resource = (IResource) iterator.next();
+			if (resource instanceof IWorkspaceRoot) {
+				scopes.add(new GatherScope(resource, IResource.DEPTH_ZERO));
+				IProject[] projects = ((IWorkspaceRoot) resource)
+						.getProjects();
+				for (int i = 0; i < projects.length; i++) {
+					scopes.add(new GatherScope(projects[i],
+							IResource.DEPTH_INFINITE));
+				}
+			} else {
+				scopes.add(new GatherScope(resource, IResource.DEPTH_INFINITE));
+			}
+		}
+		return (GatherScope[]) scopes.toArray(new GatherScope[scopes.size()]);
+	}
+
 	/**
 	 * A helper to the
 	 * {@link #gatherMarkers(String[], boolean, Collection, IProgressMonitor)}
 	 * 
-	 * @param resources
-	 * @param typeId
+	 * @param scope
+	 * @param typeIds
 	 * @param includeSubTypes
+	 * @param selected
+	 * @param filters
+	 * @param andFilters
 	 * @param result
 	 * @param monitor
 	 */
-	private boolean internalGatherMarkers(Collection resources, String typeId,
-			boolean includeSubTypes, Collection result, IProgressMonitor monitor) {
+	private boolean internalGatherMarkers(GatherScope scope, String[] typeIds,
+			boolean includeSubTypes, IResource[] selected, Collection filters,
+			boolean andFilters, Collection result, IProgressMonitor monitor) {
 		if (monitor.isCanceled()) {
 			return false;
 		}
-		IResource[] selected = getSelectedResources();
-		Collection filters = getEnabledFilters();
-		boolean andFilters = andFilters();
-		Iterator iterator = resources.iterator();
-		while (iterator.hasNext()) {
+		if (!scope.resource.isAccessible()) {
+			return true;
+		}
+		for (int t = 0; t < typeIds.length; t++) {
 			IMarker[] markers = null;
 			try {
-				IResource resource = (IResource) iterator.next();
-				if (!resource.isAccessible()) {
-					continue;
-				}
-				markers = resource.findMarkers(typeId, includeSubTypes,
-						IResource.DEPTH_INFINITE);
+				markers = scope.resource.findMarkers(typeIds[t],
+						includeSubTypes, scope.depth);
 			} catch (CoreException e) {
 				MarkerSupportInternalUtilities.logViewError(e);
 			}
@@ -1162,6 +1279,81 @@ public class MarkerContentGenerator {
 		return true;
 	}
 
+	/**
+	 * A resource and the depth to search it for markers.
+	 */
+	private static class GatherScope {
+		final IResource resource;
+		final int depth;
+
+		GatherScope(IResource resource, int depth) {
+			this.resource = resource;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * Gathers the markers of the next unclaimed gather scope until none are
+	 * left. The entries of every scope are kept apart so they can be added to
+	 * the result in scope order.
+	 */
+	private class GatherMarkersJob extends Job {
+		private final GatherScope[] scopes;
+		private final int[] next;
+		private final Collection[] results;
+		private final String[] typeIds;
+		private final boolean includeSubTypes;
+		private final IResource[] selected;
+		private final Collection filters;
+		private final boolean andFilters;
+		private final IProgressMonitor parentMonitor;
+		RuntimeException failure;
+
+		GatherMarkersJob(GatherScope[] scopes, int[] next,
+				Collection[] results, String[] typeIds,
+				boolean includeSubTypes, IResource[] selected,
+				Collection filters, boolean andFilters,
+				IProgressMonitor parentMonitor) {
+			super(MarkerMessages.MarkerView_searching_for_markers);
+			this.scopes = scopes;
+			this.next = next;
+			this.results = results;
+			this.typeIds = typeIds;
+			this.includeSubTypes = includeSubTypes;
+			this.selected = selected;
+			this.filters = filters;
+			this.andFilters = andFilters;
+			this.parentMonitor = parentMonitor;
+			setSystem(true);
+		}
+
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				while (!parentMonitor.isCanceled()) {
+					int index;
+					synchronized (next) {
+						index = next[0]++;
+					}
+					if (index >= scopes.length) {
+						break;
+					}
+					Collection scopeResult = new ArrayList();
+					if (!internalGatherMarkers(scopes[index], typeIds,
+							includeSubTypes, selected, filters, andFilters,
+							scopeResult, parentMonitor)) {
+						break;
+					}
+					synchronized (results) {
+						results[index] = scopeResult;
+					}
+				}
+			} catch (RuntimeException e) {
+				failure = e;
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 	void dispose() {
 		if (filterPreferenceListener != null) {
 			IDEWorkbenchPlugin.getDefault().getPreferenceStore().removePropertyChangeListener(filterPreferenceListener);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -163,4 +163,13 @@ public class MarkerDescriptionField extends MarkerField {
 	public EditingSupport getEditingSupport(ColumnViewer viewer) {
 		return new DescriptionEditingSupport(viewer);
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.ui.views.markers.MarkerField#allowsConcurrentComparison()
+	 */
+	public boolean allowsConcurrentComparison() {
+		return true;
+	}
 }
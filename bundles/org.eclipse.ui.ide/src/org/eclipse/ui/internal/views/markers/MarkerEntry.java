@@ -7,12 +7,15 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - keep severity and priority compactly
  *******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
 
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
@@ -66,8 +69,29 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	}
 	// The key for the string we built for display
 	private static final Object LOCATION_STRING = "LOCATION_STRING"; //$NON-NLS-1$
+
+	// Codes of a half of severityAndPriority that are not attribute values
+	private static final int NOT_READ = 0;
+	private static final int NOT_AN_INT = 1;
+	private static final int OUT_OF_RANGE = 0xFFFF;
+	private static final int VALUE_OFFSET = 2;
+	private static final int PRIORITY_SHIFT = 16;
+
+	// Folder paths shared by the entries of markers in the same folder
+	private static final Map PATH_POOL = new WeakHashMap();
+
 	private MarkerCategory category;
 	private Map cache = null;
+
+	/*
+	 * The severity and the priority the views sort, group and count by, packed
+	 * into the low and the high half of one int so they need neither a cache
+	 * entry nor a boxed value. A half is NOT_READ until the attribute is asked
+	 * for, NOT_AN_INT if the marker has no int value for it, and the value
+	 * plus VALUE_OFFSET otherwise. Values that do not fit are OUT_OF_RANGE and
+	 * go through the cache. Cleared together with the cache.
+	 */
+	private int severityAndPriority = NOT_READ;
 	
 	/**
 	 * Set the MarkerEntry to be stale, if discovered at any point of time
@@ -123,12 +147,56 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 *      int)
 	 */
 	public int getAttributeValue(String attribute, int defaultValue) {
+		int shift;
+		if (IMarker.SEVERITY.equals(attribute)) {
+			shift = 0;
+		} else if (IMarker.PRIORITY.equals(attribute)) {
+			shift = PRIORITY_SHIFT;
+		} else {
+			return getCachedIntValue(attribute, defaultValue);
+		}
+		int code = (severityAndPriority >>> shift) & OUT_OF_RANGE;
+		if (code == NOT_READ) {
+			code = encode(readAttribute(attribute));
+			severityAndPriority |= code << shift;
+		}
+		switch (code) {
+		case NOT_AN_INT:
+			return defaultValue;
+		case OUT_OF_RANGE:
+			return getCachedIntValue(attribute, defaultValue);
+		default:
+			return code - VALUE_OFFSET;
+		}
+	}
 
+	/**
+	 * Return the int value of attribute through the cache.
+	 * 
+	 * @param attribute
+	 * @param defaultValue
+	 * @return int
+	 */
+	private int getCachedIntValue(String attribute, int defaultValue) {
 		Object value = getAttributeValue(attribute);
 		if (value == null)
 			return defaultValue;
 		return ((Integer) value).intValue();
+	}
 
+	/**
+	 * Encode value as a half of {@link #severityAndPriority}.
+	 * 
+	 * @param value
+	 * @return int
+	 */
+	private static int encode(Object value) {
+		if (!(value instanceof Integer))
+			return NOT_AN_INT;
+		int intValue = ((Integer) value).intValue();
+		if (intValue < 0 || intValue > OUT_OF_RANGE - VALUE_OFFSET - 1)
+			return OUT_OF_RANGE;
+		return intValue + VALUE_OFFSET;
 	}
 
 	/**
@@ -139,17 +207,9 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 * @return Object or <code>null</code>
 	 */
 	Object getAttributeValue(String attribute) {
-		Object value = getCache().get(attribute);
+		Object value = cache == null ? null : cache.get(attribute);
 		if(value == null) {
-			if(stale){
-				return value;
-			}
-			try {
-				value = marker.getAttribute(attribute);
-			} catch (CoreException e) {
-				checkIfMarkerStale() ;
-				value = null;
-			}
+			value = readAttribute(attribute);
 			if(value != null) {
 				getCache().put(attribute, value);
 			}
@@ -159,6 +219,24 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 		return value;
 	}
 
+	/**
+	 * Read the value of attribute, bypassing the cache.
+	 * 
+	 * @param attribute
+	 * @return Object or <code>null</code>
+	 */
+	Object readAttribute(String attribute) {
+		if(stale){
+			return null;
+		}
+		try {
+			return marker.getAttribute(attribute);
+		} catch (CoreException e) {
+			checkIfMarkerStale() ;
+			return null;
+		}
+	}
+
 	
 	/* (non-Javadoc)
 	 * @see org.eclipse.ui.internal.views.markers.MarkerSupportItem#getAttributeValue(java.lang.String, java.lang.String)
@@ -203,7 +281,7 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 */
 	CollationKey getCollationKey(String attribute, String defaultValue) {
 		String attributeValue;
-		Object value = getCache().get(attribute);
+		Object value = cache == null ? null : cache.get(attribute);
 		if (value != null) {
 			// Only return a collation key otherwise 
 			//use the value to generate it
@@ -371,12 +449,32 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 		if (n <= 0) {
 			return super.getPath();
 		}
-		folder = path.removeLastSegments(1).removeTrailingSeparator()
-				.toString();
+		folder = sharedPath(path.removeLastSegments(1)
+				.removeTrailingSeparator().toString());
 		getCache().put(MarkerViewUtil.PATH_ATTRIBUTE, folder);
 		return folder;
 	}
 
+	/**
+	 * Return the pooled instance of path, so the entries of markers in the
+	 * same folder hold one string between them.
+	 * 
+	 * @param path
+	 * @return String
+	 */
+	private static String sharedPath(String path) {
+		synchronized (PATH_POOL) {
+			WeakReference reference = (WeakReference) PATH_POOL.get(path);
+			String shared = reference == null ? null : (String) reference
+					.get();
+			if (shared == null) {
+				PATH_POOL.put(path, new WeakReference(path));
+				shared = path;
+			}
+			return shared;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -424,7 +522,8 @@ class MarkerEntry extends MarkerSupportItem implements IAdaptable {
 	 * Clear the cached values for performance reasons.
 	 */
 	void clearCache() {
-		cache = null;		
+		cache = null;
+		severityAndPriority = NOT_READ;
 	}
 
 	/**
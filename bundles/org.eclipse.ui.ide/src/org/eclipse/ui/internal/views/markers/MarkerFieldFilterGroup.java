@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -702,6 +702,28 @@ class MarkerFieldFilterGroup {
 		}
 	}
 	
+	/**
+	 * Compute the filters and the working set resources of the receiver if
+	 * they have not been computed yet, so that selecting entries only reads
+	 * them.
+	 * 
+	 * @return <code>true</code> if all of the field filters allow concurrent
+	 *         selection
+	 * @see MarkerFieldFilter#allowsConcurrentSelection()
+	 */
+	boolean prepareSelection() {
+		MarkerFieldFilter[] filters = getFieldFilters();
+		if (wSetResources == null) {
+			computeWorkingSetResources();
+		}
+		for (int i = 0; i < filters.length; i++) {
+			if (!filters[i].allowsConcurrentSelection()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public boolean selectByFilters(MarkerEntry entry) {
 		return select(entry);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,4 +42,12 @@ public class MarkerIDField extends MarkerField {
 		return (int) (((MarkerSupportItem)item1).getID() - ((MarkerSupportItem) item2).getID());
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.ui.views.markers.MarkerField#allowsConcurrentComparison()
+	 */
+	public boolean allowsConcurrentComparison() {
+		return true;
+	}
 }
@@ -24,6 +24,7 @@
  * 
  * Contributions:
  *              IBM - Ported the code to Java
+ *              IBM - Sort large arrays in parallel chunks
  */
 
 package org.eclipse.ui.internal.views.markers;
@@ -32,7 +33,11 @@ import java.util.Arrays;
 import java.util.Comparator;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ui.views.markers.internal.MarkerMessages;
 
 /**
  * @since 3.5
@@ -63,6 +68,14 @@ public class MarkerSortUtil {
 	 */
 	private static float MERGE_OR_HEAP_SWITCH=1.5f;
 
+	/*
+	 * Ranges with at least this many elements per available processor are
+	 * split into chunks that are sorted concurrently and then merged. Every
+	 * chunk only sorts its own first k elements, so the merge still never
+	 * sorts more than the limit.
+	 */
+	private static int PARALLEL_CHUNK_SIZE = 20000;
+
 	/**
 	 * Sorts [first,middle] in the array of [first,last] using a variant of
 	 * modified heapsort, such that
@@ -315,6 +328,43 @@ public class MarkerSortUtil {
 				|| last > to || to > entries.length - 1 || to < 0)
 			return;
 		int n=to-from+1;
+		int chunks = Math.min(Runtime.getRuntime().availableProcessors(), n
+				/ PARALLEL_CHUNK_SIZE);
+		if (chunks > 1 && allowsConcurrentComparison(comparator)) {
+			sortInParallel(entries, comparator, from, to, k, chunks, monitor);
+			return;
+		}
+		sortSequentially(entries, comparator, from, to, k, monitor);
+	}
+
+	/**
+	 * Return whether or not the comparator may be called from several threads
+	 * at the same time. Only the comparators of the markers views are asked,
+	 * as the fields they compare by may be contributed.
+	 * 
+	 * @param comparator
+	 * @return boolean
+	 * @see org.eclipse.ui.views.markers.MarkerField#allowsConcurrentComparison()
+	 */
+	private static boolean allowsConcurrentComparison(Comparator comparator) {
+		if (comparator instanceof MarkerComparator)
+			return ((MarkerComparator) comparator).allowsConcurrentComparison();
+		if (comparator instanceof MarkerComparator.FieldsComparator)
+			return ((MarkerComparator.FieldsComparator) comparator)
+					.allowsConcurrentComparison();
+		return false;
+	}
+
+	/**
+	 * The single threaded part of
+	 * {@link #sortStartingKElement(MarkerEntry[], Comparator, int, int, int, IProgressMonitor)}
+	 * for a valid range.
+	 */
+	private static void sortSequentially(MarkerEntry[] entries,
+			Comparator comparator, int from, int to, int k,
+			IProgressMonitor monitor) {
+		int last = from + k-1;
+		int n=to-from+1;
 		if (n <= BATCH_SIZE && (((float) n / k) <= MERGE_OR_HEAP_SWITCH)
 				/*|| ((float) n / k) <= MERGE_OR_HEAP_SWITCH*/) { 
 			// use arrays sort
@@ -358,6 +408,118 @@ public class MarkerSortUtil {
 		}
 	}
 
+	/**
+	 * Split [from,to] into chunks, sort the first k elements of each chunk
+	 * concurrently and merge the sorted prefixes. The k smallest elements of
+	 * the range are among the k smallest of the chunks, so merging the
+	 * prefixes until k elements are taken establishes the same order as
+	 * {@link #sortSequentially(MarkerEntry[], Comparator, int, int, int, IProgressMonitor)}.
+	 * 
+	 * @param entries
+	 * @param comparator
+	 * @param from
+	 * @param to
+	 * @param k
+	 * @param chunks
+	 * @param monitor
+	 */
+	private static void sortInParallel(MarkerEntry[] entries,
+			Comparator comparator, int from, int to, int k, int chunks,
+			IProgressMonitor monitor) {
+		int n = to - from + 1;
+		int[] starts = new int[chunks];
+		int[] ends = new int[chunks];
+		int[] sortedEnds = new int[chunks];
+		SortChunkJob[] jobs = new SortChunkJob[chunks];
+		for (int i = 0; i < chunks; i++) {
+			starts[i] = from + (int) ((long) n * i / chunks);
+			ends[i] = from + (int) ((long) n * (i + 1) / chunks) - 1;
+			int chunkK = Math.min(k, ends[i] - starts[i] + 1);
+			sortedEnds[i] = starts[i] + chunkK - 1;
+			jobs[i] = new SortChunkJob(entries, comparator, starts[i],
+					ends[i], chunkK, monitor);
+			jobs[i].schedule();
+		}
+		try {
+			for (int i = 0; i < chunks; i++) {
+				jobs[i].join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			for (int i = 0; i < chunks; i++) {
+				jobs[i].cancel();
+			}
+			return;
+		}
+		if (monitor.isCanceled()) {
+			return;
+		}
+
+		MarkerEntry[] merged = new MarkerEntry[n];
+		int[] positions = (int[]) starts.clone();
+		for (int i = 0; i < k; i++) {
+			if (i % BATCH_SIZE == 0 && monitor.isCanceled()) {
+				return;
+			}
+			int smallest = -1;
+			for (int c = 0; c < chunks; c++) {
+				if (positions[c] > sortedEnds[c]) {
+					continue;
+				}
+				// ties go to the earlier chunk
+				if (smallest < 0
+						|| comparator.compare(entries[positions[c]],
+								entries[positions[smallest]]) < 0) {
+					smallest = c;
+				}
+			}
+			merged[i] = entries[positions[smallest]++];
+		}
+		int count = k;
+		for (int c = 0; c < chunks; c++) {
+			int remaining = ends[c] - positions[c] + 1;
+			System.arraycopy(entries, positions[c], merged, count, remaining);
+			count += remaining;
+		}
+		System.arraycopy(merged, 0, entries, from, n);
+		for (int i = from; i <= to; i++) {
+			entries[i].clearCache();
+		}
+	}
+
+	/**
+	 * Sorts the first k elements of one chunk for
+	 * {@link MarkerSortUtil#sortInParallel(MarkerEntry[], Comparator, int, int, int, int, IProgressMonitor)}
+	 * . The chunks do not overlap, so every entry and its cache is only
+	 * touched by one job.
+	 */
+	private static class SortChunkJob extends Job {
+		private final MarkerEntry[] entries;
+		private final Comparator comparator;
+		private final int from;
+		private final int to;
+		private final int k;
+		private final IProgressMonitor parentMonitor;
+
+		SortChunkJob(MarkerEntry[] entries, Comparator comparator, int from,
+				int to, int k, IProgressMonitor parentMonitor) {
+			super(MarkerMessages.MarkerView_19);
+			this.entries = entries;
+			this.comparator = comparator;
+			this.from = from;
+			this.to = to;
+			this.k = k;
+			this.parentMonitor = parentMonitor;
+			setSystem(true);
+		}
+
+		protected IStatus run(IProgressMonitor monitor) {
+			sortSequentially(entries, comparator, from, to, k,
+					parentMonitor);
+			return Status.OK_STATUS;
+		}
+	}
+
 	/**
 	 * @param fArray1
 	 * @param comparator
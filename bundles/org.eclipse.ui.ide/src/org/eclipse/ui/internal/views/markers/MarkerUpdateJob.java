@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - incremental marker updates
  ******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
@@ -74,6 +75,7 @@ class MarkerUpdateJob extends Job {
 
 		Collection markerEntries = new LinkedList();
 		//this is not incremental clean every time
+		int rebuildStamp = builder.rebuildStarted();
 		clean = !clean(markerEntries, monitor);
 		if (monitor.isCanceled()) {
 			return;
@@ -88,6 +90,8 @@ class MarkerUpdateJob extends Job {
 		if (monitor.isCanceled()) {
 			return;
 		}
+		// marker deltas from now on can be applied incrementally
+		builder.rebuildDone(rebuildStamp);
 		builder.getUpdateScheduler().scheduleUIUpdate(
 				MarkerUpdateScheduler.SHORT_DELAY);
 		if (monitor.isCanceled()) {
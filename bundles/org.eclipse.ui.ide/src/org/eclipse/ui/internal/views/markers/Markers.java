@@ -7,22 +7,27 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - incremental marker updates
  ******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.ui.views.markers.MarkerItem;
 import org.eclipse.ui.views.markers.internal.MarkerGroup;
 import org.eclipse.ui.views.markers.internal.MarkerGroupingEntry;
@@ -219,9 +224,11 @@ class Markers {
 		while (iterator.hasNext()) {
 			Object key = iterator.next();
 			end = ((Integer) boundaryInfoMap.get(key)).intValue();
-			markerCategories[i++] = new MarkerCategory(this, start, end,
+			MarkerCategory category = new MarkerCategory(this, start, end,
 					builder.getCategoryGroup().getMarkerField()
 							.getValue(newMarkers[start]));
+			category.groupingEntry = (MarkerGroupingEntry) key;
+			markerCategories[i++] = category;
 			start = end + 1;
 		}
 		return markerCategories;
@@ -309,17 +316,8 @@ class Markers {
 	static Integer[] getMarkerCounts(MarkerEntry[] entries) {
 		int[] ints = new int[] { 0, 0, 0, 0 };
 		for (int idx = 0; idx < entries.length; idx++) {
-			IMarker marker = entries[idx].getMarker();
-			int severity = -1;
-			Object value = null;
-			try {
-				value = marker.getAttribute(IMarker.SEVERITY);
-			} catch (CoreException e) {
-				entries[idx].checkIfMarkerStale();
-			}
-			if (value instanceof Integer) {
-				severity = ((Integer) value).intValue();
-			}
+			int severity = entries[idx].getAttributeValue(IMarker.SEVERITY,
+					-1);
 			if (severity >= IMarker.SEVERITY_INFO) {
 				ints[severity]++;
 			} else {
@@ -332,12 +330,290 @@ class Markers {
 	}
 
 	/**
-	 * Return the {@link MarkerItem} that maps to marker.
+	 * Apply the marker deltas in update to the current entries without
+	 * gathering the markers again. Removed and changed markers are looked up
+	 * in the marker index, added and changed markers are run through the
+	 * filters of generator and inserted into their category at their sorted
+	 * position, and the marker counts are adjusted by the markers that came
+	 * and went.
+	 * <p>
+	 * Entries of the update for removed and changed markers are expected to
+	 * answer the attribute values the marker had before the change, see
+	 * {@link DeltaMarkerEntry}.
+	 * </p>
 	 * 
-	 * @param marker
-	 * @return {@link MarkerItem}
+	 * @param update
+	 * @param generator
+	 * @return the names of the categories whose contents changed, an empty
+	 *         collection if nothing visible changed, or <code>null</code> if
+	 *         the top level elements changed
 	 */
-	public MarkerItem getMarkerItem(IMarker marker) {
+	synchronized Collection applyUpdate(MarkerUpdate update,
+			MarkerContentGenerator generator) {
+		boolean initialVal = inChange;
+		try {
+			inChange = true;
+			Map index = getMarkerToEntryMap();
+			int[] counts = null;
+			if (markerCounts != null) {
+				counts = new int[markerCounts.length];
+				for (int i = 0; i < counts.length; i++) {
+					counts[i] = markerCounts[i].intValue();
+				}
+			}
+			Set dropped = new HashSet();
+			List inserted = new ArrayList();
+			Iterator iterator = update.removed.iterator();
+			while (iterator.hasNext()) {
+				dropEntry((MarkerEntry) iterator.next(), index, dropped, counts);
+			}
+			iterator = update.changed.iterator();
+			while (iterator.hasNext()) {
+				MarkerEntry oldState = (MarkerEntry) iterator.next();
+				dropEntry(oldState, index, dropped, counts);
+				insertEntry(new MarkerEntry(oldState.getMarker()), generator,
+						index, dropped, inserted, counts);
+			}
+			iterator = update.added.iterator();
+			while (iterator.hasNext()) {
+				insertEntry((MarkerEntry) iterator.next(), generator, index,
+						dropped, inserted, counts);
+			}
+			if (dropped.isEmpty() && inserted.isEmpty()) {
+				return Collections.EMPTY_SET;
+			}
+			if (counts != null) {
+				markerCounts = new Integer[counts.length];
+				for (int i = 0; i < counts.length; i++) {
+					markerCounts[i] = new Integer(counts[i]);
+				}
+			}
+			if (builder.isShowingHierarchy()) {
+				return mergeIntoCategories(dropped, inserted);
+			}
+			List entries = new ArrayList(markerEntryArray.length
+					+ inserted.size());
+			boolean removed = copyRetained(0, markerEntryArray.length - 1,
+					dropped, entries);
+			insertSorted(entries, inserted, builder.getComparator(), removed);
+			markerEntryArray = (MarkerEntry[]) entries
+					.toArray(new MarkerEntry[entries.size()]);
+			return null;
+		} finally {
+			inChange = initialVal;
+		}
+	}
+
+	/**
+	 * Rebuild the entries and categories, merging inserted into the category
+	 * they are grouped in and leaving out dropped.
+	 * 
+	 * @param dropped
+	 * @param inserted
+	 * @return the names of the changed categories or <code>null</code> if a
+	 *         category was added or removed
+	 */
+	private Collection mergeIntoCategories(Set dropped, List inserted) {
+		MarkerGroup group = builder.getCategoryGroup();
+		TreeMap additions = new TreeMap(group.getEntriesComparator());
+		Iterator iterator = inserted.iterator();
+		while (iterator.hasNext()) {
+			MarkerEntry entry = (MarkerEntry) iterator.next();
+			IMarker marker = entry.getMarker();
+			try {
+				MarkerGroupingEntry groupingEntry = group.findGroupValue(
+						marker.getType(), marker);
+				List list = (List) additions.get(groupingEntry);
+				if (list == null) {
+					list = new ArrayList();
+					additions.put(groupingEntry, list);
+				}
+				list.add(entry);
+			} catch (CoreException e) {
+				entry.checkIfMarkerStale();
+			}
+		}
+
+		TreeMap allGroups = new TreeMap(group.getEntriesComparator());
+		for (int i = 0; i < categories.length; i++) {
+			allGroups.put(categories[i].groupingEntry, categories[i]);
+		}
+		iterator = additions.keySet().iterator();
+		while (iterator.hasNext()) {
+			Object key = iterator.next();
+			if (!allGroups.containsKey(key)) {
+				allGroups.put(key, null);
+			}
+		}
+
+		Comparator comparator = builder.getComparator().getFieldsComparator();
+		List entries = new ArrayList(markerEntryArray.length
+				+ inserted.size());
+		List newCategories = new ArrayList(allGroups.size());
+		Collection changedNames = new HashSet();
+		boolean topLevelChanged = false;
+		iterator = allGroups.keySet().iterator();
+		while (iterator.hasNext()) {
+			Object key = iterator.next();
+			MarkerCategory oldCategory = (MarkerCategory) allGroups.get(key);
+			List added = (List) additions.get(key);
+			List segment = new ArrayList();
+			boolean removed = false;
+			if (oldCategory != null) {
+				removed = copyRetained(oldCategory.start, oldCategory.end,
+						dropped, segment);
+			}
+			if (added != null) {
+				insertSorted(segment, added, comparator, removed);
+			}
+			if (segment.isEmpty()) {
+				topLevelChanged = true;
+				continue;
+			}
+			String name;
+			if (oldCategory == null) {
+				topLevelChanged = true;
+				name = group.getMarkerField().getValue(
+						(MarkerEntry) segment.get(0));
+			} else {
+				name = oldCategory.getName();
+				if (removed || added != null) {
+					changedNames.add(name);
+				}
+			}
+			int start = entries.size();
+			entries.addAll(segment);
+			MarkerCategory category = new MarkerCategory(this, start,
+					entries.size() - 1, name);
+			category.groupingEntry = (MarkerGroupingEntry) key;
+			newCategories.add(category);
+		}
+		markerEntryArray = (MarkerEntry[]) entries
+				.toArray(new MarkerEntry[entries.size()]);
+		categories = (MarkerCategory[]) newCategories
+				.toArray(new MarkerCategory[newCategories.size()]);
+		return topLevelChanged ? null : changedNames;
+	}
+
+	/**
+	 * Copy the entries in [start,end] that are not dropped to target.
+	 * 
+	 * @return <code>true</code> if any entry was left out
+	 */
+	private boolean copyRetained(int start, int end, Set dropped, List target) {
+		boolean removed = false;
+		for (int i = start; i <= end; i++) {
+			if (!dropped.isEmpty() && dropped.contains(markerEntryArray[i])) {
+				removed = true;
+			} else {
+				target.add(markerEntryArray[i]);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Insert added into entries keeping the order established by
+	 * {@link #sortMarkerEntries(IProgressMonitor)}: the first entries up to
+	 * the marker limit are sorted and precede all others. New entries are
+	 * placed by a binary search of that sorted range. Removing an entry from a
+	 * range cut by the marker limits lets an unsorted entry move up, so such a
+	 * range is sorted again instead.
+	 */
+	private void insertSorted(List entries, List added, Comparator comparator,
+			boolean removed) {
+		boolean limitsEnabled = builder.getGenerator().isMarkerLimitsEnabled();
+		int limit = builder.getGenerator().getMarkerLimits();
+		boolean limited = limitsEnabled && limit > 0;
+		if (removed && limited && entries.size() + added.size() > limit) {
+			entries.addAll(added);
+			MarkerEntry[] array = (MarkerEntry[]) entries
+					.toArray(new MarkerEntry[entries.size()]);
+			MarkerSortUtil.sortStartingKElement(array, comparator, 0,
+					array.length - 1, getShowingLimit(array.length),
+					new NullProgressMonitor());
+			entries.clear();
+			Collections.addAll(entries, array);
+			return;
+		}
+		Iterator iterator = added.iterator();
+		while (iterator.hasNext()) {
+			MarkerEntry entry = (MarkerEntry) iterator.next();
+			int sorted = limited ? Math.min(limit, entries.size()) : entries
+					.size();
+			int position = Collections.binarySearch(entries.subList(0, sorted),
+					entry, comparator);
+			if (position < 0) {
+				position = -position - 1;
+			}
+			if (position == sorted) {
+				entries.add(entry);
+			} else {
+				entries.add(position, entry);
+			}
+			entry.clearCache();
+		}
+	}
+
+	/**
+	 * Remove the entry indexed for the marker of oldState, counting it out
+	 * with the severity oldState reports.
+	 */
+	private void dropEntry(MarkerEntry oldState, Map index, Set dropped,
+			int[] counts) {
+		MarkerEntry entry = (MarkerEntry) index.remove(oldState.getMarker());
+		if (entry == null) {
+			return;
+		}
+		dropped.add(entry);
+		if (counts != null) {
+			counts[getCountIndex(oldState)]--;
+		}
+	}
+
+	/**
+	 * Index and count entry if it passes the filters. A marker that is already
+	 * indexed, e.g. because it was gathered while its delta was queued, is
+	 * replaced.
+	 */
+	private void insertEntry(MarkerEntry entry, MarkerContentGenerator generator,
+			Map index, Set dropped, List inserted, int[] counts) {
+		IMarker marker = entry.getMarker();
+		if (marker == null || !marker.exists()) {
+			return;
+		}
+		dropEntry(entry, index, dropped, counts);
+		if (!generator.select(entry)) {
+			return;
+		}
+		index.put(marker, entry);
+		inserted.add(entry);
+		if (counts != null) {
+			counts[getCountIndex(entry)]++;
+		}
+		entry.clearCache();
+	}
+
+	/**
+	 * @return the index into {@link #getMarkerCounts()} entry is counted in
+	 */
+	private static int getCountIndex(MarkerEntry entry) {
+		switch (entry.getAttributeValue(IMarker.SEVERITY, -1)) {
+		case IMarker.SEVERITY_ERROR:
+			return 0;
+		case IMarker.SEVERITY_WARNING:
+			return 1;
+		case IMarker.SEVERITY_INFO:
+			return 2;
+		default:
+			return 3;
+		}
+	}
+
+	/**
+	 * @return the map from the markers to their entries
+	 */
+	private Map getMarkerToEntryMap() {
 		if (markerToEntryMap == null) {
 			markerToEntryMap = new HashMap();
 			for (int i = 0; i < markerEntryArray.length; i++) {
@@ -346,9 +622,19 @@ class Markers {
 					markerToEntryMap.put(nextMarker, markerEntryArray[i]);
 			}
 		}
+		return markerToEntryMap;
+	}
 
-		if (markerToEntryMap.containsKey(marker))
-			return (MarkerItem) markerToEntryMap.get(marker);
+	/**
+	 * Return the {@link MarkerItem} that maps to marker.
+	 * 
+	 * @param marker
+	 * @return {@link MarkerItem}
+	 */
+	public MarkerItem getMarkerItem(IMarker marker) {
+		Map index = getMarkerToEntryMap();
+		if (index.containsKey(marker))
+			return (MarkerItem) index.get(marker);
 
 		return null;
 	}
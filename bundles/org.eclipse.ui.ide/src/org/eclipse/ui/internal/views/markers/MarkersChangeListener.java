@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - incremental marker updates
  ******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
@@ -138,10 +139,6 @@ class MarkersChangeListener implements IResourceChangeListener {
 			// return;
 			// }
 			
-			if (!builder.isIncremental()) {
-				handleMarkerChange(event);
-				return;
-			}
 			handleIncrementalChange(event);
 		} finally {
 			setReceivingChange(false);
@@ -163,14 +160,6 @@ class MarkersChangeListener implements IResourceChangeListener {
 		this.receiving = receiving;
 	}
 
-	/**
-	 * Handle marker change event
-	 * @param event
-	 */
-	private void handleMarkerChange(IResourceChangeEvent event) {
-		builder.getUpdateScheduler().scheduleUpdate();
-	}
-	
 	/**
 	 * Markers have not changed
 	 */
@@ -180,14 +169,13 @@ class MarkersChangeListener implements IResourceChangeListener {
 
 	/**
 	 * Handle changes incrementally. 
-	 * The following performs incremental updation
-	 * of the markers that were gathered initially, and keeps them synched at
-	 * any point with the markers of interest in Workspace. Unfortunately marker
-	 * operations cannot be locked so locking between gathering of markers and
-	 * marker deltas is not possible.
-	 * 
-	 * Note : this method of updating is NOT used and tested yet and has holes
-	 * but left out SOLELY for further investigation(*).
+	 * The marker deltas are queued as a {@link MarkerUpdate} and applied to
+	 * the markers that were gathered initially by the next update, keeping
+	 * them synched with the markers of interest in Workspace. The deltas are
+	 * queued even while a full update is pending: marker operations cannot be
+	 * locked, so a delta may arrive while the markers are being gathered. The
+	 * full update drops the queue before gathering, and applying a delta that
+	 * the gathering already saw is harmless.
 	 * 
 	 * @param event
 	 */
@@ -205,18 +193,18 @@ class MarkersChangeListener implements IResourceChangeListener {
 					continue;
 				}
 				IMarker marker = markerDeltas[i].getMarker();
-				MarkerEntry markerEntry = new MarkerEntry(marker);
 				switch (markerDeltas[i].getKind()) {
 				case IResourceDelta.REMOVED: {
-					removed.add(markerEntry);
+					// keep the old attributes to count the marker out
+					removed.add(new DeltaMarkerEntry(markerDeltas[i]));
 					break;
 				}
 				case IResourceDelta.ADDED: {
-					added.add(markerEntry);
+					added.add(new MarkerEntry(marker));
 					break;
 				}
 				case IResourceDelta.CHANGED: {
-					changed.add(markerEntry);
+					changed.add(new DeltaMarkerEntry(markerDeltas[i]));
 					break;
 				}
 				default:{
@@ -453,7 +441,8 @@ class MarkersChangeListener implements IResourceChangeListener {
 ///////////helpers/////////////
 
 /**
- * For Incremental updating
+ * For Incremental updating. The entries of removed and changed wrap the
+ * {@link IMarkerDelta} and answer the attribute values from before the change.
  * @since 3.6
  */
 class MarkerUpdate {
@@ -526,7 +515,8 @@ class MarkerUpdateScheduler {
 			cancelUpdate();
 		}
 		// indicateStatus(MarkerMessages.MarkerView_queueing_updates, true);
-		updateJob = builder.scheduleUpdateJob(delay, true, changeFlags);
+		updateJob = builder.scheduleUpdateJob(delay,
+				!builder.isIncremental(), changeFlags);
 		// updateTimer.reset();
 	}
 
@@ -541,7 +531,7 @@ class MarkerUpdateScheduler {
 			cancelUpdate();
 		}
 		// indicateStatus(MarkerMessages.MarkerView_queueing_updates, true);
-		updateJob = builder.scheduleUpdateJob(delay, true);
+		updateJob = builder.scheduleUpdateJob(delay, !builder.isIncremental());
 		// updateTimer.reset();
 	}
 
@@ -616,6 +606,18 @@ class MarkerUpdateScheduler {
 		uiUpdateJob = view.scheduleUpdate(delay);
 	}
 
+	/**
+	 * Schedule only an UI update that refreshes the given categories
+	 * 
+	 * @param delay
+	 * @param categoryNames
+	 *            the names of the categories to refresh, or <code>null</code>
+	 *            to refresh the whole viewer
+	 */
+	void scheduleUIUpdate(long delay, Collection categoryNames) {
+		uiUpdateJob = view.scheduleUpdate(delay, categoryNames);
+	}
+
 	/**
 	 * Cancel any marker update if pending.
 	 * 
@@ -7,10 +7,13 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - refresh only the changed categories
  *******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
 
+import java.util.Collection;
+
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Item;
@@ -62,6 +65,40 @@ public class MarkersTreeViewer extends TreeViewer {
 		unmapAllElements();
 	}
 
+	/**
+	 * Refresh only the categories with the given names. The other categories
+	 * are just re-associated with their new instances, so that their children
+	 * are taken from the current markers when they are expanded.
+	 * 
+	 * @param categoryNames
+	 *            the names of the categories that changed
+	 * @return <code>true</code> if the categories were refreshed,
+	 *         <code>false</code> if the top level of the tree does not show
+	 *         the same categories anymore and needs a full refresh
+	 */
+	boolean refreshCategories(Collection categoryNames) {
+		Object[] elements = getSortedChildren(getRoot());
+		Item[] items = getChildren(getControl());
+		if (elements.length != items.length) {
+			return false;
+		}
+		for (int i = 0; i < elements.length; i++) {
+			if (!(elements[i] instanceof MarkerCategory)
+					|| !elements[i].equals(items[i].getData())) {
+				return false;
+			}
+		}
+		for (int i = 0; i < elements.length; i++) {
+			MarkerCategory category = (MarkerCategory) elements[i];
+			if (categoryNames.contains(category.getName())) {
+				refresh(category, true);
+			} else {
+				update(category, null);
+			}
+		}
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -7,10 +7,15 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - refresh only the changed categories
  ******************************************************************************/
 
 package org.eclipse.ui.internal.views.markers;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -36,6 +41,10 @@ class UIUpdateJob extends WorkbenchJob {
 
 	private long lastUpdateTime=-1;
 
+	// What the next run refreshes: everything, or only the named categories
+	private boolean refreshAll = true;
+	private Set refreshCategories = new HashSet();
+
 	/**
 	 * @param view
 	 *            the markers view base class
@@ -108,7 +117,13 @@ class UIUpdateJob extends WorkbenchJob {
 				contentProvider.inputChanged(viewer, view.getViewerInput(), clone);
 
 				viewer.getTree().setRedraw(false);
-				viewer.refresh(true);
+				Collection categoryNames = takeRefresh();
+				if (categoryNames == null
+						|| !(viewer instanceof MarkersTreeViewer)
+						|| !((MarkersTreeViewer) viewer)
+								.refreshCategories(categoryNames)) {
+					viewer.refresh(true);
+				}
 				if (!monitor.isCanceled()) {
 					//do not expand if canceled
 					view.reexpandCategories();
@@ -134,6 +149,32 @@ class UIUpdateJob extends WorkbenchJob {
 		return Status.OK_STATUS;
 	}
 
+	/**
+	 * Add to what the next run refreshes.
+	 * 
+	 * @param categoryNames
+	 *            the names of the categories that changed, or
+	 *            <code>null</code> to refresh the whole viewer
+	 */
+	synchronized void addRefresh(Collection categoryNames) {
+		if (categoryNames == null) {
+			refreshAll = true;
+		} else if (!refreshAll) {
+			refreshCategories.addAll(categoryNames);
+		}
+	}
+
+	/**
+	 * @return the names of the categories to refresh, or <code>null</code> to
+	 *         refresh the whole viewer
+	 */
+	private synchronized Collection takeRefresh() {
+		Collection categoryNames = refreshAll ? null : refreshCategories;
+		refreshAll = false;
+		refreshCategories = new HashSet();
+		return categoryNames;
+	}
+
 	/**
 	 * @return Returns true if updating.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -130,6 +130,23 @@ public abstract class MarkerField {
 		return getValue(item1).compareTo(getValue(item2));
 	}
 
+	/**
+	 * Return whether or not {@link #compare(MarkerItem, MarkerItem)} may be
+	 * called from several threads at the same time, each thread comparing
+	 * different items. The markers views then sort large numbers of markers
+	 * in parallel.
+	 * <p>
+	 * The default implementation returns <code>false</code>. Subclasses may
+	 * override.
+	 * </p>
+	 * 
+	 * @return boolean <code>true</code> if compare is thread safe.
+	 * @since 3.10
+	 */
+	public boolean allowsConcurrentComparison() {
+		return false;
+	}
+
 	/**
 	 * @return The image to be displayed in the column header for this field or
 	 *         <code>null<code>.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,23 @@ public abstract class MarkerFieldFilter {
 	 * @return boolean <code>true</code> if the marker should be shown.
 	 */
 	public abstract boolean select(MarkerItem item);
+
+	/**
+	 * Return whether or not {@link #select(MarkerItem)} may be called from
+	 * several threads at the same time. The markers views then gather the
+	 * markers of several projects concurrently. The receiver is initialized
+	 * before and not modified while the markers are gathered.
+	 * <p>
+	 * The default implementation returns <code>false</code>. Subclasses may
+	 * override.
+	 * </p>
+	 * 
+	 * @return boolean <code>true</code> if select is thread safe.
+	 * @since 3.10
+	 */
+	public boolean allowsConcurrentSelection() {
+		return false;
+	}
 	
 	/**
 	 * Initialise the receiver with the values in the values Map.
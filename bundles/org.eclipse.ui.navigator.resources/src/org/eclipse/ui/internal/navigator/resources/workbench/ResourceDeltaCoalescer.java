@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.navigator.resources.workbench;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jface.viewers.AbstractTreeViewer;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.swt.widgets.Control;
+
+/**
+ * Collapses a resource delta into the smallest set of viewer updates that
+ * brings the viewer up to date.
+ * <p>
+ * A delta is {@link #collect(IResourceDelta) collected} on the thread that
+ * reported it, which turns it into refresh roots and batched additions and
+ * removals per parent. A folder with more direct changes than the density
+ * threshold is refreshed as a whole instead of being walked. The updates are
+ * then {@link #apply(StructuredViewer) applied} in the UI thread, where
+ * updates below a refresh root are dropped. Everything is applied with redraw
+ * turned off once.
+ * </p>
+ * <p>
+ * The viewer may be a pipelined navigator viewer that shows the resources as
+ * other model elements, so the updates are not filtered by the items the
+ * viewer has for the resources. Only the viewer can tell that once it has
+ * converted them.
+ * </p>
+ */
+class ResourceDeltaCoalescer {
+
+	/**
+	 * The number of direct changes in a folder above which the folder is
+	 * refreshed rather than updated per child.
+	 */
+	static final int DENSITY_THRESHOLD = 64;
+
+	private static final class Change {
+		final IResource parent;
+		final List<IResource> added = new ArrayList<IResource>();
+		final List<IResource> removed = new ArrayList<IResource>();
+		int movedFrom;
+		int movedTo;
+
+		Change(IResource parent) {
+			this.parent = parent;
+		}
+
+		/**
+		 * @return <code>true</code> if items seem to move within the parent,
+		 *         as they do when they are renamed
+		 */
+		boolean isRename() {
+			return movedFrom > 0 && movedTo > 0;
+		}
+	}
+
+	private final int densityThreshold;
+
+	private final Set<IResource> refreshRoots = new LinkedHashSet<IResource>();
+
+	private final Map<IResource, Change> changes = new LinkedHashMap<IResource, Change>();
+
+	/**
+	 * Creates a coalescer using the {@link #DENSITY_THRESHOLD default density
+	 * threshold}.
+	 */
+	ResourceDeltaCoalescer() {
+		this(DENSITY_THRESHOLD);
+	}
+
+	/**
+	 * @param densityThreshold
+	 *            the number of direct changes in a folder above which the
+	 *            folder is refreshed rather than updated per child
+	 */
+	ResourceDeltaCoalescer(int densityThreshold) {
+		this.densityThreshold = densityThreshold;
+	}
+
+	/**
+	 * @return <code>true</code> if nothing in the viewer needs updating
+	 */
+	boolean isEmpty() {
+		return refreshRoots.isEmpty() && changes.isEmpty();
+	}
+
+	/**
+	 * Collect the updates for the given delta. May be called from any thread,
+	 * but not concurrently with {@link #apply(StructuredViewer)}.
+	 *
+	 * @param delta
+	 */
+	void collect(IResourceDelta delta) {
+		// Get the affected resource
+		IResource resource = delta.getResource();
+
+		IResourceDelta[] affectedChildren = delta
+				.getAffectedChildren(IResourceDelta.CHANGED);
+		IResourceDelta[] addedChildren = delta
+				.getAffectedChildren(IResourceDelta.ADDED);
+		IResourceDelta[] removedChildren = delta
+				.getAffectedChildren(IResourceDelta.REMOVED);
+
+		// Check the flags for changes the Navigator cares about.
+		// See ResourceLabelProvider for the aspects it cares about.
+		// Notice we don't care about F_CONTENT or F_MARKERS currently.
+		int changeFlags = delta.getFlags();
+		if ((changeFlags & (IResourceDelta.OPEN | IResourceDelta.SYNC
+				| IResourceDelta.TYPE | IResourceDelta.DESCRIPTION)) != 0) {
+			/* support the Closed Projects filter;
+			 * when a project is closed, it may need to be removed from the view.
+			 */
+			if (resource.getParent() != null)
+				refreshRoots.add(resource.getParent());
+		}
+
+		// A dense change, as made by a branch switch or a clean build, is
+		// cheaper to refresh than to walk
+		if (affectedChildren.length + addedChildren.length + removedChildren.length > densityThreshold) {
+			refreshRoots.add(resource);
+			return;
+		}
+
+		// If any children have changed type, just do a full refresh of this
+		// parent, since a simple update on such children won't work, and
+		// trying to map the change to a remove and add is too dicey.
+		// The case is: folder A renamed to existing file B, answering yes to
+		// overwrite B.
+		for (int i = 0; i < affectedChildren.length; i++) {
+			if ((affectedChildren[i].getFlags() & IResourceDelta.TYPE) != 0) {
+				refreshRoots.add(resource);
+				return;
+			}
+		}
+
+		// Replacing a resource may affect its label and its children
+		if ((changeFlags & IResourceDelta.REPLACED) != 0) {
+			refreshRoots.add(resource);
+			return;
+		}
+
+		// Handle changed children
+		for (int i = 0; i < affectedChildren.length; i++) {
+			collect(affectedChildren[i]);
+		}
+
+		if (addedChildren.length == 0 && removedChildren.length == 0) {
+			return;
+		}
+
+		Change change = changes.get(resource);
+		if (change == null) {
+			change = new Change(resource);
+			changes.put(resource, change);
+		}
+		for (int i = 0; i < addedChildren.length; i++) {
+			change.added.add(addedChildren[i].getResource());
+			if ((addedChildren[i].getFlags() & IResourceDelta.MOVED_FROM) != 0) {
+				change.movedFrom++;
+			}
+		}
+		for (int i = 0; i < removedChildren.length; i++) {
+			change.removed.add(removedChildren[i].getResource());
+			if ((removedChildren[i].getFlags() & IResourceDelta.MOVED_TO) != 0) {
+				change.movedTo++;
+			}
+		}
+	}
+
+	/**
+	 * Apply the collected updates to the viewer. Must be called in the UI
+	 * thread.
+	 *
+	 * @param viewer
+	 */
+	void apply(StructuredViewer viewer) {
+		Control control = viewer.getControl();
+		if (control == null || control.isDisposed() || isEmpty()) {
+			return;
+		}
+
+		List<Change> batch = new ArrayList<Change>(changes.values());
+		Set<IPath> rootPaths = new HashSet<IPath>();
+		for (IResource root : refreshRoots) {
+			rootPaths.add(root.getFullPath());
+		}
+		List<IResource> refreshes = new ArrayList<IResource>(refreshRoots.size());
+		for (IResource root : refreshRoots) {
+			IPath path = root.getFullPath();
+			if (path.segmentCount() > 0
+					&& isBelow(path.removeLastSegments(1), rootPaths)) {
+				continue;
+			}
+			refreshes.add(root);
+		}
+		for (Iterator<Change> it = batch.iterator(); it.hasNext();) {
+			if (isBelow(it.next().parent.getFullPath(), rootPaths)) {
+				it.remove();
+			}
+		}
+
+		refreshRoots.clear();
+		changes.clear();
+		if (refreshes.isEmpty() && batch.isEmpty()) {
+			return;
+		}
+
+		// Disable redraw until all updates are made so we don't get a flash
+		// of intermediate states, such as both the new and old item of a rename
+		boolean redraw = refreshes.size() + batch.size() > 1
+				|| (batch.size() == 1 && batch.get(0).isRename());
+		if (redraw) {
+			control.setRedraw(false);
+		}
+		try {
+			for (IResource root : refreshes) {
+				viewer.refresh(root);
+			}
+			for (Change change : batch) {
+				if (viewer instanceof AbstractTreeViewer) {
+					AbstractTreeViewer treeViewer = (AbstractTreeViewer) viewer;
+					// Process additions before removals as to not cause
+					// selection preservation prior to new objects being added
+					if (!change.added.isEmpty()) {
+						treeViewer.add(change.parent, change.added.toArray());
+					}
+					if (!change.removed.isEmpty()) {
+						treeViewer.remove(change.removed.toArray());
+					}
+				} else {
+					viewer.refresh(change.parent);
+				}
+			}
+		} finally {
+			if (redraw) {
+				control.setRedraw(true);
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if path or one of its ancestors is in roots
+	 */
+	private static boolean isBelow(IPath path, Set<IPath> roots) {
+		for (IPath p = path; ; p = p.removeLastSegments(1)) {
+			if (roots.contains(p)) {
+				return true;
+			}
+			if (p.segmentCount() == 0) {
+				return false;
+			}
+		}
+	}
+}
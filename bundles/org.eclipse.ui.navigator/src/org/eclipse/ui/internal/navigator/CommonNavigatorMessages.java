@@ -132,6 +132,9 @@ public class CommonNavigatorMessages extends NLS {
 	
 	/** */
 	public static String NavigatorContentService_problemSavingPreferences;
+
+	/** */
+	public static String NavigatorContentServiceContentProvider_FetchingContent;
 	
 
 	static {
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.internal.navigator;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.ui.navigator.INavigatorContentDescriptor;
+
+/**
+ * Remembers which content descriptor contributed an element, and which first
+ * class descriptor that contribution came through.
+ * <p>
+ * Elements are held weakly, so an element that is no longer referenced by the
+ * viewer or by any model is forgotten without an explicit
+ * {@link #forget(Object)}. The elements are spread over a fixed number of
+ * independently locked segments so that concurrent content provider calls do
+ * not serialize on a single lock.
+ * </p>
+ */
+class ContributionMemory {
+
+	private static final int SEGMENTS = 16;
+
+	private static final class Contribution {
+		final INavigatorContentDescriptor source;
+		final INavigatorContentDescriptor firstClassSource;
+
+		Contribution(INavigatorContentDescriptor source,
+				INavigatorContentDescriptor firstClassSource) {
+			this.source = source;
+			this.firstClassSource = firstClassSource;
+		}
+	}
+
+	private final Map[] segments = new Map[SEGMENTS];
+
+	// Lookup counts per segment, guarded by the segment
+	private final long[] hits = new long[SEGMENTS];
+	private final long[] misses = new long[SEGMENTS];
+
+	ContributionMemory() {
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new WeakHashMap();
+		}
+	}
+
+	private int indexFor(Object element) {
+		int hash = element.hashCode();
+		hash ^= (hash >>> 16);
+		return hash & (SEGMENTS - 1);
+	}
+
+	private Map segmentFor(Object element) {
+		return segments[indexFor(element)];
+	}
+
+	/**
+	 * Remember that source contributed element. An earlier contribution is only
+	 * replaced if it came through the same first class descriptor, which means
+	 * that source overrides it.
+	 *
+	 * @param source
+	 * @param firstClassSource
+	 * @param element
+	 * @return true if the contribution was remembered
+	 */
+	boolean remember(INavigatorContentDescriptor source,
+			INavigatorContentDescriptor firstClassSource, Object element) {
+		Map segment = segmentFor(element);
+		synchronized (segment) {
+			Contribution current = (Contribution) segment.get(element);
+			if (current == null || current.firstClassSource == firstClassSource) {
+				segment.put(element, new Contribution(source, firstClassSource));
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param element
+	 */
+	void forget(Object element) {
+		Map segment = segmentFor(element);
+		synchronized (segment) {
+			segment.remove(element);
+		}
+	}
+
+	/**
+	 * @param element
+	 * @return the descriptor that contributed element or null
+	 */
+	INavigatorContentDescriptor get(Object element) {
+		int index = indexFor(element);
+		Map segment = segments[index];
+		synchronized (segment) {
+			Contribution contribution = (Contribution) segment.get(element);
+			if (contribution == null) {
+				misses[index]++;
+				return null;
+			}
+			hits[index]++;
+			return contribution.source;
+		}
+	}
+
+	/**
+	 * Forget all elements.
+	 */
+	void clear() {
+		for (int i = 0; i < SEGMENTS; i++) {
+			synchronized (segments[i]) {
+				segments[i].clear();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of elements still remembered
+	 */
+	int size() {
+		int size = 0;
+		for (int i = 0; i < SEGMENTS; i++) {
+			synchronized (segments[i]) {
+				size += segments[i].size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the number of lookups that found a remembered contribution
+	 */
+	long getHitCount() {
+		return sum(hits);
+	}
+
+	/**
+	 * @return the number of lookups that found no remembered contribution,
+	 *         either because it was never remembered or because it was
+	 *         forgotten
+	 */
+	long getMissCount() {
+		return sum(misses);
+	}
+
+	private long sum(long[] counts) {
+		long sum = 0;
+		for (int i = 0; i < SEGMENTS; i++) {
+			synchronized (segments[i]) {
+				sum += counts[i];
+			}
+		}
+		return sum;
+	}
+
+	public String toString() {
+		return "ContributionMemory [size=" + size() + ", hits=" + getHitCount() //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", misses=" + getMissCount() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -8,6 +8,7 @@
  * Contributors:
  * IBM Corporation - initial API and implementation
  * Fair Issac Corp - bug 287103 - NCSLabelProvider does not properly handle overrides
+ * IBM Corporation - weakly referenced contribution memory
  *******************************************************************************/
 package org.eclipse.ui.internal.navigator;
 
@@ -124,8 +125,10 @@ public class NavigatorContentService implements IExtensionActivationListener,
 	 * to record the object/description associations which are when stored
 	 * in the Tree associated with the viewer.
 	 */
-	private Map contributionMemory;
-	private Map contributionMemoryFirstClass;
+	private final ContributionMemory contributionMemory = new ContributionMemory();
+
+	// Instrumentation only, so unsynchronized updates are acceptable
+	private volatile long contributionRecomputeCount;
 	
 	private ILabelProvider labelProvider;
 
@@ -166,8 +169,6 @@ public class NavigatorContentService implements IExtensionActivationListener,
 		assistant = new VisibilityAssistant(viewerDescriptor,
 				getActivationService());
 		getActivationService().addExtensionActivationListener(this);
-		contributionMemory = new HashMap();
-		contributionMemoryFirstClass = new HashMap();
 	}
 
 	/**
@@ -357,6 +358,7 @@ public class NavigatorContentService implements IExtensionActivationListener,
 		}
 		getActivationService().removeExtensionActivationListener(this);
 		assistant.dispose();
+		contributionMemory.clear();
 		isDisposed = true;
 	}
 
@@ -706,16 +708,10 @@ public class NavigatorContentService implements IExtensionActivationListener,
 		 * contributing NCE. However in the case of different first class NCEs,
 		 * the first one wins, so we don't update the contribution memory.
 		 */
-		synchronized (this) {
-			if (contributionMemory.get(element) == null
-					|| contributionMemoryFirstClass.get(element) == firstClassSource) {
-				if (Policy.DEBUG_RESOLUTION)
-					System.out
-							.println("rememberContribution: " + Policy.getObjectString(element) + " source: " + source); //$NON-NLS-1$//$NON-NLS-2$
-				contributionMemory.put(element, source);
-				contributionMemoryFirstClass.put(element, firstClassSource);
-			}
-		}
+		if (contributionMemory.remember(source, firstClassSource, element)
+				&& Policy.DEBUG_RESOLUTION)
+			System.out
+					.println("rememberContribution: " + Policy.getObjectString(element) + " source: " + source); //$NON-NLS-1$//$NON-NLS-2$
 	}
 
 	/**
@@ -725,10 +721,7 @@ public class NavigatorContentService implements IExtensionActivationListener,
 	 *            The element to forget.
 	 */
 	public void forgetContribution(Object element) {
-		synchronized (this) {
-			contributionMemory.remove(element);
-			contributionMemoryFirstClass.remove(element);
-		}
+		contributionMemory.forget(element);
 	}
 
 	/**
@@ -737,11 +730,7 @@ public class NavigatorContentService implements IExtensionActivationListener,
 	 */
 	public NavigatorContentDescriptor getContribution(Object element)
 	{
-		NavigatorContentDescriptor desc;
-		synchronized (this) {
-			desc = (NavigatorContentDescriptor) contributionMemory.get(element);
-		}
-		return desc;
+		return (NavigatorContentDescriptor) contributionMemory.get(element);
 	}
 	
 	/**
@@ -749,9 +738,16 @@ public class NavigatorContentService implements IExtensionActivationListener,
 	 * @return the size of the contribution memory
 	 */
 	public int getContributionMemorySize() {
-		synchronized (this) {
-			return contributionMemory.size();
-		}
+		return contributionMemory.size();
+	}
+
+	/**
+	 * Used only for the tests
+	 * @return the number of contribution lookups that had to be answered
+	 *         from the viewer because the element was not remembered
+	 */
+	public long getContributionRecomputeCount() {
+		return contributionRecomputeCount;
 	}
 	
 	/**
@@ -761,19 +757,24 @@ public class NavigatorContentService implements IExtensionActivationListener,
 	 * @return The descriptor that contributed the element or null.
 	 * @see #findContentExtensionsByTriggerPoint(Object)
 	 */
-	public synchronized NavigatorContentDescriptor getSourceOfContribution(Object element) {
+	public NavigatorContentDescriptor getSourceOfContribution(Object element) {
 		if (element == null)
 			return null;
-		if (structuredViewerManager == null)
+		StructuredViewerManager viewerManager = structuredViewerManager;
+		if (viewerManager == null)
 			return null;
 		// Try here first because it might not yet be in the tree
-		NavigatorContentDescriptor src;
-		synchronized (this) {
-			src = (NavigatorContentDescriptor) contributionMemory.get(element);
-		}
+		NavigatorContentDescriptor src = (NavigatorContentDescriptor) contributionMemory
+				.get(element);
 		if (src != null)
 			return src;
-		return (NavigatorContentDescriptor) structuredViewerManager.getData(element);
+		// The memory holds its elements weakly, so this is not necessarily an
+		// element that was never remembered.
+		contributionRecomputeCount++;
+		if (Policy.DEBUG_VIEWER_MAP)
+			System.out
+					.println("getSourceOfContribution: " + Policy.getObjectString(element) + " not remembered, " + contributionMemory); //$NON-NLS-1$//$NON-NLS-2$
+		return (NavigatorContentDescriptor) viewerManager.getData(element);
 	}
 	/**
 	 * 
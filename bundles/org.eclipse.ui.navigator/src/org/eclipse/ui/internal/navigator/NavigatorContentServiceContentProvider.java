@@ -11,23 +11,32 @@
  *       bug 261031 [CommonNavigator] IPipelinedContentProvider getParent() returning the suggested parent is not ignored
  *     William Chen, chenwmw@gmail.com 
  *       bug 343721 getParent of NavigatorContentServiceContentProvider does not return expected node.
+ *     IBM Corporation - fetch children of several extensions in parallel
  *******************************************************************************/
 package org.eclipse.ui.internal.navigator;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.ITreePathContentProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptor;
 import org.eclipse.ui.internal.navigator.extensions.NavigatorContentExtension;
 import org.eclipse.ui.internal.navigator.extensions.NavigatorViewerDescriptor;
@@ -70,6 +79,14 @@ public class NavigatorContentServiceContentProvider implements ITreeContentProvi
 
 	private final boolean enforceHasChildren;
 
+	private final long parallelFetchTimeout;
+
+	/*
+	 * Parallel fetches that outlived the timeout, by parent element or path.
+	 * Their results are used when the viewer asks for the children again.
+	 */
+	private final Map lateFetches = new HashMap();
+
 	private Viewer viewer;
 
 	/**
@@ -102,10 +119,25 @@ public class NavigatorContentServiceContentProvider implements ITreeContentProvi
 		contentService = aContentService;
 		INavigatorViewerDescriptor vDesc = contentService.getViewerDescriptor();
 		enforceHasChildren = vDesc.getBooleanConfigProperty(NavigatorViewerDescriptor.PROP_ENFORCE_HAS_CHILDREN);
+		parallelFetchTimeout = getTimeout(vDesc.getStringConfigProperty(NavigatorViewerDescriptor.PROP_PARALLEL_FETCH_TIMEOUT));
+	}
+
+	private static long getTimeout(String aValue) {
+		if (aValue == null)
+			return 0;
+		try {
+			return Math.max(0, Long.parseLong(aValue.trim()));
+		} catch (NumberFormatException e) {
+			NavigatorPlugin.logError(0, e.getMessage(), e);
+			return 0;
+		}
 	}
 
 	public void inputChanged(Viewer aViewer, Object anOldInput, Object aNewInput) {
 		viewer = aViewer;
+		synchronized (lateFetches) {
+			lateFetches.clear();
+		}
 		contentService.updateService(aViewer, anOldInput, aNewInput);
 	}
 
@@ -135,6 +167,9 @@ public class NavigatorContentServiceContentProvider implements ITreeContentProvi
 		final Set finalSet = new LinkedHashSet();
 		final ContributorTrackingSet localSet = new ContributorTrackingSet(contentService);
 
+		final Map fetchedChildren = parallelFetchTimeout > 0 ? fetchInParallel(
+				aParentElement, aParentElementOrPath, enabledExtensions, elements) : null;
+
 		for (final Iterator itr = enabledExtensions.iterator(); itr.hasNext();) {
 			SafeRunner.run(new NavigatorSafeRunnable() {
 				NavigatorContentExtension foundExtension = (NavigatorContentExtension) itr.next();
@@ -144,7 +179,12 @@ public class NavigatorContentServiceContentProvider implements ITreeContentProvi
 				public void run() throws Exception {
 					if (!isOverridingExtensionInSet(foundExtension.getDescriptor(),
 							enabledExtensions)) {
-						if (elements)
+						if (fetchedChildren != null) {
+							// failed, or still fetching after the timeout
+							if (!fetchedChildren.containsKey(foundExtension))
+								return;
+							contributedChildren = (Object[]) fetchedChildren.get(foundExtension);
+						} else if (elements)
 							contributedChildren = foundExtension.internalGetContentProvider()
 									.getElements(aParentElementOrPath);
 						else
@@ -176,6 +216,196 @@ public class NavigatorContentServiceContentProvider implements ITreeContentProvi
 		return finalSet.toArray();
 	}
 
+	/**
+	 * Ask the first class extensions among <code>theEnabledExtensions</code>
+	 * for their children in parallel, waiting at most the configured timeout.
+	 * Only the first class content providers run in parallel; overrides are
+	 * pipelined by the caller once the results are in. Extensions that have
+	 * not answered by the timeout keep running, and the parent is refreshed
+	 * once all of them have answered.
+	 * 
+	 * @return A map of the extensions that answered to their children, or
+	 *         <code>null</code> if the children should be fetched serially.
+	 */
+	private Map fetchInParallel(Object aParentElement, Object aParentElementOrPath,
+			Set theEnabledExtensions, boolean elements) {
+		FetchBatch batch;
+		synchronized (lateFetches) {
+			batch = (FetchBatch) lateFetches.get(aParentElementOrPath);
+			if (batch != null && batch.elements == elements) {
+				// Answer from the fetch that outlived an earlier request
+				// rather than starting another one
+				Map results = batch.getResults();
+				if (results != null) {
+					lateFetches.remove(aParentElementOrPath);
+					return results;
+				}
+				return batch.getPartialResults();
+			}
+		}
+
+		List firstClassExtensions = new ArrayList();
+		for (Iterator itr = theEnabledExtensions.iterator(); itr.hasNext();) {
+			NavigatorContentExtension extension = (NavigatorContentExtension) itr.next();
+			if (!isOverridingExtensionInSet(extension.getDescriptor(), theEnabledExtensions))
+				firstClassExtensions.add(extension);
+		}
+		if (firstClassExtensions.size() < 2)
+			return null;
+
+		batch = new FetchBatch(aParentElement, aParentElementOrPath, elements,
+				firstClassExtensions.size());
+		for (Iterator itr = firstClassExtensions.iterator(); itr.hasNext();) {
+			new FetchJob(batch, (NavigatorContentExtension) itr.next()).schedule();
+		}
+		if (!batch.await(parallelFetchTimeout)) {
+			synchronized (lateFetches) {
+				lateFetches.put(aParentElementOrPath, batch);
+			}
+			batch.refreshWhenDone();
+		}
+		return batch.getPartialResults();
+	}
+
+	/**
+	 * Refresh the parent of a batch that finished after the caller stopped
+	 * waiting for it.
+	 */
+	private void refreshLater(final FetchBatch aBatch) {
+		final Viewer currentViewer = viewer;
+		final Control control = currentViewer == null ? null : currentViewer.getControl();
+		if (control == null || control.isDisposed())
+			return;
+		control.getDisplay().asyncExec(new Runnable() {
+			public void run() {
+				if (control.isDisposed() || viewer != currentViewer)
+					return;
+				synchronized (lateFetches) {
+					if (lateFetches.get(aBatch.parentElementOrPath) != aBatch)
+						return;
+				}
+				if (!aBatch.elements && currentViewer instanceof StructuredViewer)
+					((StructuredViewer) currentViewer).refresh(aBatch.parentElement);
+				else
+					currentViewer.refresh();
+			}
+		});
+	}
+
+	/**
+	 * The children of one parent being fetched from several extensions.
+	 */
+	private class FetchBatch {
+		final Object parentElement;
+		final Object parentElementOrPath;
+		final boolean elements;
+
+		// extension -> Object[], guarded by this
+		private final Map results = new HashMap();
+		private int outstanding;
+		private boolean refreshWhenDone;
+
+		FetchBatch(Object aParentElement, Object aParentElementOrPath, boolean toGetElements, int count) {
+			parentElement = aParentElement;
+			parentElementOrPath = aParentElementOrPath;
+			elements = toGetElements;
+			outstanding = count;
+		}
+
+		void finished(NavigatorContentExtension anExtension, Object[] theChildren, boolean failed) {
+			boolean refresh;
+			synchronized (this) {
+				if (!failed)
+					results.put(anExtension, theChildren == null ? NO_CHILDREN : theChildren);
+				outstanding--;
+				refresh = outstanding == 0 && refreshWhenDone;
+				notifyAll();
+			}
+			if (refresh)
+				refreshLater(this);
+		}
+
+		synchronized boolean await(long timeout) {
+			long deadline = System.currentTimeMillis() + timeout;
+			while (outstanding > 0) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0)
+					return false;
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			return true;
+		}
+
+		void refreshWhenDone() {
+			boolean refresh;
+			synchronized (this) {
+				refreshWhenDone = true;
+				refresh = outstanding == 0;
+			}
+			if (refresh)
+				refreshLater(this);
+		}
+
+		/**
+		 * @return all results, or null if some extensions are still fetching
+		 */
+		synchronized Map getResults() {
+			return outstanding == 0 ? results : null;
+		}
+
+		synchronized Map getPartialResults() {
+			return new HashMap(results);
+		}
+	}
+
+	/**
+	 * Asks one extension for the children of a batch's parent.
+	 */
+	private class FetchJob extends Job {
+		private final FetchBatch batch;
+		private final NavigatorContentExtension extension;
+
+		FetchJob(FetchBatch aBatch, NavigatorContentExtension anExtension) {
+			super(NLS.bind(CommonNavigatorMessages.NavigatorContentServiceContentProvider_FetchingContent,
+					anExtension.getDescriptor().getName()));
+			batch = aBatch;
+			extension = anExtension;
+			setSystem(true);
+		}
+
+		protected IStatus run(IProgressMonitor monitor) {
+			final Object[][] children = new Object[1][];
+			final boolean[] failed = new boolean[] { true };
+			try {
+				SafeRunner.run(new NavigatorSafeRunnable() {
+					public void run() throws Exception {
+						if (batch.elements)
+							children[0] = extension.internalGetContentProvider()
+									.getElements(batch.parentElementOrPath);
+						else
+							children[0] = extension.internalGetContentProvider()
+									.getChildren(batch.parentElementOrPath);
+						failed[0] = false;
+					}
+
+					public void handleException(Throwable e) {
+						NavigatorPlugin.logError(0, NLS.bind(
+								CommonNavigatorMessages.Exception_Invoking_Extension, new Object[] {
+										extension.getDescriptor().getId(), batch.parentElement }), e);
+					}
+				});
+			} finally {
+				batch.finished(extension, children[0], failed[0]);
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 	/**
 	 * Query each of <code>theOverridingExtensions</code> for children, and then
 	 * pipe them through the Pipeline content provider.
@@ -466,6 +696,9 @@ public class NavigatorContentServiceContentProvider implements ITreeContentProvi
 	 * @see org.eclipse.jface.viewers.IContentProvider#dispose()
 	 */
 	public void dispose() {
+		synchronized (lateFetches) {
+			lateFetches.clear();
+		}
 		if (disposeContentService) {
 			contentService.dispose();
 		}
@@ -7,6 +7,7 @@
  *
  * Contributors:
  * IBM Corporation - initial API and implementation
+ * IBM Corporation - classify type-only enablement expressions
  *******************************************************************************/
 package org.eclipse.ui.internal.navigator.extensions;
 
@@ -24,6 +25,7 @@ import org.eclipse.core.expressions.ElementHandler;
 import org.eclipse.core.expressions.EvaluationResult;
 import org.eclipse.core.expressions.Expression;
 import org.eclipse.core.expressions.ExpressionConverter;
+import org.eclipse.core.expressions.ExpressionTagNames;
 import org.eclipse.core.expressions.IEvaluationContext;
 
 import org.eclipse.core.runtime.CoreException;
@@ -77,6 +79,14 @@ public final class NavigatorContentDescriptor implements
 	private Expression possibleChildren;
 
 	private Expression initialActivation;
+
+	/*
+	 * Whether the enablement (or triggerPoints) and possibleChildren
+	 * expressions only test the class of the element.
+	 */
+	private boolean enablementTypeOnly;
+
+	private boolean possibleChildrenTypeOnly;
 	
 	private String icon;
 
@@ -264,6 +274,7 @@ public final class NavigatorContentDescriptor implements
 			children = configElement.getChildren(TAG_TRIGGER_POINTS);
 			if (children.length == 1) {
 				enablement = new CustomAndExpression(children[0]);
+				enablementTypeOnly = isTypeOnly(children[0]);
 			} else {
 				throw new WorkbenchException(NLS.bind(
 						CommonNavigatorMessages.Attribute_Missing_Warning,
@@ -277,6 +288,7 @@ public final class NavigatorContentDescriptor implements
 			children = configElement.getChildren(TAG_POSSIBLE_CHILDREN);
 			if (children.length == 1) {
 				possibleChildren = new CustomAndExpression(children[0]);
+				possibleChildrenTypeOnly = isTypeOnly(children[0]);
 			} else if(children.length > 1){
 				throw new WorkbenchException(NLS.bind(
 						CommonNavigatorMessages.Attribute_Missing_Warning,
@@ -290,6 +302,7 @@ public final class NavigatorContentDescriptor implements
 			try {
 				enablement = ElementHandler.getDefault().create(
 						ExpressionConverter.getDefault(), children[0]);
+				enablementTypeOnly = isTypeOnly(children[0]);
 			} catch (CoreException e) {
 				NavigatorPlugin.log(IStatus.ERROR, 0, e.getMessage(), e);
 			}
@@ -458,6 +471,51 @@ public final class NavigatorContentDescriptor implements
 		return false;
 	}
 	
+	/**
+	 * Return whether {@link #isTriggerPoint(Object)} only depends on the class
+	 * of the element, so its result can be shared by all elements of a class.
+	 * 
+	 * @return True if the trigger point expression only tests types.
+	 */
+	public boolean isTriggerPointTypeOnly() {
+		return enablement == null || enablementTypeOnly;
+	}
+
+	/**
+	 * Return whether {@link #isPossibleChild(Object)} only depends on the class
+	 * of the element, so its result can be shared by all elements of a class.
+	 * This is never the case for selections.
+	 * 
+	 * @return True if the possible children expression only tests types.
+	 */
+	public boolean isPossibleChildTypeOnly() {
+		if (possibleChildren != null)
+			return possibleChildrenTypeOnly;
+		return isTriggerPointTypeOnly();
+	}
+
+	/**
+	 * Return whether the expression defined by the children of element is made
+	 * of nothing but <b>instanceof</b> tests combined with <b>and</b>,
+	 * <b>or</b> and <b>not</b>. <b>adapt</b> does not qualify, since adapter
+	 * factories may answer differently for elements of the same class.
+	 */
+	private static boolean isTypeOnly(IConfigurationElement element) {
+		IConfigurationElement[] children = element.getChildren();
+		for (int i = 0; i < children.length; i++) {
+			String name = children[i].getName();
+			if (ExpressionTagNames.INSTANCEOF.equals(name))
+				continue;
+			if (!ExpressionTagNames.AND.equals(name)
+					&& !ExpressionTagNames.OR.equals(name)
+					&& !ExpressionTagNames.NOT.equals(name))
+				return false;
+			if (!isTypeOnly(children[i]))
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * A convenience method to check all elements in a selection.
 	 * 
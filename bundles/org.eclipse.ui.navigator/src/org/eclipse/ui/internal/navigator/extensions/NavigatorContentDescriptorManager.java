@@ -8,6 +8,7 @@
  * Contributors:
  * IBM Corporation - initial API and implementation
  * Bug 349224 Navigator content provider "appearsBefore" creates hard reference to named id - paul.fullbright@oracle.com
+ * IBM Corporation - cache type-only evaluations per class
  *******************************************************************************/
 package org.eclipse.ui.internal.navigator.extensions;
 
@@ -28,6 +29,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.ImageRegistry;
+import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.internal.navigator.NavigatorPlugin;
 import org.eclipse.ui.internal.navigator.NavigatorSafeRunnable;
@@ -54,6 +56,12 @@ public class NavigatorContentDescriptorManager {
 		private final Map evaluations/* <Object, NavigatorContentDescriptor[]> */= new HashMap();
 		private final Map evaluationsWithOverrides/*<Object, NavigatorContentDescriptor[]>*/ = new HashMap();
 
+		/*
+		 * Results of type-only expressions, which are the same for all
+		 * elements of a class.
+		 */
+		private final Map typeEvaluations/* <Class, Map<NavigatorContentDescriptor, Boolean>> */= new WeakHashMap();
+
 		EvaluationCache(VisibilityAssistant anAssistant) {
 			anAssistant.addListener(this);
 		}
@@ -102,6 +110,54 @@ public class NavigatorContentDescriptorManager {
 		public void onVisibilityOrActivationChange() {
 			evaluations.clear();
 			evaluationsWithOverrides.clear();
+			synchronized (typeEvaluations) {
+				typeEvaluations.clear();
+			}
+		}
+
+		/**
+		 * Return whether the descriptor's trigger point or possible children
+		 * expression is enabled for the element, answering from the per-class
+		 * results if the expression only tests types.
+		 * 
+		 * @param aDescriptor
+		 * @param anElement
+		 * @param possibleChild
+		 * @param propertyDependent
+		 *            set to true if the expression had to be evaluated for
+		 *            the element itself
+		 * @return true if enabled
+		 */
+		boolean isEnabled(NavigatorContentDescriptor aDescriptor, Object anElement,
+				boolean possibleChild, boolean[] propertyDependent) {
+			boolean typeOnly = anElement != null
+					&& !(anElement instanceof IStructuredSelection)
+					&& (possibleChild ? aDescriptor.isPossibleChildTypeOnly()
+							: aDescriptor.isTriggerPointTypeOnly());
+			if (!typeOnly) {
+				propertyDependent[0] = true;
+				return possibleChild ? aDescriptor.isPossibleChild(anElement)
+						: aDescriptor.isTriggerPoint(anElement);
+			}
+
+			Class type = anElement.getClass();
+			Map results;
+			synchronized (typeEvaluations) {
+				results = (Map) typeEvaluations.get(type);
+				if (results == null) {
+					typeEvaluations.put(type, results = new HashMap());
+				}
+				Boolean cached = (Boolean) results.get(aDescriptor);
+				if (cached != null) {
+					return cached.booleanValue();
+				}
+			}
+			boolean enabled = possibleChild ? aDescriptor.isPossibleChild(anElement)
+					: aDescriptor.isTriggerPoint(anElement);
+			synchronized (typeEvaluations) {
+				results.put(aDescriptor, enabled ? Boolean.TRUE : Boolean.FALSE);
+			}
+			return enabled;
 		}
 	}
 
@@ -220,8 +276,9 @@ public class NavigatorContentDescriptorManager {
 			descriptors.addAll(Arrays.asList(cachedDescriptors));
 		}
 
+		boolean[] propertyDependent = new boolean[1];
 		if (considerOverrides) {
-			addDescriptorsConsideringOverrides(anElement, firstClassDescriptorsSet, aVisibilityAssistant, descriptors, possibleChild);
+			addDescriptorsConsideringOverrides(anElement, firstClassDescriptorsSet, aVisibilityAssistant, descriptors, possibleChild, cache, propertyDependent);
 			if (Policy.DEBUG_RESOLUTION) {
 				System.out.println("Find descriptors for: " + Policy.getObjectString(anElement) + //$NON-NLS-1$
 						": " + descriptors); //$NON-NLS-1$
@@ -233,12 +290,15 @@ public class NavigatorContentDescriptorManager {
 				NavigatorContentDescriptor descriptor = (NavigatorContentDescriptor) contentDescriptorsItr.next();
 
 				if (aVisibilityAssistant.isActive(descriptor) && aVisibilityAssistant.isVisible(descriptor)
-						&& (possibleChild ? descriptor.isPossibleChild(anElement) : descriptor.isTriggerPoint(anElement))) {
+						&& cache.isEnabled(descriptor, anElement, possibleChild, propertyDependent)) {
 					descriptors.add(descriptor);
 				}
 			}
 		}
-		cache.setDescriptors(anElement, (NavigatorContentDescriptor[]) descriptors.toArray(new NavigatorContentDescriptor[descriptors.size()]));
+		// Results of type-only expressions are already cached per class
+		if (propertyDependent[0]) {
+			cache.setDescriptors(anElement, (NavigatorContentDescriptor[]) descriptors.toArray(new NavigatorContentDescriptor[descriptors.size()]));
+		}
 
 		return descriptors;
 	}
@@ -257,7 +317,8 @@ public class NavigatorContentDescriptorManager {
 
 	private boolean addDescriptorsConsideringOverrides(Object anElement,
 			Set theChildDescriptors, VisibilityAssistant aVisibilityAssistant,
-			Set theFoundDescriptors, boolean possibleChild) {
+			Set theFoundDescriptors, boolean possibleChild, EvaluationCache cache,
+			boolean[] propertyDependent) {
 		int initialSize = theFoundDescriptors.size();
 
 		NavigatorContentDescriptor descriptor;
@@ -269,7 +330,7 @@ public class NavigatorContentDescriptorManager {
 
 			boolean isApplicable = aVisibilityAssistant.isActive(descriptor)
 					&& aVisibilityAssistant.isVisible(descriptor)
-					&& (possibleChild ? descriptor.isPossibleChild(anElement) : descriptor.isTriggerPoint(anElement));
+					&& cache.isEnabled(descriptor, anElement, possibleChild, propertyDependent);
 
 			if (descriptor.hasOverridingExtensions()) {
 
@@ -277,7 +338,7 @@ public class NavigatorContentDescriptorManager {
 
 				Set overridingDescriptors = new TreeSet(ExtensionSequenceNumberComparator.INSTANCE);
 				isOverridden = addDescriptorsConsideringOverrides(anElement, descriptor.getOverriddingExtensions(),
-						aVisibilityAssistant, overridingDescriptors, possibleChild);
+						aVisibilityAssistant, overridingDescriptors, possibleChild, cache, propertyDependent);
 
 				if (!isOverridden && isApplicable) {
 					theFoundDescriptors.add(descriptor);
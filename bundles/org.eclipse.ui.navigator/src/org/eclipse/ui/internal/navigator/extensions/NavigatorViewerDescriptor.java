@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2010 IBM Corporation and others.
+ * Copyright (c) 2003, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,6 +40,22 @@ public final class NavigatorViewerDescriptor implements
 	 */
 	public static final String PROP_ENFORCE_HAS_CHILDREN = "org.eclipse.ui.navigator.enforceHasChildren"; //$NON-NLS-1$
 
+	/**
+	 * {@value} (long): When set to a positive number of milliseconds, the
+	 * content providers of the first class extensions enabled for an element
+	 * are asked for its children in parallel, and the viewer waits at most
+	 * that long for them. Content that arrives later is shown by refreshing
+	 * the element. Only set this for viewers whose content providers may be
+	 * called from any thread. Not set by default.
+	 * <p>
+	 * The viewer asks for children on the UI thread and blocks it while it
+	 * waits. A content provider that calls <code>Display.syncExec()</code> is
+	 * therefore only run once the wait has timed out, so its content always
+	 * arrives late. Such providers should not be used with this property.
+	 * </p>
+	 */
+	public static final String PROP_PARALLEL_FETCH_TIMEOUT = "org.eclipse.ui.navigator.parallelFetchTimeout"; //$NON-NLS-1$
+
 	static final String TAG_INCLUDES = "includes"; //$NON-NLS-1$
 
 	static final String TAG_EXCLUDES = "excludes"; //$NON-NLS-1$
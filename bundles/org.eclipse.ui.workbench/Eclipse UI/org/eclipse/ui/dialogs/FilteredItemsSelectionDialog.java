@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@
  *  Peter Friese <peter.friese@gentleware.com>
  *     - Fix for bug 208602 - [Dialogs] Open Type dialog needs accessible labels
  *  Simon Muschel <smuschel@gmx.de> - bug 258493
+ *  IBM Corporation - parallel refinement and early first page of large results
  *******************************************************************************/
 package org.eclipse.ui.dialogs;
 
@@ -27,6 +28,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
@@ -144,6 +146,23 @@ public abstract class FilteredItemsSelectionDialog extends
 
 	private static final String DIALOG_WIDTH = "DIALOG_WIDTH"; //$NON-NLS-1$
 
+	/**
+	 * Number of items matched as one unit of work when refining the last
+	 * completed result.
+	 */
+	private static final int MATCH_CHUNK_SIZE = 1024;
+
+	/**
+	 * Number of items above which the first page of the result is shown before
+	 * the whole result is sorted.
+	 */
+	private static final int FIRST_PAGE_THRESHOLD = 2000;
+
+	/**
+	 * Number of items in the first page of a large result.
+	 */
+	private static final int FIRST_PAGE_SIZE = 100;
+
 	/**
 	 * Represents an empty selection in the pattern input field (used only for
 	 * initial pattern).
@@ -215,6 +234,10 @@ public abstract class FilteredItemsSelectionDialog extends
 
 	private ItemsFilter lastCompletedFilter;
 
+	private List lastRefinedResult;
+
+	private ItemsFilter lastRefinedFilter;
+
 	private String initialPatternText;
 
 	private int selectionMode;
@@ -1528,6 +1551,10 @@ public abstract class FilteredItemsSelectionDialog extends
 			}
 
 			if (FilteredItemsSelectionDialog.this != null) {
+				// show the top of a large result while the rest is sorted
+				if (contentProvider.publishFirstPage(monitor)) {
+					refreshJob.schedule();
+				}
 				GranualProgressMonitor wrappedMonitor = new GranualProgressMonitor(
 						monitor);
 				FilteredItemsSelectionDialog.this.reloadCache(true,
@@ -2191,31 +2218,38 @@ public abstract class FilteredItemsSelectionDialog extends
 		protected void filterContent(GranualProgressMonitor monitor)
 				throws CoreException {
 
-			if (lastCompletedFilter != null
+			List cachedResult = null;
+			// prefer the narrower result of the last refinement
+			if (lastRefinedFilter != null
+					&& lastRefinedFilter.isSubFilter(this.itemsFilter)) {
+				cachedResult = lastRefinedResult;
+			} else if (lastCompletedFilter != null
 					&& lastCompletedFilter.isSubFilter(this.itemsFilter)) {
+				cachedResult = lastCompletedResult;
+			}
+
+			if (cachedResult != null) {
 
-				int length = lastCompletedResult.size() / 500;
+				Object[] cachedItems = cachedResult.toArray();
+				int chunks = (cachedItems.length + MATCH_CHUNK_SIZE - 1)
+						/ MATCH_CHUNK_SIZE;
 				monitor
 						.beginTask(
 								WorkbenchMessages.FilteredItemsSelectionDialog_cacheSearchJob_taskName,
-								length);
-
-				for (int pos = 0; pos < lastCompletedResult.size(); pos++) {
+								chunks);
 
-					Object item = lastCompletedResult.get(pos);
-					if (monitor.isCanceled())
-						break;
-					contentProvider.add(item, itemsFilter);
-
-					if ((pos % 500) == 0) {
-						monitor.worked(1);
-					}
+				Object[] matchedItems = matchItems(cachedItems, chunks,
+						monitor);
+				if (matchedItems != null) {
+					contentProvider.addAllSorted(matchedItems, itemsFilter);
 				}
 
 			} else {
 
 				lastCompletedFilter = null;
 				lastCompletedResult = null;
+				lastRefinedFilter = null;
+				lastRefinedResult = null;
 
 				SubProgressMonitor subMonitor = null;
 				if (monitor != null) {
@@ -2238,6 +2272,100 @@ public abstract class FilteredItemsSelectionDialog extends
 
 		}
 
+		/**
+		 * Matches the items of a sorted, cached result against the filter in
+		 * chunks. If the filter allows it, the chunks are shared between this
+		 * job and helper jobs, one per additional processor; this job takes
+		 * chunks until none are left, so it never waits for a helper that has
+		 * not started.
+		 * 
+		 * @param cachedItems
+		 *            the sorted items to match
+		 * @param chunks
+		 *            the number of chunks to match
+		 * @param monitor
+		 *            for monitoring progress and cancellation
+		 * @return the matching items in their original order, or
+		 *         <code>null</code> if the monitor was canceled
+		 */
+		private Object[] matchItems(final Object[] cachedItems,
+				final int chunks, final GranualProgressMonitor monitor) {
+			final boolean[] matches = new boolean[cachedItems.length];
+			// next chunk to match and chunks being matched, guarded by matches
+			final int[] nextChunk = new int[1];
+			final int[] pendingChunks = new int[1];
+			final ItemsFilter itemsFilter = this.itemsFilter;
+			class ChunkMatcher implements Runnable {
+				@Override
+				public void run() {
+					while (!monitor.isCanceled()) {
+						int chunk;
+						synchronized (matches) {
+							if (nextChunk[0] == chunks) {
+								return;
+							}
+							chunk = nextChunk[0]++;
+							pendingChunks[0]++;
+						}
+						int end = Math.min(cachedItems.length, (chunk + 1)
+								* MATCH_CHUNK_SIZE);
+						try {
+							for (int i = chunk * MATCH_CHUNK_SIZE; i < end; i++) {
+								matches[i] = itemsFilter.matchItem(cachedItems[i]);
+							}
+						} finally {
+							synchronized (matches) {
+								pendingChunks[0]--;
+								matches.notifyAll();
+							}
+						}
+					}
+				}
+			}
+			final ChunkMatcher matcher = new ChunkMatcher();
+
+			if (itemsFilter.allowsConcurrentMatching()) {
+				int helpers = Math.min(chunks, Runtime.getRuntime()
+						.availableProcessors()) - 1;
+				for (int i = 0; i < helpers; i++) {
+					Job helper = new Job(
+							WorkbenchMessages.FilteredItemsSelectionDialog_jobLabel) {
+						@Override
+						protected IStatus run(IProgressMonitor helperMonitor) {
+							matcher.run();
+							return Status.OK_STATUS;
+						}
+					};
+					helper.setSystem(true);
+					helper.schedule();
+				}
+			}
+			matcher.run();
+
+			synchronized (matches) {
+				while (pendingChunks[0] > 0) {
+					try {
+						matches.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return null;
+					}
+				}
+			}
+			if (monitor.isCanceled()) {
+				return null;
+			}
+			monitor.worked(chunks);
+
+			List matchedItems = new ArrayList();
+			for (int i = 0; i < cachedItems.length; i++) {
+				if (matches[i]) {
+					matchedItems.add(cachedItems[i]);
+				}
+			}
+			return matchedItems.toArray();
+		}
+
 	}
 
 	/**
@@ -2588,6 +2716,21 @@ public abstract class FilteredItemsSelectionDialog extends
 		 */
 		public abstract boolean isConsistentItem(Object item);
 
+		/**
+		 * Returns whether {@link #matchItem(Object)} may be called from
+		 * several threads at the same time. If it may, the dialog matches
+		 * large results in parallel when the pattern is refined. The default
+		 * implementation returns <code>false</code>; subclasses whose
+		 * matching only reads state that does not change after creation may
+		 * override it to return <code>true</code>.
+		 * 
+		 * @return <code>true</code> if items may be matched concurrently
+		 * @since 3.106
+		 */
+		public boolean allowsConcurrentMatching() {
+			return false;
+		}
+
 	}
 
 	/**
@@ -2675,6 +2818,18 @@ public abstract class FilteredItemsSelectionDialog extends
 		 */
 		private boolean reset;
 
+		/**
+		 * Incremented when the history changes, which changes the sort order
+		 * of the items.
+		 */
+		private volatile int historyStamp;
+
+		/**
+		 * The <code>historyStamp</code> at the time of the last completed
+		 * result.
+		 */
+		private int resultHistoryStamp;
+
 		/**
 		 * Creates new instance of <code>ContentProvider</code>.
 		 */
@@ -2739,6 +2894,38 @@ public abstract class FilteredItemsSelectionDialog extends
 			}
 		}
 
+		/**
+		 * Adds items that match the filter and are in the order of the last
+		 * completed result. If the history has not changed since, they become
+		 * the sorted items without being sorted again, and they are remembered
+		 * as the result of refining the last result.
+		 * 
+		 * @param matchedItems
+		 *            the matching items, in sorted order
+		 * @param itemsFilter
+		 *            the filter they match
+		 */
+		public void addAllSorted(Object[] matchedItems, ItemsFilter itemsFilter) {
+			if (itemsFilter != filter) {
+				return;
+			}
+			List matchedList = Arrays.asList(matchedItems);
+			this.items.addAll(matchedList);
+			if (historyStamp != resultHistoryStamp) {
+				return;
+			}
+			synchronized (lastSortedItems) {
+				// the history items added before are among the matches unless
+				// the items count tells otherwise
+				if (this.items.size() == matchedItems.length) {
+					lastSortedItems.clear();
+					lastSortedItems.addAll(matchedList);
+				}
+			}
+			lastRefinedFilter = itemsFilter;
+			lastRefinedResult = Collections.synchronizedList(matchedList);
+		}
+
 		/**
 		 * Add all history items to <code>contentProvider</code>.
 		 * 
@@ -2780,6 +2967,8 @@ public abstract class FilteredItemsSelectionDialog extends
 		 * @return removed item
 		 */
 		public Object removeHistoryElement(Object item) {
+			historyStamp++;
+			lastRefinedFilter = null;
 			if (this.selectionHistory != null)
 				this.selectionHistory.remove(item);
 			if (filter == null || filter.getPattern().length() == 0) {
@@ -2801,6 +2990,8 @@ public abstract class FilteredItemsSelectionDialog extends
 		 *            to add
 		 */
 		public void addHistoryElement(Object item) {
+			historyStamp++;
+			lastRefinedFilter = null;
 			if (this.selectionHistory != null)
 				this.selectionHistory.accessed(item);
 			if (filter == null || !filter.matchItem(item)) {
@@ -2898,16 +3089,72 @@ public abstract class FilteredItemsSelectionDialog extends
 		 * @param itemsFilter
 		 */
 		public void rememberResult(ItemsFilter itemsFilter) {
+			int stamp = historyStamp;
 			List itemsList = Collections.synchronizedList(Arrays
 					.asList(getSortedItems()));
 			// synchronization
 			if (itemsFilter == filter) {
 				lastCompletedFilter = itemsFilter;
 				lastCompletedResult = itemsList;
+				resultHistoryStamp = stamp;
 			}
 
 		}
 
+		/**
+		 * Publishes the first page of a large result that has not been sorted
+		 * yet, so that it can be shown while the whole result is sorted. The
+		 * page is selected with a bounded heap, which is cheaper than sorting
+		 * everything.
+		 * 
+		 * @param monitor
+		 *            for cancellation
+		 * @return <code>true</code> if a page was published
+		 */
+		public boolean publishFirstPage(IProgressMonitor monitor) {
+			Object[] unsortedItems = items.toArray();
+			if (unsortedItems.length <= FIRST_PAGE_THRESHOLD
+					|| lastSortedItems.size() == unsortedItems.length) {
+				return false;
+			}
+			Comparator comparator = getHistoryComparator();
+			// the head of the heap is the last item of the page so far
+			PriorityQueue page = new PriorityQueue(FIRST_PAGE_SIZE + 1,
+					Collections.reverseOrder(comparator));
+			for (int i = 0; i < unsortedItems.length; i++) {
+				if ((i & 0xff) == 0 && monitor.isCanceled()) {
+					return false;
+				}
+				page.add(unsortedItems[i]);
+				if (page.size() > FIRST_PAGE_SIZE) {
+					page.poll();
+				}
+			}
+			Object[] pageItems = page.toArray();
+			Arrays.sort(pageItems, comparator);
+			if (filters != null) {
+				for (Iterator iter = filters.iterator(); iter.hasNext();) {
+					ViewerFilter f = (ViewerFilter) iter.next();
+					pageItems = f.filter(list, list.getInput(), pageItems);
+				}
+			}
+			// an empty page would only flash the empty list
+			if (monitor.isCanceled() || pageItems.length == 0) {
+				return false;
+			}
+			ArrayList preparedItems = new ArrayList(pageItems.length + 1);
+			boolean hasHistory = isHistoryElement(pageItems[0]);
+			for (int i = 0; i < pageItems.length; i++) {
+				if (hasHistory && !isHistoryElement(pageItems[i])) {
+					preparedItems.add(itemsListSeparator);
+					hasHistory = false;
+				}
+				preparedItems.add(pageItems[i]);
+			}
+			lastFilteredItems = preparedItems;
+			return true;
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * 
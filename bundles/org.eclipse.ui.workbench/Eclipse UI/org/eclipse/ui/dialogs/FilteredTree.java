@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2013 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *     Jacek Pospychala - bug 187762
  *     Mohamed Tarief - tarief@eg.ibm.com - IBM - Bug 174481
  *     Lars Vogel <Lars.Vogel@gmail.com> - Bug 422040
+ *     IBM Corporation - filter the tree in a background thread
  *******************************************************************************/
 package org.eclipse.ui.dialogs;
 
@@ -172,6 +173,21 @@ public class FilteredTree extends Composite {
 	 */
 	private boolean quickSelectionMode = false;
 
+	/**
+	 * Tells whether the tree is filtered in a background thread.
+	 */
+	private boolean filterInBackground = false;
+
+	/**
+	 * The job filtering the tree in a background thread, if any.
+	 */
+	private Job filterJob;
+
+	/**
+	 * The last pass completed by the filter job, not yet installed.
+	 */
+	private volatile PatternFilter.FilterPass completedPass;
+
 	/**
 	 * Image descriptor for enabled clear button.
 	 */
@@ -424,6 +440,9 @@ public class FilteredTree extends Composite {
 			@Override
 			public void widgetDisposed(DisposeEvent e) {
 				refreshJob.cancel();
+				if (filterJob != null) {
+					filterJob.cancel();
+				}
 			}
 		});
 		if (treeViewer instanceof NotifyingTreeViewer) {
@@ -502,6 +521,14 @@ public class FilteredTree extends Composite {
 						&& initialText.equals(text);
 				if (initial) {
 					patternFilter.setPattern(null);
+				} else if (filterInBackground && text.length() > 0) {
+					if (!installFilterPass(text)) {
+						if (startFilterPass(text)) {
+							// the tree is refreshed once the pass completes
+							return Status.OK_STATUS;
+						}
+						patternFilter.setPattern(text);
+					}
 				} else if (text != null) {
 					patternFilter.setPattern(text);
 				}
@@ -616,6 +643,54 @@ public class FilteredTree extends Composite {
 		};
 	}
 
+	/**
+	 * Installs the completed filter pass for the given text, if there is one.
+	 * 
+	 * @param text
+	 *            the filter text
+	 * @return <code>true</code> if the pass was installed
+	 */
+	private boolean installFilterPass(String text) {
+		PatternFilter.FilterPass pass = completedPass;
+		completedPass = null;
+		return pass != null && pass.pattern.equals(text)
+				&& patternFilter.installPass(pass);
+	}
+
+	/**
+	 * Starts filtering the tree for the given text in a background thread.
+	 * The refresh job is scheduled again once the pass completes.
+	 * 
+	 * @param text
+	 *            the filter text
+	 * @return <code>true</code> if a pass was started, <code>false</code>
+	 *         if the tree has to be filtered in the UI thread
+	 */
+	private boolean startFilterPass(String text) {
+		final PatternFilter.FilterPass pass = patternFilter.createPass(text);
+		if (pass == null) {
+			return false;
+		}
+		final Object input = treeViewer.getInput();
+		if (filterJob != null) {
+			filterJob.cancel();
+		}
+		filterJob = new Job(WorkbenchMessages.FilteredTree_FilteringJob) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				if (!patternFilter.runPass(pass, treeViewer, input, monitor)) {
+					return Status.CANCEL_STATUS;
+				}
+				completedPass = pass;
+				refreshJob.schedule();
+				return Status.OK_STATUS;
+			}
+		};
+		filterJob.setSystem(true);
+		filterJob.schedule();
+		return true;
+	}
+
 	protected void updateToolbar(boolean visible) {
 		if (clearButtonControl != null) {
 			clearButtonControl.setVisible(visible);
@@ -890,6 +965,9 @@ public class FilteredTree extends Composite {
 		previousFilterText = getFilterString();
 		// cancel currently running job first, to prevent unnecessary redraw
 		refreshJob.cancel();
+		if (filterJob != null) {
+			filterJob.cancel();
+		}
 		refreshJob.schedule(getRefreshJobDelay());
 	}
 	
@@ -1164,6 +1242,28 @@ public class FilteredTree extends Composite {
 		this.quickSelectionMode = enabled;
 	}
 
+	/**
+	 * Sets whether this filtered tree computes which elements match the
+	 * filter text in a background thread. The tree keeps showing the previous
+	 * matches until the computation is complete, and is then refreshed in one
+	 * step. When the filter text is extended, only the elements that matched
+	 * before are looked at again.
+	 * <p>
+	 * This requires the content provider, the label provider and the pattern
+	 * filter to be usable from a background thread, and the pattern filter
+	 * to keep no state for the pattern besides what {@link PatternFilter}
+	 * keeps. By default, this is set to <code>false</code>.
+	 * </p>
+	 * 
+	 * @param enabled
+	 *            <code>true</code> if the tree should be filtered in a
+	 *            background thread, <code>false</code> otherwise
+	 * @since 3.106
+	 */
+	public void setFilterInBackground(boolean enabled) {
+		this.filterInBackground = enabled;
+	}
+
 	/**
 	 * Select all text in the filter text field.
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2012 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,14 +8,17 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Sascha Becher - Bug 186404 - Update PatternFilter API to allow extensions
+ *     IBM Corporation - filter passes in a background thread
  *******************************************************************************/
 package org.eclipse.ui.dialogs;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.viewers.AbstractTreeViewer;
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
@@ -59,11 +62,48 @@ public class PatternFilter extends ViewerFilter {
 	 * The string pattern matcher used for this pattern filter.  
 	 */
     private StringMatcher matcher;
+
+    /*
+     * The pattern string the matcher was created for
+     */
+    private String currentPattern;
     
     private boolean useEarlyReturnIfMatcherIsNull = true;
     
     private static Object[] EMPTY = new Object[0];
 
+    /*
+     * Incremented whenever the caches are cleared, so that a filter pass
+     * started before can tell that its results are stale
+     */
+    private int cacheGeneration;
+
+    /*
+     * The pass running in the current thread, whose matcher and caches take
+     * the place of the ones above
+     */
+    private final ThreadLocal currentPass = new ThreadLocal();
+
+    /**
+     * The pattern and caches of a filter pass that is computed in a
+     * background thread, to be installed in the UI thread once complete.
+     */
+    static final class FilterPass {
+    	final String pattern;
+    	final StringMatcher matcher;
+    	final int generation;
+    	final Map cache = new HashMap();
+    	final Map foundAnyCache = new HashMap();
+    	// the visible children of the previous pattern, if this one refines it
+    	Map previousCache;
+
+    	FilterPass(String pattern, StringMatcher matcher, int generation) {
+    		this.pattern = pattern;
+    		this.matcher = matcher;
+    		this.generation = generation;
+    	}
+    }
+
     /* (non-Javadoc)
      * @see org.eclipse.jface.viewers.ViewerFilter#filter(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object[])
      */
@@ -72,7 +112,7 @@ public class PatternFilter extends ViewerFilter {
     	// we don't want to optimize if we've extended the filter ... this
     	// needs to be addressed in 3.4
     	// https://bugs.eclipse.org/bugs/show_bug.cgi?id=186404
-        if (matcher == null && useEarlyReturnIfMatcherIsNull) {
+        if (getMatcher() == null && useEarlyReturnIfMatcherIsNull) {
 			return elements;
 		}
 
@@ -80,9 +120,10 @@ public class PatternFilter extends ViewerFilter {
         	return super.filter(viewer, parent, elements);
         }
         
+        Map cache = getCache();
         Object[] filtered = (Object[]) cache.get(parent);
         if (filtered == null) {
-        	Boolean foundAny = (Boolean) foundAnyCache.get(parent);
+        	Boolean foundAny = (Boolean) getFoundAnyCache().get(parent);
         	if (foundAny != null && !foundAny.booleanValue()) {
         		filtered = EMPTY;
         	} else {
@@ -104,7 +145,7 @@ public class PatternFilter extends ViewerFilter {
      * @return true if any of the elements makes it through the filter.
      */
     private boolean isAnyVisible(Viewer viewer, Object parent, Object[] elements) {
-    	if (matcher == null) {
+    	if (getMatcher() == null) {
     		return true;
     	}
     	
@@ -112,7 +153,8 @@ public class PatternFilter extends ViewerFilter {
     		return computeAnyVisible(viewer, elements);
     	}
     	
-    	Object[] filtered = (Object[]) cache.get(parent);
+    	Map foundAnyCache = getFoundAnyCache();
+    	Object[] filtered = (Object[]) getCache().get(parent);
     	if (filtered != null) {
     		return filtered.length > 0;
     	}
@@ -178,15 +220,19 @@ public class PatternFilter extends ViewerFilter {
     		return;
     	}
         clearCaches();
+        matcher = createMatcher(patternString);
+        currentPattern = patternString;
+    }
+
+    private StringMatcher createMatcher(String patternString) {
         if (patternString == null || patternString.equals("")) { //$NON-NLS-1$
-			matcher = null;
-		} else {
-			String pattern = patternString + "*"; //$NON-NLS-1$
-			if (includeLeadingWildcard) {
-				pattern = "*" + pattern; //$NON-NLS-1$
-			}
-			matcher = new StringMatcher(pattern, true, false);
+			return null;
+		}
+		String pattern = patternString + "*"; //$NON-NLS-1$
+		if (includeLeadingWildcard) {
+			pattern = "*" + pattern; //$NON-NLS-1$
 		}
+		return new StringMatcher(pattern, true, false);
     }
 
 	/**
@@ -194,10 +240,130 @@ public class PatternFilter extends ViewerFilter {
 	 * the tree content changes.
 	 */
 	/* package */ void clearCaches() {
+		cacheGeneration++;
 		cache.clear();
         foundAnyCache.clear();
 	}
 
+	/**
+	 * Creates a pass that filters the tree for the given pattern, or returns
+	 * <code>null</code> if this filter does not cache its results. Must be
+	 * called in the UI thread.
+	 * 
+	 * @param patternString
+	 *            the pattern, not empty
+	 * @return the pass, or <code>null</code>
+	 */
+	/* package */ FilterPass createPass(String patternString) {
+		if (!useCache) {
+			return null;
+		}
+		FilterPass pass = new FilterPass(patternString,
+				createMatcher(patternString), cacheGeneration);
+		// A pattern that extends the current one only shows elements that the
+		// current one shows, unless a backslash escapes the trailing wildcard
+		if (matcher != null && patternString.startsWith(currentPattern)
+				&& patternString.indexOf('\\') == -1) {
+			pass.previousCache = new HashMap(cache);
+			for (Iterator i = foundAnyCache.entrySet().iterator(); i.hasNext();) {
+				Map.Entry entry = (Map.Entry) i.next();
+				if (Boolean.FALSE.equals(entry.getValue())) {
+					pass.foundAnyCache.put(entry.getKey(), Boolean.FALSE);
+				}
+			}
+		}
+		return pass;
+	}
+
+	/**
+	 * Computes the visible elements of the whole tree for the pattern of the
+	 * pass, without touching the pattern and caches used by the viewer. May
+	 * be called in any thread, provided that the content provider, the label
+	 * provider and the methods of this filter may be.
+	 * 
+	 * @param pass
+	 *            the pass to compute
+	 * @param viewer
+	 *            the viewer whose content provider gives the tree
+	 * @param input
+	 *            the input of the viewer
+	 * @param monitor
+	 *            the monitor to check for cancellation
+	 * @return <code>true</code> if the pass completed, <code>false</code>
+	 *         if it was canceled
+	 */
+	/* package */ boolean runPass(FilterPass pass, Viewer viewer, Object input,
+			IProgressMonitor monitor) {
+		ITreeContentProvider contentProvider = (ITreeContentProvider) ((AbstractTreeViewer) viewer)
+				.getContentProvider();
+		currentPass.set(pass);
+		try {
+			return filterTree(pass, viewer, contentProvider, input,
+					contentProvider.getElements(input), monitor);
+		} finally {
+			currentPass.set(null);
+		}
+	}
+
+	private boolean filterTree(FilterPass pass, Viewer viewer,
+			ITreeContentProvider contentProvider, Object parent,
+			Object[] children, IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			return false;
+		}
+		if (pass.previousCache != null) {
+			Object[] previous = (Object[]) pass.previousCache.get(parent);
+			if (previous != null) {
+				children = previous;
+			}
+		}
+		Object[] visible = filter(viewer, parent, children);
+		for (int i = 0; i < visible.length; i++) {
+			if (contentProvider.hasChildren(visible[i])
+					&& !filterTree(pass, viewer, contentProvider, visible[i],
+							contentProvider.getChildren(visible[i]), monitor)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the pattern of a completed pass, and uses its results as the
+	 * caches. Must be called in the UI thread.
+	 * 
+	 * @param pass
+	 *            the completed pass
+	 * @return <code>true</code> if the pass was installed,
+	 *         <code>false</code> if the tree has changed since the pass was
+	 *         created
+	 */
+	/* package */ boolean installPass(FilterPass pass) {
+		if (pass.generation != cacheGeneration) {
+			return false;
+		}
+		setPattern(pass.pattern);
+		matcher = pass.matcher;
+		cache = pass.cache;
+		foundAnyCache = pass.foundAnyCache;
+		return true;
+	}
+
+	private StringMatcher getMatcher() {
+		FilterPass pass = (FilterPass) currentPass.get();
+		return pass != null ? pass.matcher : matcher;
+	}
+
+	private Map getCache() {
+		FilterPass pass = (FilterPass) currentPass.get();
+		return pass != null ? pass.cache : cache;
+	}
+
+	private Map getFoundAnyCache() {
+		FilterPass pass = (FilterPass) currentPass.get();
+		return pass != null ? pass.foundAnyCache : foundAnyCache;
+	}
+
     /**
      * Answers whether the given String matches the pattern.
      * 
@@ -206,6 +372,7 @@ public class PatternFilter extends ViewerFilter {
      * @return whether the string matches the pattern
      */
     private boolean match(String string) {
+    	StringMatcher matcher = getMatcher();
     	if (matcher == null) {
 			return true;
 		}
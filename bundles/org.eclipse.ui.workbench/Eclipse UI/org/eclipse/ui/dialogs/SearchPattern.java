@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - compile the pattern once for matching
  *******************************************************************************/
 package org.eclipse.ui.dialogs;
 
@@ -95,6 +96,20 @@ public class SearchPattern {
 
 	private StringMatcher stringMatcher;
 
+	/**
+	 * The characters of the string pattern and their lower case forms,
+	 * computed once per pattern so that matching does not convert them again.
+	 */
+	private char[] patternChars;
+
+	private char[] lowerCasePatternChars;
+
+	/**
+	 * For each character of a camel case pattern, whether it is allowed to
+	 * start a new camel case segment.
+	 */
+	private boolean[] camelCasePatternChars;
+
 	private static final char END_SYMBOL = '<';
 
 	private static final char ANY_STRING = '*';
@@ -158,6 +173,28 @@ public class SearchPattern {
 		if (matchRule == RULE_PATTERN_MATCH) {
 			stringMatcher = new StringMatcher(this.stringPattern, true, false);
 		}
+		compilePattern();
+	}
+
+	/**
+	 * Computes what matching needs to know about the string pattern, so that
+	 * {@link #matches(String)} does not have to work it out again for every
+	 * text.
+	 */
+	private void compilePattern() {
+		int length = stringPattern.length();
+		patternChars = stringPattern.toCharArray();
+		lowerCasePatternChars = new char[length];
+		for (int i = 0; i < length; i++) {
+			lowerCasePatternChars[i] = Character.toLowerCase(patternChars[i]);
+		}
+		camelCasePatternChars = null;
+		if (matchRule == RULE_CAMELCASE_MATCH) {
+			camelCasePatternChars = new boolean[length];
+			for (int i = 0; i < length; i++) {
+				camelCasePatternChars[i] = isPatternCharAllowed(patternChars[i]);
+			}
+		}
 	}
 
 	/**
@@ -180,7 +217,7 @@ public class SearchPattern {
 			}
 			//$FALL-THROUGH$
 			default:
-			return startsWithIgnoreCase(text, stringPattern);
+			return startsWithIgnoreCase(text);
 		}
 	}
 
@@ -228,18 +265,19 @@ public class SearchPattern {
 
 	/**
 	 * @param text
-	 * @param prefix
-	 * @return true if text starts with given prefix, ignoring case false in
-	 *         other way
+	 * @return true if text starts with the string pattern, ignoring case false
+	 *         in other way
 	 */
-	private boolean startsWithIgnoreCase(String text, String prefix) {
+	private boolean startsWithIgnoreCase(String text) {
 		int textLength = text.length();
-		int prefixLength = prefix.length();
+		int prefixLength = patternChars.length;
 		if (textLength < prefixLength)
 			return false;
 		for (int i = prefixLength - 1; i >= 0; i--) {
-			if (Character.toLowerCase(prefix.charAt(i)) != Character
-					.toLowerCase(text.charAt(i)))
+			char textChar = text.charAt(i);
+			// only convert the text when it differs from the pattern
+			if (textChar != patternChars[i]
+					&& Character.toLowerCase(textChar) != lowerCasePatternChars[i])
 				return false;
 		}
 		return true;
@@ -475,7 +513,7 @@ public class SearchPattern {
 
 			// If characters are not equals, then it's not a match if
 			// patternChar is lowercase
-			if (!isPatternCharAllowed(patternChar))
+			if (!isPatternCharAllowed(pattern, iPattern, patternChar))
 				return false;
 
 			// patternChar is uppercase, so let's find the next uppercase in
@@ -519,6 +557,18 @@ public class SearchPattern {
 		}
 	}
 
+	/**
+	 * Answers {@link #isPatternCharAllowed(char)} for a character of the given
+	 * pattern, from the compiled answers when it is the string pattern.
+	 */
+	private boolean isPatternCharAllowed(String pattern, int index,
+			char patternChar) {
+		if (pattern == stringPattern && camelCasePatternChars != null) {
+			return camelCasePatternChars[index];
+		}
+		return isPatternCharAllowed(patternChar);
+	}
+
 	/**
 	 * Checks pattern's character is allowed for specified set. It could be
 	 * override if you want change logic of camelCaseMatch methods.
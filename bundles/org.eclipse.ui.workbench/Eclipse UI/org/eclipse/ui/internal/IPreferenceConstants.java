@@ -260,4 +260,13 @@ public interface IPreferenceConstants {
 	 */
 	public static final String WORKBENCH_SAVE_INTERVAL = "WORKBENCH_SAVE_INTERVAL"; //$NON-NLS-1$
 
+	/**
+	 * Preference value that specifies the interval in milliseconds at which
+	 * the progress reported by running jobs through <code>worked()</code> and
+	 * <code>subTask()</code> is passed on to the progress views.
+	 * 
+	 * @since 3.106
+	 */
+	public static final String PROGRESS_SAMPLE_INTERVAL = "PROGRESS_SAMPLE_INTERVAL"; //$NON-NLS-1$
+
 }
@@ -962,6 +962,7 @@ public class WorkbenchMessages extends NLS {
 	public static String FilteredTree_FilteredDialogTitle;
 	public static String FilteredTree_AccessibleListenerClearButton;
 	public static String FilteredTree_AccessibleListenerFiltered;
+	public static String FilteredTree_FilteringJob;
 	public static String Workbench_restoreDisabled;
 	public static String Workbench_noStateToRestore;
 	public static String Workbench_noWindowsRestored;
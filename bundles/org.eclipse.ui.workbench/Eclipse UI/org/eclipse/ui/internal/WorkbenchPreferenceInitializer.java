@@ -70,6 +70,9 @@ public class WorkbenchPreferenceInitializer extends
 		// 5 minute workbench save interval
 		node.putInt(IPreferenceConstants.WORKBENCH_SAVE_INTERVAL, 5);
 
+		// pass job progress on to the progress views 10 times a second
+		node.putInt(IPreferenceConstants.PROGRESS_SAMPLE_INTERVAL, 100);
+
 		node.putBoolean(IPreferenceConstants.USE_IPERSISTABLE_EDITORS, true);
 		
 		node.putBoolean(IPreferenceConstants.COOLBAR_VISIBLE, true);
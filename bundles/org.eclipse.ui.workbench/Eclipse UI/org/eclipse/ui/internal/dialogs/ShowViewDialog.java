@@ -216,6 +216,9 @@ public class ShowViewDialog extends Dialog implements
 		int styleBits = SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL | SWT.BORDER;
 		filteredTree = new FilteredTree(parent, styleBits, filter, true);
 		filteredTree.setQuickSelectionMode(true);
+		// the view registry, the view labels and the filter may be read in any
+		// thread, so typing does not wait for the whole tree to be matched
+		filteredTree.setFilterInBackground(true);
 		filteredTree.setBackground(parent.getDisplay().getSystemColor(
 				SWT.COLOR_WIDGET_BACKGROUND));
 		
@@ -29,7 +29,9 @@ public class ViewContentProvider implements ITreeContentProvider {
 
     /**
 	 * Child cache. Map from Object->Object[]. Our hasChildren() method is
-	 * expensive so it's better to cache the results of getChildren().
+	 * expensive so it's better to cache the results of getChildren(). Guarded
+	 * by this, since the Show View dialog filters its tree in a background
+	 * thread.
 	 */
     private Map<Object, Object[]> childMap = new HashMap<Object, Object[]>();
 
@@ -41,12 +43,12 @@ public class ViewContentProvider implements ITreeContentProvider {
     }
 
     @Override
-	public void dispose() {
+	public synchronized void dispose() {
         childMap.clear();
     }
 
     @Override
-	public Object[] getChildren(Object element) {
+	public synchronized Object[] getChildren(Object element) {
         Object[] children = childMap.get(element);
         if (children == null) {
             children = createChildren(element);
@@ -139,7 +141,7 @@ public class ViewContentProvider implements ITreeContentProvider {
     }
 
     @Override
-	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+	public synchronized void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
         childMap.clear();
     }
 }
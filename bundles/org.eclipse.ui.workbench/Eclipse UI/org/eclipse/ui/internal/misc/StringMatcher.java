@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - precompute case conversions of the segments
  *******************************************************************************/
 package org.eclipse.ui.internal.misc;
 
@@ -35,6 +36,16 @@ public class StringMatcher {
 
     protected static final char fSingleWildCard = '\u0000';
 
+    /* the segments converted to lower case, to upper case and to upper then lower case, when ignoring case */
+    private char[][] fLowerSegments;
+
+    private char[][] fUpperSegments;
+
+    private char[][] fFoldedSegments;
+
+    /* index of the first character of each segment that is not a single wild card, or -1 */
+    private int[] fAnchors;
+
     public static class Position {
         int start; //inclusive
 
@@ -89,6 +100,7 @@ public class StringMatcher {
         } else {
             parseWildCards();
         }
+        compileSegments();
     }
 
     /**
@@ -140,7 +152,7 @@ public class StringMatcher {
         int i;
         for (i = 0; i < segCount && curPos < end; ++i) {
             String current = fSegments[i];
-            int nextMatch = regExpPosIn(text, curPos, end, current);
+            int nextMatch = segmentPosIn(text, curPos, end, i);
             if (nextMatch < 0) {
 				return null;
 			}
@@ -219,7 +231,7 @@ public class StringMatcher {
 
         /* process first segment */
         if (!fHasLeadingStar) {
-            if (!regExpRegionMatches(text, start, current, 0, segLength)) {
+            if (!segmentRegionMatches(text, start, i)) {
                 return false;
             } else {
                 ++i;
@@ -234,19 +246,10 @@ public class StringMatcher {
         /* process middle segments */
         while (i < segCount) {
             current = fSegments[i];
-            int currentMatch;
-            int k = current.indexOf(fSingleWildCard);
-            if (k < 0) {
-                currentMatch = textPosIn(text, tCurPos, end, current);
-                if (currentMatch < 0) {
-					return false;
-				}
-            } else {
-                currentMatch = regExpPosIn(text, tCurPos, end, current);
-                if (currentMatch < 0) {
-					return false;
-				}
-            }
+            int currentMatch = segmentPosIn(text, tCurPos, end, i);
+            if (currentMatch < 0) {
+				return false;
+			}
             tCurPos = currentMatch + current.length();
             i++;
         }
@@ -254,7 +257,7 @@ public class StringMatcher {
         /* process final segment */
         if (!fHasTrailingStar && tCurPos != end) {
             int clen = current.length();
-            return regExpRegionMatches(text, end - clen, current, 0, clen);
+            return segmentRegionMatches(text, end - clen, segCount - 1);
         }
         return i == segCount;
     }
@@ -333,6 +336,120 @@ public class StringMatcher {
         temp.copyInto(fSegments);
     }
 
+    /**
+     * Computes the case conversions and the first fixed character of each
+     * segment once, so that matching does not convert the pattern again for
+     * every text.
+     */
+    private void compileSegments() {
+        int segCount = fSegments.length;
+        fAnchors = new int[segCount];
+        if (fIgnoreCase) {
+            fLowerSegments = new char[segCount][];
+            fUpperSegments = new char[segCount][];
+            fFoldedSegments = new char[segCount][];
+        }
+        for (int i = 0; i < segCount; i++) {
+            char[] segment = fSegments[i].toCharArray();
+            fAnchors[i] = -1;
+            for (int j = 0; j < segment.length; j++) {
+                if (fIgnoreWildCards || segment[j] != fSingleWildCard) {
+                    fAnchors[i] = j;
+                    break;
+                }
+            }
+            if (fIgnoreCase) {
+                fLowerSegments[i] = new char[segment.length];
+                fUpperSegments[i] = new char[segment.length];
+                fFoldedSegments[i] = new char[segment.length];
+                for (int j = 0; j < segment.length; j++) {
+                    fLowerSegments[i][j] = Character.toLowerCase(segment[j]);
+                    fUpperSegments[i][j] = Character.toUpperCase(segment[j]);
+                    fFoldedSegments[i][j] = Character
+                            .toLowerCase(fUpperSegments[i][j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the first occurrence of a segment, only comparing the rest of the
+     * segment at positions where its first fixed character matches.
+     * @param text the string to search in
+     * @param start the starting index in the text for search, inclusive
+     * @param end the stopping point of search, exclusive
+     * @param segment the index of the segment in <code>fSegments</code>
+     * @return the starting index in the text of the segment, or -1 if not found
+     */
+    private int segmentPosIn(String text, int start, int end, int segment) {
+        String p = fSegments[segment];
+        int max = end - p.length();
+        int anchor = fAnchors[segment];
+        if (anchor < 0) {
+            // only single wild cards
+            return start <= max ? start : -1;
+        }
+        if (!fIgnoreCase && anchor == 0 && (fIgnoreWildCards || p.indexOf(fSingleWildCard) < 0)) {
+            int i = text.indexOf(p, start);
+            if (i == -1 || i > max) {
+				return -1;
+			}
+            return i;
+        }
+        char first = p.charAt(anchor);
+        for (int i = start; i <= max; ++i) {
+            char tchar = text.charAt(i + anchor);
+            if (tchar != first
+                    && !(fIgnoreCase && charMatchesIgnoreCase(tchar, segment, anchor))) {
+				continue;
+			}
+            if (segmentRegionMatches(text, i, segment)) {
+				return i;
+			}
+        }
+        return -1;
+    }
+
+    /**
+     * @param text the string to match
+     * @param tStart the index in the text to match the segment at
+     * @param segment the index of the segment in <code>fSegments</code>
+     * @return whether the segment matches the text at the given index
+     */
+    private boolean segmentRegionMatches(String text, int tStart, int segment) {
+        String p = fSegments[segment];
+        int plen = p.length();
+        for (int i = 0; i < plen; i++) {
+            char tchar = text.charAt(tStart + i);
+            char pchar = p.charAt(i);
+            if (pchar == tchar || (!fIgnoreWildCards && pchar == fSingleWildCard)) {
+				continue;
+			}
+            if (fIgnoreCase && charMatchesIgnoreCase(tchar, segment, i)) {
+				continue;
+			}
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compares a text character to a character of a segment ignoring case,
+     * the way {@link String#regionMatches(boolean, int, String, int, int)}
+     * does. Only the text character is converted, and not at all when both
+     * are ASCII.
+     */
+    private boolean charMatchesIgnoreCase(char tchar, int segment, int index) {
+        char lower = fLowerSegments[segment][index];
+        char upper = fUpperSegments[segment][index];
+        if (tchar < 128 && lower < 128 && upper < 128) {
+            return tchar == lower || tchar == upper;
+        }
+        char upperText = Character.toUpperCase(tchar);
+        return upperText == upper || Character.toLowerCase(tchar) == lower
+                || Character.toLowerCase(upperText) == fFoldedSegments[segment][index];
+    }
+
     /** 
      * @param text a string which contains no wildcard
      * @param start the starting index in the text for search, inclusive
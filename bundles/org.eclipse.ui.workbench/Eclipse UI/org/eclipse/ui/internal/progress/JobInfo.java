@@ -9,12 +9,11 @@
  *     IBM Corporation - initial API and implementation
  *     Brock Janiczak <brockj@tpg.com.au> - Fix for Bug 123169 [Progress] NPE from JobInfo
  *     Martin W. Kirst <martin.kirst@s1998.tu-chemnitz.de> - jUnit test for Bug 361121 [Progress] DetailedProgressViewer's comparator violates its general contract
+ *     IBM Corporation - sampled progress reporting
  *******************************************************************************/
 package org.eclipse.ui.internal.progress;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.jobs.Job;
@@ -31,13 +30,23 @@ public class JobInfo extends JobTreeElement {
     private IStatus blockedStatus;
 
     private volatile boolean canceled = false;
-    private List children = Collections.synchronizedList(new ArrayList());
+
+    /*
+     * The name of the current subtask as reported by the job, and the child
+     * element last built for it. The job only writes the name; the element is
+     * built when the progress views ask for the children.
+     */
+    private volatile String subTaskName;
+    private SubTaskInfo subTask;
+
+    // Set while a sampled refresh of the receiver is pending
+    private final AtomicBoolean progressChanged = new AtomicBoolean();
 
     private Job job;
 
     private GroupInfo parent;
 
-    private TaskInfo taskInfo;
+    private volatile TaskInfo taskInfo;
 
     //Default to no progress
     private int ticks = -1;
@@ -52,12 +61,45 @@ public class JobInfo extends JobTreeElement {
     }
 
     /**
-     * Add the subtask to the receiver.
+     * Set the subtask of the receiver, replacing any previous one.
      * 
      * @param subTaskName
      */
     void addSubTask(String subTaskName) {
-        children.add(new SubTaskInfo(this, subTaskName));
+        this.subTaskName = subTaskName;
+    }
+
+    /**
+     * Return the child for the current subtask, creating a new one if the
+     * subtask changed since the last call.
+     * 
+     * @return SubTaskInfo or <code>null</code>
+     */
+    private synchronized SubTaskInfo getSubTask() {
+        String name = subTaskName;
+        if (name == null) {
+            subTask = null;
+        } else if (subTask == null || !name.equals(subTask.getTaskName())) {
+            subTask = new SubTaskInfo(this, name);
+        }
+        return subTask;
+    }
+
+    /**
+     * Mark the receiver as having progress that has not been passed on to
+     * the listeners yet.
+     * 
+     * @return boolean <code>true</code> if it was not marked before
+     */
+    boolean markProgressChanged() {
+        return !progressChanged.get() && progressChanged.compareAndSet(false, true);
+    }
+
+    /**
+     * Clear the mark set by {@link #markProgressChanged()}.
+     */
+    void clearProgressChanged() {
+        progressChanged.set(false);
     }
 
     /**
@@ -103,7 +145,7 @@ public class JobInfo extends JobTreeElement {
      * Clear the collection of subtasks an the task info.
      */
     void clearChildren() {
-        children.clear();
+        subTaskName = null;
     }
 
     /*
@@ -222,7 +264,11 @@ public class JobInfo extends JobTreeElement {
      */
     @Override
 	Object[] getChildren() {
-        return children.toArray();
+        SubTaskInfo child = getSubTask();
+        if (child == null) {
+			return ProgressManagerUtil.EMPTY_OBJECT_ARRAY;
+		}
+        return new Object[] { child };
     }
 
     /*
@@ -380,7 +426,7 @@ public class JobInfo extends JobTreeElement {
      */
     @Override
 	boolean hasChildren() {
-        return children.size() > 0;
+        return subTaskName != null;
     }
 
     /**
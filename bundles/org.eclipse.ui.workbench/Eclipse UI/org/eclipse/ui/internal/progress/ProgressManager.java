@@ -10,6 +10,8 @@
  *     Teddy Walker <teddy.walker@googlemail.com>
  *     		- Fix for Bug 151204 [Progress] Blocked status of jobs are not applied/reported
  *     Lars Vogel <Lars.Vogel@gmail.com> - Bug 422040
+ *     IBM Corporation - track jobs without locking in the job listener
+ *     IBM Corporation - sampled progress reporting
  *******************************************************************************/
 package org.eclipse.ui.internal.progress;
 
@@ -28,6 +30,11 @@ import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IProgressMonitorWithBlocking;
 import org.eclipse.core.runtime.IStatus;
@@ -92,10 +99,21 @@ public class ProgressManager extends ProgressProvider implements
 
 	private static ProgressManager singleton;
 
-	final private Map jobs = Collections.synchronizedMap(new HashMap());
+	/*
+	 * Job to JobInfo. Read and written by every job change event, so it is a
+	 * concurrent map rather than a synchronized one.
+	 */
+	final private ConcurrentMap jobs = new ConcurrentHashMap();
+
+	/*
+	 * Family to Collection of IJobBusyListener. The map and its collections are
+	 * never modified once published; changes replace the whole map under
+	 * familyListenersLock, so busyListenersForJob() can read it without
+	 * locking.
+	 */
+	private volatile Map familyListeners = Collections.EMPTY_MAP;
 
-	final private Map familyListeners = Collections
-			.synchronizedMap(new HashMap());
+	private final Object familyListenersLock = new Object();
 
 	//	list of IJobProgressManagerListener
 	private ListenerList listeners = new ListenerList();
@@ -127,7 +145,17 @@ public class ProgressManager extends ProgressProvider implements
 	 */
 	public static final String BLOCKED_JOB_KEY = "LOCKED_JOB"; //$NON-NLS-1$
 
-	final Map runnableMonitors = Collections.synchronizedMap(new HashMap());
+	final ConcurrentMap runnableMonitors = new ConcurrentHashMap();
+
+	/*
+	 * JobInfos whose work or subtask changed since the progress sampler last
+	 * ran. Each info is queued at most once until the sampler refreshes it.
+	 */
+	private final Queue sampledInfos = new ConcurrentLinkedQueue();
+
+	private final AtomicBoolean samplerScheduled = new AtomicBoolean();
+
+	private final Job progressSampler;
 
 	// A table that maps families to keys in the Jface image
 	// table
@@ -243,7 +271,7 @@ public class ProgressManager extends ProgressProvider implements
 			JobInfo info = getJobInfo(job);
 			if (info.hasTaskInfo()) {
 				info.addWork(work);
-				refreshJobInfo(info);
+				progressChanged(info);
 			}
 			if (listener != null) {
 				listener.internalWorked(work);
@@ -316,9 +344,8 @@ public class ProgressManager extends ProgressProvider implements
 				return;
 			}
 			JobInfo info = getJobInfo(job);
-			info.clearChildren();
 			info.addSubTask(name);
-			refreshJobInfo(info);
+			progressChanged(info);
 			if (listener != null) {
 				listener.subTask(name);
 			}
@@ -376,6 +403,8 @@ public class ProgressManager extends ProgressProvider implements
 
 		changeListener = createChangeListener();
 
+		progressSampler = createProgressSampler();
+
 		notificationListener = createNotificationListener();
 
 		Job.getJobManager().setProgressProvider(this);
@@ -383,6 +412,65 @@ public class ProgressManager extends ProgressProvider implements
 		StatusManager.getManager().addListener(notificationListener);
 	}
 
+	/**
+	 * Create the job that passes sampled progress on to the listeners.
+	 * 
+	 * @return Job
+	 */
+	private Job createProgressSampler() {
+		Job sampler = new Job(ProgressMessages.ProgressContentProvider_UpdateProgressJob) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				// progress reported from now on needs another run
+				samplerScheduled.set(false);
+				JobInfo info;
+				while ((info = (JobInfo) sampledInfos.poll()) != null) {
+					info.clearProgressChanged();
+					if (internalGetJobInfo(info.getJob()) == info) {
+						refreshJobInfo(info);
+					}
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		sampler.setSystem(true);
+		sampler.setPriority(Job.DECORATE);
+		sampler.setProperty(ProgressManagerUtil.INFRASTRUCTURE_PROPERTY,
+				new Object());
+		return sampler;
+	}
+
+	/**
+	 * The work or subtask of info changed. Rather than refreshing the listeners
+	 * for every call, which jobs reporting per file would do many thousand
+	 * times a second, the info is queued once and refreshed when the progress
+	 * sampler next runs.
+	 * 
+	 * @param info
+	 */
+	void progressChanged(JobInfo info) {
+		if (!info.markProgressChanged()) {
+			return;
+		}
+		sampledInfos.add(info);
+		if (samplerScheduled.compareAndSet(false, true)) {
+			progressSampler.schedule(getProgressSampleInterval());
+		}
+	}
+
+	/**
+	 * Return the interval at which sampled progress is passed on.
+	 * 
+	 * @return long milliseconds
+	 */
+	private long getProgressSampleInterval() {
+		if (WorkbenchPlugin.getDefault() == null) {
+			return 100;
+		}
+		return Math.max(0, WorkbenchPlugin.getDefault().getPreferenceStore()
+				.getInt(IPreferenceConstants.PROGRESS_SAMPLE_INTERVAL));
+	}
+
 	private void setUpImages() {
 		URL iconsRoot = ProgressManagerUtil.getIconsRoot();
 		try {
@@ -658,16 +746,16 @@ public class ProgressManager extends ProgressProvider implements
 	 */
 	public JobMonitor progressFor(Job job) {
 
-		synchronized (runnableMonitors) {
-			JobMonitor monitor = (JobMonitor) runnableMonitors.get(job);
-			if (monitor == null) {
-				monitor = new JobMonitor(job);
-				runnableMonitors.put(job, monitor);
+		JobMonitor monitor = (JobMonitor) runnableMonitors.get(job);
+		if (monitor == null) {
+			monitor = new JobMonitor(job);
+			JobMonitor existing = (JobMonitor) runnableMonitors.putIfAbsent(
+					job, monitor);
+			if (existing != null) {
+				monitor = existing;
 			}
-			
-			return monitor;
 		}
-
+		return monitor;
 	}
 
 	/**
@@ -699,7 +787,10 @@ public class ProgressManager extends ProgressProvider implements
 		JobInfo info = internalGetJobInfo(job);
 		if (info == null) {
 			info = new JobInfo(job);
-			jobs.put(job, info);
+			JobInfo existing = (JobInfo) jobs.putIfAbsent(job, info);
+			if (existing != null) {
+				info = existing;
+			}
 		}
 		return info;
 	}
@@ -867,19 +958,17 @@ public class ProgressManager extends ProgressProvider implements
 	 * @return JobInfo[]
 	 */
 	public JobInfo[] getJobInfos(boolean debug) {
-		synchronized (jobs) {
-			Iterator iterator = jobs.keySet().iterator();
-			Collection result = new ArrayList();
-			while (iterator.hasNext()) {
-				Job next = (Job) iterator.next();
-				if (!isCurrentDisplaying(next, debug)) {
-					result.add(jobs.get(next));
-				}
+		Iterator iterator = jobs.values().iterator();
+		Collection result = new ArrayList();
+		while (iterator.hasNext()) {
+			JobInfo next = (JobInfo) iterator.next();
+			if (!isCurrentDisplaying(next.getJob(), debug)) {
+				result.add(next);
 			}
-			JobInfo[] infos = new JobInfo[result.size()];
-			result.toArray(infos);
-			return infos;
 		}
+		JobInfo[] infos = new JobInfo[result.size()];
+		result.toArray(infos);
+		return infos;
 	}
 
 	/**
@@ -889,25 +978,22 @@ public class ProgressManager extends ProgressProvider implements
 	 * @return JobTreeElement[]
 	 */
 	public JobTreeElement[] getRootElements(boolean debug) {
-		synchronized (jobs) {
-			Iterator iterator = jobs.keySet().iterator();
-			Collection result = new HashSet();
-			while (iterator.hasNext()) {
-				Job next = (Job) iterator.next();
-				if (!isCurrentDisplaying(next, debug)) {
-					JobInfo jobInfo = (JobInfo) jobs.get(next);
-					GroupInfo group = jobInfo.getGroupInfo();
-					if (group == null) {
-						result.add(jobInfo);
-					} else {
-						result.add(group);
-					}
+		Iterator iterator = jobs.values().iterator();
+		Collection result = new HashSet();
+		while (iterator.hasNext()) {
+			JobInfo jobInfo = (JobInfo) iterator.next();
+			if (!isCurrentDisplaying(jobInfo.getJob(), debug)) {
+				GroupInfo group = jobInfo.getGroupInfo();
+				if (group == null) {
+					result.add(jobInfo);
+				} else {
+					result.add(group);
 				}
 			}
-			JobTreeElement[] infos = new JobTreeElement[result.size()];
-			result.toArray(infos);
-			return infos;
 		}
+		JobTreeElement[] infos = new JobTreeElement[result.size()];
+		result.toArray(infos);
+		return infos;
 	}
 
 	/**
@@ -916,13 +1002,7 @@ public class ProgressManager extends ProgressProvider implements
 	 * @return boolean
 	 */
 	public boolean hasJobInfos() {
-		synchronized (jobs) {
-			Iterator iterator = jobs.keySet().iterator();
-			while (iterator.hasNext()) {
-				return true;
-			}
-			return false;
-		}
+		return !jobs.isEmpty();
 	}
 
 	/**
@@ -1053,6 +1133,8 @@ public class ProgressManager extends ProgressProvider implements
 	 */
 	private void shutdown() {
 		listeners.clear();
+		progressSampler.cancel();
+		sampledInfos.clear();
 		Job.getJobManager().setProgressProvider(null);
 		Job.getJobManager().removeJobChangeListener(this.changeListener);
 	}
@@ -1094,13 +1176,15 @@ public class ProgressManager extends ProgressProvider implements
 	 * @param listener
 	 */
 	void addListenerToFamily(Object family, IJobBusyListener listener) {
-		synchronized (familyListeners) {
-			Collection currentListeners = (Collection) familyListeners.get(family);
-			if (currentListeners == null) {
-				currentListeners = new HashSet();
-				familyListeners.put(family, currentListeners);
-			}
+		synchronized (familyListenersLock) {
+			Map newFamilyListeners = new HashMap(familyListeners);
+			Collection currentListeners = (Collection) newFamilyListeners
+					.get(family);
+			currentListeners = currentListeners == null ? new HashSet()
+					: new HashSet(currentListeners);
 			currentListeners.add(listener);
+			newFamilyListeners.put(family, currentListeners);
+			familyListeners = newFamilyListeners;
 		}
 	}
 
@@ -1110,19 +1194,23 @@ public class ProgressManager extends ProgressProvider implements
 	 * @param listener
 	 */
 	void removeListener(IJobBusyListener listener) {
-		synchronized (familyListeners) {
-			Iterator families = familyListeners.keySet().iterator();
+		synchronized (familyListenersLock) {
+			Map newFamilyListeners = new HashMap();
+			Iterator families = familyListeners.entrySet().iterator();
 			while (families.hasNext()) {
-				Object next = families.next();
-				Collection currentListeners = (Collection) familyListeners
-						.get(next);
-				currentListeners.remove(listener);
+				Map.Entry next = (Map.Entry) families.next();
+				Collection currentListeners = (Collection) next.getValue();
+				if (currentListeners.contains(listener)) {
+					currentListeners = new HashSet(currentListeners);
+					currentListeners.remove(listener);
+				}
 
 				// Remove any empty listeners
-				if (currentListeners.isEmpty()) {
-					families.remove();
+				if (!currentListeners.isEmpty()) {
+					newFamilyListeners.put(next.getKey(), currentListeners);
 				}
 			}
+			familyListeners = newFamilyListeners;
 		}
 	}
 
@@ -1136,24 +1224,20 @@ public class ProgressManager extends ProgressProvider implements
 		if (job.isSystem()) {
 			return Collections.EMPTY_LIST;
 		}
-		synchronized (familyListeners) {
-
-			if (familyListeners.isEmpty()) {
-				return Collections.EMPTY_LIST;
-			}
+		Map currentFamilyListeners = familyListeners;
+		if (currentFamilyListeners.isEmpty()) {
+			return Collections.EMPTY_LIST;
+		}
 
-			Iterator families = familyListeners.keySet().iterator();
-			Collection returnValue = new HashSet();
-			while (families.hasNext()) {
-				Object next = families.next();
-				if (job.belongsTo(next)) {
-					Collection currentListeners = (Collection) familyListeners
-							.get(next);
-					returnValue.addAll(currentListeners);
-				}
+		Iterator families = currentFamilyListeners.entrySet().iterator();
+		Collection returnValue = new HashSet();
+		while (families.hasNext()) {
+			Map.Entry next = (Map.Entry) families.next();
+			if (job.belongsTo(next.getKey())) {
+				returnValue.addAll((Collection) next.getValue());
 			}
-			return returnValue;
 		}
+		return returnValue;
 	}
 
 	/*
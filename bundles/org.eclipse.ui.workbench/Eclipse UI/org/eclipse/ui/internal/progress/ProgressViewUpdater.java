@@ -7,12 +7,18 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - collect updates without locking
  *******************************************************************************/
 package org.eclipse.ui.internal.progress;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -35,17 +41,54 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
 
     UpdatesInfo currentInfo = new UpdatesInfo();
 
-    Object updateLock = new Object();
+	/*
+	 * Updates posted by the job listeners, in the order they were posted. Any
+	 * thread may add; only the update job drains it.
+	 */
+	private final Queue pendingUpdates = new ConcurrentLinkedQueue();
 
-	class MutableBoolean {
-		boolean value;
-	}
+	private volatile boolean updateAll;
 
 	/*
 	 * True when update job is scheduled or running. This is used to limit the
 	 * update job to no more than once every 100 ms. See bug 258352 and 395645.
 	 */
-	MutableBoolean updateScheduled = new MutableBoolean();
+	final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+	private static final int ADD = 0;
+
+	private static final int REMOVE = 1;
+
+	private static final int REFRESH = 2;
+
+	/**
+	 * A single update posted for an element.
+	 */
+	private static class PendingUpdate {
+		final int kind;
+
+		final JobTreeElement element;
+
+		PendingUpdate(int kind, JobTreeElement element) {
+			this.kind = kind;
+			this.element = element;
+		}
+	}
+
+	/**
+	 * The net effect of the updates drained for one element: the first update
+	 * tells whether the viewers may already show the element, the last
+	 * add or remove whether they should show it afterwards.
+	 */
+	private static class ElementUpdates {
+		final int first;
+
+		int lastStructural = REFRESH;
+
+		ElementUpdates(int first) {
+			this.first = first;
+		}
+	}
 
     boolean debug;
     
@@ -62,8 +105,6 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
 
         Collection refreshes = new HashSet();
 
-        boolean updateAll = false;
-
         private UpdatesInfo() {
             //Create a new instance of the info
         }
@@ -95,6 +136,54 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
             refreshes.add(refresh);
         }
 
+        /**
+         * Fold the pending updates into the receiver. An element that was
+         * added and removed again since the last update is dropped, one that
+         * was removed and added again is refreshed, and refreshes of elements
+         * that are added or removed anyway are dropped.
+         * 
+         * @param updates
+         *            the pending updates in the order they were posted
+         */
+        void coalesce(Queue updates) {
+            Map elements = new HashMap();
+            PendingUpdate update;
+            while ((update = (PendingUpdate) updates.poll()) != null) {
+                ElementUpdates state = (ElementUpdates) elements
+                        .get(update.element);
+                if (state == null) {
+                    state = new ElementUpdates(update.kind);
+                    elements.put(update.element, state);
+                }
+                if (update.kind != REFRESH) {
+                    state.lastStructural = update.kind;
+                }
+            }
+
+            Iterator iterator = elements.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry next = (Map.Entry) iterator.next();
+                JobTreeElement element = (JobTreeElement) next.getKey();
+                ElementUpdates state = (ElementUpdates) next.getValue();
+                switch (state.lastStructural) {
+                case ADD:
+                    if (state.first == REMOVE) {
+                        refresh(element);
+                    } else {
+                        add(element);
+                    }
+                    break;
+                case REMOVE:
+                    if (state.first != ADD) {
+                        remove(element);
+                    }
+                    break;
+                default:
+                    refresh(element);
+                }
+            }
+        }
+
         /**
          * Reset the caches after completion of an update.
          */
@@ -102,7 +191,6 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
             additions.clear();
             deletions.clear();
             refreshes.clear();
-            updateAll = false;
         }
 
         void processForUpdate() {
@@ -232,14 +320,10 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
     void scheduleUpdate() {
         if (PlatformUI.isWorkbenchRunning()) {
             // make sure we don't schedule too often
-			boolean scheduleUpdate = false;
-			synchronized (updateScheduled) {
-				if (!updateScheduled.value || updateJob.getState() == Job.NONE) {
-					updateScheduled.value = scheduleUpdate = true;
-				}
-        	}
-			if (scheduleUpdate)
+			if (!updateScheduled.getAndSet(true)
+					|| updateJob.getState() == Job.NONE) {
 				updateJob.schedule(100);
+			}
         }
     }
 
@@ -255,38 +339,33 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
              */
             @Override
 			public IStatus runInUIThread(IProgressMonitor monitor) {
-				synchronized (updateScheduled) {
-					// updates requested while we are running should cause it to
-					// be rescheduled
-					updateScheduled.value = false;
-				}
+				// updates requested while we are running should cause it to
+				// be rescheduled
+				updateScheduled.set(false);
 				// Abort the job if there isn't anything
 				if (collectors.length == 0) {
 					return Status.CANCEL_STATUS;
 				}
 
-				if (currentInfo.updateAll) {
-					synchronized (updateLock) {
-						currentInfo.reset();
-					}
+				if (updateAll) {
+					updateAll = false;
+					pendingUpdates.clear();
+					currentInfo.reset();
 					for (int i = 0; i < collectors.length; i++) {
 						collectors[i].refresh();
 					}
 
 				} else {
-					// Lock while getting local copies of the caches.
-					Object[] updateItems;
-					Object[] additionItems;
-					Object[] deletionItems;
-					synchronized (updateLock) {
-						currentInfo.processForUpdate();
-
-						updateItems = currentInfo.refreshes.toArray();
-						additionItems = currentInfo.additions.toArray();
-						deletionItems = currentInfo.deletions.toArray();
-
-						currentInfo.reset();
-					}
+					// Only this job touches currentInfo, so no lock is needed
+					// to take the updates posted since the last run.
+					currentInfo.coalesce(pendingUpdates);
+					currentInfo.processForUpdate();
+
+					Object[] updateItems = currentInfo.refreshes.toArray();
+					Object[] additionItems = currentInfo.additions.toArray();
+					Object[] deletionItems = currentInfo.deletions.toArray();
+
+					currentInfo.reset();
 
 					for (int v = 0; v < collectors.length; v++) {
 						IProgressUpdateCollector collector = collectors[v];
@@ -313,9 +392,7 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
 			 */
 			@Override
 			protected void canceling() {
-				synchronized (updateScheduled) {
-					updateScheduled.value = false;
-				}
+				updateScheduled.set(false);
             }
         };
         updateJob.setSystem(true);
@@ -333,6 +410,19 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
         return currentInfo;
     }
 
+    /**
+     * Queue an update for the update job.
+     * 
+     * @param kind
+     *            one of ADD, REMOVE or REFRESH
+     * @param element
+     */
+    private void post(int kind, JobTreeElement element) {
+        if (!updateAll) {
+            pendingUpdates.add(new PendingUpdate(kind, element));
+        }
+    }
+
     /**
      * Refresh the supplied JobInfo.
      * @param info
@@ -343,13 +433,11 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
 			return;
 		}
 
-        synchronized (updateLock) {
-            currentInfo.refresh(info);
-            GroupInfo group = info.getGroupInfo();
-            if (group != null) {
-				currentInfo.refresh(group);
-			}
-        }
+        post(REFRESH, info);
+        GroupInfo group = info.getGroupInfo();
+        if (group != null) {
+			post(REFRESH, group);
+		}
         //Add in a 100ms delay so as to keep priority low
         scheduleUpdate();
 
@@ -365,9 +453,7 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
 			return;
 		}
 
-        synchronized (updateLock) {
-            currentInfo.refresh(info);
-        }
+        post(REFRESH, info);
         //Add in a 100ms delay so as to keep priority low
         scheduleUpdate();
 
@@ -378,9 +464,7 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
      */
     @Override
 	public void refreshGroup(GroupInfo info) {
-        synchronized (updateLock) {
-            currentInfo.refresh(info);
-        }
+        post(REFRESH, info);
         //Add in a 100ms delay so as to keep priority low
         scheduleUpdate();
 
@@ -392,9 +476,7 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
     @Override
 	public void addGroup(GroupInfo info) {
 
-        synchronized (updateLock) {
-            currentInfo.add(info);
-        }
+        post(ADD, info);
         scheduleUpdate();
 
     }
@@ -407,9 +489,7 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
     @Override
 	public void refreshAll() {
 
-        synchronized (updateLock) {
-            currentInfo.updateAll = true;
-        }
+        updateAll = true;
 
         //Add in a 100ms delay so as to keep priority low
         scheduleUpdate();
@@ -428,14 +508,11 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
 			return;
 		}
 
-        synchronized (updateLock) {
-            GroupInfo group = info.getGroupInfo();
-
-            if (group == null) {
-				currentInfo.add(info);
-			} else {
-                currentInfo.refresh(group);
-            }
+        GroupInfo group = info.getGroupInfo();
+        if (group == null) {
+			post(ADD, info);
+		} else {
+            post(REFRESH, group);
         }
         scheduleUpdate();
 
@@ -453,13 +530,11 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
 			return;
 		}
 
-        synchronized (updateLock) {
-            GroupInfo group = info.getGroupInfo();
-            if (group == null) {
-				currentInfo.remove(info);
-			} else {
-                currentInfo.refresh(group);
-            }
+        GroupInfo group = info.getGroupInfo();
+        if (group == null) {
+			post(REMOVE, info);
+		} else {
+            post(REFRESH, group);
         }
         scheduleUpdate();
     }
@@ -469,9 +544,7 @@ class ProgressViewUpdater implements IJobProgressManagerListener {
      */
     @Override
 	public void removeGroup(GroupInfo group) {
-        synchronized (updateLock) {
-            currentInfo.remove(group);
-        }
+        post(REMOVE, group);
         scheduleUpdate();
 
     }
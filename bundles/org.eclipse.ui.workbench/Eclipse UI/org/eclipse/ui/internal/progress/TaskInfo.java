@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - sampled progress reporting
  *******************************************************************************/
 package org.eclipse.ui.internal.progress;
 
@@ -19,7 +20,8 @@ import org.eclipse.osgi.util.NLS;
  * deleted.
  */
 public class TaskInfo extends SubTaskInfo {
-	double preWork = 0;
+	// Written by the job, read by the progress views
+	volatile double preWork = 0;
 
 	int totalWork = 0;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -62,6 +62,12 @@ public class EditorElement extends QuickAccessElement {
 		return (dirty ? DIRTY_MARK : "") + editorReference.getTitle() + separator + editorReference.getTitleToolTip(); //$NON-NLS-1$
 	}
 
+	@Override
+	protected boolean isLabelVolatile() {
+		// the dirty mark and the title change while the editor is open
+		return true;
+	}
+
 	@Override
 	public String getSortLabel() {
 		return editorReference.getTitle();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2013 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,6 +8,7 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Tom Hochstein (Freescale) - Bug 393703 - NotHandledException selecting inactive command under 'Previous Choices' in Quick access
+ *     IBM Corporation - match providers in parallel and show matches as they come in
  *******************************************************************************/
 package org.eclipse.ui.internal.quickaccess;
 
@@ -97,6 +98,7 @@ public abstract class QuickAccessContents {
 	private boolean showAllMatches = false;
 	protected boolean resized = false;
 	private TriggerSequence keySequence;
+	private final QuickAccessMatcher matcher = new QuickAccessMatcher();
 
 	public QuickAccessContents(QuickAccessProvider[] providers) {
 		this.providers = providers;
@@ -121,28 +123,64 @@ public abstract class QuickAccessContents {
 	 */
 	public void refresh(String filter) {
 		if (table != null) {
-			boolean filterTextEmpty = filter.length() == 0;
-
 			// perfect match, to be selected in the table if not null
-			QuickAccessElement perfectMatch = getPerfectMatch(filter);
-			List<QuickAccessEntry>[] entries = computeMatchingEntries(filter, perfectMatch);
-			int selectionIndex = refreshTable(perfectMatch, entries);
-
-			if (table.getItemCount() > 0) {
-				table.setSelection(selectionIndex);
-			} else if (filterTextEmpty) {
-				TableItem item = new TableItem(table, SWT.NONE);
-				item.setText(0, QuickAccessMessages.QuickAccessContents_QuickAccess);
-				item.setText(1, QuickAccessMessages.QuickAccess_StartTypingToFindMatches);
-				item.setForeground(1, grayColor);
-			} else {
-				TableItem item = new TableItem(table, SWT.NONE);
-				item.setText(0, QuickAccessMessages.QuickAccessContents_NoMatchingResults);
-				item.setForeground(0, grayColor);
+			final QuickAccessElement perfectMatch = getPerfectMatch(filter);
+			if (filter.length() == 0) {
+				matcher.cancel();
+				showMatches(filter, perfectMatch, null, true);
+				return;
 			}
+			final QuickAccessMatcher.Search[] search = new QuickAccessMatcher.Search[1];
+			search[0] = matcher.search(filter, providers, table.getDisplay(), new Runnable() {
+				@Override
+				public void run() {
+					if (table != null && !table.isDisposed()) {
+						showMatches(search[0].getFilter(), perfectMatch, search[0].getEntries(),
+								search[0].isComplete());
+					}
+				}
+			});
+			showMatches(filter, perfectMatch, search[0].getEntries(), search[0].isComplete());
+		}
+	}
 
-			updateFeedback(filterTextEmpty, showAllMatches);
+	/**
+	 * Shows the given matches in the table.
+	 * 
+	 * @param filter
+	 *            the filter text the matches were computed for
+	 * @param perfectMatch
+	 *            an element to be selected if matched, or <code>null</code>
+	 * @param matches
+	 *            the matches per provider, <code>null</code> for providers
+	 *            still being matched, or <code>null</code> if the filter is
+	 *            empty
+	 * @param complete
+	 *            whether all providers have been matched
+	 */
+	private void showMatches(String filter, QuickAccessElement perfectMatch,
+			QuickAccessEntry[][] matches, boolean complete) {
+		boolean filterTextEmpty = filter.length() == 0;
+
+		List<QuickAccessEntry>[] entries = computeMatchingEntries(filter, perfectMatch, matches);
+		int selectionIndex = refreshTable(perfectMatch, entries);
+
+		if (table.getItemCount() > 0) {
+			table.setSelection(selectionIndex);
+		} else if (!complete) {
+			// more matches are on their way
+		} else if (filterTextEmpty) {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setText(0, QuickAccessMessages.QuickAccessContents_QuickAccess);
+			item.setText(1, QuickAccessMessages.QuickAccess_StartTypingToFindMatches);
+			item.setForeground(1, grayColor);
+		} else {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setText(0, QuickAccessMessages.QuickAccessContents_NoMatchingResults);
+			item.setForeground(0, grayColor);
 		}
+
+		updateFeedback(filterTextEmpty, showAllMatches);
 	}
 
 	/**
@@ -288,11 +326,15 @@ public abstract class QuickAccessContents {
 	 * @param perfectMatch
 	 *            a quick access element that should be given priority or
 	 *            <code>null</code>
+	 * @param matches
+	 *            the matches per provider, <code>null</code> for providers
+	 *            still being matched, or <code>null</code> if the filter is
+	 *            empty
 	 * @return the array of lists (one per provider) containg the quick access
 	 *         entries that should be added to the table, possibly empty
 	 */
 	private List<QuickAccessEntry>[] computeMatchingEntries(String filter,
-			QuickAccessElement perfectMatch) {
+			QuickAccessElement perfectMatch, QuickAccessEntry[][] matches) {
 		// collect matches in an array of lists
 		@SuppressWarnings("unchecked")
 		List<QuickAccessEntry>[] entries = new List[providers.length];
@@ -322,15 +364,26 @@ public abstract class QuickAccessContents {
 				int count = 0;
 				QuickAccessProvider provider = providers[i];
 				if (filter.length() > 0 || provider.isAlwaysPresent() || showAllMatches) {
-					QuickAccessElement[] sortedElements = provider.getElementsSorted();
+					// with a filter, only the elements that matched are
+					// considered, in the same order
+					QuickAccessElement[] sortedElements = null;
+					QuickAccessEntry[] providerMatches = null;
+					int length;
+					if (filter.length() == 0) {
+						sortedElements = provider.getElementsSorted();
+						length = sortedElements.length;
+					} else {
+						providerMatches = matches[i];
+						length = providerMatches == null ? 0 : providerMatches.length;
+					}
 					List<QuickAccessEntry> poorFilterMatches = new ArrayList<QuickAccessEntry>();
 					
 					int j = indexPerProvider[i];
-					while (j < sortedElements.length
+					while (j < length
 							&& (showAllMatches || (count < countPerProvider && countTotal < maxCount))) {
-						QuickAccessElement element = sortedElements[j];
 						QuickAccessEntry entry = null;
 						if (filter.length() == 0) {
+							QuickAccessElement element = sortedElements[j];
 							if (i == 0 || showAllMatches) {
 								entry = new QuickAccessEntry(element, provider, new int[0][0],
 										new int[0][0], QuickAccessEntry.MATCH_PERFECT);
@@ -338,7 +391,7 @@ public abstract class QuickAccessContents {
 								entry = null;
 							}
 						} else {
-							QuickAccessEntry possibleMatch = element.match(filter, provider);
+							QuickAccessEntry possibleMatch = providerMatches[j];
 							// We only have limited space so only display
 							// excellent filter matches (Bug 398455)
 							if (possibleMatch != null) {
@@ -378,7 +431,7 @@ public abstract class QuickAccessContents {
 							maxCount = MAX_COUNT_TOTAL;
 						}
 					}
-					if (j < sortedElements.length) {
+					if (j < length) {
 						done = false;
 					}
 				}
@@ -422,6 +475,7 @@ public abstract class QuickAccessContents {
 	}
 
 	private void doDispose() {
+		matcher.cancel();
 		if (textLayout != null && !textLayout.isDisposed()) {
 			textLayout.dispose();
 		}
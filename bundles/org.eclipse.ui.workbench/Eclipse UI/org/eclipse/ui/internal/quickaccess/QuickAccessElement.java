@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2013 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - match against precomputed strings
  *******************************************************************************/
 
 package org.eclipse.ui.internal.quickaccess;
@@ -25,6 +26,33 @@ public abstract class QuickAccessElement {
 	private static final int[][] EMPTY_INDICES = new int[0][0];
 	private QuickAccessProvider provider;
 
+	/**
+	 * The strings this element is matched against, derived from its label and
+	 * the name of its provider.
+	 */
+	private static final class MatchStrings {
+		final String label;
+		final String lowerCaseLabel;
+		final String camelCase;
+		final String providerName;
+		final String combinedLowerCaseLabel;
+		final String combinedCamelCase;
+		final String providerCamelCase;
+
+		MatchStrings(String label, String providerName) {
+			this.label = label;
+			this.lowerCaseLabel = label.toLowerCase();
+			this.camelCase = CamelUtil.getCamelCase(label);
+			this.providerName = providerName;
+			String combinedLabel = providerName + " " + label; //$NON-NLS-1$
+			this.combinedLowerCaseLabel = combinedLabel.toLowerCase();
+			this.combinedCamelCase = CamelUtil.getCamelCase(combinedLabel);
+			this.providerCamelCase = CamelUtil.getCamelCase(providerName);
+		}
+	}
+
+	private volatile MatchStrings matchStrings;
+
 	/**
 	 * @param provider
 	 */
@@ -76,6 +104,50 @@ public abstract class QuickAccessElement {
 		return provider;
 	}
 
+	/**
+	 * Returns whether the label of this element may change while its provider
+	 * keeps the element, for example to show that an editor is dirty. The
+	 * strings such elements are matched against are checked before every
+	 * search.
+	 * 
+	 * @return <code>true</code> if the label may change
+	 */
+	protected boolean isLabelVolatile() {
+		return false;
+	}
+
+	/**
+	 * Computes the strings {@link #match(String, QuickAccessProvider)} compares
+	 * the filter with, so that matching does not need to ask for the label
+	 * again. Called in the UI thread whenever the provider sorts its elements,
+	 * which allows matching to run in any thread afterwards.
+	 * 
+	 * @return <code>true</code> if the strings changed
+	 */
+	boolean prepareMatching() {
+		String label = getLabel();
+		String providerName = provider.getName();
+		MatchStrings strings = matchStrings;
+		if (strings != null && strings.label.equals(label)
+				&& strings.providerName.equals(providerName)) {
+			return false;
+		}
+		matchStrings = new MatchStrings(label, providerName);
+		return true;
+	}
+
+	private MatchStrings getMatchStrings(QuickAccessProvider providerForMatching) {
+		MatchStrings strings = matchStrings;
+		if (strings == null) {
+			prepareMatching();
+			strings = matchStrings;
+		}
+		if (providerForMatching != provider) {
+			return new MatchStrings(strings.label, providerForMatching.getName());
+		}
+		return strings;
+	}
+
 	/**
 	 * If this element is a match (partial, complete, camel case, etc) to the
 	 * given filter, returns a {@link QuickAccessEntry}. Otherwise returns
@@ -89,21 +161,21 @@ public abstract class QuickAccessElement {
 	 */
 	public QuickAccessEntry match(String filter,
 			QuickAccessProvider providerForMatching) {
-		String sortLabel = getLabel();
-		int index = sortLabel.toLowerCase().indexOf(filter);
+		MatchStrings strings = getMatchStrings(providerForMatching);
+		String sortLabel = strings.label;
+		int index = strings.lowerCaseLabel.indexOf(filter);
 		if (index != -1) {
-			int quality = sortLabel.toLowerCase().equals(filter) ? QuickAccessEntry.MATCH_PERFECT
-					: (sortLabel.toLowerCase().startsWith(filter) ? QuickAccessEntry.MATCH_EXCELLENT
+			int quality = strings.lowerCaseLabel.equals(filter) ? QuickAccessEntry.MATCH_PERFECT
+					: (strings.lowerCaseLabel.startsWith(filter) ? QuickAccessEntry.MATCH_EXCELLENT
 							: QuickAccessEntry.MATCH_GOOD);
 			return new QuickAccessEntry(this, providerForMatching,
 					new int[][] { { index, index + filter.length() - 1 } },
  EMPTY_INDICES, quality);
 		}
-		String combinedLabel = (providerForMatching.getName() + " " + getLabel()); //$NON-NLS-1$
-		index = combinedLabel.toLowerCase().indexOf(filter);
+		index = strings.combinedLowerCaseLabel.indexOf(filter);
 		if (index != -1) {
 			int lengthOfElementMatch = index + filter.length()
-					- providerForMatching.getName().length() - 1;
+					- strings.providerName.length() - 1;
 			if (lengthOfElementMatch > 0) {
 				return new QuickAccessEntry(this, providerForMatching,
 						new int[][] { { 0, lengthOfElementMatch - 1 } },
@@ -114,8 +186,7 @@ public abstract class QuickAccessElement {
 					EMPTY_INDICES, new int[][] { { index,
  index + filter.length() - 1 } }, QuickAccessEntry.MATCH_GOOD);
 		}
-		String camelCase = CamelUtil.getCamelCase(sortLabel);
-		index = camelCase.indexOf(filter);
+		index = strings.camelCase.indexOf(filter);
 		if (index != -1) {
 			int[][] indices = CamelUtil.getCamelCaseIndices(sortLabel, index, filter
 					.length());
@@ -123,26 +194,22 @@ public abstract class QuickAccessElement {
  EMPTY_INDICES,
 					QuickAccessEntry.MATCH_GOOD);
 		}
-		String combinedCamelCase = CamelUtil.getCamelCase(combinedLabel);
-		index = combinedCamelCase.indexOf(filter);
+		index = strings.combinedCamelCase.indexOf(filter);
 		if (index != -1) {
-			String providerCamelCase = CamelUtil.getCamelCase(providerForMatching
-					.getName());
 			int lengthOfElementMatch = index + filter.length()
-					- providerCamelCase.length();
+					- strings.providerCamelCase.length();
 			if (lengthOfElementMatch > 0) {
 				return new QuickAccessEntry(
 						this,
 						providerForMatching,
 						CamelUtil.getCamelCaseIndices(sortLabel, 0, lengthOfElementMatch),
-						CamelUtil.getCamelCaseIndices(providerForMatching.getName(),
+						CamelUtil.getCamelCaseIndices(strings.providerName,
  index,
 								filter.length() - lengthOfElementMatch),
 						QuickAccessEntry.MATCH_GOOD);
 			}
 			return new QuickAccessEntry(this, providerForMatching,
-					EMPTY_INDICES, CamelUtil.getCamelCaseIndices(providerForMatching
-.getName(), index,
+					EMPTY_INDICES, CamelUtil.getCamelCaseIndices(strings.providerName, index,
 							filter.length()), QuickAccessEntry.MATCH_GOOD);
 		}
 		return null;
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.internal.quickaccess;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Matches the elements of several {@link QuickAccessProvider}s against a
+ * filter.
+ * <p>
+ * Providers with many elements are matched in parallel in background jobs,
+ * and the listener of a search is notified in the UI thread as their matches
+ * come in, so that the matches of fast providers can be shown before slow
+ * ones are done. Starting a search cancels the previous one. When the filter
+ * extends the filter of the previous search, only the elements that matched
+ * before are matched again.
+ * </p>
+ */
+class QuickAccessMatcher {
+
+	/**
+	 * The number of elements of a provider above which the provider is matched
+	 * in a background job rather than in the UI thread.
+	 */
+	static final int PARALLEL_THRESHOLD = 500;
+
+	private static final QuickAccessEntry[] NO_ENTRIES = new QuickAccessEntry[0];
+
+	/**
+	 * The matches of one provider for one filter.
+	 */
+	private static final class Matches {
+		final String filter;
+		final QuickAccessElement[] elements;
+		final QuickAccessEntry[] entries;
+
+		Matches(String filter, QuickAccessElement[] elements, QuickAccessEntry[] entries) {
+			this.filter = filter;
+			this.elements = elements;
+			this.entries = entries;
+		}
+	}
+
+	/**
+	 * The state of a search, shared between the UI thread and the jobs
+	 * matching for it.
+	 */
+	class Search {
+		private final String filter;
+		private final QuickAccessProvider[] providers;
+		private final QuickAccessElement[][] elements;
+		private final Runnable listener;
+		private final Display display;
+		// null for providers still being matched, guarded by this
+		private final QuickAccessEntry[][] entries;
+		private int outstanding;
+		private final List<Job> jobs = new ArrayList<Job>();
+		private final AtomicBoolean notificationPending = new AtomicBoolean();
+		private volatile boolean cancelled;
+
+		Search(String filter, QuickAccessProvider[] providers, Display display, Runnable listener) {
+			this.filter = filter;
+			this.providers = providers;
+			this.display = display;
+			this.listener = listener;
+			this.elements = new QuickAccessElement[providers.length][];
+			this.entries = new QuickAccessEntry[providers.length][];
+			this.outstanding = providers.length;
+		}
+
+		/**
+		 * @return the filter this search matches against
+		 */
+		String getFilter() {
+			return filter;
+		}
+
+		/**
+		 * Returns the matches found so far, one array per provider in the
+		 * order of the providers. The array of a provider is
+		 * <code>null</code> while it is still being matched, and otherwise
+		 * holds its matches in the order of its sorted elements.
+		 *
+		 * @return the matches found so far
+		 */
+		synchronized QuickAccessEntry[][] getEntries() {
+			return entries.clone();
+		}
+
+		/**
+		 * @return whether all providers have been matched
+		 */
+		synchronized boolean isComplete() {
+			return outstanding == 0;
+		}
+
+		boolean isCancelled() {
+			return cancelled;
+		}
+
+		void cancel() {
+			cancelled = true;
+			for (Job job : jobs) {
+				job.cancel();
+			}
+		}
+
+		void setEntries(int index, QuickAccessEntry[] providerEntries) {
+			synchronized (this) {
+				entries[index] = providerEntries;
+				outstanding--;
+			}
+			synchronized (QuickAccessMatcher.this) {
+				lastMatches.put(providers[index], new Matches(filter, elements[index],
+						providerEntries));
+			}
+		}
+
+		/**
+		 * Notifies the listener in the UI thread, coalescing notifications for
+		 * providers finishing at about the same time.
+		 */
+		void notifyListener() {
+			if (!notificationPending.compareAndSet(false, true) || display.isDisposed()) {
+				return;
+			}
+			display.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					notificationPending.set(false);
+					if (!cancelled) {
+						listener.run();
+					}
+				}
+			});
+		}
+	}
+
+	private class MatchJob extends Job {
+		private final Search search;
+		private final int index;
+		private final QuickAccessElement[] candidates;
+
+		MatchJob(Search search, int index, QuickAccessElement[] candidates) {
+			super(QuickAccessMessages.QuickAccess_MatchingElements);
+			this.search = search;
+			this.index = index;
+			this.candidates = candidates;
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			QuickAccessEntry[] entries = match(candidates, search.providers[index],
+					search.filter, monitor);
+			if (entries == null || search.isCancelled()) {
+				return Status.CANCEL_STATUS;
+			}
+			search.setEntries(index, entries);
+			search.notifyListener();
+			return Status.OK_STATUS;
+		}
+	}
+
+	// the last matches per provider, used to narrow the next search
+	private final Map<QuickAccessProvider, Matches> lastMatches = new HashMap<QuickAccessProvider, Matches>();
+
+	private Search currentSearch;
+
+	/**
+	 * Starts matching the elements of the given providers against the filter,
+	 * cancelling the previous search. Providers with few elements are matched
+	 * before this method returns; the listener is notified in the UI thread
+	 * when matches of the other providers come in. Must be called in the UI
+	 * thread.
+	 *
+	 * @param filter
+	 *            the lower case filter, not empty
+	 * @param providers
+	 *            the providers to match
+	 * @param display
+	 *            the display to notify the listener in
+	 * @param listener
+	 *            notified when more matches are available
+	 * @return the search
+	 */
+	Search search(String filter, QuickAccessProvider[] providers, Display display,
+			Runnable listener) {
+		cancel();
+		Search search = new Search(filter, providers, display, listener);
+		currentSearch = search;
+		for (int i = 0; i < providers.length; i++) {
+			// sorting the elements prepares them for matching in other threads
+			QuickAccessElement[] elements = providers[i].getElementsSorted();
+			search.elements[i] = elements;
+			// an element whose label changed may match now although it did
+			// not match the previous filter
+			QuickAccessElement[] candidates = prepareVolatileLabels(elements) ? elements
+					: getCandidates(providers[i], elements, filter);
+			if (candidates.length < PARALLEL_THRESHOLD) {
+				search.setEntries(i, match(candidates, providers[i], filter, null));
+			} else {
+				search.jobs.add(new MatchJob(search, i, candidates));
+			}
+		}
+		for (Job job : search.jobs) {
+			job.schedule();
+		}
+		return search;
+	}
+
+	/**
+	 * Cancels the current search, if any.
+	 */
+	void cancel() {
+		if (currentSearch != null) {
+			currentSearch.cancel();
+			currentSearch = null;
+		}
+	}
+
+	/**
+	 * Prepares the elements whose labels may have changed since they were
+	 * sorted for matching again.
+	 * 
+	 * @return whether the label of any of them changed
+	 */
+	private static boolean prepareVolatileLabels(QuickAccessElement[] elements) {
+		boolean changed = false;
+		for (QuickAccessElement element : elements) {
+			if (element.isLabelVolatile() && element.prepareMatching()) {
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private QuickAccessElement[] getCandidates(QuickAccessProvider provider,
+			QuickAccessElement[] elements, String filter) {
+		Matches matches;
+		synchronized (this) {
+			matches = lastMatches.get(provider);
+		}
+		// every match of a filter is also a match of each of its prefixes
+		if (matches == null || matches.elements != elements
+				|| !filter.startsWith(matches.filter)) {
+			return elements;
+		}
+		QuickAccessElement[] candidates = new QuickAccessElement[matches.entries.length];
+		for (int i = 0; i < candidates.length; i++) {
+			candidates[i] = matches.entries[i].element;
+		}
+		return candidates;
+	}
+
+	/**
+	 * @return the matches in the order of the candidates, or <code>null</code>
+	 *         if the monitor was cancelled
+	 */
+	private static QuickAccessEntry[] match(QuickAccessElement[] candidates,
+			QuickAccessProvider provider, String filter, IProgressMonitor monitor) {
+		List<QuickAccessEntry> entries = null;
+		for (int i = 0; i < candidates.length; i++) {
+			if (monitor != null && (i & 0xff) == 0 && monitor.isCanceled()) {
+				return null;
+			}
+			QuickAccessEntry entry = candidates[i].match(filter, provider);
+			if (entry != null) {
+				if (entries == null) {
+					entries = new ArrayList<QuickAccessEntry>();
+				}
+				entries.add(entry);
+			}
+		}
+		return entries == null ? NO_ENTRIES : entries.toArray(new QuickAccessEntry[entries
+				.size()]);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - prepare elements for matching when sorting them
  *******************************************************************************/
 
 package org.eclipse.ui.internal.quickaccess;
@@ -51,6 +52,13 @@ public abstract class QuickAccessProvider {
 	 */
 	public abstract QuickAccessElement[] getElements();
 
+	/**
+	 * Returns the elements provided by this provider sorted by their sort
+	 * label, and prepared for matching in any thread. Must be called in the UI
+	 * thread.
+	 * 
+	 * @return this provider's elements, sorted
+	 */
 	public QuickAccessElement[] getElementsSorted() {
 		if (sortedElements == null) {
 			sortedElements = getElements();
@@ -60,6 +68,9 @@ public abstract class QuickAccessProvider {
 					return e1.getSortLabel().compareTo(e2.getSortLabel());
 				}
 			});
+			for (QuickAccessElement element : sortedElements) {
+				element.prepareMatching();
+			}
 		}
 		return sortedElements;
 	}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.ui.internal.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.core.expressions.EvaluationResult;
+import org.eclipse.core.expressions.Expression;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.e4.core.commands.ExpressionContext;
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.core.contexts.RunAndTrack;
+import org.eclipse.e4.ui.internal.workbench.Activator;
+import org.eclipse.e4.ui.internal.workbench.Policy;
+
+/**
+ * Evaluates an expression on behalf of all the {@link EvaluationReference}s
+ * whose expressions are equal.
+ * <p>
+ * The node tracks the variables its expression reads, and evaluates it once
+ * whenever one of them changes, however many references share it. The
+ * references only notify their listeners when the result changes.
+ * </p>
+ *
+ * @since 3.106
+ */
+final class EvaluationNode extends RunAndTrack {
+
+	private final EvaluationService service;
+	private final IEclipseContext context;
+	private final Expression expression;
+	private final List<EvaluationReference> refs = new ArrayList<EvaluationReference>(1);
+
+	private boolean result;
+
+	private boolean tracking = false;
+	private boolean disposed = false;
+
+	EvaluationNode(EvaluationService service, IEclipseContext context, Expression expression) {
+		this.service = service;
+		this.context = context;
+		this.expression = expression;
+	}
+
+	Expression getExpression() {
+		return expression;
+	}
+
+	/**
+	 * Adds a reference and gives it the result of the expression. The
+	 * expression is evaluated again for it, since property testers and system
+	 * properties may have changed since the last evaluation without any of
+	 * the tracked variables changing.
+	 *
+	 * @param ref
+	 *            the reference; its expression must be equal to the one of
+	 *            this node
+	 */
+	void addReference(EvaluationReference ref) {
+		refs.add(ref);
+		if (!tracking) {
+			tracking = true;
+			context.runAndTrack(this);
+			return;
+		}
+		service.countLookups(1);
+		evaluate();
+	}
+
+	/**
+	 * @param ref
+	 *            the reference to remove
+	 * @return <code>true</code> if no references are left
+	 */
+	boolean removeReference(EvaluationReference ref) {
+		refs.remove(ref);
+		return refs.isEmpty();
+	}
+
+	/**
+	 * Stops tracking the variables of the expression.
+	 */
+	void dispose() {
+		disposed = true;
+		refs.clear();
+	}
+
+	@Override
+	public boolean changed(IEclipseContext context) {
+		if (disposed) {
+			return false;
+		}
+		service.countLookups(refs.size());
+		evaluate();
+		return true;
+	}
+
+	/**
+	 * Evaluates the expression and updates the references. A reference only
+	 * notifies its listener if the result differs from its own.
+	 */
+	void evaluate() {
+		try {
+			result = expression.evaluate(new ExpressionContext(context)) != EvaluationResult.FALSE;
+		} catch (CoreException e) {
+			Activator.trace(Policy.DEBUG_CMDS, "Failed to calculate active", e); //$NON-NLS-1$
+		}
+		service.countEvaluation();
+		// updating may add or remove references
+		for (EvaluationReference ref : refs.toArray(new EvaluationReference[refs.size()])) {
+			if (ref.participating) {
+				ref.update(result);
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - share the evaluation of equal expressions
  ******************************************************************************/
 
 package org.eclipse.ui.internal.services;
@@ -40,6 +41,13 @@ public class EvaluationReference extends RunAndTrack implements IEvaluationRefer
 	boolean postingChanges = true;
 	boolean hasRun = false;
 
+	/**
+	 * The node evaluating the expression for this reference and all others
+	 * with an equal expression, or <code>null</code> if this reference tracks
+	 * its expression on its own.
+	 */
+	EvaluationNode node;
+
 	public EvaluationReference(IEclipseContext context, Expression expression,
 			IPropertyChangeListener listener, String property) {
 		this.context = context;
@@ -135,6 +143,23 @@ public class EvaluationReference extends RunAndTrack implements IEvaluationRefer
 	public void evaluate() {
 		boolean value = cache;
 		evaluate(new ExpressionContext(context));
+		postChanges(value);
+	}
+
+	/**
+	 * Updates the result to one evaluated by the {@link #node} and notifies
+	 * the listener if it changed.
+	 * 
+	 * @param result
+	 *            the result of the expression
+	 */
+	void update(boolean result) {
+		boolean value = cache;
+		cache = result;
+		postChanges(value);
+	}
+
+	private void postChanges(boolean value) {
 		if (!postingChanges) {
 			return;
 		}
@@ -7,6 +7,8 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - batch variable changes, index references by name
+ *     IBM Corporation - share the evaluation of equal expressions
  *******************************************************************************/
 
 package org.eclipse.ui.internal.services;
@@ -14,11 +16,15 @@ package org.eclipse.ui.internal.services;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
+import org.eclipse.core.commands.util.Tracing;
 import org.eclipse.core.expressions.Expression;
 import org.eclipse.core.expressions.ExpressionInfo;
 import org.eclipse.core.expressions.IEvaluationContext;
@@ -40,6 +46,7 @@ import org.eclipse.ui.ISourceProvider;
 import org.eclipse.ui.ISourceProviderListener;
 import org.eclipse.ui.ISources;
 import org.eclipse.ui.internal.WorkbenchPlugin;
+import org.eclipse.ui.internal.misc.Policy;
 import org.eclipse.ui.services.IEvaluationReference;
 import org.eclipse.ui.services.IEvaluationService;
 
@@ -48,6 +55,8 @@ import org.eclipse.ui.services.IEvaluationService;
  * 
  */
 public final class EvaluationService implements IEvaluationService {
+	private static final boolean DEBUG_PERFORMANCE = Policy.DEBUG_HANDLERS_PERFORMANCE;
+	private static final String TRACING_COMPONENT = "EVALUATION"; //$NON-NLS-1$
 	public static final String DEFAULT_VAR = "org.eclipse.ui.internal.services.EvaluationService.default_var"; //$NON-NLS-1$
 	private static final String RE_EVAL = "org.eclipse.ui.internal.services.EvaluationService.evaluate"; //$NON-NLS-1$
 	private boolean evaluate = false;
@@ -61,12 +70,47 @@ public final class EvaluationService implements IEvaluationService {
 	LinkedList<EvaluationReference> refs = new LinkedList<EvaluationReference>();
 	private ISourceProviderListener contextUpdater;
 
+	/**
+	 * The references by the names of the variables and properties their
+	 * expressions access.
+	 */
+	private Map<String, List<EvaluationReference>> refsByName = new HashMap<String, List<EvaluationReference>>();
+
+	/**
+	 * The number of variable batches currently being applied. While a batch is
+	 * applied, the variables are copied to the evaluation context once at its
+	 * end instead of once per variable.
+	 */
+	private int batching = 0;
+	private boolean ratUpdatePending = false;
+
+	/**
+	 * The nodes evaluating the expressions of the references, by expression.
+	 * References with equal expressions share a node.
+	 */
+	private Map<Expression, EvaluationNode> nodes = new HashMap<Expression, EvaluationNode>();
+
+	private long evaluationCount = 0;
+	private long lookupCount = 0;
+	private long reportTime = System.currentTimeMillis();
+	private long reportEvaluationCount = 0;
+	private long reportLookupCount = 0;
+
 	private HashSet<String> ratVariables = new HashSet<String>();
 	private RunAndTrack ratUpdater = new RunAndTrack() {
 		@Override
 		public boolean changed(IEclipseContext context) {
 			context.get(RE_EVAL);
 			String[] vars = ratVariables.toArray(new String[ratVariables.size()]);
+			if (batching > 0) {
+				// keep tracking the variables, they are copied when the batch
+				// is done
+				for (String var : vars) {
+					context.getActive(var);
+				}
+				ratUpdatePending = true;
+				return true;
+			}
 			for (String var : vars) {
 				Object value = context.getActive(var);
 				if (value == null) {
@@ -118,10 +162,19 @@ public final class EvaluationService implements IEvaluationService {
 
 			@Override
 			public void sourceChanged(int sourcePriority, Map sourceValuesByName) {
-				Iterator i = sourceValuesByName.entrySet().iterator();
-				while (i.hasNext()) {
-					final Map.Entry entry = (Entry) i.next();
-					changeVariable((String) entry.getKey(), entry.getValue());
+				batching++;
+				try {
+					Iterator i = sourceValuesByName.entrySet().iterator();
+					while (i.hasNext()) {
+						final Map.Entry entry = (Entry) i.next();
+						changeVariable((String) entry.getKey(), entry.getValue());
+					}
+				} finally {
+					batching--;
+				}
+				if (batching == 0 && ratUpdatePending) {
+					ratUpdatePending = false;
+					contextEvaluate();
 				}
 			}
 		};
@@ -213,6 +266,8 @@ public final class EvaluationService implements IEvaluationService {
 			invalidate(ref, false);
 		}
 		refs.clear();
+		refsByName.clear();
+		nodes.clear();
 		serviceListeners.clear();
 	}
 
@@ -272,6 +327,7 @@ public final class EvaluationService implements IEvaluationService {
 		if (eref.getExpression() != null) {
 			ExpressionInfo info = new ExpressionInfo();
 			eref.getExpression().collectExpressionInfo(info);
+			index(eref, info);
 			for (String varName : info.getAccessedVariableNames()) {
 				if (ratVariables.add(varName)) {
 					changed = true;
@@ -287,14 +343,63 @@ public final class EvaluationService implements IEvaluationService {
 			contextEvaluate();
 		}
 		eref.participating = true;
-		ratContext.runAndTrack(eref);
+		Expression expression = eref.getExpression();
+		if (expression != null && eref.context == ratContext) {
+			EvaluationNode node = nodes.get(expression);
+			if (node == null) {
+				node = new EvaluationNode(this, ratContext, expression);
+				nodes.put(expression, node);
+			}
+			eref.node = node;
+			node.addReference(eref);
+		} else {
+			ratContext.runAndTrack(eref);
+		}
+	}
+
+	private void detach(EvaluationReference ref) {
+		EvaluationNode node = ref.node;
+		if (node == null) {
+			return;
+		}
+		ref.node = null;
+		if (node.removeReference(ref)) {
+			node.dispose();
+			nodes.remove(node.getExpression());
+		}
+	}
+
+	private void index(EvaluationReference ref, ExpressionInfo info) {
+		Set<String> names = new HashSet<String>();
+		names.addAll(Arrays.asList(info.getAccessedVariableNames()));
+		names.addAll(Arrays.asList(info.getAccessedPropertyNames()));
+		for (String name : names) {
+			List<EvaluationReference> nameRefs = refsByName.get(name);
+			if (nameRefs == null) {
+				nameRefs = new ArrayList<EvaluationReference>(1);
+				refsByName.put(name, nameRefs);
+			}
+			nameRefs.add(ref);
+		}
+	}
+
+	private void unindex(EvaluationReference ref) {
+		for (Iterator<List<EvaluationReference>> i = refsByName.values().iterator(); i
+				.hasNext();) {
+			List<EvaluationReference> nameRefs = i.next();
+			if (nameRefs.remove(ref) && nameRefs.isEmpty()) {
+				i.remove();
+			}
+		}
 	}
 
 	private void invalidate(IEvaluationReference ref, boolean remove) {
+		EvaluationReference eref = (EvaluationReference) ref;
 		if (remove) {
 			refs.remove(ref);
+			unindex(eref);
 		}
-		EvaluationReference eref = (EvaluationReference) ref;
+		detach(eref);
 		eref.participating = false;
 		eref.evaluate();
 		eref.hasRun = false;
@@ -335,28 +440,20 @@ public final class EvaluationService implements IEvaluationService {
 
 		String[] sourceNames = new String[] { propertyName };
 		startSourceChange(sourceNames);
-		for (EvaluationReference ref : refs) {
-			Expression expr = ref.getExpression();
-			if (expr != null) {
-				boolean evaluated = false;
-				ExpressionInfo info = expr.computeExpressionInfo();
-				String[] names = info.getAccessedPropertyNames();
-				for (String name : names) {
-					if (propertyName.equals(name)) {
-						evaluated = true;
-						ref.evaluate();
-						break;
-					}
-				}
-				if (!evaluated) {
-					names = info.getAccessedVariableNames();
-					for (String name : names) {
-						if (propertyName.equals(name)) {
-							evaluated = true;
-							ref.evaluate();
-							break;
-						}
-					}
+		List<EvaluationReference> nameRefs = refsByName.get(propertyName);
+		if (nameRefs != null) {
+			// evaluating may add or remove references
+			Set<EvaluationNode> evaluated = new HashSet<EvaluationNode>();
+			for (EvaluationReference ref : nameRefs
+					.toArray(new EvaluationReference[nameRefs.size()])) {
+				EvaluationNode node = ref.node;
+				if (node == null) {
+					ref.evaluate();
+				} else if (evaluated.add(node)) {
+					countLookups(1);
+					node.evaluate();
+				} else {
+					countLookups(1);
 				}
 			}
 		}
@@ -403,6 +500,46 @@ public final class EvaluationService implements IEvaluationService {
 		}
 	}
 
+	/**
+	 * @return the number of times an expression was evaluated by a shared
+	 *         node
+	 */
+	long getEvaluationCount() {
+		return evaluationCount;
+	}
+
+	/**
+	 * @return the number of times a reference was given the result of a shared
+	 *         node without evaluating the expression for it
+	 */
+	long getSharedResultCount() {
+		return lookupCount - evaluationCount;
+	}
+
+	void countLookups(int count) {
+		lookupCount += count;
+	}
+
+	void countEvaluation() {
+		evaluationCount++;
+		if (DEBUG_PERFORMANCE) {
+			long now = System.currentTimeMillis();
+			long elapsed = now - reportTime;
+			if (elapsed >= 1000) {
+				long evaluations = evaluationCount - reportEvaluationCount;
+				long lookups = lookupCount - reportLookupCount;
+				Tracing.printTrace(TRACING_COMPONENT, evaluations * 1000 / elapsed
+						+ " evaluations/s, shared results " //$NON-NLS-1$
+						+ (lookups == 0 ? 0 : (lookups - evaluations) * 100 / lookups) + "%, " //$NON-NLS-1$
+						+ nodes.size() + " expressions shared by " + refs.size() //$NON-NLS-1$
+						+ " references"); //$NON-NLS-1$
+				reportTime = now;
+				reportEvaluationCount = evaluationCount;
+				reportLookupCount = lookupCount;
+			}
+		}
+	}
+
 	IEventBroker getEventBroker() {
 		if (eventBroker == null) {
 			eventBroker = context.get(IEventBroker.class);
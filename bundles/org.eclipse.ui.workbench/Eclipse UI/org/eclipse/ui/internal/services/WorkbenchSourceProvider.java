@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 IBM Corporation and others.
+ * Copyright (c) 2009, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,10 +7,12 @@
  *
  * Contributors:
  *     IBM Corporation - initial API and implementation
+ *     IBM Corporation - publish variables once per event
  ******************************************************************************/
 
 package org.eclipse.ui.internal.services;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import org.eclipse.core.expressions.IEvaluationContext;
@@ -74,6 +76,22 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 
 	private IWorkbench workbench;
 	private IWorkbenchWindow lastWindow;
+
+	/**
+	 * The number of batches currently open. While a batch is open, changes are
+	 * collected and published together when the outermost batch ends.
+	 */
+	private int batchDepth = 0;
+
+	/**
+	 * The changes collected in the open batch, by variable name.
+	 */
+	private final Map pendingChanges = new HashMap();
+
+	/**
+	 * The source priorities of the changes collected in the open batch.
+	 */
+	private int pendingSources = 0;
 //	private IServiceLocator locator;
 
 	/*
@@ -178,7 +196,7 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 			logDebuggingInfo("Selection changed to " + selection); //$NON-NLS-1$
 		}
 
-		fireSourceChanged(ISources.ACTIVE_CURRENT_SELECTION,
+		publish(ISources.ACTIVE_CURRENT_SELECTION,
 				ISources.ACTIVE_CURRENT_SELECTION_NAME, selection);
 	}
 
@@ -418,7 +436,7 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 				}
 			}
 			sources |= updateSelection(currentState);
-			fireSourceChanged(sources, currentState);
+			publish(sources, currentState);
 		}
 	}
 
@@ -610,7 +628,7 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 				if (newValue == null || !(newValue instanceof Boolean))
 					return;
 				if (!lastCoolbarVisibility.equals(newValue)) {
-					fireSourceChanged(
+					publish(
 							ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE,
 							ISources.ACTIVE_WORKBENCH_WINDOW_IS_COOLBAR_VISIBLE_NAME,
 							newValue);
@@ -622,7 +640,7 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 				if (newValue == null || !(newValue instanceof Boolean))
 					return;
 				if (!lastPerspectiveBarVisibility.equals(newValue)) {
-					fireSourceChanged(
+					publish(
 							ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE,
 							ISources.ACTIVE_WORKBENCH_WINDOW_IS_PERSPECTIVEBAR_VISIBLE_NAME,
 							newValue);
@@ -634,7 +652,7 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 				if (newValue == null || !(newValue instanceof Boolean))
 					return;
 				if (!lastStatusLineVisibility.equals(newValue)) {
-					fireSourceChanged(
+					publish(
 							ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE,
 							ISources.ACTIVE_WORKBENCH_WINDOW_NAME
 									+ ".isStatusLineVisible", newValue); //$NON-NLS-1$
@@ -660,7 +678,7 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 			currentState.put(
 					ISources.ACTIVE_WORKBENCH_WINDOW_ACTIVE_PERSPECTIVE_NAME,
 					id);
-			fireSourceChanged(sources, currentState);
+			publish(sources, currentState);
 			lastPerspectiveId = id;
 		}
 
@@ -700,183 +718,260 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 				logDebuggingInfo("\tWSP:lastActiveWorkbenchWindowShell" + lastActiveWorkbenchWindowShell); //$NON-NLS-1$
 			}
 
-			final Map currentState = getCurrentState();
-			final Shell newActiveShell = (Shell) currentState
-					.get(ISources.ACTIVE_SHELL_NAME);
-			final WorkbenchWindow newActiveWorkbenchWindow = (WorkbenchWindow) currentState
-					.get(ISources.ACTIVE_WORKBENCH_WINDOW_NAME);
-			final Shell newActiveWorkbenchWindowShell = (Shell) currentState
-					.get(ISources.ACTIVE_WORKBENCH_WINDOW_SHELL_NAME);
-
-			// dont update the coolbar/perspective bar visibility unless we're
-			// processing a workbench window change
-			final Boolean newCoolbarVisibility = newActiveWorkbenchWindow == null ? lastCoolbarVisibility
-					: (newActiveWorkbenchWindow.getCoolBarVisible() ? Boolean.TRUE
-							: Boolean.FALSE);
-			final Boolean newPerspectiveBarVisibility = newActiveWorkbenchWindow == null ? lastPerspectiveBarVisibility
-					: (newActiveWorkbenchWindow.getPerspectiveBarVisible() ? Boolean.TRUE
-							: Boolean.FALSE);
-			final Boolean newStatusLineVis = newActiveWorkbenchWindow == null ? lastStatusLineVisibility
-					: (newActiveWorkbenchWindow.getStatusLineVisible() ? Boolean.TRUE
-							: Boolean.FALSE);
-
-			String perspectiveId = lastPerspectiveId;
-			if (newActiveWorkbenchWindow != null) {
-				IWorkbenchPage activePage = newActiveWorkbenchWindow
-						.getActivePage();
-				if (activePage != null) {
-					IPerspectiveDescriptor perspective = activePage
-							.getPerspective();
-					if (perspective != null) {
-						perspectiveId = perspective.getId();
-					}
-				}
+			// The shell, the window, the part and the selection all change
+			// together, publish them as one change
+			startBatch();
+			try {
+				handleShellActivated((Shell) event.widget);
+			} finally {
+				endBatch();
 			}
+		}
+	};
 
-			// Figure out which variables have changed.
-			final boolean shellChanged = newActiveShell != lastActiveShell;
-			final boolean windowChanged = newActiveWorkbenchWindowShell != lastActiveWorkbenchWindowShell;
-			final boolean coolbarChanged = newCoolbarVisibility != lastCoolbarVisibility;
-			final boolean statusLineChanged = newStatusLineVis != lastStatusLineVisibility;
-
-			final boolean perspectiveBarChanged = newPerspectiveBarVisibility != lastPerspectiveBarVisibility;
-			final boolean perspectiveIdChanged = !Util.equals(
-					lastPerspectiveId, perspectiveId);
-			// Fire an event for those sources that have changed.
-			if (shellChanged && windowChanged) {
-				final Map sourceValuesByName = new HashMap(5);
-				sourceValuesByName.put(ISources.ACTIVE_SHELL_NAME,
-						newActiveShell);
-				sourceValuesByName.put(ISources.ACTIVE_WORKBENCH_WINDOW_NAME,
-						newActiveWorkbenchWindow);
-				sourceValuesByName.put(
-						ISources.ACTIVE_WORKBENCH_WINDOW_SHELL_NAME,
-						newActiveWorkbenchWindowShell);
-				int sourceFlags = ISources.ACTIVE_SHELL
-						| ISources.ACTIVE_WORKBENCH_WINDOW;
-
-				if (coolbarChanged) {
-					sourceValuesByName
-							.put(
-									ISources.ACTIVE_WORKBENCH_WINDOW_IS_COOLBAR_VISIBLE_NAME,
-									newCoolbarVisibility);
-					sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
-				}
-				if (statusLineChanged) {
-					sourceValuesByName.put(STATUS_LINE_VIS, newStatusLineVis);
-					sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
-				}
-				if (perspectiveBarChanged) {
-					sourceValuesByName
-							.put(
-									ISources.ACTIVE_WORKBENCH_WINDOW_IS_PERSPECTIVEBAR_VISIBLE_NAME,
-									newPerspectiveBarVisibility);
-					sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
-				}
-				if (perspectiveIdChanged) {
-					sourceValuesByName
-							.put(
-									ISources.ACTIVE_WORKBENCH_WINDOW_ACTIVE_PERSPECTIVE_NAME,
-									perspectiveId);
-					sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
-				}
+	private void handleShellActivated(Shell shell) {
+		final Map currentState = getCurrentState();
+		final Shell newActiveShell = (Shell) currentState
+				.get(ISources.ACTIVE_SHELL_NAME);
+		final WorkbenchWindow newActiveWorkbenchWindow = (WorkbenchWindow) currentState
+				.get(ISources.ACTIVE_WORKBENCH_WINDOW_NAME);
+		final Shell newActiveWorkbenchWindowShell = (Shell) currentState
+				.get(ISources.ACTIVE_WORKBENCH_WINDOW_SHELL_NAME);
+
+		// dont update the coolbar/perspective bar visibility unless we're
+		// processing a workbench window change
+		final Boolean newCoolbarVisibility = newActiveWorkbenchWindow == null ? lastCoolbarVisibility
+				: (newActiveWorkbenchWindow.getCoolBarVisible() ? Boolean.TRUE
+						: Boolean.FALSE);
+		final Boolean newPerspectiveBarVisibility = newActiveWorkbenchWindow == null ? lastPerspectiveBarVisibility
+				: (newActiveWorkbenchWindow.getPerspectiveBarVisible() ? Boolean.TRUE
+						: Boolean.FALSE);
+		final Boolean newStatusLineVis = newActiveWorkbenchWindow == null ? lastStatusLineVisibility
+				: (newActiveWorkbenchWindow.getStatusLineVisible() ? Boolean.TRUE
+						: Boolean.FALSE);
 
-				if (DEBUG) {
-					logDebuggingInfo("Active shell changed to " //$NON-NLS-1$
-							+ newActiveShell);
-					logDebuggingInfo("Active workbench window changed to " //$NON-NLS-1$
-							+ newActiveWorkbenchWindow);
-					logDebuggingInfo("Active workbench window shell changed to " //$NON-NLS-1$
-							+ newActiveWorkbenchWindowShell);
-					logDebuggingInfo("Active workbench window coolbar visibility " //$NON-NLS-1$
-							+ newCoolbarVisibility);
-					logDebuggingInfo("Active workbench window perspective bar visibility " //$NON-NLS-1$
-							+ newPerspectiveBarVisibility);
-					logDebuggingInfo("Active workbench window status line visibility " //$NON-NLS-1$
-							+ newStatusLineVis);
+		String perspectiveId = lastPerspectiveId;
+		if (newActiveWorkbenchWindow != null) {
+			IWorkbenchPage activePage = newActiveWorkbenchWindow
+					.getActivePage();
+			if (activePage != null) {
+				IPerspectiveDescriptor perspective = activePage
+						.getPerspective();
+				if (perspective != null) {
+					perspectiveId = perspective.getId();
 				}
+			}
+		}
 
-				fireSourceChanged(sourceFlags, sourceValuesByName);
-				hookListener(lastActiveWorkbenchWindow,
-						newActiveWorkbenchWindow);
+		// Figure out which variables have changed.
+		final boolean shellChanged = newActiveShell != lastActiveShell;
+		final boolean windowChanged = newActiveWorkbenchWindowShell != lastActiveWorkbenchWindowShell;
+		final boolean coolbarChanged = newCoolbarVisibility != lastCoolbarVisibility;
+		final boolean statusLineChanged = newStatusLineVis != lastStatusLineVisibility;
+
+		final boolean perspectiveBarChanged = newPerspectiveBarVisibility != lastPerspectiveBarVisibility;
+		final boolean perspectiveIdChanged = !Util.equals(
+				lastPerspectiveId, perspectiveId);
+		// Fire an event for those sources that have changed.
+		if (shellChanged && windowChanged) {
+			final Map sourceValuesByName = new HashMap(5);
+			sourceValuesByName.put(ISources.ACTIVE_SHELL_NAME,
+					newActiveShell);
+			sourceValuesByName.put(ISources.ACTIVE_WORKBENCH_WINDOW_NAME,
+					newActiveWorkbenchWindow);
+			sourceValuesByName.put(
+					ISources.ACTIVE_WORKBENCH_WINDOW_SHELL_NAME,
+					newActiveWorkbenchWindowShell);
+			int sourceFlags = ISources.ACTIVE_SHELL
+					| ISources.ACTIVE_WORKBENCH_WINDOW;
+
+			if (coolbarChanged) {
+				sourceValuesByName
+						.put(
+								ISources.ACTIVE_WORKBENCH_WINDOW_IS_COOLBAR_VISIBLE_NAME,
+								newCoolbarVisibility);
+				sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
+			}
+			if (statusLineChanged) {
+				sourceValuesByName.put(STATUS_LINE_VIS, newStatusLineVis);
+				sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
+			}
+			if (perspectiveBarChanged) {
+				sourceValuesByName
+						.put(
+								ISources.ACTIVE_WORKBENCH_WINDOW_IS_PERSPECTIVEBAR_VISIBLE_NAME,
+								newPerspectiveBarVisibility);
+				sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
+			}
+			if (perspectiveIdChanged) {
+				sourceValuesByName
+						.put(
+								ISources.ACTIVE_WORKBENCH_WINDOW_ACTIVE_PERSPECTIVE_NAME,
+								perspectiveId);
+				sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
+			}
 
-			} else if (shellChanged) {
-				if (DEBUG) {
-					logDebuggingInfo("Active shell changed to " //$NON-NLS-1$
-							+ newActiveShell);
-				}
-				fireSourceChanged(ISources.ACTIVE_SHELL,
-						ISources.ACTIVE_SHELL_NAME, newActiveShell);
-			} else if (windowChanged) {
-				final Map sourceValuesByName = new HashMap(4);
-				sourceValuesByName.put(ISources.ACTIVE_WORKBENCH_WINDOW_NAME,
-						newActiveWorkbenchWindow);
-				sourceValuesByName.put(
-						ISources.ACTIVE_WORKBENCH_WINDOW_SHELL_NAME,
-						newActiveWorkbenchWindowShell);
-
-				int sourceFlags = ISources.ACTIVE_SHELL
-						| ISources.ACTIVE_WORKBENCH_WINDOW;
-
-				if (coolbarChanged) {
-					sourceValuesByName
-							.put(
-									ISources.ACTIVE_WORKBENCH_WINDOW_IS_COOLBAR_VISIBLE_NAME,
-									newCoolbarVisibility);
-					sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
-				}
-				if (statusLineChanged) {
-					sourceValuesByName.put(STATUS_LINE_VIS, newStatusLineVis);
-					sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
-				}
-				if (perspectiveBarChanged) {
-					sourceValuesByName
-							.put(
-									ISources.ACTIVE_WORKBENCH_WINDOW_IS_PERSPECTIVEBAR_VISIBLE_NAME,
-									newPerspectiveBarVisibility);
-					sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
-				}
-				if (perspectiveIdChanged) {
-					sourceValuesByName
-							.put(
-									ISources.ACTIVE_WORKBENCH_WINDOW_ACTIVE_PERSPECTIVE_NAME,
-									perspectiveId);
-					sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
-				}
+			if (DEBUG) {
+				logDebuggingInfo("Active shell changed to " //$NON-NLS-1$
+						+ newActiveShell);
+				logDebuggingInfo("Active workbench window changed to " //$NON-NLS-1$
+						+ newActiveWorkbenchWindow);
+				logDebuggingInfo("Active workbench window shell changed to " //$NON-NLS-1$
+						+ newActiveWorkbenchWindowShell);
+				logDebuggingInfo("Active workbench window coolbar visibility " //$NON-NLS-1$
+						+ newCoolbarVisibility);
+				logDebuggingInfo("Active workbench window perspective bar visibility " //$NON-NLS-1$
+						+ newPerspectiveBarVisibility);
+				logDebuggingInfo("Active workbench window status line visibility " //$NON-NLS-1$
+						+ newStatusLineVis);
+			}
 
-				if (DEBUG) {
-					logDebuggingInfo("Active workbench window changed to " //$NON-NLS-1$
-							+ newActiveWorkbenchWindow);
-					logDebuggingInfo("Active workbench window shell changed to " //$NON-NLS-1$
-							+ newActiveWorkbenchWindowShell);
-					logDebuggingInfo("Active workbench window coolbar visibility " //$NON-NLS-1$
-							+ newCoolbarVisibility);
-					logDebuggingInfo("Active workbench window perspective bar visibility " //$NON-NLS-1$
-							+ newPerspectiveBarVisibility);
-					logDebuggingInfo("Active workbench window status line visibility " //$NON-NLS-1$
-							+ newStatusLineVis);
-				}
+			publish(sourceFlags, sourceValuesByName);
+			hookListener(lastActiveWorkbenchWindow,
+					newActiveWorkbenchWindow);
 
-				fireSourceChanged(sourceFlags, sourceValuesByName);
-				hookListener(lastActiveWorkbenchWindow,
-						newActiveWorkbenchWindow);
+		} else if (shellChanged) {
+			if (DEBUG) {
+				logDebuggingInfo("Active shell changed to " //$NON-NLS-1$
+						+ newActiveShell);
+			}
+			publish(ISources.ACTIVE_SHELL,
+					ISources.ACTIVE_SHELL_NAME, newActiveShell);
+		} else if (windowChanged) {
+			final Map sourceValuesByName = new HashMap(4);
+			sourceValuesByName.put(ISources.ACTIVE_WORKBENCH_WINDOW_NAME,
+					newActiveWorkbenchWindow);
+			sourceValuesByName.put(
+					ISources.ACTIVE_WORKBENCH_WINDOW_SHELL_NAME,
+					newActiveWorkbenchWindowShell);
+
+			int sourceFlags = ISources.ACTIVE_SHELL
+					| ISources.ACTIVE_WORKBENCH_WINDOW;
+
+			if (coolbarChanged) {
+				sourceValuesByName
+						.put(
+								ISources.ACTIVE_WORKBENCH_WINDOW_IS_COOLBAR_VISIBLE_NAME,
+								newCoolbarVisibility);
+				sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
+			}
+			if (statusLineChanged) {
+				sourceValuesByName.put(STATUS_LINE_VIS, newStatusLineVis);
+				sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
+			}
+			if (perspectiveBarChanged) {
+				sourceValuesByName
+						.put(
+								ISources.ACTIVE_WORKBENCH_WINDOW_IS_PERSPECTIVEBAR_VISIBLE_NAME,
+								newPerspectiveBarVisibility);
+				sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
+			}
+			if (perspectiveIdChanged) {
+				sourceValuesByName
+						.put(
+								ISources.ACTIVE_WORKBENCH_WINDOW_ACTIVE_PERSPECTIVE_NAME,
+								perspectiveId);
+				sourceFlags |= ISources.ACTIVE_WORKBENCH_WINDOW_SUBORDINATE;
 			}
 
-			if (shellChanged || windowChanged) {
-				checkOtherSources((Shell) event.widget);
+			if (DEBUG) {
+				logDebuggingInfo("Active workbench window changed to " //$NON-NLS-1$
+						+ newActiveWorkbenchWindow);
+				logDebuggingInfo("Active workbench window shell changed to " //$NON-NLS-1$
+						+ newActiveWorkbenchWindowShell);
+				logDebuggingInfo("Active workbench window coolbar visibility " //$NON-NLS-1$
+						+ newCoolbarVisibility);
+				logDebuggingInfo("Active workbench window perspective bar visibility " //$NON-NLS-1$
+						+ newPerspectiveBarVisibility);
+				logDebuggingInfo("Active workbench window status line visibility " //$NON-NLS-1$
+						+ newStatusLineVis);
 			}
 
-			// Update the member variables.
-			lastActiveShell = newActiveShell;
-			lastActiveWorkbenchWindowShell = newActiveWorkbenchWindowShell;
-			lastActiveWorkbenchWindow = newActiveWorkbenchWindow;
-			lastCoolbarVisibility = newCoolbarVisibility;
-			lastStatusLineVisibility = newStatusLineVis;
-			lastPerspectiveBarVisibility = newPerspectiveBarVisibility;
-			lastPerspectiveId = perspectiveId;
+			publish(sourceFlags, sourceValuesByName);
+			hookListener(lastActiveWorkbenchWindow,
+					newActiveWorkbenchWindow);
 		}
-	};
 
+		if (shellChanged || windowChanged) {
+			checkOtherSources(shell);
+		}
+
+		// Update the member variables.
+		lastActiveShell = newActiveShell;
+		lastActiveWorkbenchWindowShell = newActiveWorkbenchWindowShell;
+		lastActiveWorkbenchWindow = newActiveWorkbenchWindow;
+		lastCoolbarVisibility = newCoolbarVisibility;
+		lastStatusLineVisibility = newStatusLineVis;
+		lastPerspectiveBarVisibility = newPerspectiveBarVisibility;
+		lastPerspectiveId = perspectiveId;
+	}
+
+	/**
+	 * Opens a batch. Changes published until the matching
+	 * {@link #endBatch()} are published together.
+	 */
+	private void startBatch() {
+		batchDepth++;
+	}
+
+	/**
+	 * Closes a batch, publishing the collected changes if it was the
+	 * outermost one.
+	 */
+	private void endBatch() {
+		if (--batchDepth > 0 || pendingChanges.isEmpty()) {
+			return;
+		}
+		final Map changes = new HashMap(pendingChanges);
+		final int sources = pendingSources;
+		pendingChanges.clear();
+		pendingSources = 0;
+		publish(sources, changes);
+	}
+
+	private void publish(final int sourcePriority, final String sourceName,
+			final Object sourceValue) {
+		publish(sourcePriority,
+				Collections.singletonMap(sourceName, sourceValue));
+	}
+
+	/**
+	 * Notifies the listeners of the values. While a batch is open the values
+	 * are only collected, and a variable set more than once in the batch is
+	 * published once with its last value. Values are not compared with the
+	 * ones published before, since other code sets the same variables in the
+	 * workbench contexts, and the listeners would keep a stale value if a
+	 * value was left out.
+	 * 
+	 * @param sourcePriority
+	 *            The source priority that has changed.
+	 * @param sourceValuesByName
+	 *            The map of source names to source values; must not be
+	 *            <code>null</code>.
+	 */
+	private void publish(final int sourcePriority, final Map sourceValuesByName) {
+		if (batchDepth > 0) {
+			pendingChanges.putAll(sourceValuesByName);
+			pendingSources |= sourcePriority;
+			return;
+		}
+
+		if (sourceValuesByName.isEmpty()) {
+			return;
+		}
+		if (DEBUG) {
+			logDebuggingInfo("Published " + sourceValuesByName); //$NON-NLS-1$
+		}
+
+		if (sourceValuesByName.size() == 1) {
+			final Map.Entry entry = (Map.Entry) sourceValuesByName.entrySet()
+					.iterator().next();
+			fireSourceChanged(sourcePriority, (String) entry.getKey(),
+					entry.getValue());
+		} else {
+			fireSourceChanged(sourcePriority, sourceValuesByName);
+		}
+	}
 
 	protected void checkOtherSources(Shell s) {
 		handleCheck(s);
@@ -885,7 +980,7 @@ public class WorkbenchSourceProvider extends AbstractSourceProvider implements
 	protected void handleInputChanged(IEditorPart editor) {
 		IEditorInput newInput = editor.getEditorInput();
 		if (!Util.equals(newInput, lastEditorInput)) {
-			fireSourceChanged(ISources.ACTIVE_EDITOR,
+			publish(ISources.ACTIVE_EDITOR,
 					ISources.ACTIVE_EDITOR_INPUT_NAME,
 					newInput == null ? IEvaluationContext.UNDEFINED_VARIABLE
 							: newInput);
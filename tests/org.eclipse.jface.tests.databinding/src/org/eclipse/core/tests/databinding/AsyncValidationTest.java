@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.databinding.Binding;
+import org.eclipse.core.databinding.DataBindingContext;
+import org.eclipse.core.databinding.UpdateValueStrategy;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.eclipse.core.databinding.validation.IAsyncValidator;
+import org.eclipse.core.databinding.validation.ValidationRequest;
+import org.eclipse.core.databinding.validation.ValidationStatus;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.jface.databinding.conformance.util.CurrentRealm;
+import org.eclipse.jface.databinding.conformance.util.RealmTester;
+
+/**
+ * Tests for asynchronous validation of value bindings.
+ */
+public class AsyncValidationTest extends TestCase {
+	private Realm previousRealm;
+	private CurrentRealm realm;
+
+	private WritableValue target;
+	private WritableValue model;
+	private DataBindingContext dbc;
+	private List requests;
+	private Binding binding;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		previousRealm = Realm.getDefault();
+		realm = new CurrentRealm(true);
+		RealmTester.setDefault(realm);
+
+		target = WritableValue.withValueType(String.class);
+		model = WritableValue.withValueType(String.class);
+		dbc = new DataBindingContext();
+		requests = new ArrayList();
+
+		binding = dbc.bindValue(target, model, new UpdateValueStrategy()
+				.setAsyncValidator(new IAsyncValidator() {
+					public void validate(Object value,
+							ValidationRequest request) {
+						requests.add(request);
+					}
+				}), null);
+	}
+
+	protected void tearDown() throws Exception {
+		dbc.dispose();
+		RealmTester.setDefault(previousRealm);
+		super.tearDown();
+	}
+
+	public void testPendingUntilDone() {
+		target.setValue("value");
+		assertNull(model.getValue());
+		assertTrue(ValidationStatus.isPending(getStatus()));
+		assertEquals(2, requests.size());
+
+		lastRequest().done(ValidationStatus.ok());
+		processAsync();
+
+		assertEquals("value", model.getValue());
+		assertTrue(getStatus().isOK());
+	}
+
+	public void testErrorResultDoesNotUpdateModel() {
+		target.setValue("value");
+		lastRequest().done(ValidationStatus.error("error"));
+		processAsync();
+
+		assertNull(model.getValue());
+		assertEquals(IStatus.ERROR, getStatus().getSeverity());
+		assertFalse(ValidationStatus.isPending(getStatus()));
+	}
+
+	public void testNewValueCancelsRunningValidation() {
+		target.setValue("first");
+		ValidationRequest first = lastRequest();
+		target.setValue("second");
+		ValidationRequest second = lastRequest();
+
+		assertTrue(first.isCancelled());
+		assertFalse(second.isCancelled());
+		assertEquals("second", second.getValue());
+
+		first.done(ValidationStatus.ok());
+		second.done(ValidationStatus.ok());
+		processAsync();
+
+		assertEquals("second", model.getValue());
+	}
+
+	public void testDisposeCancelsRunningValidation() {
+		target.setValue("value");
+		ValidationRequest request = lastRequest();
+
+		binding.dispose();
+		assertTrue(request.isCancelled());
+	}
+
+	private ValidationRequest lastRequest() {
+		return (ValidationRequest) requests.get(requests.size() - 1);
+	}
+
+	private IStatus getStatus() {
+		return (IStatus) binding.getValidationStatus().getValue();
+	}
+
+	private void processAsync() {
+		realm.setCurrent(true);
+	}
+}
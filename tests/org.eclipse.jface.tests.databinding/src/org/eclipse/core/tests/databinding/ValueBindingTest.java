@@ -27,14 +27,17 @@ import org.eclipse.core.databinding.observable.Diffs;
 import org.eclipse.core.databinding.observable.value.AbstractObservableValue;
 import org.eclipse.core.databinding.observable.value.IObservableValue;
 import org.eclipse.core.databinding.observable.value.IValueChangeListener;
+import org.eclipse.core.databinding.observable.value.IntValueDiff;
 import org.eclipse.core.databinding.observable.value.ValueChangeEvent;
 import org.eclipse.core.databinding.observable.value.ValueDiff;
+import org.eclipse.core.databinding.observable.value.WritableIntValue;
 import org.eclipse.core.databinding.observable.value.WritableValue;
 import org.eclipse.core.databinding.validation.IValidator;
 import org.eclipse.core.databinding.validation.ValidationStatus;
 import org.eclipse.core.internal.databinding.BindingStatus;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
 import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
 
 /**
@@ -416,6 +419,35 @@ public class ValueBindingTest extends AbstractDefaultRealmTestCase {
 		};
 	}
 
+	public void testPrimitiveValuesCopiedUnboxed() throws Exception {
+		WritableIntValue intTarget = new WritableIntValue();
+		WritableIntValue intModel = new WritableIntValue(3);
+		Binding binding = dbc.bindValue(intTarget, intModel);
+		assertEquals(3, intTarget.getIntValue());
+
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(intModel);
+		intTarget.setIntValue(4);
+		assertEquals(4, intModel.getIntValue());
+		assertTrue(tracker.event.diff instanceof IntValueDiff);
+		assertTrue(((IStatus) binding.getValidationStatus().getValue())
+				.isOK());
+	}
+
+	public void testPrimitiveValuesValidatedWhenStrategyValidates()
+			throws Exception {
+		WritableIntValue intTarget = new WritableIntValue();
+		WritableIntValue intModel = new WritableIntValue();
+		Binding binding = dbc.bindValue(intTarget, intModel,
+				new UpdateValueStrategy()
+						.setBeforeSetValidator(warningValidator()), null);
+
+		intTarget.setIntValue(2);
+		assertEquals(2, intModel.getIntValue());
+		assertEquals(IStatus.WARNING, ((IStatus) binding
+				.getValidationStatus().getValue()).getSeverity());
+	}
+
 	private static class ObservableValueStub extends AbstractObservableValue {
 		protected Object doGetValue() {
 			// do nothing
@@ -7,10 +7,12 @@
  *
  * Contributors:
  *     Matthew Hall - initial API and implementation (bug 255734)
+ *     IBM Corporation - weakly referenced listeners
  ******************************************************************************/
 
 package org.eclipse.core.tests.databinding.observable;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -20,8 +22,10 @@ import org.eclipse.core.databinding.observable.ChangeSupport;
 import org.eclipse.core.databinding.observable.DisposeEvent;
 import org.eclipse.core.databinding.observable.IDisposeListener;
 import org.eclipse.core.databinding.observable.IStaleListener;
+import org.eclipse.core.databinding.observable.IWeakListener;
 import org.eclipse.core.databinding.observable.Realm;
 import org.eclipse.core.databinding.observable.StaleEvent;
+import org.eclipse.core.databinding.observable.value.WritableValue;
 import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
 
 /**
@@ -67,6 +71,50 @@ public class ChangeSupportTest extends AbstractDefaultRealmTestCase {
 				changeSupport.log);
 	}
 
+	public void testWeakListener_ReceivesEventsAndCanBeRemoved() {
+		WeakStaleListener listener = new WeakStaleListener();
+
+		changeSupport.addStaleListener(listener);
+		assertTrue(changeSupport.hasListeners());
+
+		changeSupport.fireEvent(new StaleEvent(new WritableValue()));
+		assertEquals(1, listener.count);
+
+		changeSupport.removeStaleListener(listener);
+		assertFalse(changeSupport.hasListeners());
+		assertEquals(Arrays.asList(new Object[] { ADD_FIRST, REMOVE_LAST }),
+				changeSupport.log);
+
+		changeSupport.fireEvent(new StaleEvent(new WritableValue()));
+		assertEquals(1, listener.count);
+	}
+
+	public void testWeakListener_DroppedOnceCollected() {
+		WeakStaleListener listener = new WeakStaleListener();
+		WeakReference reference = new WeakReference(listener);
+		changeSupport.addStaleListener(listener);
+		listener = null;
+
+		for (int i = 0; i < 20 && reference.get() != null; i++)
+			System.gc();
+		if (reference.get() != null)
+			return; // the VM did not collect the listener, nothing to check
+
+		changeSupport.fireEvent(new StaleEvent(new WritableValue()));
+		assertFalse(changeSupport.hasListeners());
+		assertEquals(Arrays.asList(new Object[] { ADD_FIRST, REMOVE_LAST }),
+				changeSupport.log);
+	}
+
+	private static class WeakStaleListener implements IStaleListener,
+			IWeakListener {
+		int count;
+
+		public void handleStale(StaleEvent staleEvent) {
+			count++;
+		}
+	}
+
 	private static final String ADD_FIRST = "firstListenerAdded";
 	private static final String REMOVE_LAST = "lastListenerRemoved";
 
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.observable;
+
+import java.util.Arrays;
+
+import org.eclipse.core.databinding.observable.ChangeEvent;
+import org.eclipse.core.databinding.observable.IChangeListener;
+import org.eclipse.core.databinding.observable.IObservable;
+import org.eclipse.core.databinding.observable.ObservableLeakDetector;
+import org.eclipse.core.databinding.observable.ObservableTracker;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+
+/**
+ * @since 1.5
+ */
+public class ObservableLeakDetectorTest extends AbstractDefaultRealmTestCase {
+	private IChangeListener listener = new IChangeListener() {
+		public void handleChange(ChangeEvent event) {
+		}
+	};
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ObservableLeakDetector.setEnabled(true);
+	}
+
+	protected void tearDown() throws Exception {
+		ObservableLeakDetector.setEnabled(false);
+		super.tearDown();
+	}
+
+	public void testFindLeaks_UndisposedObservableWithListeners() {
+		WritableValue value = new WritableValue();
+		value.addChangeListener(listener);
+
+		assertTrue(Arrays.asList(
+				ObservableLeakDetector.findLeaks(Realm.getDefault())).contains(
+				value));
+
+		value.dispose();
+		assertFalse(Arrays.asList(
+				ObservableLeakDetector.findLeaks(Realm.getDefault())).contains(
+				value));
+	}
+
+	public void testFindLeaks_IgnoresObservablesWithoutListeners() {
+		WritableValue value = new WritableValue();
+		assertFalse(Arrays.asList(
+				ObservableLeakDetector.findLeaks(Realm.getDefault())).contains(
+				value));
+	}
+
+	public void testFindLeaks_IgnoresManagedObservables() {
+		final WritableValue[] value = new WritableValue[1];
+		ObservableTracker.runAndCollect(new Runnable() {
+			public void run() {
+				value[0] = new WritableValue();
+			}
+		});
+		value[0].addChangeListener(listener);
+
+		assertFalse(Arrays.asList(
+				ObservableLeakDetector.findLeaks(Realm.getDefault())).contains(
+				value[0]));
+	}
+
+	public void testGetLiveObservableCounts() {
+		String type = WritableValue.class.getName();
+		int before = count(type);
+
+		WritableValue first = new WritableValue();
+		WritableValue second = new WritableValue();
+		assertEquals(before + 2, count(type));
+
+		first.dispose();
+		assertEquals(before + 1, count(type));
+		second.dispose();
+	}
+
+	public void testDisabled_DoesNotTrack() {
+		ObservableLeakDetector.setEnabled(false);
+		WritableValue value = new WritableValue();
+		value.addChangeListener(listener);
+
+		IObservable[] leaks = ObservableLeakDetector.findLeaks(Realm
+				.getDefault());
+		assertEquals(0, leaks.length);
+	}
+
+	private static int count(String type) {
+		Integer count = (Integer) ObservableLeakDetector
+				.getLiveObservableCounts().get(type);
+		return count == null ? 0 : count.intValue();
+	}
+}
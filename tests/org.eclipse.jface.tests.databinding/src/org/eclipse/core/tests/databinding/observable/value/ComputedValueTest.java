@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2007 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,16 +9,20 @@
  *     IBM Corporation - initial API and implementation
  *     Brad Reynolds - bug 116920
  *     Brad Reynolds - bug 164653
+ *     IBM Corporation - weak dependency listeners
  *******************************************************************************/
 
 package org.eclipse.core.tests.databinding.observable.value;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.core.databinding.observable.value.ComputedValue;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
 import org.eclipse.core.databinding.observable.value.WritableValue;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
 import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
 
 /**
@@ -131,4 +135,55 @@ public class ComputedValueTest extends AbstractDefaultRealmTestCase {
         } catch (UnsupportedOperationException e) {
         }
     }
+
+    public void testWeakDependencyListeners_ReceivesChanges() throws Exception {
+        WritableValueExt value = new WritableValueExt(Integer.TYPE, new Integer(1));
+        ComputedValue cv = new WeakComputedValue(value);
+        ValueChangeEventTracker tracker = ValueChangeEventTracker.observe(cv);
+
+        assertEquals(new Integer(1), cv.getValue());
+        assertTrue(value.hasListeners());
+
+        value.setValue(new Integer(2));
+        assertEquals(1, tracker.count);
+        assertEquals(new Integer(2), cv.getValue());
+
+        cv.dispose();
+        assertFalse(value.hasListeners());
+    }
+
+    public void testWeakDependencyListeners_CollectedWhenUnreferenced() throws Exception {
+        WritableValueExt value = new WritableValueExt(Integer.TYPE, new Integer(1));
+        WeakReference reference = new WeakReference(createListenedComputedValue(value));
+        assertTrue(value.hasListeners());
+
+        for (int i = 0; i < 20 && reference.get() != null; i++)
+            System.gc();
+        if (reference.get() != null)
+            return; // the VM did not collect the computed value, nothing to check
+
+        // the dependency drops the cleared listener when firing
+        value.setValue(new Integer(2));
+        assertFalse(value.hasListeners());
+    }
+
+    private static ComputedValue createListenedComputedValue(IObservableValue value) {
+        ComputedValue cv = new WeakComputedValue(value);
+        ValueChangeEventTracker.observe(cv);
+        cv.getValue();
+        return cv;
+    }
+
+    private static class WeakComputedValue extends ComputedValue {
+        private final IObservableValue value;
+
+        WeakComputedValue(IObservableValue value) {
+            this.value = value;
+            setWeakDependencyListeners(true);
+        }
+
+        protected Object calculate() {
+            return value.getValue();
+        }
+    }
 }
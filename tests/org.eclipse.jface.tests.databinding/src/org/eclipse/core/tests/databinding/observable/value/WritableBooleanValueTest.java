@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.observable.value;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.databinding.observable.IObservable;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.BooleanValueDiff;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.WritableBooleanValue;
+import org.eclipse.jface.databinding.conformance.MutableObservableValueContractTest;
+import org.eclipse.jface.databinding.conformance.delegate.AbstractObservableValueContractDelegate;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+
+/**
+ * @since 1.5
+ */
+public class WritableBooleanValueTest extends AbstractDefaultRealmTestCase {
+	public void testConstructor() throws Exception {
+		WritableBooleanValue value = new WritableBooleanValue();
+		assertFalse(value.getBooleanValue());
+		assertEquals(Boolean.TYPE, value.getValueType());
+		assertSame(Boolean.FALSE, value.getValue());
+
+		value = new WritableBooleanValue(true);
+		assertTrue(value.getBooleanValue());
+		assertSame(Boolean.TRUE, value.getValue());
+	}
+
+	public void testSetBooleanValueFiresBooleanValueDiff() throws Exception {
+		WritableBooleanValue value = new WritableBooleanValue(false);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setBooleanValue(true);
+
+		assertEquals(1, tracker.count);
+		assertTrue(tracker.event.diff instanceof BooleanValueDiff);
+		BooleanValueDiff diff = (BooleanValueDiff) tracker.event.diff;
+		assertFalse(diff.getOldBooleanValue());
+		assertTrue(diff.getNewBooleanValue());
+		assertEquals(Boolean.FALSE, diff.getOldValue());
+		assertEquals(Boolean.TRUE, diff.getNewValue());
+	}
+
+	public void testSetSameBooleanValueDoesNotFire() throws Exception {
+		WritableBooleanValue value = new WritableBooleanValue(true);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setBooleanValue(true);
+		value.setValue(Boolean.TRUE);
+
+		assertEquals(0, tracker.count);
+	}
+
+	public void testBoxedSetValue() throws Exception {
+		WritableBooleanValue value = new WritableBooleanValue();
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setValue(Boolean.TRUE);
+
+		assertEquals(1, tracker.count);
+		assertTrue(value.getBooleanValue());
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(WritableBooleanValueTest.class.getName());
+		suite.addTestSuite(WritableBooleanValueTest.class);
+		suite.addTest(MutableObservableValueContractTest.suite(new Delegate()));
+		return suite;
+	}
+
+	/* package */static class Delegate extends
+			AbstractObservableValueContractDelegate {
+		public IObservableValue createObservableValue(Realm realm) {
+			return new WritableBooleanValue(realm, false);
+		}
+
+		public void change(IObservable observable) {
+			IObservableValue observableValue = (IObservableValue) observable;
+			observableValue.setValue(createValue(observableValue));
+		}
+
+		public Object getValueType(IObservableValue observable) {
+			return Boolean.TYPE;
+		}
+
+		public Object createValue(IObservableValue observable) {
+			return Boolean.valueOf(!((WritableBooleanValue) observable)
+					.getBooleanValue());
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.observable.value;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.databinding.observable.IObservable;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.DoubleValueDiff;
+import org.eclipse.core.databinding.observable.value.WritableDoubleValue;
+import org.eclipse.jface.databinding.conformance.MutableObservableValueContractTest;
+import org.eclipse.jface.databinding.conformance.delegate.AbstractObservableValueContractDelegate;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+
+/**
+ * @since 1.5
+ */
+public class WritableDoubleValueTest extends AbstractDefaultRealmTestCase {
+	public void testConstructor() throws Exception {
+		WritableDoubleValue value = new WritableDoubleValue();
+		assertEquals(0.0, value.getDoubleValue(), 0);
+		assertEquals(Double.TYPE, value.getValueType());
+		assertEquals(new Double(0.0), value.getValue());
+
+		value = new WritableDoubleValue(7.25);
+		assertEquals(7.25, value.getDoubleValue(), 0);
+	}
+
+	public void testSetDoubleValueFiresDoubleValueDiff() throws Exception {
+		WritableDoubleValue value = new WritableDoubleValue(1.5);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setDoubleValue(-2.5);
+
+		assertEquals(1, tracker.count);
+		assertTrue(tracker.event.diff instanceof DoubleValueDiff);
+		DoubleValueDiff diff = (DoubleValueDiff) tracker.event.diff;
+		assertEquals(1.5, diff.getOldDoubleValue(), 0);
+		assertEquals(-2.5, diff.getNewDoubleValue(), 0);
+		assertEquals(new Double(1.5), diff.getOldValue());
+		assertEquals(new Double(-2.5), diff.getNewValue());
+	}
+
+	public void testSetSameDoubleValueDoesNotFire() throws Exception {
+		WritableDoubleValue value = new WritableDoubleValue(3.0);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setDoubleValue(3.0);
+		value.setValue(new Double(3.0));
+
+		assertEquals(0, tracker.count);
+	}
+
+	public void testBoxedSetValue() throws Exception {
+		WritableDoubleValue value = new WritableDoubleValue();
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setValue(new Double(7.25));
+
+		assertEquals(1, tracker.count);
+		assertEquals(7.25, value.getDoubleValue(), 0);
+	}
+
+	public void testSetNaNTwiceDoesNotFire() throws Exception {
+		WritableDoubleValue value = new WritableDoubleValue(Double.NaN);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setDoubleValue(Double.NaN);
+
+		assertEquals(0, tracker.count);
+	}
+
+	public void testSetNegativeZeroFires() throws Exception {
+		WritableDoubleValue value = new WritableDoubleValue(0.0);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setDoubleValue(-0.0);
+
+		assertEquals(1, tracker.count);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(WritableDoubleValueTest.class.getName());
+		suite.addTestSuite(WritableDoubleValueTest.class);
+		suite.addTest(MutableObservableValueContractTest.suite(new Delegate()));
+		return suite;
+	}
+
+	/* package */static class Delegate extends
+			AbstractObservableValueContractDelegate {
+		public IObservableValue createObservableValue(Realm realm) {
+			return new WritableDoubleValue(realm, 0);
+		}
+
+		public void change(IObservable observable) {
+			IObservableValue observableValue = (IObservableValue) observable;
+			observableValue.setValue(createValue(observableValue));
+		}
+
+		public Object getValueType(IObservableValue observable) {
+			return Double.TYPE;
+		}
+
+		public Object createValue(IObservableValue observable) {
+			return new Double(((WritableDoubleValue) observable).getDoubleValue() + 1);
+		}
+	}
+}
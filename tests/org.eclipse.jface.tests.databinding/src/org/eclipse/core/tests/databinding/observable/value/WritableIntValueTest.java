@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.observable.value;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.databinding.observable.IObservable;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.IntValueDiff;
+import org.eclipse.core.databinding.observable.value.WritableBooleanValue;
+import org.eclipse.core.databinding.observable.value.WritableDoubleValue;
+import org.eclipse.core.databinding.observable.value.WritableIntValue;
+import org.eclipse.jface.databinding.conformance.MutableObservableValueContractTest;
+import org.eclipse.jface.databinding.conformance.delegate.AbstractObservableValueContractDelegate;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+
+/**
+ * @since 1.5
+ */
+public class WritableIntValueTest extends AbstractDefaultRealmTestCase {
+	public void testConstructor() throws Exception {
+		WritableIntValue value = new WritableIntValue();
+		assertEquals(0, value.getIntValue());
+		assertEquals(Integer.TYPE, value.getValueType());
+		assertEquals(new Integer(0), value.getValue());
+
+		value = new WritableIntValue(5);
+		assertEquals(5, value.getIntValue());
+	}
+
+	public void testSetIntValueFiresIntValueDiff() throws Exception {
+		WritableIntValue value = new WritableIntValue(1);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setIntValue(2);
+
+		assertEquals(1, tracker.count);
+		assertTrue(tracker.event.diff instanceof IntValueDiff);
+		IntValueDiff diff = (IntValueDiff) tracker.event.diff;
+		assertEquals(1, diff.getOldIntValue());
+		assertEquals(2, diff.getNewIntValue());
+		assertEquals(new Integer(1), diff.getOldValue());
+		assertEquals(new Integer(2), diff.getNewValue());
+	}
+
+	public void testSetSameIntValueDoesNotFire() throws Exception {
+		WritableIntValue value = new WritableIntValue(3);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setIntValue(3);
+		value.setValue(new Integer(3));
+
+		assertEquals(0, tracker.count);
+	}
+
+	public void testBoxedSetValue() throws Exception {
+		WritableIntValue value = new WritableIntValue();
+		value.setValue(new Integer(7));
+		assertEquals(7, value.getIntValue());
+	}
+
+	public void testDoubleValueComparesBits() throws Exception {
+		WritableDoubleValue value = new WritableDoubleValue(Double.NaN);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setDoubleValue(Double.NaN);
+		assertEquals(0, tracker.count);
+
+		value.setDoubleValue(0.5);
+		assertEquals(1, tracker.count);
+	}
+
+	public void testBooleanValue() throws Exception {
+		WritableBooleanValue value = new WritableBooleanValue();
+		assertEquals(Boolean.FALSE, value.getValue());
+
+		value.setBooleanValue(true);
+		assertSame(Boolean.TRUE, value.getValue());
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(WritableIntValueTest.class.getName());
+		suite.addTestSuite(WritableIntValueTest.class);
+		suite.addTest(MutableObservableValueContractTest.suite(new Delegate()));
+		return suite;
+	}
+
+	/* package */static class Delegate extends
+			AbstractObservableValueContractDelegate {
+		public IObservableValue createObservableValue(Realm realm) {
+			return new WritableIntValue(realm, 0);
+		}
+
+		public void change(IObservable observable) {
+			IObservableValue observableValue = (IObservableValue) observable;
+			observableValue.setValue(createValue(observableValue));
+		}
+
+		public Object getValueType(IObservableValue observable) {
+			return Integer.TYPE;
+		}
+
+		public Object createValue(IObservableValue observable) {
+			return new Integer(((WritableIntValue) observable).getIntValue() + 1);
+		}
+	}
+}
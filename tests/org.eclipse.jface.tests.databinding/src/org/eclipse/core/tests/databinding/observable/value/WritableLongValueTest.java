@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.databinding.observable.value;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.databinding.observable.IObservable;
+import org.eclipse.core.databinding.observable.Realm;
+import org.eclipse.core.databinding.observable.value.IObservableValue;
+import org.eclipse.core.databinding.observable.value.LongValueDiff;
+import org.eclipse.core.databinding.observable.value.WritableLongValue;
+import org.eclipse.jface.databinding.conformance.MutableObservableValueContractTest;
+import org.eclipse.jface.databinding.conformance.delegate.AbstractObservableValueContractDelegate;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+
+/**
+ * @since 1.5
+ */
+public class WritableLongValueTest extends AbstractDefaultRealmTestCase {
+	public void testConstructor() throws Exception {
+		WritableLongValue value = new WritableLongValue();
+		assertEquals(0L, value.getLongValue());
+		assertEquals(Long.TYPE, value.getValueType());
+		assertEquals(new Long(0L), value.getValue());
+
+		value = new WritableLongValue(7L);
+		assertEquals(7L, value.getLongValue());
+	}
+
+	public void testSetLongValueFiresLongValueDiff() throws Exception {
+		WritableLongValue value = new WritableLongValue(1L);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setLongValue(Long.MAX_VALUE);
+
+		assertEquals(1, tracker.count);
+		assertTrue(tracker.event.diff instanceof LongValueDiff);
+		LongValueDiff diff = (LongValueDiff) tracker.event.diff;
+		assertEquals(1L, diff.getOldLongValue());
+		assertEquals(Long.MAX_VALUE, diff.getNewLongValue());
+		assertEquals(new Long(1L), diff.getOldValue());
+		assertEquals(new Long(Long.MAX_VALUE), diff.getNewValue());
+	}
+
+	public void testSetSameLongValueDoesNotFire() throws Exception {
+		WritableLongValue value = new WritableLongValue(3L);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setLongValue(3L);
+		value.setValue(new Long(3L));
+
+		assertEquals(0, tracker.count);
+	}
+
+	public void testBoxedSetValue() throws Exception {
+		WritableLongValue value = new WritableLongValue();
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setValue(new Long(7L));
+
+		assertEquals(1, tracker.count);
+		assertEquals(7L, value.getLongValue());
+	}
+
+	public void testSetValueBeyondIntRange() throws Exception {
+		WritableLongValue value = new WritableLongValue();
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(value);
+
+		value.setLongValue(1L << 40);
+
+		assertEquals(1, tracker.count);
+		assertEquals(1L << 40, value.getLongValue());
+		assertEquals(new Long(1L << 40), value.getValue());
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(WritableLongValueTest.class.getName());
+		suite.addTestSuite(WritableLongValueTest.class);
+		suite.addTest(MutableObservableValueContractTest.suite(new Delegate()));
+		return suite;
+	}
+
+	/* package */static class Delegate extends
+			AbstractObservableValueContractDelegate {
+		public IObservableValue createObservableValue(Realm realm) {
+			return new WritableLongValue(realm, 0);
+		}
+
+		public void change(IObservable observable) {
+			IObservableValue observableValue = (IObservableValue) observable;
+			observableValue.setValue(createValue(observableValue));
+		}
+
+		public Object getValueType(IObservableValue observable) {
+			return Long.TYPE;
+		}
+
+		public Object createValue(IObservableValue observable) {
+			return new Long(((WritableLongValue) observable).getLongValue() + 1);
+		}
+	}
+}
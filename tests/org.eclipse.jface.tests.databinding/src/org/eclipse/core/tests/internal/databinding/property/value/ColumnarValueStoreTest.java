@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.internal.databinding.property.value;
+
+import org.eclipse.core.databinding.observable.map.IObservableMap;
+import org.eclipse.core.databinding.observable.set.WritableSet;
+import org.eclipse.core.databinding.property.Properties;
+import org.eclipse.core.databinding.property.value.IValueProperty;
+import org.eclipse.core.internal.databinding.beans.BeanPropertyHelper;
+import org.eclipse.core.internal.databinding.beans.BeanValueProperty;
+import org.eclipse.core.internal.databinding.property.value.ColumnObservableMap;
+import org.eclipse.core.internal.databinding.property.value.SelfValueProperty;
+import org.eclipse.core.tests.internal.databinding.beans.Bean;
+import org.eclipse.jface.databinding.conformance.util.MapChangeEventTracker;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+
+public class ColumnarValueStoreTest extends AbstractDefaultRealmTestCase {
+	private WritableSet masterSet;
+	private IValueProperty valueProperty;
+	private IObservableMap[] columns;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		masterSet = WritableSet.withElementType(Bean.class);
+		valueProperty = new BeanValueProperty(
+				BeanPropertyHelper.getPropertyDescriptor(Bean.class, "value"),
+				String.class);
+		columns = Properties.observeColumns(masterSet, new IValueProperty[] {
+				valueProperty, new SelfValueProperty(Bean.class) });
+	}
+
+	public void testColumnsShareStore() {
+		assertTrue(columns[0] instanceof ColumnObservableMap);
+		assertTrue(columns[1] instanceof ColumnObservableMap);
+		assertEquals(Bean.class, columns[0].getKeyType());
+		assertEquals(String.class, columns[0].getValueType());
+		assertEquals(Bean.class, columns[1].getValueType());
+	}
+
+	public void testGetWithoutListeners() {
+		Bean bean = new Bean("a");
+		masterSet.add(bean);
+
+		assertEquals("a", columns[0].get(bean));
+		assertSame(bean, columns[1].get(bean));
+		assertNull(columns[0].get(new Bean("b")));
+	}
+
+	public void testAddRemoveKeys() {
+		MapChangeEventTracker tracker = MapChangeEventTracker
+				.observe(columns[0]);
+
+		Bean bean = new Bean("a");
+		masterSet.add(bean);
+		assertEquals(1, tracker.count);
+		assertTrue(tracker.event.diff.getAddedKeys().contains(bean));
+		assertEquals("a", tracker.event.diff.getNewValue(bean));
+
+		masterSet.remove(bean);
+		assertEquals(2, tracker.count);
+		assertTrue(tracker.event.diff.getRemovedKeys().contains(bean));
+		assertEquals("a", tracker.event.diff.getOldValue(bean));
+	}
+
+	public void testManyKeys() {
+		MapChangeEventTracker.observe(columns[0]);
+
+		Bean[] beans = new Bean[1000];
+		for (int i = 0; i < beans.length; i++) {
+			beans[i] = new Bean(Integer.toString(i));
+			masterSet.add(beans[i]);
+		}
+		for (int i = 0; i < beans.length; i += 2)
+			masterSet.remove(beans[i]);
+		for (int i = 0; i < beans.length; i++) {
+			Object expected = i % 2 == 0 ? null : Integer.toString(i);
+			assertEquals(expected, columns[0].get(beans[i]));
+		}
+	}
+
+	public void testPropertyChange() {
+		Bean bean = new Bean("a");
+		masterSet.add(bean);
+		MapChangeEventTracker tracker = MapChangeEventTracker
+				.observe(columns[0]);
+
+		bean.setValue("b");
+		assertEquals(1, tracker.count);
+		assertEquals(1, tracker.event.diff.getChangedKeys().size());
+		assertEquals("a", tracker.event.diff.getOldValue(bean));
+		assertEquals("b", tracker.event.diff.getNewValue(bean));
+		assertEquals("b", columns[0].get(bean));
+	}
+
+	public void testPut() {
+		Bean bean = new Bean("a");
+		masterSet.add(bean);
+		MapChangeEventTracker tracker = MapChangeEventTracker
+				.observe(columns[0]);
+
+		assertEquals("a", columns[0].put(bean, "b"));
+		assertEquals("b", bean.getValue());
+		assertEquals(1, tracker.count);
+	}
+
+	public void testDisposeWithMasterSet() {
+		masterSet.dispose();
+		assertTrue(columns[0].isDisposed());
+		assertTrue(columns[1].isDisposed());
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.core.tests.internal.databinding.property.value;
+
+import org.eclipse.core.databinding.observable.Diffs;
+import org.eclipse.core.databinding.observable.value.IObservableIntValue;
+import org.eclipse.core.databinding.observable.value.IntValueDiff;
+import org.eclipse.core.databinding.property.INativePropertyListener;
+import org.eclipse.core.databinding.property.ISimplePropertyListener;
+import org.eclipse.core.databinding.property.NativePropertyListener;
+import org.eclipse.core.databinding.property.SimplePropertyEvent;
+import org.eclipse.core.databinding.property.value.IIntValueProperty;
+import org.eclipse.core.databinding.property.value.SimpleValueProperty;
+import org.eclipse.jface.databinding.conformance.util.ValueChangeEventTracker;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+
+public class SimplePropertyObservableIntValueTest extends
+		AbstractDefaultRealmTestCase {
+
+	/**
+	 * An int property of an <code>int[1]</code> whose listener reports the
+	 * changes with boxed diffs.
+	 */
+	static class IntProperty extends SimpleValueProperty implements
+			IIntValueProperty {
+		ISimplePropertyListener listener;
+
+		public Object getValueType() {
+			return Integer.TYPE;
+		}
+
+		protected Object doGetValue(Object source) {
+			return new Integer(getIntValue(source));
+		}
+
+		protected void doSetValue(Object source, Object value) {
+			setIntValue(source, ((Integer) value).intValue());
+		}
+
+		public int getIntValue(Object source) {
+			return ((int[]) source)[0];
+		}
+
+		public void setIntValue(Object source, int value) {
+			((int[]) source)[0] = value;
+		}
+
+		public INativePropertyListener adaptListener(
+				ISimplePropertyListener listener) {
+			this.listener = listener;
+			return new NativePropertyListener(this, listener) {
+				protected void doAddTo(Object source) {
+				}
+
+				protected void doRemoveFrom(Object source) {
+				}
+			};
+		}
+
+		void changed(Object source, int oldValue, int newValue) {
+			setIntValue(source, newValue);
+			listener.handleEvent(new SimplePropertyEvent(
+					SimplePropertyEvent.CHANGE, source, this, Diffs
+							.createValueDiff(new Integer(oldValue),
+									new Integer(newValue))));
+		}
+	}
+
+	public void testNativeChangeFiresIntValueDiff() throws Exception {
+		int[] source = new int[] { 1 };
+		IntProperty property = new IntProperty();
+		IObservableIntValue observable = (IObservableIntValue) property
+				.observe(source);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(observable);
+
+		property.changed(source, 1, 2);
+
+		assertEquals(1, tracker.count);
+		assertTrue(tracker.event.diff instanceof IntValueDiff);
+		IntValueDiff diff = (IntValueDiff) tracker.event.diff;
+		assertEquals(1, diff.getOldIntValue());
+		assertEquals(2, diff.getNewIntValue());
+		assertEquals(2, observable.getIntValue());
+	}
+
+	public void testSetIntValueFiresIntValueDiff() throws Exception {
+		int[] source = new int[] { 1 };
+		IObservableIntValue observable = (IObservableIntValue) new IntProperty()
+				.observe(source);
+		ValueChangeEventTracker tracker = ValueChangeEventTracker
+				.observe(observable);
+
+		observable.setIntValue(3);
+
+		assertEquals(1, tracker.count);
+		assertTrue(tracker.event.diff instanceof IntValueDiff);
+		assertEquals(3, ((IntValueDiff) tracker.event.diff).getNewIntValue());
+		assertEquals(3, source[0]);
+	}
+}
@@ -26,6 +26,7 @@ import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 import org.eclipse.core.tests.databinding.AggregateValidationStatusTest;
+import org.eclipse.core.tests.databinding.AsyncValidationTest;
 import org.eclipse.core.tests.databinding.BindingTest;
 import org.eclipse.core.tests.databinding.DatabindingContextTest;
 import org.eclipse.core.tests.databinding.ListBindingTest;
@@ -49,6 +50,7 @@ import org.eclipse.core.tests.databinding.observable.ChangeSupportTest;
 import org.eclipse.core.tests.databinding.observable.DecoratingObservableTest;
 import org.eclipse.core.tests.databinding.observable.DiffsTest;
 import org.eclipse.core.tests.databinding.observable.Diffs_ListDiffTests;
+import org.eclipse.core.tests.databinding.observable.ObservableLeakDetectorTest;
 import org.eclipse.core.tests.databinding.observable.ObservableTrackerTest;
 import org.eclipse.core.tests.databinding.observable.ObservablesTest;
 import org.eclipse.core.tests.databinding.observable.RealmTest;
@@ -79,6 +81,10 @@ import org.eclipse.core.tests.databinding.observable.value.DateAndTimeObservable
 import org.eclipse.core.tests.databinding.observable.value.DecoratingObservableValueTest;
 import org.eclipse.core.tests.databinding.observable.value.DuplexingObservableValueTest;
 import org.eclipse.core.tests.databinding.observable.value.SelectObservableValueTest;
+import org.eclipse.core.tests.databinding.observable.value.WritableBooleanValueTest;
+import org.eclipse.core.tests.databinding.observable.value.WritableDoubleValueTest;
+import org.eclipse.core.tests.databinding.observable.value.WritableIntValueTest;
+import org.eclipse.core.tests.databinding.observable.value.WritableLongValueTest;
 import org.eclipse.core.tests.databinding.observable.value.WritableValueTest;
 import org.eclipse.core.tests.databinding.util.PolicyTest;
 import org.eclipse.core.tests.databinding.validation.MultiValidatorTest;
@@ -147,9 +153,11 @@ import org.eclipse.core.tests.internal.databinding.observable.masterdetail.Detai
 import org.eclipse.core.tests.internal.databinding.observable.masterdetail.ListDetailValueObservableListTest;
 import org.eclipse.core.tests.internal.databinding.observable.masterdetail.MapDetailValueObservableMapTest;
 import org.eclipse.core.tests.internal.databinding.observable.masterdetail.SetDetailValueObservableMapTest;
+import org.eclipse.core.tests.internal.databinding.property.value.ColumnarValueStoreTest;
 import org.eclipse.core.tests.internal.databinding.property.value.ListSimpleValueObservableListTest;
 import org.eclipse.core.tests.internal.databinding.property.value.MapSimpleValueObservableMapTest;
 import org.eclipse.core.tests.internal.databinding.property.value.SetSimpleValueObservableMapTest;
+import org.eclipse.core.tests.internal.databinding.property.value.SimplePropertyObservableIntValueTest;
 import org.eclipse.core.tests.internal.databinding.validation.AbstractStringToNumberValidatorTest;
 import org.eclipse.core.tests.internal.databinding.validation.NumberToByteValidatorTest;
 import org.eclipse.core.tests.internal.databinding.validation.NumberToDoubleValidatorTest;
@@ -171,6 +179,7 @@ import org.eclipse.jface.tests.databinding.swt.SWTObservablesTest;
 import org.eclipse.jface.tests.databinding.swt.WidgetObservableThreadTest;
 import org.eclipse.jface.tests.databinding.swt.WidgetPropertiesTest;
 import org.eclipse.jface.tests.databinding.viewers.ObservableListContentProviderTest;
+import org.eclipse.jface.tests.databinding.viewers.ObservableListLazyContentProviderTest;
 import org.eclipse.jface.tests.databinding.viewers.ObservableListTreeContentProviderTest;
 import org.eclipse.jface.tests.databinding.viewers.ObservableMapLabelProviderTest;
 import org.eclipse.jface.tests.databinding.viewers.ObservableSetContentProviderTest;
@@ -251,6 +260,7 @@ public class BindingTestSuite extends TestSuite {
 		addTestSuite(UpdateSetStrategyTest.class);
 		addTestSuite(UpdateValueStrategyTest.class);
 		addTestSuite(ValueBindingTest.class);
+		addTestSuite(AsyncValidationTest.class);
 		addTestSuite(ObservablesManagerTest.class);
 
 		// org.eclipse.core.tests.databinding.util
@@ -275,6 +285,7 @@ public class BindingTestSuite extends TestSuite {
 		addTestSuite(DecoratingObservableTest.class);
 		addTestSuite(Diffs_ListDiffTests.class);
 		addTestSuite(DiffsTest.class);
+		addTestSuite(ObservableLeakDetectorTest.class);
 		addTestSuite(ObservablesTest.class);
 		addTestSuite(ObservableTrackerTest.class);
 		addTestSuite(RealmTest.class);
@@ -313,6 +324,10 @@ public class BindingTestSuite extends TestSuite {
 		addTest(DecoratingObservableValueTest.suite());
 		addTestSuite(DuplexingObservableValueTest.class);
 		addTest(SelectObservableValueTest.suite());
+		addTest(WritableIntValueTest.suite());
+		addTest(WritableLongValueTest.suite());
+		addTest(WritableDoubleValueTest.suite());
+		addTest(WritableBooleanValueTest.suite());
 		addTest(WritableValueTest.suite());
 
 		// org.eclipse.core.tests.databinding.validation
@@ -399,6 +414,8 @@ public class BindingTestSuite extends TestSuite {
 		addTestSuite(MapSimpleValueObservableMapTest.class);
 		addTestSuite(SetSimpleValueObservableMapTest.class);
 		addTestSuite(ListSimpleValueObservableListTest.class);
+		addTestSuite(ColumnarValueStoreTest.class);
+		addTestSuite(SimplePropertyObservableIntValueTest.class);
 
 		// org.eclipse.core.tests.internal.databinding.validation
 		addTestSuite(AbstractStringToNumberValidatorTest.class);
@@ -431,6 +448,7 @@ public class BindingTestSuite extends TestSuite {
 
 		// org.eclipse.jface.tests.databinding.viewers
 		addTestSuite(ObservableListContentProviderTest.class);
+		addTestSuite(ObservableListLazyContentProviderTest.class);
 		addTestSuite(ObservableListTreeContentProviderTest.class);
 		addTestSuite(ObservableMapLabelProviderTest.class);
 		addTestSuite(ObservableSetContentProviderTest.class);
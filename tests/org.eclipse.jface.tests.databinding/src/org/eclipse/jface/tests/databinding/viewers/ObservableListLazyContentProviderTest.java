@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.jface.tests.databinding.viewers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.eclipse.core.databinding.observable.Observables;
+import org.eclipse.core.databinding.observable.list.IObservableList;
+import org.eclipse.core.databinding.observable.list.WritableList;
+import org.eclipse.core.databinding.observable.set.IObservableSet;
+import org.eclipse.jface.databinding.swt.SWTObservables;
+import org.eclipse.jface.databinding.viewers.ObservableListLazyContentProvider;
+import org.eclipse.jface.tests.databinding.AbstractDefaultRealmTestCase;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+public class ObservableListLazyContentProviderTest extends
+		AbstractDefaultRealmTestCase {
+	private static final int REALIZED_LIMIT = 3;
+
+	private Shell shell;
+	private TableViewer viewer;
+	private ObservableListLazyContentProvider contentProvider;
+	private IObservableList input;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		shell = new Shell();
+		viewer = new TableViewer(shell, SWT.VIRTUAL);
+
+		contentProvider = new ObservableListLazyContentProvider(
+				REALIZED_LIMIT);
+		viewer.setContentProvider(contentProvider);
+
+		input = new WritableList();
+		for (int i = 0; i < 10; i++)
+			input.add("element" + i);
+		viewer.setInput(input);
+	}
+
+	protected void tearDown() throws Exception {
+		shell.dispose();
+		viewer = null;
+		input = null;
+		super.tearDown();
+	}
+
+	public void testKnownElements_Realm() throws Exception {
+		assertSame("realm for the known elements should be the SWT realm",
+				SWTObservables.getRealm(Display.getDefault()), contentProvider
+						.getKnownElements().getRealm());
+	}
+
+	public void testInputChanged_SetsItemCount() {
+		assertEquals(10, viewer.getTable().getItemCount());
+	}
+
+	public void testInputChanged_DoesNotRealizeElements() {
+		assertEquals(Collections.EMPTY_SET, contentProvider.getKnownElements());
+	}
+
+	public void testUpdateElement_RealizesRow() {
+		contentProvider.updateElement(2);
+
+		assertEquals(Collections.singleton("element2"), contentProvider
+				.getKnownElements());
+		assertEquals("element2", viewer.getTable().getItem(2).getData());
+	}
+
+	public void testUpdateElement_EvictsLeastRecentlyRequestedRows() {
+		contentProvider.updateElement(0);
+		contentProvider.updateElement(1);
+		contentProvider.updateElement(2);
+		// requesting row 0 again makes row 1 the least recently requested
+		contentProvider.updateElement(0);
+		contentProvider.updateElement(3);
+
+		assertEquals(new HashSet(Arrays.asList(new String[] { "element0",
+				"element2", "element3" })), contentProvider.getKnownElements());
+	}
+
+	public void testUpdateElement_IndexOutOfRange() {
+		contentProvider.updateElement(10);
+
+		assertEquals(Collections.EMPTY_SET, contentProvider.getKnownElements());
+	}
+
+	public void testListAdd_UpdatesItemCount() {
+		input.add("element10");
+
+		assertEquals(11, viewer.getTable().getItemCount());
+	}
+
+	public void testListAdd_ClearsShiftedRows() {
+		contentProvider.updateElement(1);
+		contentProvider.updateElement(5);
+
+		input.add(3, "inserted");
+
+		// row 1 is above the insertion and stays, row 5 has shifted
+		assertEquals(Collections.singleton("element1"), contentProvider
+				.getKnownElements());
+	}
+
+	public void testListRemove_ReleasesKnownElement() {
+		contentProvider.updateElement(4);
+
+		input.remove(4);
+
+		assertEquals(9, viewer.getTable().getItemCount());
+		assertEquals(Collections.EMPTY_SET, contentProvider.getKnownElements());
+	}
+
+	public void testListReplace_UpdatesRealizedRow() {
+		contentProvider.updateElement(2);
+
+		input.set(2, "replaced");
+
+		assertEquals(Collections.singleton("replaced"), contentProvider
+				.getKnownElements());
+		assertEquals("replaced", viewer.getTable().getItem(2).getData());
+	}
+
+	public void testListReplace_IgnoresUnrealizedRow() {
+		contentProvider.updateElement(2);
+
+		input.set(7, "replaced");
+
+		assertEquals(Collections.singleton("element2"), contentProvider
+				.getKnownElements());
+	}
+
+	public void testFindElement() {
+		assertEquals(6, contentProvider.findElement("element6"));
+		assertEquals(-1, contentProvider.findElement("unknown"));
+	}
+
+	public void testInputChanged_ClearsKnownElements() {
+		contentProvider.updateElement(0);
+
+		IObservableSet knownElements = contentProvider.getKnownElements();
+		viewer.setInput(Observables.emptyObservableList());
+
+		assertEquals(Collections.EMPTY_SET, knownElements);
+		assertEquals(0, viewer.getTable().getItemCount());
+	}
+
+	public void testInputChanged_StopsListeningToOldInput() {
+		viewer.setInput(new WritableList());
+
+		input.add("element10");
+
+		assertEquals(0, viewer.getTable().getItemCount());
+	}
+}
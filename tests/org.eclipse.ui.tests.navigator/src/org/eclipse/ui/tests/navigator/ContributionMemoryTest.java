@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.navigator;
+
+import org.eclipse.ui.internal.navigator.NavigatorContentService;
+import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptor;
+import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptorManager;
+import org.eclipse.ui.tests.harness.util.DisplayHelper;
+
+/**
+ * Checks the contribution memory of the content service: what it remembers,
+ * that it lets go of collected elements, and when a lookup has to be
+ * recomputed from the viewer.
+ */
+public class ContributionMemoryTest extends NavigatorTestBase {
+
+	private static final int THREADS = 4;
+	private static final int ELEMENTS_PER_THREAD = 1000;
+
+	private NavigatorContentService _ncs;
+	private NavigatorContentDescriptor _content;
+	private NavigatorContentDescriptor _content2;
+
+	public ContributionMemoryTest() {
+		_navigatorInstanceId = TEST_VIEWER;
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_ncs = (NavigatorContentService) _contentService;
+		NavigatorContentDescriptorManager manager = NavigatorContentDescriptorManager
+				.getInstance();
+		_content = manager.getContentDescriptor(TEST_CONTENT);
+		_content2 = manager.getContentDescriptor(TEST_CONTENT2);
+		assertNotNull(_content);
+		assertNotNull(_content2);
+	}
+
+	public void testRememberAndForget() throws Exception {
+		int size = _ncs.getContributionMemorySize();
+		Object element = new Object();
+
+		_ncs.rememberContribution(_content, _content, element);
+		assertEquals(size + 1, _ncs.getContributionMemorySize());
+		assertSame(_content, _ncs.getContribution(element));
+
+		_ncs.forgetContribution(element);
+		assertEquals(size, _ncs.getContributionMemorySize());
+		assertNull(_ncs.getContribution(element));
+	}
+
+	public void testOverrideNeedsSameFirstClassSource() throws Exception {
+		Object element = new Object();
+		_ncs.rememberContribution(_content, _content, element);
+
+		// A different first class source does not replace the contribution
+		_ncs.rememberContribution(_content2, _content2, element);
+		assertSame(_content, _ncs.getContribution(element));
+
+		// An override coming through the same first class source does
+		_ncs.rememberContribution(_content2, _content, element);
+		assertSame(_content2, _ncs.getContribution(element));
+
+		_ncs.forgetContribution(element);
+	}
+
+	public void testCollectedElementsAreForgotten() throws Exception {
+		int size = _ncs.getContributionMemorySize();
+		for (int i = 0; i < 100; i++) {
+			_ncs.rememberContribution(_content, _content, new Object());
+		}
+		assertEquals(size + 100, _ncs.getContributionMemorySize());
+
+		// Nothing else references the elements, so they must go eventually
+		for (int i = 0; i < 50 && _ncs.getContributionMemorySize() > size; i++) {
+			System.gc();
+			DisplayHelper.sleep(20);
+		}
+		assertEquals(size, _ncs.getContributionMemorySize());
+	}
+
+	public void testRecomputeCountedOnMiss() throws Exception {
+		Object element = new Object();
+		_ncs.rememberContribution(_content, _content, element);
+		long recomputed = _ncs.getContributionRecomputeCount();
+
+		assertSame(_content, _ncs.getSourceOfContribution(element));
+		assertEquals(recomputed, _ncs.getContributionRecomputeCount());
+
+		_ncs.forgetContribution(element);
+		// Not in the viewer either, so there is nothing to recompute it from
+		assertNull(_ncs.getSourceOfContribution(element));
+		assertEquals(recomputed + 1, _ncs.getContributionRecomputeCount());
+	}
+
+	public void testConcurrentRemember() throws Exception {
+		int size = _ncs.getContributionMemorySize();
+		final Object[][] elements = new Object[THREADS][ELEMENTS_PER_THREAD];
+		final NavigatorContentDescriptor[] sources = new NavigatorContentDescriptor[] {
+				_content, _content2 };
+		final Throwable[] failure = new Throwable[1];
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			final int index = t;
+			threads[t] = new Thread() {
+				public void run() {
+					try {
+						NavigatorContentDescriptor source = sources[index % 2];
+						for (int i = 0; i < ELEMENTS_PER_THREAD; i++) {
+							elements[index][i] = new Object();
+							_ncs.rememberContribution(source, source,
+									elements[index][i]);
+							if (_ncs.getContribution(elements[index][i]) != source)
+								throw new AssertionError("Lost contribution " + i);
+						}
+					} catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < THREADS; t++) {
+			threads[t].join();
+		}
+
+		if (failure[0] != null)
+			fail(failure[0].toString());
+		assertEquals(size + THREADS * ELEMENTS_PER_THREAD, _ncs
+				.getContributionMemorySize());
+		for (int t = 0; t < THREADS; t++) {
+			for (int i = 0; i < ELEMENTS_PER_THREAD; i++) {
+				assertSame(sources[t % 2], _ncs.getContribution(elements[t][i]));
+				_ncs.forgetContribution(elements[t][i]);
+			}
+		}
+		assertEquals(size, _ncs.getContributionMemorySize());
+	}
+
+}
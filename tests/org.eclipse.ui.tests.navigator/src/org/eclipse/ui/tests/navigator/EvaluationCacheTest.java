@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.navigator;
+
+import java.util.Set;
+
+import org.eclipse.ui.internal.navigator.NavigatorContentService;
+import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptor;
+import org.eclipse.ui.internal.navigator.extensions.NavigatorContentDescriptorManager;
+
+/**
+ * Checks which enablement expressions only test the class of an element, and
+ * that the evaluation cache shares only their results between elements of the
+ * same class.
+ */
+public class EvaluationCacheTest extends NavigatorTestBase {
+
+	private NavigatorContentDescriptorManager _manager;
+	private NavigatorContentService _ncs;
+
+	public EvaluationCacheTest() {
+		_navigatorInstanceId = TEST_VIEWER;
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		_manager = NavigatorContentDescriptorManager.getInstance();
+		_ncs = (NavigatorContentService) _contentService;
+	}
+
+	public void testInstanceofIsTypeOnly() throws Exception {
+		// <instanceof>
+		assertTrue(getDescriptor(TEST_CONTENT2).isTriggerPointTypeOnly());
+		// <or> of <instanceof>
+		assertTrue(getDescriptor(TEST_CONTENT_SORTER_MODEL_OVERRIDE)
+				.isTriggerPointTypeOnly());
+		// No enablement at all
+		assertTrue(getDescriptor(TEST_CONTENT_SORTER_RESOURCE_SORTONLY)
+				.isTriggerPointTypeOnly());
+	}
+
+	public void testPropertyTestIsNotTypeOnly() throws Exception {
+		// <and> of <instanceof> and <test>
+		assertFalse(getDescriptor(TEST_CONTENT_NO_CHILDREN)
+				.isTriggerPointTypeOnly());
+		// <with> a variable of the evaluation context
+		assertFalse(getDescriptor(TEST_CONTENT_WITH).isTriggerPointTypeOnly());
+	}
+
+	public void testAdaptIsNotTypeOnly() throws Exception {
+		NavigatorContentDescriptor descriptor = getDescriptor(TEST_CONTENT_DROP_COPY);
+		assertFalse(descriptor.isTriggerPointTypeOnly());
+		// Without possibleChildren the trigger points are used
+		assertFalse(descriptor.isPossibleChildTypeOnly());
+	}
+
+	public void testPossibleChildrenClassifiedSeparately() throws Exception {
+		// <or> of <adapt> and <instanceof> trigger points, but
+		// <or> of <instanceof> possible children
+		NavigatorContentDescriptor descriptor = getDescriptor(TEST_CONTENT);
+		assertFalse(descriptor.isTriggerPointTypeOnly());
+		assertTrue(descriptor.isPossibleChildTypeOnly());
+	}
+
+	public void testTypeOnlyResultSharedByClass() throws Exception {
+		bindAndActivate(TEST_CONTENT2);
+		NavigatorContentDescriptor descriptor = getDescriptor(TEST_CONTENT2);
+
+		assertEquals(_p1.getClass(), _p2.getClass());
+		assertTrue(_ncs.findDescriptorsByTriggerPoint(_p1, false).contains(
+				descriptor));
+		assertTrue(_ncs.findDescriptorsByTriggerPoint(_p2, false).contains(
+				descriptor));
+		assertFalse(_ncs.findDescriptorsByTriggerPoint(
+				_p1.getFile(".project"), false).contains(descriptor));
+	}
+
+	public void testPropertyDependentResultNotShared() throws Exception {
+		bindAndActivate(TEST_CONTENT_NO_CHILDREN);
+		NavigatorContentDescriptor descriptor = getDescriptor(TEST_CONTENT_NO_CHILDREN);
+
+		// Only the project named p1 is enabled, although p2 has the same class
+		assertTrue(_ncs.findDescriptorsByTriggerPoint(_p1, false).contains(
+				descriptor));
+		assertFalse(_ncs.findDescriptorsByTriggerPoint(_p2, false).contains(
+				descriptor));
+		assertTrue(_ncs.findDescriptorsByTriggerPoint(_p1, false).contains(
+				descriptor));
+	}
+
+	public void testTypeOnlyResultsClearedOnActivationChange() throws Exception {
+		bindAndActivate(TEST_CONTENT2);
+		NavigatorContentDescriptor descriptor = getDescriptor(TEST_CONTENT2);
+		assertTrue(_ncs.findDescriptorsByTriggerPoint(_p1, false).contains(
+				descriptor));
+
+		_contentService.getActivationService().deactivateExtensions(
+				new String[] { TEST_CONTENT2 }, false);
+
+		Set descriptors = _ncs.findDescriptorsByTriggerPoint(_p2, false);
+		assertFalse("Result cached across deactivation", descriptors
+				.contains(descriptor));
+	}
+
+	private void bindAndActivate(String id) {
+		_contentService.bindExtensions(new String[] { id }, false);
+		_contentService.getActivationService().activateExtensions(
+				new String[] { id }, false);
+	}
+
+	private NavigatorContentDescriptor getDescriptor(String id) {
+		NavigatorContentDescriptor descriptor = _manager.getContentDescriptor(id);
+		assertNotNull(id, descriptor);
+		return descriptor;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2011 IBM Corporation and others.
+ * Copyright (c) 2003, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,6 +40,7 @@ import org.eclipse.ui.tests.harness.util.FileUtil;
 import org.eclipse.ui.tests.navigator.extension.TestContentProvider;
 import org.eclipse.ui.tests.navigator.extension.TestContentProviderPipelined;
 import org.eclipse.ui.tests.navigator.extension.TestEmptyContentProvider;
+import org.eclipse.ui.tests.navigator.extension.TestSlowChildrenContentProvider;
 import org.eclipse.ui.tests.navigator.extension.TestSorterData;
 import org.eclipse.ui.tests.navigator.extension.TestDragAssistant;
 import org.eclipse.ui.tests.navigator.extension.TestLabelProvider;
@@ -63,6 +64,7 @@ public class NavigatorTestBase extends TestCase {
 	public static final String TEST_VIEWER_FILTER = "org.eclipse.ui.tests.navigator.FilterTestView";
 	public static final String TEST_VIEWER_INITIAL_ACTIVATION = "org.eclipse.ui.tests.navigator.InitialActivationView";
 	public static final String TEST_VIEWER_LINK_HELPER = "org.eclipse.ui.tests.navigator.TestLinkHelperView";
+	public static final String TEST_VIEWER_PARALLEL_FETCH = "org.eclipse.ui.tests.navigator.ParallelFetchTestView";
 
 	public static final String TEST_VIEW_NON_COMMONVIEWER = "org.eclipse.ui.tests.navigator.NonCommonViewerTestView";
 
@@ -88,6 +90,7 @@ public class NavigatorTestBase extends TestCase {
 	public static final String TEST_SIMPLE_CHILDREN2 = "org.eclipse.ui.tests.navigator.testSimpleChildrenContent2";
 	public static final String TEST_SIMPLE_CHILDREN3 = "org.eclipse.ui.tests.navigator.testSimpleChildrenContent3";
 	public static final String TEST_SIMPLE_CHILDREN_NOT_FOUND = "org.eclipse.ui.tests.navigator.testSimpleChildrenAppearsBeforeNotFound";
+	public static final String TEST_SLOW_CHILDREN = "org.eclipse.ui.tests.navigator.testSlowChildrenContent";
 	
 	public static final String TEST_CONTENT_M12_VIEW = "org.eclipse.ui.tests.navigator.M12View";
 	public static final String TEST_CONTENT_M12_M1_CONTENT = "org.eclipse.ui.tests.navigator.m12.M1";
@@ -180,6 +183,7 @@ public class NavigatorTestBase extends TestCase {
 		TestLabelProvider.resetTest();
 		TestDragAssistant.resetTest();
 		TestEmptyContentProvider.resetTest();
+		TestSlowChildrenContentProvider.resetTest();
 
 		if (_initTestData) {
 			clearAll();
@@ -35,6 +35,10 @@ public final class NavigatorTestSuite extends TestSuite {
 		addTest(new TestSuite(ActionProviderTest.class));
 		addTest(new TestSuite(ExtensionsTest.class));
 		addTest(new TestSuite(FilterTest.class));
+		addTest(new TestSuite(ContributionMemoryTest.class));
+		addTest(new TestSuite(EvaluationCacheTest.class));
+		addTest(new TestSuite(ParallelFetchTest.class));
+		addTest(new TestSuite(ResourceDeltaCoalescerTest.class));
 		addTest(WorkingSetTest.suite());
 		addTest(new TestSuite(ActivityTest.class));
 		addTest(new TestSuite(OpenTest.class));
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.navigator;
+
+import org.eclipse.swt.widgets.TreeItem;
+import org.eclipse.ui.tests.harness.util.DisplayHelper;
+import org.eclipse.ui.tests.navigator.extension.TestSimpleChildrenContentProvider;
+import org.eclipse.ui.tests.navigator.extension.TestSlowChildrenContentProvider;
+
+/**
+ * Checks a viewer that fetches the children of several extensions in
+ * parallel.
+ */
+public class ParallelFetchTest extends NavigatorTestBase {
+
+	// The timeout configured for the test viewer in plugin.xml
+	private static final long FETCH_TIMEOUT = 500;
+
+	private static final long LATE_TIMEOUT = 10000;
+
+	public ParallelFetchTest() {
+		_navigatorInstanceId = TEST_VIEWER_PARALLEL_FETCH;
+	}
+
+	public void testMergedInExtensionOrder() throws Exception {
+		bindAndActivate(new String[] { COMMON_NAVIGATOR_RESOURCE_EXT,
+				TEST_SIMPLE_CHILDREN1, TEST_SIMPLE_CHILDREN2, TEST_SIMPLE_CHILDREN3 });
+
+		TreeItem[] rootItems = _viewer.getTree().getItems();
+		_viewer.expandAll();
+
+		// The same order as when the children are fetched serially
+		assertEquals("30", rootItems[0].getItems()[0].getText());
+		assertEquals("20", rootItems[0].getItems()[TestSimpleChildrenContentProvider.NUM_ITEMS]
+				.getText());
+		assertEquals("10", rootItems[0].getItems()[TestSimpleChildrenContentProvider.NUM_ITEMS * 2]
+				.getText());
+	}
+
+	public void testFetchedOffTheUIThread() throws Exception {
+		bindAndActivate(new String[] { COMMON_NAVIGATOR_RESOURCE_EXT, TEST_SLOW_CHILDREN });
+
+		_viewer.expandAll();
+
+		assertTrue(TestSlowChildrenContentProvider._callCount > 0);
+		assertFalse(TestSlowChildrenContentProvider._calledOnUIThread);
+		assertNotNull(findItem(_viewer.getTree().getItems()[0], "S0"));
+	}
+
+	public void testLateContentShownByRefresh() throws Exception {
+		bindAndActivate(new String[] { COMMON_NAVIGATOR_RESOURCE_EXT, TEST_SLOW_CHILDREN });
+		TestSlowChildrenContentProvider._delay = FETCH_TIMEOUT * 4;
+
+		final TreeItem project = _viewer.getTree().getItems()[0];
+		long start = System.currentTimeMillis();
+		_viewer.expandToLevel(project.getData(), 1);
+		long waited = System.currentTimeMillis() - start;
+
+		assertTrue("Waited past the timeout: " + waited,
+				waited < TestSlowChildrenContentProvider._delay);
+		assertNull("Late content shown before it arrived", findItem(project, "S0"));
+
+		boolean shown = new DisplayHelper() {
+			protected boolean condition() {
+				return findItem(project, "S0") != null;
+			}
+		}.waitForCondition(_viewer.getControl().getDisplay(), LATE_TIMEOUT);
+		assertTrue("Late content not shown", shown);
+		// The resource content is still there
+		assertTrue(project.getItemCount() > TestSimpleChildrenContentProvider.NUM_ITEMS);
+	}
+
+	private void bindAndActivate(String[] ids) {
+		_contentService.bindExtensions(ids, false);
+		_contentService.getActivationService().activateExtensions(ids, true);
+	}
+
+	private TreeItem findItem(TreeItem parent, String text) {
+		TreeItem[] items = parent.getItems();
+		for (int i = 0; i < items.length; i++) {
+			if (text.equals(items[i].getText()))
+				return items[i];
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.navigator;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Tree;
+
+/**
+ * Checks how the resources content provider coalesces resource deltas into
+ * viewer updates. The deltas are made up, and the viewer only records the
+ * updates it is asked to make.
+ */
+public class ResourceDeltaCoalescerTest extends TestCase {
+
+	private static final String COALESCER = "org.eclipse.ui.internal.navigator.resources.workbench.ResourceDeltaCoalescer";
+
+	private IWorkspaceRoot _root;
+	private IProject _project;
+	private Shell _shell;
+	private List _updates;
+	private TreeViewer _viewer;
+
+	/**
+	 * A tree that records when its redraw is turned on and off.
+	 */
+	private class RecordingTree extends Tree {
+		RecordingTree(Composite parent) {
+			super(parent, SWT.NONE);
+		}
+
+		protected void checkSubclass() {
+			// allow the subclass
+		}
+
+		public void setRedraw(boolean redraw) {
+			_updates.add("redraw " + redraw);
+			super.setRedraw(redraw);
+		}
+	}
+
+	/**
+	 * A viewer that records the updates instead of making them.
+	 */
+	private class RecordingViewer extends TreeViewer {
+		RecordingViewer(Tree tree) {
+			super(tree);
+		}
+
+		public void refresh(Object element) {
+			_updates.add("refresh " + ((IResource) element).getFullPath());
+		}
+
+		public void add(Object parentElement, Object[] childElements) {
+			_updates.add("add " + ((IResource) parentElement).getFullPath()
+					+ names(childElements));
+		}
+
+		public void remove(Object[] elements) {
+			_updates.add("remove" + names(elements));
+		}
+	}
+
+	/**
+	 * A made up delta.
+	 */
+	private static class Delta implements InvocationHandler {
+		private final IResource resource;
+		private final int kind;
+		private final int flags;
+		private final IResourceDelta[] children;
+
+		Delta(IResource resource, int kind, int flags, IResourceDelta[] children) {
+			this.resource = resource;
+			this.kind = kind;
+			this.flags = flags;
+			this.children = children;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			if (name.equals("getResource"))
+				return resource;
+			if (name.equals("getKind"))
+				return new Integer(kind);
+			if (name.equals("getFlags"))
+				return new Integer(flags);
+			if (name.equals("getFullPath"))
+				return resource.getFullPath();
+			if (name.equals("getAffectedChildren")) {
+				int mask = args == null || args.length == 0 ? IResourceDelta.ADDED
+						| IResourceDelta.REMOVED | IResourceDelta.CHANGED
+						: ((Integer) args[0]).intValue();
+				List affected = new ArrayList();
+				for (int i = 0; i < children.length; i++) {
+					if ((children[i].getKind() & mask) != 0)
+						affected.add(children[i]);
+				}
+				return affected.toArray(new IResourceDelta[affected.size()]);
+			}
+			if (name.equals("toString"))
+				return "Delta " + resource;
+			throw new UnsupportedOperationException(name);
+		}
+	}
+
+	protected void setUp() throws Exception {
+		_root = ResourcesPlugin.getWorkspace().getRoot();
+		_project = _root.getProject("p");
+		_updates = new ArrayList();
+		_shell = new Shell();
+		_viewer = new RecordingViewer(new RecordingTree(_shell));
+	}
+
+	protected void tearDown() throws Exception {
+		_shell.dispose();
+	}
+
+	public void testAddAndRemoveBatchedPerParent() throws Exception {
+		IResource folder = _project.getFolder("a");
+		IResourceDelta delta = changed(_root, 0, new IResourceDelta[] {
+				changed(_project, 0, new IResourceDelta[] {
+						changed(folder, 0, new IResourceDelta[] {
+								delta(_project.getFile("a/x"), IResourceDelta.ADDED, 0),
+								delta(_project.getFile("a/y"), IResourceDelta.ADDED, 0),
+								delta(_project.getFile("a/z"), IResourceDelta.REMOVED, 0) }) }) });
+
+		coalesce(new Object[] { delta }, 64);
+
+		// The viewer has no items at all, the updates are passed on anyway
+		// since only the viewer knows which elements stand for the resources
+		assertUpdates(new String[] { "add /p/a x y", "remove z" });
+	}
+
+	public void testNoUpdatesForContentChange() throws Exception {
+		IResourceDelta delta = changed(_root, 0, new IResourceDelta[] {
+				changed(_project, 0, new IResourceDelta[] {
+						delta(_project.getFile("x"), IResourceDelta.CHANGED, IResourceDelta.CONTENT) }) });
+
+		Object coalescer = newCoalescer(64);
+		invoke(coalescer, "collect", IResourceDelta.class, delta);
+
+		assertEquals(Boolean.TRUE, invoke(coalescer, "isEmpty", null, null));
+		invoke(coalescer, "apply", StructuredViewer.class, _viewer);
+		assertUpdates(new String[0]);
+	}
+
+	public void testDenseFolderRefreshed() throws Exception {
+		IResource folder = _project.getFolder("a");
+		IResourceDelta delta = changed(folder, 0, new IResourceDelta[] {
+				delta(_project.getFile("a/w"), IResourceDelta.ADDED, 0),
+				delta(_project.getFile("a/x"), IResourceDelta.ADDED, 0),
+				delta(_project.getFile("a/y"), IResourceDelta.REMOVED, 0),
+				delta(_project.getFile("a/z"), IResourceDelta.CHANGED, 0) });
+
+		coalesce(new Object[] { delta }, 3);
+
+		assertUpdates(new String[] { "refresh /p/a" });
+	}
+
+	public void testDenseOpenedProjectRefreshesParent() throws Exception {
+		// Opening a project may change whether the Closed Projects filter
+		// shows it, however many children it has
+		IResourceDelta delta = changed(_project, IResourceDelta.OPEN, new IResourceDelta[] {
+				delta(_project.getFile("w"), IResourceDelta.ADDED, 0),
+				delta(_project.getFile("x"), IResourceDelta.ADDED, 0),
+				delta(_project.getFile("y"), IResourceDelta.ADDED, 0),
+				delta(_project.getFile("z"), IResourceDelta.ADDED, 0) });
+
+		coalesce(new Object[] { delta }, 3);
+
+		assertUpdates(new String[] { "refresh /" });
+	}
+
+	public void testTypeChangeRefreshesParent() throws Exception {
+		IResource folder = _project.getFolder("a");
+		IResourceDelta delta = changed(folder, 0, new IResourceDelta[] {
+				delta(_project.getFile("a/x"), IResourceDelta.CHANGED, IResourceDelta.TYPE),
+				delta(_project.getFile("a/y"), IResourceDelta.ADDED, 0) });
+
+		coalesce(new Object[] { delta }, 64);
+
+		assertUpdates(new String[] { "refresh /p/a" });
+	}
+
+	public void testUpdatesBelowRefreshRootDropped() throws Exception {
+		// A description change refreshes the parent of the project
+		IResourceDelta delta = changed(_root, 0, new IResourceDelta[] {
+				changed(_project, IResourceDelta.DESCRIPTION, new IResourceDelta[] {
+						changed(_project.getFolder("a"), 0, new IResourceDelta[] {
+								delta(_project.getFile("a/x"), IResourceDelta.ADDED, 0) }) }) });
+
+		coalesce(new Object[] { delta }, 64);
+
+		assertUpdates(new String[] { "refresh /" });
+	}
+
+	public void testNestedRefreshRootsCollapsed() throws Exception {
+		IResourceDelta first = changed(_project.getFolder("a"), IResourceDelta.REPLACED,
+				new IResourceDelta[0]);
+		IResourceDelta second = changed(_project, IResourceDelta.REPLACED,
+				new IResourceDelta[0]);
+
+		coalesce(new Object[] { first, second }, 64);
+
+		assertUpdates(new String[] { "refresh /p" });
+	}
+
+	public void testRenameAppliedWithoutRedraw() throws Exception {
+		IResourceDelta delta = changed(_project, 0, new IResourceDelta[] {
+				delta(_project.getFile("new"), IResourceDelta.ADDED, IResourceDelta.MOVED_FROM),
+				delta(_project.getFile("old"), IResourceDelta.REMOVED, IResourceDelta.MOVED_TO) });
+
+		coalesce(new Object[] { delta }, 64);
+
+		assertUpdates(new String[] { "redraw false", "add /p new", "remove old",
+				"redraw true" });
+	}
+
+	public void testAddAndRemoveWithoutMoveRedrawn() throws Exception {
+		IResourceDelta delta = changed(_project, 0, new IResourceDelta[] {
+				delta(_project.getFile("new"), IResourceDelta.ADDED, 0),
+				delta(_project.getFile("old"), IResourceDelta.REMOVED, 0) });
+
+		coalesce(new Object[] { delta }, 64);
+
+		assertUpdates(new String[] { "add /p new", "remove old" });
+	}
+
+	public void testSeveralUpdatesAppliedWithoutRedraw() throws Exception {
+		IResourceDelta delta = changed(_project, 0, new IResourceDelta[] {
+				changed(_project.getFolder("a"), 0, new IResourceDelta[] {
+						delta(_project.getFile("a/x"), IResourceDelta.ADDED, 0) }),
+				changed(_project.getFolder("b"), 0, new IResourceDelta[] {
+						delta(_project.getFile("b/y"), IResourceDelta.REMOVED, 0) }) });
+
+		coalesce(new Object[] { delta }, 64);
+
+		assertUpdates(new String[] { "redraw false", "add /p/a x", "remove y",
+				"redraw true" });
+	}
+
+	private void coalesce(Object[] deltas, int densityThreshold) throws Exception {
+		Object coalescer = newCoalescer(densityThreshold);
+		for (int i = 0; i < deltas.length; i++) {
+			invoke(coalescer, "collect", IResourceDelta.class, deltas[i]);
+		}
+		invoke(coalescer, "apply", StructuredViewer.class, _viewer);
+	}
+
+	private Object newCoalescer(int densityThreshold) throws Exception {
+		Constructor constructor = Class.forName(COALESCER).getDeclaredConstructor(
+				new Class[] { int.class });
+		constructor.setAccessible(true);
+		return constructor.newInstance(new Object[] { new Integer(densityThreshold) });
+	}
+
+	private Object invoke(Object target, String name, Class type, Object argument)
+			throws Exception {
+		Method method = target.getClass().getDeclaredMethod(name,
+				type == null ? new Class[0] : new Class[] { type });
+		method.setAccessible(true);
+		return method.invoke(target, type == null ? new Object[0]
+				: new Object[] { argument });
+	}
+
+	private void assertUpdates(String[] expected) {
+		assertEquals(Arrays.asList(expected), _updates);
+	}
+
+	private static IResourceDelta changed(IResource resource, int flags,
+			IResourceDelta[] children) {
+		return newDelta(resource, IResourceDelta.CHANGED, flags, children);
+	}
+
+	private static IResourceDelta delta(IResource resource, int kind, int flags) {
+		return newDelta(resource, kind, flags, new IResourceDelta[0]);
+	}
+
+	private static IResourceDelta newDelta(IResource resource, int kind,
+			int flags, IResourceDelta[] children) {
+		return (IResourceDelta) Proxy.newProxyInstance(IResourceDelta.class
+				.getClassLoader(), new Class[] { IResourceDelta.class },
+				new Delta(resource, kind, flags, children));
+	}
+
+	private static String names(Object[] resources) {
+		StringBuffer buffer = new StringBuffer();
+		for (int i = 0; i < resources.length; i++) {
+			buffer.append(' ').append(((IResource) resources[i]).getName());
+		}
+		return buffer.toString();
+	}
+
+}
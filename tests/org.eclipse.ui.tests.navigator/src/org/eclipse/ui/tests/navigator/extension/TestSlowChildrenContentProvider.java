@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.navigator.extension;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Provides some children for a given resource after a configurable delay, and
+ * records whether it was asked on the UI thread.
+ */
+public class TestSlowChildrenContentProvider extends TestSimpleChildrenContentProvider {
+
+	public static volatile long _delay;
+
+	public static volatile boolean _calledOnUIThread;
+
+	public static volatile int _callCount;
+
+	public static void resetTest() {
+		_delay = 0;
+		_calledOnUIThread = false;
+		_callCount = 0;
+	}
+
+	public TestSlowChildrenContentProvider() {
+		_name = "S";
+	}
+
+	public Object[] getChildren(Object parentElement) {
+		_callCount++;
+		if (Display.getCurrent() != null)
+			_calledOnUIThread = true;
+		if (_delay > 0) {
+			try {
+				Thread.sleep(_delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return super.getChildren(parentElement);
+	}
+
+}
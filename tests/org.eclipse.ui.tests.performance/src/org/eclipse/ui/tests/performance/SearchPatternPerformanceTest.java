@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.performance;
+
+import java.util.Random;
+
+import org.eclipse.ui.dialogs.SearchPattern;
+
+/**
+ * Measures how long it takes a {@link SearchPattern} to match one million
+ * type and file like names, as the Open Type and Open Resource dialogs do for
+ * every keystroke. There is one test per kind of pattern.
+ */
+public class SearchPatternPerformanceTest extends BasicPerformanceTest {
+
+	private static final int NAME_COUNT = 1000000;
+
+	private static final String[] WORDS = { "Abstract", "Null", "Pointer",
+			"Exception", "Handler", "Factory", "Manager", "Viewer", "Content",
+			"Provider", "Label", "Item", "Selection", "Dialog", "Resource",
+			"Filter", "Job", "Runner", "Tree", "Table", "Model", "Util" };
+
+	private static final String[] EXTENSIONS = { "", ".java", ".class",
+			".xml", ".properties" };
+
+	private static String[] names;
+
+	public SearchPatternPerformanceTest(String testName) {
+		super(testName);
+	}
+
+	/**
+	 * @return the names to match, the same for every test
+	 */
+	private static String[] getNames() {
+		if (names == null) {
+			Random random = new Random(0);
+			names = new String[NAME_COUNT];
+			StringBuffer buffer = new StringBuffer();
+			for (int i = 0; i < NAME_COUNT; i++) {
+				buffer.setLength(0);
+				int words = 2 + random.nextInt(4);
+				for (int j = 0; j < words; j++) {
+					buffer.append(WORDS[random.nextInt(WORDS.length)]);
+				}
+				buffer.append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+				names[i] = buffer.toString();
+			}
+		}
+		return names;
+	}
+
+	private void measureMatching(String pattern) throws Exception {
+		final String[] names = getNames();
+		final SearchPattern searchPattern = new SearchPattern();
+		searchPattern.setPattern(pattern);
+
+		exercise(new TestRunnable() {
+			public void run() {
+				int matches = 0;
+				startMeasuring();
+				for (int i = 0; i < names.length; i++) {
+					if (searchPattern.matches(names[i])) {
+						matches++;
+					}
+				}
+				stopMeasuring();
+				assertTrue(matches > 0);
+			}
+		});
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	public void testPrefixMatch() throws Exception {
+		measureMatching("nullpo");
+	}
+
+	public void testCamelCaseMatch() throws Exception {
+		measureMatching("NPE");
+	}
+
+	public void testExactMatch() throws Exception {
+		measureMatching("NullPointer<");
+	}
+
+	public void testPatternMatch() throws Exception {
+		measureMatching("*ex*ion");
+	}
+
+	public void testExtensionPatternMatch() throws Exception {
+		measureMatching("*provider.java");
+	}
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.jface.tests.fieldassist;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.fieldassist.ContentProposal;
+import org.eclipse.jface.fieldassist.ContentProposalAdapter;
+import org.eclipse.jface.fieldassist.IAsyncContentProposalProvider;
+import org.eclipse.jface.fieldassist.IContentProposal;
+import org.eclipse.jface.fieldassist.IContentProposalCollector;
+import org.eclipse.jface.fieldassist.IContentProposalProvider;
+import org.eclipse.jface.fieldassist.IControlContentAdapter;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Table;
+
+/**
+ * Tests a content proposal adapter with an asynchronous proposal provider:
+ * the proposals are shown as they are collected, and requests are cancelled
+ * when they are superseded or the popup is closed.
+ */
+public class AsyncContentProposalTests extends AbstractFieldAssistTestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private TestProvider provider;
+
+	/**
+	 * An adapter that can open and close its popup without key events.
+	 */
+	static class TestAdapter extends ContentProposalAdapter {
+		TestAdapter(Control control, IControlContentAdapter controlContentAdapter,
+				IContentProposalProvider proposalProvider) {
+			super(control, controlContentAdapter, proposalProvider, null, null);
+		}
+
+		void open() {
+			openProposalPopup();
+		}
+
+		void close() {
+			closeProposalPopup();
+		}
+	}
+
+	/**
+	 * A provider that records its requests. Each request adds the proposals
+	 * for the contents, then waits until it is released or cancelled and adds
+	 * the proposals for the contents with "later" appended.
+	 */
+	static class TestProvider implements IAsyncContentProposalProvider {
+		final List monitors = Collections.synchronizedList(new ArrayList());
+		final List threads = Collections.synchronizedList(new ArrayList());
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch cancelled = new CountDownLatch(1);
+
+		public void computeProposals(String contents, int position,
+				IContentProposalCollector collector, IProgressMonitor monitor) {
+			monitors.add(monitor);
+			threads.add(Thread.currentThread());
+			collector.addProposals(getProposals(contents, position));
+			started.countDown();
+			long end = System.currentTimeMillis() + TIMEOUT;
+			try {
+				while (!release.await(10, TimeUnit.MILLISECONDS)) {
+					if (monitor.isCanceled()) {
+						cancelled.countDown();
+						return;
+					}
+					if (System.currentTimeMillis() > end) {
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+			// like a provider that does not check the monitor
+			collector.addProposals(getProposals(contents + " later", position));
+		}
+
+		public IContentProposal[] getProposals(String contents, int position) {
+			return new IContentProposal[] {
+					new ContentProposal(contents + " 1"),
+					new ContentProposal(contents + " 2") };
+		}
+	}
+
+	/**
+	 * A text field assist window using the test adapter.
+	 */
+	class AsyncFieldAssistWindow extends TextFieldAssistWindow {
+		protected ContentProposalAdapter createContentProposalAdapter(
+				Control control) {
+			return new TestAdapter(control, getControlContentAdapter(),
+					provider);
+		}
+	}
+
+	protected AbstractFieldAssistWindow createFieldAssistWindow() {
+		provider = new TestProvider();
+		AbstractFieldAssistWindow window = new AsyncFieldAssistWindow();
+		window.setContentProposalProvider(provider);
+		return window;
+	}
+
+	protected void tearDown() throws Exception {
+		provider.release.countDown();
+		super.tearDown();
+	}
+
+	public void testProposalsShownAsCollected() throws Exception {
+		getFieldAssistWindow().open();
+		sendFocusInToControl();
+		setControlContent("a");
+
+		getAdapter().open();
+
+		waitForShownProposals(new String[] { "a 1", "a 2" });
+		assertTwoShellsUp();
+		assertNotSame("Computed in the UI thread", getDisplay().getThread(),
+				provider.threads.get(0));
+
+		provider.release.countDown();
+
+		waitForShownProposals(new String[] { "a 1", "a 2", "a later 1",
+				"a later 2" });
+		assertTwoShellsUp();
+	}
+
+	public void testSupersededRequestCancelled() throws Exception {
+		getFieldAssistWindow().open();
+		sendFocusInToControl();
+		setControlContent("a");
+		// the first proposals are not shown before the second request
+		getAdapter().open();
+		assertTrue("Not requested", provider.started.await(TIMEOUT,
+				TimeUnit.MILLISECONDS));
+
+		setControlContent("b");
+		getAdapter().open();
+
+		assertTrue("Superseded request not cancelled", provider.cancelled
+				.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		assertTrue(((IProgressMonitor) provider.monitors.get(0)).isCanceled());
+		waitFor(new Condition() {
+			public boolean compute() {
+				return provider.monitors.size() == 2;
+			}
+		});
+		waitForShownProposals(new String[] { "b 1", "b 2" });
+		assertFalse(((IProgressMonitor) provider.monitors.get(1)).isCanceled());
+	}
+
+	public void testClosingPopupCancelsRequest() throws Exception {
+		getFieldAssistWindow().open();
+		sendFocusInToControl();
+		setControlContent("a");
+		getAdapter().open();
+		waitForShownProposals(new String[] { "a 1", "a 2" });
+		assertTwoShellsUp();
+
+		getAdapter().close();
+
+		assertTrue("Request not cancelled", provider.cancelled.await(TIMEOUT,
+				TimeUnit.MILLISECONDS));
+		assertOneShellUp();
+		assertFalse(getAdapter().isProposalPopupOpen());
+	}
+
+	interface Condition {
+		boolean compute();
+	}
+
+	private TestAdapter getAdapter() {
+		return (TestAdapter) getFieldAssistWindow().getContentProposalAdapter();
+	}
+
+	/**
+	 * Spins the event loop until the condition holds, failing after the
+	 * timeout.
+	 */
+	private void waitFor(Condition condition) throws InterruptedException {
+		Display display = getDisplay();
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (!condition.compute()) {
+			assertTrue("Timed out", System.currentTimeMillis() < end);
+			if (!display.readAndDispatch()) {
+				// the proposals are computed in another thread
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	private void waitForShownProposals(final String[] expected)
+			throws InterruptedException {
+		waitFor(new Condition() {
+			public boolean compute() {
+				String[] shown = getShownProposals();
+				if (shown.length != expected.length) {
+					return false;
+				}
+				for (int i = 0; i < shown.length; i++) {
+					if (!shown[i].equals(expected[i])) {
+						return false;
+					}
+				}
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @return the labels shown in the proposal popup, or none if it is not
+	 *         open
+	 */
+	String[] getShownProposals() {
+		Table table = getProposalTable();
+		if (table == null || table.isDisposed()) {
+			return new String[0];
+		}
+		String[] labels = new String[table.getItemCount()];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = table.getItem(i).getText();
+		}
+		return labels;
+	}
+
+	private Table getProposalTable() {
+		try {
+			Field popupField = ContentProposalAdapter.class
+					.getDeclaredField("popup");
+			popupField.setAccessible(true);
+			Object popup = popupField.get(getAdapter());
+			if (popup == null) {
+				return null;
+			}
+			Field tableField = popup.getClass().getDeclaredField(
+					"proposalTable");
+			tableField.setAccessible(true);
+			return (Table) tableField.get(popup);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
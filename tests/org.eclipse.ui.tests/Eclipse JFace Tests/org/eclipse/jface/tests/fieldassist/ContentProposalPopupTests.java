@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.jface.tests.fieldassist;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.eclipse.jface.fieldassist.ContentProposal;
+import org.eclipse.jface.fieldassist.ContentProposalAdapter;
+import org.eclipse.jface.fieldassist.IContentProposal;
+import org.eclipse.jface.fieldassist.IContentProposalProvider;
+import org.eclipse.jface.util.Util;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Table;
+
+/**
+ * Tests that the proposal popup computes labels lazily, filters the
+ * proposals it already has, and maps table rows to the right proposals.
+ */
+public class ContentProposalPopupTests extends AbstractFieldAssistTestCase {
+
+	private static final int PROPOSAL_COUNT = 1000;
+
+	private IContentProposal[] proposals;
+
+	private CountingLabelProvider labelProvider;
+
+	/**
+	 * A label provider counting the labels it computes.
+	 */
+	static class CountingLabelProvider extends LabelProvider {
+		int count;
+
+		public String getText(Object element) {
+			count++;
+			return ((IContentProposal) element).getContent();
+		}
+	}
+
+	/**
+	 * A text field assist window using the test adapter.
+	 */
+	class PopupFieldAssistWindow extends TextFieldAssistWindow {
+		protected ContentProposalAdapter createContentProposalAdapter(
+				Control control) {
+			return new AsyncContentProposalTests.TestAdapter(control,
+					getControlContentAdapter(), getContentProposalProvider());
+		}
+	}
+
+	protected AbstractFieldAssistWindow createFieldAssistWindow() {
+		proposals = createProposals(PROPOSAL_COUNT);
+		AbstractFieldAssistWindow window = new PopupFieldAssistWindow();
+		window.setContentProposalProvider(new IContentProposalProvider() {
+			public IContentProposal[] getProposals(String contents,
+					int position) {
+				return proposals;
+			}
+		});
+		return window;
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		labelProvider = new CountingLabelProvider();
+		getFieldAssistWindow().open();
+		getAdapter().setLabelProvider(labelProvider);
+		sendFocusInToControl();
+		getAdapter().open();
+		spinEventLoop();
+		assertTwoShellsUp();
+	}
+
+	public void testOnlyShownLabelsComputed() throws Exception {
+		if (Util.isMotif()) {
+			// the table is not virtual
+			return;
+		}
+		assertEquals("item0", getShownLabel(0));
+		assertTrue("Labels computed for rows not shown: " + labelProvider.count,
+				labelProvider.count < PROPOSAL_COUNT);
+	}
+
+	public void testFilteredRowsShowMatchingProposals() throws Exception {
+		setFilterText("item12");
+
+		assertShownLabels(new String[] { "item12", "item120", "item121",
+				"item122", "item123", "item124", "item125", "item126",
+				"item127", "item128", "item129" });
+		Table table = getProposalTable();
+		for (int i = 0; i < table.getItemCount(); i++) {
+			assertSame(proposals[Integer.parseInt(getShownLabel(i).substring(4))],
+					table.getItem(i).getData());
+		}
+	}
+
+	public void testNarrowingReusesLabels() throws Exception {
+		setFilterText("item1");
+		assertEquals(111, getProposalTable().getItemCount());
+		int count = labelProvider.count;
+		assertTrue("Labels computed more than once", count <= PROPOSAL_COUNT);
+
+		setFilterText("item12");
+		setFilterText("item129");
+		assertShownLabels(new String[] { "item129" });
+
+		assertEquals("Labels computed again", count, labelProvider.count);
+	}
+
+	public void testWideningFiltersAllProposals() throws Exception {
+		setFilterText("item12");
+		setFilterText("item2");
+
+		assertEquals(111, getProposalTable().getItemCount());
+		assertEquals("item2", getShownLabel(0));
+
+		setFilterText("");
+		assertEquals(PROPOSAL_COUNT, getProposalTable().getItemCount());
+	}
+
+	public void testAppendedProposalsKeepLabels() throws Exception {
+		setFilterText("item1");
+		int count = labelProvider.count;
+
+		IContentProposal[] more = createProposals(PROPOSAL_COUNT + 10);
+		System.arraycopy(proposals, 0, more, 0, PROPOSAL_COUNT);
+		invokePopup("proposalsComputed", new Object[] { more, "item1",
+				Boolean.TRUE, Boolean.TRUE });
+
+		assertEquals("Only the appended labels computed", count + 10,
+				labelProvider.count);
+		assertEquals(111 + 10, getProposalTable().getItemCount());
+		assertEquals("item1009", getShownLabel(111 + 9));
+	}
+
+	public void testSelectedProposalOfFilteredRow() throws Exception {
+		setFilterText("item12");
+
+		invokePopup("selectProposal", new Object[] { new Integer(3) });
+
+		assertSame(proposals[122], invokePopup("getSelectedProposal",
+				new Object[0]));
+	}
+
+	private static IContentProposal[] createProposals(int count) {
+		IContentProposal[] result = new IContentProposal[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = new ContentProposal("item" + i);
+		}
+		return result;
+	}
+
+	private AsyncContentProposalTests.TestAdapter getAdapter() {
+		return (AsyncContentProposalTests.TestAdapter) getFieldAssistWindow()
+				.getContentProposalAdapter();
+	}
+
+	/**
+	 * Filters the proposals of the popup the way typing in the popup does.
+	 */
+	private void setFilterText(String filterText) throws Exception {
+		Object popup = getPopup();
+		Field field = popup.getClass().getDeclaredField("filterText");
+		field.setAccessible(true);
+		field.set(popup, filterText);
+		IContentProposal[] cached = (IContentProposal[]) getPopupField("proposals");
+		invokePopup("setProposals", new Object[] { cached, filterText,
+				Boolean.FALSE });
+	}
+
+	private void assertShownLabels(String[] expected) {
+		assertEquals(expected.length, getProposalTable().getItemCount());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], getShownLabel(i));
+		}
+	}
+
+	private String getShownLabel(int row) {
+		// asking a virtual table for the text fills in the row
+		return getProposalTable().getItem(row).getText();
+	}
+
+	private Table getProposalTable() {
+		try {
+			return (Table) getPopupField("proposalTable");
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Object getPopup() throws Exception {
+		Field field = ContentProposalAdapter.class.getDeclaredField("popup");
+		field.setAccessible(true);
+		Object popup = field.get(getAdapter());
+		assertNotNull("Popup not open", popup);
+		return popup;
+	}
+
+	private Object getPopupField(String name) throws Exception {
+		Object popup = getPopup();
+		Field field = popup.getClass().getDeclaredField(name);
+		field.setAccessible(true);
+		return field.get(popup);
+	}
+
+	private Object invokePopup(String name, Object[] args) throws Exception {
+		Object popup = getPopup();
+		Method[] methods = popup.getClass().getDeclaredMethods();
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i].getName().equals(name)
+					&& methods[i].getParameterTypes().length == args.length) {
+				methods[i].setAccessible(true);
+				return methods[i].invoke(popup, args);
+			}
+		}
+		throw new NoSuchMethodException(name);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -34,5 +34,7 @@ public class FieldAssistTestSuite extends TestSuite {
 		// addTest(new TestSuite(ComboFieldAssistTests.class));
 		addTest(new TestSuite(ControlDecorationTests.class));
 		addTest(new TestSuite(FieldAssistAPITests.class));
+		addTest(new TestSuite(AsyncContentProposalTests.class));
+		addTest(new TestSuite(ContentProposalPopupTests.class));
 	}
 }
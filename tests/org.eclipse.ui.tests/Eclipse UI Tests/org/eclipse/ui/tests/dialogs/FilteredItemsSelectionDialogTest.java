@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.dialogs;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.dialogs.DialogSettings;
+import org.eclipse.jface.dialogs.IDialogSettings;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.dialogs.FilteredItemsSelectionDialog;
+import org.eclipse.ui.dialogs.FilteredResourcesSelectionDialog;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests how FilteredItemsSelectionDialog refines a large result, in parallel
+ * for filters that allow it, and that it publishes the first page of a large
+ * result before sorting all of it.
+ */
+public class FilteredItemsSelectionDialogTest extends UITestCase {
+
+	private static final long TIMEOUT = 30000;
+
+	private static final int ITEM_COUNT = 10000;
+
+	// the size of the first page of a large result
+	private static final int FIRST_PAGE_SIZE = 100;
+
+	private TestDialog dialog;
+
+	/**
+	 * A dialog on strings, which can record the threads that match them.
+	 */
+	private static class TestDialog extends FilteredItemsSelectionDialog {
+		final String[] items;
+		final boolean concurrent;
+		final Set matchingThreads = Collections.synchronizedSet(new HashSet());
+		final CountDownLatch twoThreads = new CountDownLatch(2);
+		volatile boolean recording;
+
+		TestDialog(Shell shell, String[] items, boolean concurrent) {
+			super(shell);
+			this.items = items;
+			this.concurrent = concurrent;
+		}
+
+		class TestFilter extends ItemsFilter {
+			public boolean matchItem(Object item) {
+				if (recording && matchingThreads.add(Thread.currentThread())
+						&& concurrent
+						&& Runtime.getRuntime().availableProcessors() > 1) {
+					// give a helper the chance to take a chunk as well
+					twoThreads.countDown();
+					try {
+						twoThreads.await(TIMEOUT, TimeUnit.MILLISECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return matches((String) item);
+			}
+
+			public boolean isConsistentItem(Object item) {
+				return true;
+			}
+
+			public boolean allowsConcurrentMatching() {
+				return concurrent;
+			}
+		}
+
+		boolean defaultAllowsConcurrentMatching() {
+			return new ItemsFilter() {
+				public boolean matchItem(Object item) {
+					return matches((String) item);
+				}
+
+				public boolean isConsistentItem(Object item) {
+					return true;
+				}
+			}.allowsConcurrentMatching();
+		}
+
+		protected Control createExtendedContentArea(Composite parent) {
+			return null;
+		}
+
+		protected IDialogSettings getDialogSettings() {
+			return new DialogSettings("FilteredItemsSelectionDialogTest");
+		}
+
+		protected IStatus validateItem(Object item) {
+			return Status.OK_STATUS;
+		}
+
+		protected ItemsFilter createFilter() {
+			return new TestFilter();
+		}
+
+		protected Comparator getItemsComparator() {
+			return new Comparator() {
+				public int compare(Object o1, Object o2) {
+					return ((String) o1).compareTo((String) o2);
+				}
+			};
+		}
+
+		protected void fillContentProvider(
+				AbstractContentProvider contentProvider,
+				ItemsFilter itemsFilter, IProgressMonitor progressMonitor)
+				throws CoreException {
+			for (int i = 0; i < items.length; i++) {
+				contentProvider.add(items[i], itemsFilter);
+			}
+		}
+
+		public String getElementName(Object item) {
+			return (String) item;
+		}
+	}
+
+	/**
+	 * A resources dialog giving access to its filters.
+	 */
+	private static class ResourcesDialog extends
+			FilteredResourcesSelectionDialog {
+		ResourcesDialog(Shell shell) {
+			super(shell, false, ResourcesPlugin.getWorkspace().getRoot(),
+					IResource.FILE);
+		}
+
+		boolean resourceFilterAllowsConcurrentMatching() {
+			return createFilter().allowsConcurrentMatching();
+		}
+
+		boolean filterSubclassAllowsConcurrentMatching() {
+			return new ResourceFilter() {
+				public boolean matchItem(Object item) {
+					return super.matchItem(item);
+				}
+			}.allowsConcurrentMatching();
+		}
+	}
+
+	/**
+	 * @param testName
+	 */
+	public FilteredItemsSelectionDialogTest(String testName) {
+		super(testName);
+	}
+
+	protected void doTearDown() throws Exception {
+		if (dialog != null) {
+			dialog.close();
+			dialog = null;
+		}
+		super.doTearDown();
+	}
+
+	public void testConcurrentMatchingIsOptIn() throws Exception {
+		dialog = open(false, "item");
+		assertFalse(dialog.defaultAllowsConcurrentMatching());
+
+		ResourcesDialog resourcesDialog = new ResourcesDialog(getShell());
+		resourcesDialog.create();
+		try {
+			assertTrue(resourcesDialog.resourceFilterAllowsConcurrentMatching());
+			// subclasses may match differently
+			assertFalse(resourcesDialog.filterSubclassAllowsConcurrentMatching());
+		} finally {
+			resourcesDialog.close();
+		}
+	}
+
+	public void testRefinedInParallel() throws Exception {
+		dialog = open(true, "item");
+		waitForResult(getItems(""));
+
+		refine("item1");
+
+		assertEquals(getItems("item1"), getElements());
+		if (Runtime.getRuntime().availableProcessors() > 1) {
+			assertTrue("Matched in one thread only",
+					dialog.matchingThreads.size() > 1);
+		}
+	}
+
+	public void testRefinedInOneThreadUnlessAllowed() throws Exception {
+		dialog = open(false, "item");
+		waitForResult(getItems(""));
+
+		refine("item1");
+
+		assertEquals(getItems("item1"), getElements());
+		assertEquals(1, dialog.matchingThreads.size());
+	}
+
+	public void testRefinementOfRefinement() throws Exception {
+		dialog = open(true, "item");
+		waitForResult(getItems(""));
+
+		refine("item1");
+		refine("item12");
+
+		assertEquals(getItems("item12"), getElements());
+	}
+
+	public void testFirstPageOfLargeResult() throws Exception {
+		dialog = open(false, "item");
+		waitForResult(getItems(""));
+		Object contentProvider = getField(dialog, "contentProvider");
+		Object filter = getField(dialog, "filter");
+
+		// fill the content provider again, out of order and unsorted
+		invoke(contentProvider, "reset", new Object[0]);
+		List shuffled = new ArrayList(Arrays.asList(dialog.items));
+		Collections.shuffle(shuffled, new Random(0));
+		for (int i = 0; i < shuffled.size(); i++) {
+			invoke(contentProvider, "add", new Object[] { shuffled.get(i),
+					filter });
+		}
+
+		assertEquals(Boolean.TRUE, invoke(contentProvider, "publishFirstPage",
+				new Object[] { new NullProgressMonitor() }));
+		assertEquals(getItems("").subList(0, FIRST_PAGE_SIZE), Arrays
+				.asList((Object[]) invoke(contentProvider, "getElements",
+						new Object[] { null })));
+	}
+
+	public void testNoFirstPageOfSmallResult() throws Exception {
+		dialog = open(false, "item");
+		waitForResult(getItems(""));
+		Object contentProvider = getField(dialog, "contentProvider");
+		Object filter = getField(dialog, "filter");
+
+		invoke(contentProvider, "reset", new Object[0]);
+		for (int i = 0; i < FIRST_PAGE_SIZE; i++) {
+			invoke(contentProvider, "add", new Object[] { dialog.items[i],
+					filter });
+		}
+
+		assertEquals(Boolean.FALSE, invoke(contentProvider,
+				"publishFirstPage", new Object[] { new NullProgressMonitor() }));
+	}
+
+	private TestDialog open(boolean concurrent, String pattern) {
+		String[] items = new String[ITEM_COUNT];
+		for (int i = 0; i < items.length; i++) {
+			String number = String.valueOf(i);
+			// item0000 to item9999, so the sorted order is the numeric one
+			items[i] = "item0000".substring(0, 8 - number.length()) + number;
+		}
+		TestDialog testDialog = new TestDialog(getShell(), items, concurrent);
+		testDialog.setInitialPattern(pattern);
+		testDialog.setBlockOnOpen(false);
+		testDialog.open();
+		return testDialog;
+	}
+
+	private Shell getShell() {
+		return getWorkbench().getActiveWorkbenchWindow().getShell();
+	}
+
+	/**
+	 * Changes the pattern, which refines the last result, and waits for the
+	 * refined result.
+	 */
+	private void refine(String pattern) throws Exception {
+		dialog.matchingThreads.clear();
+		dialog.recording = true;
+		((Text) getField(dialog, "pattern")).setText(pattern);
+		waitForResult(getItems(pattern));
+		dialog.recording = false;
+	}
+
+	/**
+	 * Waits until the dialog shows the expected items, and has remembered
+	 * them as the last completed result.
+	 */
+	private void waitForResult(final List expected) {
+		assertTrue("Result not shown", processEventsUntil(new Condition() {
+			public boolean compute() {
+				try {
+					return getField(dialog, "lastCompletedFilter") == getField(
+							dialog, "filter")
+							&& expected.equals(getElements());
+				} catch (Exception e) {
+					return false;
+				}
+			}
+		}, TIMEOUT));
+	}
+
+	/**
+	 * @return the items of the dialog starting with the given prefix, in
+	 *         sorted order
+	 */
+	private List getItems(String prefix) {
+		List result = new ArrayList();
+		for (int i = 0; i < dialog.items.length; i++) {
+			if (dialog.items[i].startsWith(prefix)) {
+				result.add(dialog.items[i]);
+			}
+		}
+		return result;
+	}
+
+	private List getElements() throws Exception {
+		Object contentProvider = getField(dialog, "contentProvider");
+		return Arrays.asList((Object[]) invoke(contentProvider, "getElements",
+				new Object[] { null }));
+	}
+
+	private static Object getField(Object target, String name)
+			throws Exception {
+		Field field = FilteredItemsSelectionDialog.class
+				.getDeclaredField(name);
+		field.setAccessible(true);
+		return field.get(target);
+	}
+
+	private static Object invoke(Object target, String name, Object[] args)
+			throws Exception {
+		Method[] methods = target.getClass().getDeclaredMethods();
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i].getName().equals(name)
+					&& methods[i].getParameterTypes().length == args.length) {
+				methods[i].setAccessible(true);
+				return methods[i].invoke(target, args);
+			}
+		}
+		throw new NoSuchMethodException(name);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,17 +11,29 @@
 
 package org.eclipse.ui.tests.filteredtree;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.tests.viewers.TestElement;
 import org.eclipse.jface.tests.viewers.TestModelContentProvider;
+import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TreeItem;
 import org.eclipse.ui.dialogs.FilteredTree;
 import org.eclipse.ui.dialogs.PatternFilter;
 import org.eclipse.ui.tests.harness.util.UITestCase;
@@ -32,7 +44,89 @@ public class FilteredTreeTests extends UITestCase {
 	// create an 8000-item Tree
 	private static int DEPTH = 3;
 	private static int NUM_ITEMS = 20;
+
+	private static final long TIMEOUT = 10000;
+
+	// the tree filtered in a background thread: roots and their children
+	private static final String[][] FRUIT = new String[][] {
+			{ "alpha", "apple", "avocado" }, { "beta", "banana", "blueberry" },
+			{ "gamma", "grape" } };
+
+	private Shell fShell;
 	
+	private static class FruitContentProvider implements ITreeContentProvider {
+		private final Map children = new HashMap();
+
+		FruitContentProvider() {
+			for (int i = 0; i < FRUIT.length; i++) {
+				children.put(FRUIT[i][0], Arrays.asList(FRUIT[i]).subList(1,
+						FRUIT[i].length).toArray());
+			}
+		}
+
+		public Object[] getElements(Object inputElement) {
+			Object[] roots = new Object[FRUIT.length];
+			for (int i = 0; i < FRUIT.length; i++) {
+				roots[i] = FRUIT[i][0];
+			}
+			return roots;
+		}
+
+		public Object[] getChildren(Object parentElement) {
+			Object[] result = (Object[]) children.get(parentElement);
+			return result == null ? new Object[0] : result;
+		}
+
+		public Object getParent(Object element) {
+			return null;
+		}
+
+		public boolean hasChildren(Object element) {
+			return children.containsKey(element);
+		}
+
+		public void dispose() {
+		}
+
+		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		}
+	}
+
+	/**
+	 * Records the elements matched outside the UI thread, and the patterns
+	 * set. Matching outside the UI thread can be held up.
+	 */
+	private static class RecordingPatternFilter extends PatternFilter {
+		final List uiThreadMatches = Collections.synchronizedList(new ArrayList());
+		final List backgroundMatches = Collections.synchronizedList(new ArrayList());
+		final List patterns = new ArrayList();
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch released = new CountDownLatch(1);
+		volatile boolean block;
+
+		protected boolean isLeafMatch(Viewer viewer, Object element) {
+			if (Display.getCurrent() != null) {
+				uiThreadMatches.add(element);
+			} else {
+				backgroundMatches.add(element);
+				if (block) {
+					blocked.countDown();
+					try {
+						released.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+			return super.isLeafMatch(viewer, element);
+		}
+
+		public void setPattern(String patternString) {
+			patterns.add(patternString);
+			super.setPattern(patternString);
+		}
+	}
+
 	private class MyFilteredTree extends FilteredTree{
 		public MyFilteredTree(Composite comp, int style) {
 			super(comp);
@@ -153,7 +247,103 @@ public class FilteredTreeTests extends UITestCase {
 		fTreeViewer.getViewer().setInput(fRootElement);
 	}
 
+	public void testFilterInBackground() {
+		final RecordingPatternFilter filter = new RecordingPatternFilter();
+		final FilteredTree tree = createFruitTree(filter);
+
+		tree.getFilterControl().setText("b");
+
+		waitForFruit(tree, new String[] { "beta", "banana", "blueberry" });
+		assertTrue(filter.backgroundMatches.contains("blueberry"));
+		// the elements that do not match were only looked at in the background
+		assertTrue(filter.backgroundMatches.contains("apple"));
+		assertFalse(filter.uiThreadMatches.contains("apple"));
+		assertFalse(filter.uiThreadMatches.contains("grape"));
+	}
+
+	public void testFilterInBackgroundRefinesPreviousMatches() {
+		final RecordingPatternFilter filter = new RecordingPatternFilter();
+		final FilteredTree tree = createFruitTree(filter);
+		tree.getFilterControl().setText("b");
+		waitForFruit(tree, new String[] { "beta", "banana", "blueberry" });
+		filter.backgroundMatches.clear();
+
+		tree.getFilterControl().setText("bl");
+
+		waitForFruit(tree, new String[] { "beta", "blueberry" });
+		// only the children shown for "b" are matched again
+		assertFalse(filter.backgroundMatches.contains("apple"));
+		assertFalse(filter.backgroundMatches.contains("grape"));
+	}
+
+	public void testTextChangeCancelsBackgroundFilter() throws Exception {
+		final RecordingPatternFilter filter = new RecordingPatternFilter();
+		final FilteredTree tree = createFruitTree(filter);
+		filter.block = true;
+		try {
+			tree.getFilterControl().setText("a");
+			assertTrue("Filter pass not started", processEventsUntil(
+					new Condition() {
+						public boolean compute() {
+							return filter.blocked.getCount() == 0;
+						}
+					}, TIMEOUT));
+			// the tree is not filtered until the pass is complete
+			assertEquals(FRUIT.length, tree.getViewer().getTree()
+					.getItemCount());
+
+			filter.block = false;
+			tree.getFilterControl().setText("g");
+		} finally {
+			filter.released.countDown();
+		}
+
+		waitForFruit(tree, new String[] { "gamma", "grape" });
+		assertFalse("Cancelled pass installed", filter.patterns.contains("a"));
+	}
+
+	private FilteredTree createFruitTree(PatternFilter filter) {
+		fShell = new Shell();
+		fShell.setLayout(new GridLayout());
+		FilteredTree tree = new FilteredTree(fShell, SWT.SINGLE | SWT.H_SCROLL
+				| SWT.V_SCROLL | SWT.BORDER, filter, true);
+		tree.setFilterInBackground(true);
+		tree.getViewer().setContentProvider(new FruitContentProvider());
+		tree.getViewer().setLabelProvider(new LabelProvider());
+		tree.getViewer().setInput("fruit");
+		fShell.open();
+		return tree;
+	}
+
+	/**
+	 * Waits until the tree shows the given root with the given children only.
+	 */
+	private void waitForFruit(final FilteredTree tree, final String[] expected) {
+		assertTrue("Tree not filtered", processEventsUntil(new Condition() {
+			public boolean compute() {
+				TreeItem[] roots = tree.getViewer().getTree().getItems();
+				if (roots.length != 1 || !expected[0].equals(roots[0].getText())) {
+					return false;
+				}
+				TreeItem[] children = roots[0].getItems();
+				if (children.length != expected.length - 1) {
+					return false;
+				}
+				for (int i = 0; i < children.length; i++) {
+					if (!expected[i + 1].equals(children[i].getText())) {
+						return false;
+					}
+				}
+				return true;
+			}
+		}, TIMEOUT));
+	}
+
 	protected void doTearDown() throws Exception {
+		if (fShell != null) {
+			fShell.dispose();
+			fShell = null;
+		}
 		super.doTearDown();
 		fTreeViewer = null;
 		fRootElement = null;
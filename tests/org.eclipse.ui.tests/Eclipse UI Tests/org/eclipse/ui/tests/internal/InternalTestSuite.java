@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,9 @@ import org.eclipse.ui.tests.api.TrimLayoutTest;
 import org.eclipse.ui.tests.markers.Bug75909Test;
 import org.eclipse.ui.tests.markers.DeclarativeFilterActivityTest;
 import org.eclipse.ui.tests.markers.DeclarativeFilterDeclarationTest;
+import org.eclipse.ui.tests.markers.MarkerEntryTest;
+import org.eclipse.ui.tests.markers.MarkerGatheringTest;
+import org.eclipse.ui.tests.markers.MarkerIncrementalUpdateTest;
 import org.eclipse.ui.tests.markers.MarkerSortUtilTest;
 import org.eclipse.ui.tests.markers.MarkerSupportRegistryTests;
 import org.eclipse.ui.tests.markers.MarkerTesterTest;
@@ -54,6 +57,9 @@ public class InternalTestSuite extends TestSuite {
         addTest(new TestSuite(MarkerSupportRegistryTests.class));
         addTest(new TestSuite(MarkerSortUtilTest.class));       
         addTest(new TestSuite(MarkerViewTests.class));
+        addTest(new TestSuite(MarkerIncrementalUpdateTest.class));
+        addTest(new TestSuite(MarkerGatheringTest.class));
+        addTest(new TestSuite(MarkerEntryTest.class));
         addTest(Bug99858Test.suite());
         addTest(new TestSuite(WorkbenchWindowSubordinateSourcesTests.class));
         addTest(new TestSuite(ReopenMenuTest.class));
@@ -64,5 +70,6 @@ public class InternalTestSuite extends TestSuite {
         addTest(new TestSuite(StickyViewManagerTest.class));
         addTest(new TestSuite(FileEditorMappingTest.class));
         addTest(new TestSuite(WorkbenchSiteProgressServiceModelTagsTest.class));
+        addTest(new TestSuite(ResourceNameIndexTest.class));
     }
 }
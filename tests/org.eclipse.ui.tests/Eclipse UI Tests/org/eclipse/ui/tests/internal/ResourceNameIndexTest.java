@@ -0,0 +1,381 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ui.tests.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISavedState;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.ui.internal.ide.IDEWorkbenchPlugin;
+import org.eclipse.ui.internal.ide.ResourceNameIndex;
+import org.eclipse.ui.tests.harness.util.FileUtil;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests the index of resource names the Open Resource dialog asks for
+ * candidates: what it indexes, that it follows changes, and that it can be
+ * saved and restored.
+ */
+public class ResourceNameIndexTest extends UITestCase {
+
+	private static final long TIMEOUT = 30000;
+
+	private static final int SAVE_NUMBER = 4711;
+
+	private ResourceNameIndex index;
+
+	private IProject project;
+
+	private IProject closedProject;
+
+	private IPath savedPath;
+
+	/**
+	 * @param testName
+	 */
+	public ResourceNameIndexTest(String testName) {
+		super(testName);
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		project = FileUtil.createProject("IndexedProject");
+		closedProject = FileUtil.createProject("ClosedIndexedProject");
+		FileUtil.createFile("closedFile.txt", closedProject);
+		closedProject.close(null);
+		index = IDEWorkbenchPlugin.getDefault().getResourceNameIndex();
+		waitUntilReady();
+	}
+
+	protected void doTearDown() throws Exception {
+		// bring the shared index back in line with the workspace
+		load(null);
+		if (savedPath != null) {
+			IDEWorkbenchPlugin.getDefault().getStateLocation().append(savedPath)
+					.toFile().delete();
+		}
+		FileUtil.deleteProject(project);
+		FileUtil.deleteProject(closedProject);
+		super.doTearDown();
+	}
+
+	public void testCandidatesStartWithPatternCharacter() throws Exception {
+		IFile indexed = FileUtil.createFile("indexedFile.txt", project);
+		IFile other = FileUtil.createFile("otherFile.txt", project);
+
+		List candidates = getCandidates(project, "ind", true);
+
+		assertTrue(candidates.contains(project));
+		assertTrue(candidates.contains(indexed));
+		assertFalse(candidates.contains(other));
+		// the first character is matched ignoring its case
+		assertTrue(getCandidates(project, "IF", true).contains(indexed));
+	}
+
+	public void testWildcardMatchesAnyName() throws Exception {
+		IFile indexed = FileUtil.createFile("indexedFile.txt", project);
+		IFile other = FileUtil.createFile("otherFile.txt", project);
+
+		List candidates = getCandidates(project, "*File", true);
+
+		assertTrue(candidates.contains(indexed));
+		assertTrue(candidates.contains(other));
+	}
+
+	public void testOnlyResourcesInContainer() throws Exception {
+		IFolder folder = project.getFolder("folder");
+		folder.create(true, true, null);
+		IFile inside = folder.getFile("inFolder.txt");
+		inside.create(null, true, null);
+		IFile outside = FileUtil.createFile("inProject.txt", project);
+		waitUntilReady();
+
+		List candidates = getCandidates(folder, "in", true);
+
+		assertTrue(candidates.contains(inside));
+		assertFalse(candidates.contains(outside));
+	}
+
+	public void testDerivedFolderNotSearched() throws Exception {
+		IFolder folder = project.getFolder("derivedFolder");
+		folder.create(true, true, null);
+		IFile inside = folder.getFile("derivedFile.txt");
+		inside.create(null, true, null);
+		folder.setDerived(true, null);
+		waitUntilReady();
+
+		assertTrue(getCandidates(project, "d", false).contains(folder));
+		assertFalse(getCandidates(project, "d", false).contains(inside));
+		assertTrue(getCandidates(project, "d", true).contains(inside));
+
+		folder.setDerived(false, null);
+		waitUntilReady();
+		assertTrue(getCandidates(project, "d", false).contains(inside));
+	}
+
+	public void testFollowsChanges() throws Exception {
+		IFile file = FileUtil.createFile("changingFile.txt", project);
+		assertTrue(getCandidates(project, "c", true).contains(file));
+
+		IFile moved = project.getFile("movedFile.txt");
+		file.move(moved.getFullPath(), true, null);
+		assertTrue(getCandidates(project, "m", true).contains(moved));
+		assertFalse(getCandidates(project, "c", true).contains(file));
+
+		moved.delete(true, null);
+		assertFalse(getCandidates(project, "m", true).contains(moved));
+	}
+
+	public void testDerivedFileUpdatedWhileReady() throws Exception {
+		IFile file = FileUtil.createFile("derivedFile.txt", project);
+		int size = index.size();
+
+		// only a folder or project is walked in the background
+		file.setDerived(true, null);
+
+		assertTrue(index.isReady());
+		assertTrue(getCandidates(project, "d", false).contains(file));
+		assertEquals(size, index.size());
+	}
+
+	public void testClosedProjectIndexedWithoutContents() throws Exception {
+		IContainer root = ResourcesPlugin.getWorkspace().getRoot();
+		IFile closedFile = closedProject.getFile("closedFile.txt");
+
+		assertTrue(getCandidates(root, "C", true).contains(closedProject));
+		assertFalse(getCandidates(root, "c", true).contains(closedFile));
+
+		closedProject.open(null);
+		waitUntilReady();
+		assertTrue(getCandidates(root, "c", true).contains(closedFile));
+
+		closedProject.close(null);
+		waitUntilReady();
+		assertTrue(getCandidates(root, "c", true).contains(closedProject));
+		assertFalse(getCandidates(root, "c", true).contains(closedFile));
+	}
+
+	public void testRestoredFromSavedIndex() throws Exception {
+		IFile file = FileUtil.createFile("savedFile.txt", project);
+		save();
+		file.delete(true, null);
+		assertFalse(getCandidates(project, "s", true).contains(file));
+
+		// without changes since the save the saved index is taken as it is,
+		// so the file deleted meanwhile is back
+		load(newSavedState(null));
+
+		assertTrue(index.isReady());
+		assertTrue(getCandidates(project, "s", true).contains(file));
+	}
+
+	public void testRestoredIndexUpdatedWithSavedDelta() throws Exception {
+		IFile file = FileUtil.createFile("savedFile.txt", project);
+		save();
+		IFile added = FileUtil.createFile("addedFile.txt", project);
+
+		// the saved index has the file, but not the one added since
+		IResourceDelta delta = newDelta(project.getParent(),
+				IResourceDelta.CHANGED, 0, new IResourceDelta[] { newDelta(
+						project, IResourceDelta.CHANGED, 0, new IResourceDelta[] {
+								newDelta(file, IResourceDelta.REMOVED, 0,
+										new IResourceDelta[0]),
+								newDelta(added, IResourceDelta.ADDED, 0,
+										new IResourceDelta[0]) }) });
+		load(newSavedState(delta));
+
+		assertFalse(getCandidates(project, "s", true).contains(file));
+		assertTrue(getCandidates(project, "a", true).contains(added));
+	}
+
+	public void testChangesWhileLoadingApplied() throws Exception {
+		save();
+		final IFile file = project.getFile("loadingFile.txt");
+
+		// the file is created while the saved delta is processed, that is
+		// while the index is loaded
+		ISavedState savedState = (ISavedState) Proxy.newProxyInstance(
+				ISavedState.class.getClassLoader(),
+				new Class[] { ISavedState.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method,
+							Object[] args) throws Throwable {
+						if (method.getName().equals("lookup")) {
+							return savedPath;
+						}
+						if (method.getName().equals("processResourceChangeEvents")) {
+							file.create(null, true, null);
+						}
+						return null;
+					}
+				});
+		load(savedState);
+
+		assertTrue(index.isReady());
+		assertTrue(getCandidates(project, "l", true).contains(file));
+	}
+
+	public void testSizeCountsResources() throws Exception {
+		int size = index.size();
+
+		FileUtil.createFile("countedFile.txt", project);
+		assertEquals(size + 1, index.size());
+
+		project.getFile("countedFile.txt").delete(true, null);
+		assertEquals(size, index.size());
+	}
+
+	private List getCandidates(IContainer container, String pattern,
+			boolean showDerived) {
+		IResource[] candidates = index.getCandidates(container, pattern,
+				showDerived);
+		assertNotNull("Index not ready", candidates);
+		return Arrays.asList(candidates);
+	}
+
+	private void waitUntilReady() {
+		assertTrue("Index not ready", processEventsUntil(new Condition() {
+			public boolean compute() {
+				return index.isReady();
+			}
+		}, TIMEOUT));
+	}
+
+	private void save() throws Exception {
+		final IPath[] mapped = new IPath[1];
+		ISaveContext context = (ISaveContext) Proxy.newProxyInstance(
+				ISaveContext.class.getClassLoader(),
+				new Class[] { ISaveContext.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method,
+							Object[] args) {
+						String name = method.getName();
+						if (name.equals("getKind")) {
+							return new Integer(ISaveContext.FULL_SAVE);
+						}
+						if (name.equals("getSaveNumber")) {
+							return new Integer(SAVE_NUMBER);
+						}
+						if (name.equals("map")) {
+							mapped[0] = (IPath) args[1];
+						}
+						return null;
+					}
+				});
+		index.saving(context);
+		assertNotNull("Index not saved", mapped[0]);
+		savedPath = mapped[0];
+	}
+
+	/**
+	 * Loads the index again from the given saved state, or by walking the
+	 * workspace if it is <code>null</code>.
+	 */
+	private void load(ISavedState savedState) throws Exception {
+		Method load = ResourceNameIndex.class.getDeclaredMethod("load",
+				new Class[] { ISavedState.class, IProgressMonitor.class });
+		load.setAccessible(true);
+		load.invoke(index, new Object[] { savedState,
+				new NullProgressMonitor() });
+	}
+
+	/**
+	 * @return a saved state with the index saved last, reporting the given
+	 *         delta if there is one
+	 */
+	private ISavedState newSavedState(final IResourceDelta delta) {
+		return (ISavedState) Proxy.newProxyInstance(ISavedState.class
+				.getClassLoader(), new Class[] { ISavedState.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method,
+							Object[] args) {
+						String name = method.getName();
+						if (name.equals("lookup")) {
+							return savedPath;
+						}
+						if (name.equals("processResourceChangeEvents")
+								&& delta != null) {
+							((IResourceChangeListener) args[0])
+									.resourceChanged(newEvent(delta));
+						}
+						return null;
+					}
+				});
+	}
+
+	private static IResourceChangeEvent newEvent(final IResourceDelta delta) {
+		return (IResourceChangeEvent) Proxy.newProxyInstance(
+				IResourceChangeEvent.class.getClassLoader(),
+				new Class[] { IResourceChangeEvent.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method,
+							Object[] args) {
+						String name = method.getName();
+						if (name.equals("getDelta")) {
+							return delta;
+						}
+						if (name.equals("getType")) {
+							return new Integer(IResourceChangeEvent.POST_CHANGE);
+						}
+						return null;
+					}
+				});
+	}
+
+	/**
+	 * @return a made up delta, which can only be visited
+	 */
+	private static IResourceDelta newDelta(final IResource resource,
+			final int kind, final int flags, final IResourceDelta[] children) {
+		return (IResourceDelta) Proxy.newProxyInstance(IResourceDelta.class
+				.getClassLoader(), new Class[] { IResourceDelta.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method,
+							Object[] args) throws Throwable {
+						String name = method.getName();
+						if (name.equals("getResource")) {
+							return resource;
+						}
+						if (name.equals("getKind")) {
+							return new Integer(kind);
+						}
+						if (name.equals("getFlags")) {
+							return new Integer(flags);
+						}
+						if (name.equals("accept")) {
+							IResourceDeltaVisitor visitor = (IResourceDeltaVisitor) args[0];
+							if (visitor.visit((IResourceDelta) proxy)) {
+								for (int i = 0; i < children.length; i++) {
+									children[i].accept(visitor);
+								}
+							}
+							return null;
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+}
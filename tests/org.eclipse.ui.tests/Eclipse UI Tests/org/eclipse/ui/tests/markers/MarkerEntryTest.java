@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.markers;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.ui.internal.views.markers.MockMarkerEntry;
+import org.eclipse.ui.tests.navigator.AbstractNavigatorTest;
+import org.eclipse.ui.views.markers.MarkerItem;
+
+/**
+ * MarkerEntryTest checks the attribute values the entries of the markers views
+ * keep for sorting, grouping and counting, and that clearing the cache of an
+ * entry releases them.
+ */
+public class MarkerEntryTest extends AbstractNavigatorTest {
+
+	/**
+	 * Create a new instance of the receiver.
+	 *
+	 * @param testName
+	 */
+	public MarkerEntryTest(String testName) {
+		super(testName);
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		createTestFile();
+	}
+
+	public void testSeverityAndPriority() throws Exception {
+		IMarker marker = testFile.createMarker(IMarker.TASK);
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+
+		MarkerItem entry = createEntry(marker);
+
+		assertEquals(IMarker.SEVERITY_WARNING, entry.getAttributeValue(
+				IMarker.SEVERITY, -1));
+		assertEquals(IMarker.PRIORITY_HIGH, entry.getAttributeValue(
+				IMarker.PRIORITY, -1));
+	}
+
+	public void testMissingValuesAnswerTheDefault() throws Exception {
+		IMarker marker = testFile.createMarker(IMarker.TASK);
+		marker.setAttribute(IMarker.SEVERITY, "not an int");
+
+		MarkerItem entry = createEntry(marker);
+
+		assertEquals(-1, entry.getAttributeValue(IMarker.SEVERITY, -1));
+		assertEquals(-2, entry.getAttributeValue(IMarker.PRIORITY, -2));
+		assertEquals(-3, entry.getAttributeValue(IMarker.LINE_NUMBER, -3));
+	}
+
+	public void testValuesThatDoNotFit() throws Exception {
+		IMarker marker = testFile.createMarker(IMarker.TASK);
+		marker.setAttribute(IMarker.SEVERITY, -5);
+		marker.setAttribute(IMarker.PRIORITY, 100000);
+
+		MarkerItem entry = createEntry(marker);
+
+		assertEquals(-5, entry.getAttributeValue(IMarker.SEVERITY, -1));
+		assertEquals(100000, entry.getAttributeValue(IMarker.PRIORITY, -1));
+	}
+
+	public void testLineNumber() throws Exception {
+		IMarker marker = testFile.createMarker(IMarker.TASK);
+		marker.setAttribute(IMarker.LINE_NUMBER, 42);
+
+		MarkerItem entry = createEntry(marker);
+
+		assertEquals(42, entry.getAttributeValue(IMarker.LINE_NUMBER, -1));
+	}
+
+	public void testValuesKeptUntilCacheCleared() throws Exception {
+		IMarker marker = testFile.createMarker(IMarker.TASK);
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+		marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_LOW);
+		MarkerItem entry = createEntry(marker);
+		entry.getAttributeValue(IMarker.SEVERITY, -1);
+		entry.getAttributeValue(IMarker.PRIORITY, -1);
+
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		marker.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+
+		assertEquals("Severity read again before the cache was cleared",
+				IMarker.SEVERITY_INFO, entry.getAttributeValue(
+						IMarker.SEVERITY, -1));
+		assertEquals("Priority read again before the cache was cleared",
+				IMarker.PRIORITY_LOW, entry.getAttributeValue(
+						IMarker.PRIORITY, -1));
+
+		clearCache(entry);
+
+		assertEquals(IMarker.SEVERITY_ERROR, entry.getAttributeValue(
+				IMarker.SEVERITY, -1));
+		assertEquals(IMarker.PRIORITY_HIGH, entry.getAttributeValue(
+				IMarker.PRIORITY, -1));
+	}
+
+	public void testPathOfMarkersInOneFolderIsShared() throws Exception {
+		IFile otherFile = testFolder.getFile("Bar.txt");
+		otherFile.create(new ByteArrayInputStream("Other content."
+				.getBytes()), false, null);
+
+		MarkerItem first = createEntry(testFile.createMarker(IMarker.TASK));
+		MarkerItem second = createEntry(otherFile.createMarker(IMarker.TASK));
+
+		assertEquals(testFolder.getFullPath().toString(), first.getPath());
+		assertSame(first.getPath(), second.getPath());
+	}
+
+	/**
+	 * Create a marker entry for marker.
+	 *
+	 * @param marker
+	 * @return MarkerItem
+	 * @throws Exception
+	 */
+	private MarkerItem createEntry(IMarker marker) throws Exception {
+		Constructor constructor = getEntryClass().getDeclaredConstructor(
+				new Class[] { IMarker.class });
+		constructor.setAccessible(true);
+		return (MarkerItem) constructor.newInstance(new Object[] { marker });
+	}
+
+	private void clearCache(MarkerItem entry) throws Exception {
+		Method method = getEntryClass().getDeclaredMethod("clearCache",
+				new Class[0]);
+		method.setAccessible(true);
+		method.invoke(entry, new Object[0]);
+	}
+
+	/**
+	 * The entry class is not visible outside of its package, reach it through
+	 * the public mock.
+	 *
+	 * @return Class
+	 */
+	private Class getEntryClass() {
+		return MockMarkerEntry.class.getSuperclass();
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.markers;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.internal.views.markers.ExtendedMarkersView;
+import org.eclipse.ui.views.markers.MarkerItem;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * MarkerGatheringTest checks that gathering the markers of several projects
+ * concurrently gives the same result as gathering them one after the other.
+ */
+public class MarkerGatheringTest extends UITestCase {
+
+	private static final int PROJECTS = 4;
+	private static final int MARKERS_PER_PROJECT = 25;
+
+	private IProject[] projects;
+	private List created;
+	private Object generator;
+
+	/**
+	 * Create a new instance of the receiver.
+	 *
+	 * @param testName
+	 */
+	public MarkerGatheringTest(String testName) {
+		super(testName);
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		projects = new IProject[PROJECTS];
+		created = new ArrayList();
+		for (int i = 0; i < PROJECTS; i++) {
+			projects[i] = root.getProject("MarkerGatheringTest" + i);
+			projects[i].create(null);
+			projects[i].open(null);
+			for (int j = 0; j < MARKERS_PER_PROJECT; j++) {
+				IMarker marker = projects[i].createMarker(IMarker.PROBLEM);
+				marker.setAttribute(IMarker.SEVERITY, j % 3);
+				marker.setAttribute(IMarker.MESSAGE, "Marker " + i + "." + j);
+				created.add(marker);
+			}
+		}
+		IWorkbenchPage page = PlatformUI.getWorkbench()
+				.getActiveWorkbenchWindow().getActivePage();
+		MarkersTestMarkersView view = (MarkersTestMarkersView) page
+				.showView("org.eclipse.ui.tests.markerTests");
+		Field field = ExtendedMarkersView.class.getDeclaredField("generator");
+		field.setAccessible(true);
+		generator = field.get(view);
+	}
+
+	protected void doTearDown() throws Exception {
+		for (int i = 0; i < projects.length; i++) {
+			if (projects[i] != null) {
+				projects[i].delete(true, null);
+			}
+		}
+		projects = null;
+		generator = null;
+		super.doTearDown();
+	}
+
+	public void testConcurrentGatheringMatchesSequential() throws Exception {
+		List sequential = gather(1);
+		List concurrent = gather(PROJECTS);
+
+		assertTrue("Created markers not gathered", sequential
+				.containsAll(created));
+		assertEquals("Concurrent gathering differs", sequential, concurrent);
+	}
+
+	public void testConcurrentGatheringKeepsProjectOrder() throws Exception {
+		List concurrent = gather(PROJECTS);
+
+		// the markers of a project follow each other, in workspace order
+		IProject[] workspaceProjects = ResourcesPlugin.getWorkspace()
+				.getRoot().getProjects();
+		int projectIndex = 0;
+		Iterator iterator = concurrent.iterator();
+		while (iterator.hasNext()) {
+			IResource resource = ((IMarker) iterator.next()).getResource();
+			if (resource.getType() == IResource.ROOT) {
+				assertEquals("Root marker not first", 0, projectIndex);
+				continue;
+			}
+			IProject project = resource.getProject();
+			while (projectIndex < workspaceProjects.length
+					&& !workspaceProjects[projectIndex].equals(project)) {
+				projectIndex++;
+			}
+			assertTrue("Marker of " + project.getName() + " out of order",
+					projectIndex < workspaceProjects.length);
+		}
+	}
+
+	public void testRepeatedConcurrentGathering() throws Exception {
+		List expected = gather(1);
+		for (int i = 0; i < 5; i++) {
+			assertEquals("Concurrent gathering " + i + " differs", expected,
+					gather(PROJECTS));
+		}
+	}
+
+	/**
+	 * Gather the problems of the workspace with the generator of the markers
+	 * view.
+	 *
+	 * @param maxWorkers
+	 * @return the gathered markers in the order they were gathered
+	 * @throws Exception
+	 */
+	private List gather(int maxWorkers) throws Exception {
+		Method method = generator.getClass().getDeclaredMethod(
+				"gatherMarkers",
+				new Class[] { String[].class, boolean.class, Collection.class,
+						IProgressMonitor.class, int.class });
+		method.setAccessible(true);
+		Collection entries = new ArrayList();
+		Boolean success = (Boolean) method.invoke(generator, new Object[] {
+				new String[] { IMarker.PROBLEM }, Boolean.TRUE, entries,
+				new NullProgressMonitor(), new Integer(maxWorkers) });
+		assertTrue("Gathering failed", success.booleanValue());
+
+		List markers = new ArrayList(entries.size());
+		Iterator iterator = entries.iterator();
+		while (iterator.hasNext()) {
+			markers.add(((MarkerItem) iterator.next()).getMarker());
+		}
+		return markers;
+	}
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.markers;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.tests.navigator.AbstractNavigatorTest;
+
+/**
+ * MarkerIncrementalUpdateTest checks that the markers view follows marker
+ * additions, removals and changes once it has gathered its markers, and that
+ * it keeps its severity counts in step.
+ */
+public class MarkerIncrementalUpdateTest extends AbstractNavigatorTest {
+
+	private static final long TIMEOUT = 10000;
+
+	private MarkersTestMarkersView view;
+
+	/**
+	 * Create a new instance of the receiver.
+	 *
+	 * @param testName
+	 */
+	public MarkerIncrementalUpdateTest(String testName) {
+		super(testName);
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		createTestFile();
+		IWorkbenchPage page = PlatformUI.getWorkbench()
+				.getActiveWorkbenchWindow().getActivePage();
+		try {
+			view = (MarkersTestMarkersView) page
+					.showView("org.eclipse.ui.tests.markerTests");
+		} catch (PartInitException e) {
+			fail(e.getLocalizedMessage());
+		}
+		// let the view gather the markers once, later updates are incremental
+		waitForMarkers(new IMarker[0], new IMarker[0]);
+	}
+
+	protected void doTearDown() throws Exception {
+		if (view != null) {
+			view.getSite().getPage().hideView(view);
+			view = null;
+		}
+		super.doTearDown();
+	}
+
+	public void testAddMarker() throws CoreException {
+		Integer[] before = view.getMarkerCounts();
+
+		IMarker marker = createProblem(IMarker.SEVERITY_ERROR);
+
+		waitForMarkers(new IMarker[] { marker }, new IMarker[0]);
+		assertCounts(before, 1, 0, 0);
+	}
+
+	public void testAddMarkersInOneOperation() throws CoreException {
+		Integer[] before = view.getMarkerCounts();
+		final IMarker[][] markers = new IMarker[1][];
+
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			public void run(IProgressMonitor monitor) throws CoreException {
+				markers[0] = new IMarker[] {
+						createProblem(IMarker.SEVERITY_ERROR),
+						createProblem(IMarker.SEVERITY_WARNING),
+						createProblem(IMarker.SEVERITY_WARNING),
+						createProblem(IMarker.SEVERITY_INFO) };
+			}
+		}, null);
+
+		waitForMarkers(markers[0], new IMarker[0]);
+		assertCounts(before, 1, 2, 1);
+	}
+
+	public void testRemoveMarker() throws CoreException {
+		IMarker kept = createProblem(IMarker.SEVERITY_WARNING);
+		IMarker removed = createProblem(IMarker.SEVERITY_ERROR);
+		waitForMarkers(new IMarker[] { kept, removed }, new IMarker[0]);
+		Integer[] before = view.getMarkerCounts();
+
+		removed.delete();
+
+		waitForMarkers(new IMarker[] { kept }, new IMarker[] { removed });
+		assertCounts(before, -1, 0, 0);
+	}
+
+	public void testChangeSeverity() throws CoreException {
+		final IMarker marker = createProblem(IMarker.SEVERITY_WARNING);
+		waitForMarkers(new IMarker[] { marker }, new IMarker[0]);
+		final Integer[] before = view.getMarkerCounts();
+
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+
+		// the marker stays, only its severity moves it to the other count
+		assertTrue("Severity change not applied", processEventsUntil(
+				new Condition() {
+					public boolean compute() {
+						Integer[] counts = view.getMarkerCounts();
+						return counts[0].intValue() == before[0].intValue() + 1;
+					}
+				}, TIMEOUT));
+		assertCounts(before, 1, -1, 0);
+		assertTrue("Changed marker missing", getShownMarkers().contains(marker));
+	}
+
+	public void testChangeMessage() throws CoreException {
+		IMarker marker = createProblem(IMarker.SEVERITY_ERROR);
+		waitForMarkers(new IMarker[] { marker }, new IMarker[0]);
+		Integer[] before = view.getMarkerCounts();
+
+		marker.setAttribute(IMarker.MESSAGE, "changed message");
+		processEventsUntil(null, 1000);
+		waitForMarkers(new IMarker[] { marker }, new IMarker[0]);
+
+		assertCounts(before, 0, 0, 0);
+	}
+
+	public void testMarkersOfDeletedResource() throws CoreException {
+		IMarker marker = createProblem(IMarker.SEVERITY_ERROR);
+		waitForMarkers(new IMarker[] { marker }, new IMarker[0]);
+		Integer[] before = view.getMarkerCounts();
+
+		testFile.delete(true, null);
+
+		waitForMarkers(new IMarker[0], new IMarker[] { marker });
+		assertCounts(before, -1, 0, 0);
+	}
+
+	private IMarker createProblem(int severity) throws CoreException {
+		IMarker marker = testFile.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		marker.setAttribute(IMarker.MESSAGE, "Incremental update " + severity);
+		return marker;
+	}
+
+	private Set getShownMarkers() {
+		return new HashSet(Arrays.asList(view.getCurrentMarkers()));
+	}
+
+	/**
+	 * Process events until the view shows all of the expected markers and none
+	 * of the unexpected ones.
+	 */
+	private void waitForMarkers(final IMarker[] expected,
+			final IMarker[] unexpected) {
+		boolean updated = processEventsUntil(new Condition() {
+			public boolean compute() {
+				Set shown = getShownMarkers();
+				if (!shown.containsAll(Arrays.asList(expected))) {
+					return false;
+				}
+				for (int i = 0; i < unexpected.length; i++) {
+					if (shown.contains(unexpected[i])) {
+						return false;
+					}
+				}
+				return view.getMarkerCounts() != null;
+			}
+		}, TIMEOUT);
+		assertTrue("Markers view not updated", updated);
+	}
+
+	private void assertCounts(Integer[] before, int errors, int warnings,
+			int infos) {
+		Integer[] after = view.getMarkerCounts();
+		assertEquals("Errors", before[0].intValue() + errors, after[0]
+				.intValue());
+		assertEquals("Warnings", before[1].intValue() + warnings, after[1]
+				.intValue());
+		assertEquals("Infos", before[2].intValue() + infos, after[2]
+				.intValue());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 IBM Corporation and others.
+ * Copyright (c) 2008, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,11 +11,17 @@
 
 package org.eclipse.ui.tests.markers;
 
+import java.lang.reflect.Constructor;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.eclipse.ui.internal.views.markers.MarkerSortUtil;
 import org.eclipse.ui.internal.views.markers.MockMarkerEntry;
+import org.eclipse.ui.views.markers.MarkerField;
+import org.eclipse.ui.views.markers.MarkerItem;
 import org.eclipse.ui.tests.harness.util.UITestCase;
 
 /**
@@ -26,6 +32,32 @@ public class MarkerSortUtilTest extends UITestCase {
 
 	private static final int ARRAYSIZE = 100000;
 
+	/**
+	 * A field comparing the names of mock entries, recording the threads it
+	 * compares in.
+	 */
+	static class NameField extends MarkerField {
+		final Set threads = Collections.synchronizedSet(new HashSet());
+		private final boolean concurrent;
+
+		NameField(boolean concurrent) {
+			this.concurrent = concurrent;
+		}
+
+		public String getValue(MarkerItem item) {
+			return ((MockMarkerEntry) item).name;
+		}
+
+		public int compare(MarkerItem item1, MarkerItem item2) {
+			threads.add(Thread.currentThread());
+			return super.compare(item1, item2);
+		}
+
+		public boolean allowsConcurrentComparison() {
+			return concurrent;
+		}
+	}
+
 	public MarkerSortUtilTest() {
 		super("MarkerSortUtilTest");
 	}
@@ -48,6 +80,56 @@ public class MarkerSortUtilTest extends UITestCase {
 	public void testCompleteSort() {
 		sortToLimit(ARRAYSIZE,ARRAYSIZE);
 	}
+
+	public void testSmallLimitSort() {
+		sortToLimit(ARRAYSIZE,100);
+	}
+	public void testConcurrentFieldsSortedInParallel() throws Exception {
+		NameField field = new NameField(true);
+		sortByField(field);
+		if (Runtime.getRuntime().availableProcessors() > 1) {
+			assertTrue("Not sorted in parallel", field.threads.size() > 1);
+		}
+	}
+
+	public void testOtherFieldsSortedInOneThread() throws Exception {
+		NameField field = new NameField(false);
+		sortByField(field);
+		assertEquals(Collections.singleton(Thread.currentThread()),
+				field.threads);
+	}
+
+	private void sortByField(MarkerField field) throws Exception {
+		MockMarkerEntry[] fArray1 = generateArray(ARRAYSIZE);
+		MockMarkerEntry[] fArray2 = (MockMarkerEntry[]) fArray1.clone();
+		Comparator comparator = createMarkerComparator(field);
+		MarkerSortUtil.sortStartingKElement(fArray1, comparator, 0,
+				fArray1.length - 1, ARRAYSIZE / 2);
+		Arrays.sort(fArray2, comparator);
+
+		for (int i = 0; i < ARRAYSIZE / 2; i++) {
+			if (!fArray1[i].equals(fArray2[i])) {
+				fail("Incorrect sorting by MarkerSortUtil.sortStartingKElement(...)");
+			}
+		}
+	}
+
+	/**
+	 * Create the comparator of a markers view sorting by field.
+	 */
+	private static Comparator createMarkerComparator(MarkerField field)
+			throws Exception {
+		Class comparatorClass = MarkerSortUtil.class.getClassLoader()
+				.loadClass(
+						"org.eclipse.ui.internal.views.markers.MarkerComparator");
+		Constructor constructor = comparatorClass
+				.getDeclaredConstructor(new Class[] { MarkerField.class,
+						MarkerField[].class });
+		constructor.setAccessible(true);
+		return (Comparator) constructor.newInstance(new Object[] { null,
+				new MarkerField[] { field } });
+	}
+
 	/**
 	 * 
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -72,6 +72,32 @@ public class MarkersTestMarkersView extends MarkerSupportView {
 		return new IMarker[0];
 	}
 
+	/**
+	 * Get the number of markers the receiver counts per severity.
+	 * 
+	 * @return an array with the number of errors, warnings, infos and others,
+	 *         or <code>null</code> if it cannot be accessed
+	 */
+	public Integer[] getMarkerCounts() {
+		try {
+			Method inputMethod = ExtendedMarkersView.class.getDeclaredMethod(
+					"getActiveViewerInputClone", new Class[0]);
+			inputMethod.setAccessible(true);
+			Object markers = inputMethod.invoke(this, new Object[0]);
+			Method countsMethod = markers.getClass().getDeclaredMethod(
+					"getMarkerCounts", new Class[0]);
+			countsMethod.setAccessible(true);
+			return (Integer[]) countsMethod.invoke(markers, new Object[0]);
+		} catch (NoSuchMethodException e) {
+			e.printStackTrace();
+		} catch (IllegalAccessException e) {
+			e.printStackTrace();
+		} catch (InvocationTargetException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
 	/**
 	 * Add a listener for the end of the update.
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2006 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,12 +11,22 @@
 
 package org.eclipse.ui.tests.operations;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.commands.operations.AbstractOperation;
+import org.eclipse.core.commands.operations.CompressedSnapshot;
 import org.eclipse.core.commands.operations.DefaultOperationHistory;
 import org.eclipse.core.commands.operations.ICompositeOperation;
+import org.eclipse.core.commands.operations.IMemoryAwareOperation;
 import org.eclipse.core.commands.operations.IOperationApprover2;
 import org.eclipse.core.commands.operations.IOperationHistoryListener;
 import org.eclipse.core.commands.operations.IUndoContext;
@@ -41,6 +51,31 @@ import org.eclipse.ui.tests.internal.ForcedException;
  * @since 3.1
  */
 public class OperationsAPITest extends TestCase {
+
+	/**
+	 * An operation reporting a fixed size, which it reduces to a tenth when it
+	 * is compactable and compacted.
+	 */
+	static class SizedTestOperation extends TestOperation implements
+			IMemoryAwareOperation {
+		long size;
+		boolean compactable;
+		boolean compacted;
+
+		SizedTestOperation(String label, long size, boolean compactable) {
+			super(label);
+			this.size = size;
+			this.compactable = compactable;
+		}
+
+		public long getApproximateSize() {
+			return compacted ? size / 10 : size;
+		}
+
+		public void compact() {
+			compacted = compactable;
+		}
+	}
 	
 	// number of operations to perform a stress test
 	static int STRESS_NUM = 5000;
@@ -796,4 +831,219 @@ public class OperationsAPITest extends TestCase {
 		history.removeOperationApprover(approver);
 	}
 
+	public void testMemoryLimitRemovesOldestOperations() throws ExecutionException {
+		DefaultOperationHistory sizedHistory = new DefaultOperationHistory();
+		ObjectUndoContext contextD = new ObjectUndoContext("D");
+		ObjectUndoContext contextE = new ObjectUndoContext("E");
+		SizedTestOperation[] ops = new SizedTestOperation[4];
+		for (int i = 0; i < ops.length; i++) {
+			ops[i] = new SizedTestOperation("sized" + i, 100, false);
+			ops[i].addContext(i == 2 ? contextE : contextD);
+			sizedHistory.execute(ops[i], null, null);
+		}
+		assertEquals(400, sizedHistory.getMemoryUsage());
+
+		sizedHistory.setMemoryLimit(250);
+		assertEquals(250, sizedHistory.getMemoryLimit());
+		assertEquals(200, sizedHistory.getMemoryUsage());
+		assertTrue(Arrays.asList(sizedHistory.getUndoHistory(contextD)).equals(
+				Arrays.asList(new IUndoableOperation[] { ops[3] })));
+		assertEquals(ops[2], sizedHistory.getUndoOperation(contextE));
+
+		// the most recent operation of each context is kept
+		sizedHistory.setMemoryLimit(1);
+		assertEquals(200, sizedHistory.getMemoryUsage());
+
+		sizedHistory.setMemoryLimit(0);
+		sizedHistory.dispose(IOperationHistory.GLOBAL_UNDO_CONTEXT, true, true, false);
+	}
+
+	public void testMemoryLimitRemovesBehindIdleContext() throws ExecutionException {
+		DefaultOperationHistory sizedHistory = new DefaultOperationHistory();
+		ObjectUndoContext contextC = new ObjectUndoContext("C");
+		ObjectUndoContext contextD = new ObjectUndoContext("D");
+		SizedTestOperation idle = new SizedTestOperation("idle", 100, false);
+		idle.addContext(contextC);
+		sizedHistory.execute(idle, null, null);
+		SizedTestOperation[] ops = new SizedTestOperation[5];
+		for (int i = 0; i < ops.length; i++) {
+			ops[i] = new SizedTestOperation("sized" + i, 100, false);
+			ops[i].addContext(contextD);
+			sizedHistory.execute(ops[i], null, null);
+		}
+
+		// the only operation of C does not keep the older ones of D
+		sizedHistory.setMemoryLimit(250);
+		assertEquals(200, sizedHistory.getMemoryUsage());
+		assertEquals(idle, sizedHistory.getUndoOperation(contextC));
+		assertTrue(Arrays.asList(sizedHistory.getUndoHistory(contextD)).equals(
+				Arrays.asList(new IUndoableOperation[] { ops[4] })));
+
+		sizedHistory.setMemoryLimit(0);
+		sizedHistory.dispose(IOperationHistory.GLOBAL_UNDO_CONTEXT, true, true, false);
+	}
+
+	public void testMemoryLimitKeepsOperationsAfterKeptOnes() throws ExecutionException {
+		DefaultOperationHistory sizedHistory = new DefaultOperationHistory();
+		ObjectUndoContext contextD = new ObjectUndoContext("D");
+		ObjectUndoContext contextE = new ObjectUndoContext("E");
+		SizedTestOperation olderE = new SizedTestOperation("olderE", 100, false);
+		olderE.addContext(contextE);
+		sizedHistory.execute(olderE, null, null);
+		// the most recent operation of E
+		SizedTestOperation both = new SizedTestOperation("both", 100, false);
+		both.addContext(contextD);
+		both.addContext(contextE);
+		sizedHistory.execute(both, null, null);
+		SizedTestOperation[] ops = new SizedTestOperation[2];
+		for (int i = 0; i < ops.length; i++) {
+			ops[i] = new SizedTestOperation("sized" + i, 100, false);
+			ops[i].addContext(contextD);
+			sizedHistory.execute(ops[i], null, null);
+		}
+
+		// removing the older operation of D would leave a gap in D after the
+		// kept one
+		sizedHistory.setMemoryLimit(1);
+		assertEquals(300, sizedHistory.getMemoryUsage());
+		assertTrue(Arrays.asList(sizedHistory.getUndoHistory(contextE)).equals(
+				Arrays.asList(new IUndoableOperation[] { both })));
+		assertTrue(Arrays.asList(sizedHistory.getUndoHistory(contextD)).equals(
+				Arrays.asList(new IUndoableOperation[] { both, ops[0], ops[1] })));
+
+		sizedHistory.setMemoryLimit(0);
+		sizedHistory.dispose(IOperationHistory.GLOBAL_UNDO_CONTEXT, true, true, false);
+	}
+
+	public void testMemoryLimitCompactsBeforeRemoving() throws ExecutionException {
+		DefaultOperationHistory sizedHistory = new DefaultOperationHistory();
+		ObjectUndoContext contextD = new ObjectUndoContext("D");
+		SizedTestOperation[] ops = new SizedTestOperation[3];
+		for (int i = 0; i < ops.length; i++) {
+			ops[i] = new SizedTestOperation("sized" + i, 100, true);
+			ops[i].addContext(contextD);
+			sizedHistory.execute(ops[i], null, null);
+		}
+		sizedHistory.setMemoryLimit(150);
+		assertTrue(ops[0].compacted);
+		assertTrue(ops[1].compacted);
+		assertFalse(ops[2].compacted);
+		assertEquals(3, sizedHistory.getUndoHistory(contextD).length);
+		assertEquals(120, sizedHistory.getMemoryUsage());
+
+		// undone operations count as well
+		sizedHistory.undo(contextD, null, null);
+		assertEquals(120, sizedHistory.getMemoryUsage());
+		assertEquals(ops[2], sizedHistory.getRedoOperation(contextD));
+
+		sizedHistory.setMemoryLimit(0);
+		sizedHistory.dispose(IOperationHistory.GLOBAL_UNDO_CONTEXT, true, true, false);
+	}
+
+	public void testMemoryLimitSkipsOperationsChangedWhileCompacting()
+			throws ExecutionException {
+		final DefaultOperationHistory sizedHistory = new DefaultOperationHistory();
+		final ObjectUndoContext contextD = new ObjectUndoContext("D");
+		SizedTestOperation[] ops = new SizedTestOperation[3];
+		ops[0] = new SizedTestOperation("sized0", 100, true) {
+			boolean undone;
+
+			public void compact() {
+				if (!undone) {
+					undone = true;
+					// another thread undoes while the history compacts
+					sizedHistory.setMemoryLimit(0);
+					try {
+						sizedHistory.undo(contextD, null, null);
+					} catch (ExecutionException e) {
+						fail(e.getMessage());
+					}
+				}
+				super.compact();
+			}
+		};
+		ops[1] = new SizedTestOperation("sized1", 100, true);
+		ops[2] = new SizedTestOperation("sized2", 100, true);
+		for (int i = 0; i < ops.length; i++) {
+			ops[i].addContext(contextD);
+			sizedHistory.execute(ops[i], null, null);
+		}
+
+		sizedHistory.setMemoryLimit(150);
+
+		assertTrue(ops[0].compacted);
+		// the most recent undoable operation by the time it would be compacted
+		assertFalse(ops[1].compacted);
+		assertFalse(ops[2].compacted);
+		assertEquals(ops[1], sizedHistory.getUndoOperation(contextD));
+		assertEquals(ops[2], sizedHistory.getRedoOperation(contextD));
+
+		sizedHistory.dispose(IOperationHistory.GLOBAL_UNDO_CONTEXT, true, true, false);
+	}
+
+	public void testAsynchronousListener() throws ExecutionException,
+			InterruptedException {
+		final List events = Collections.synchronizedList(new ArrayList());
+		final CountDownLatch received = new CountDownLatch(5);
+		IOperationHistoryListener asyncListener = new IOperationHistoryListener() {
+			public void historyNotification(OperationHistoryEvent event) {
+				events.add(new Integer(event.getEventType()));
+				received.countDown();
+			}
+		};
+		DefaultOperationHistory defaultHistory = (DefaultOperationHistory) history;
+		defaultHistory.addAsynchronousOperationHistoryListener(asyncListener);
+		IUndoableOperation op = new TestOperation("async");
+		op.addContext(contextA);
+		history.execute(op, null, null);
+		history.undo(contextA, null, null);
+		List expected = Arrays.asList(new Integer[] {
+				new Integer(OperationHistoryEvent.ABOUT_TO_EXECUTE),
+				new Integer(OperationHistoryEvent.DONE),
+				new Integer(OperationHistoryEvent.OPERATION_ADDED),
+				new Integer(OperationHistoryEvent.ABOUT_TO_UNDO),
+				new Integer(OperationHistoryEvent.UNDONE) });
+		assertTrue("Asynchronous listener should receive all events",
+				received.await(5, TimeUnit.SECONDS));
+		assertEquals("Asynchronous listener should receive all events in order",
+				expected, new ArrayList(events));
+
+		// events are delivered in order, so once a listener that is still
+		// registered received the redo, a removed one would have as well
+		final CountDownLatch redone = new CountDownLatch(1);
+		IOperationHistoryListener laterListener = new IOperationHistoryListener() {
+			public void historyNotification(OperationHistoryEvent event) {
+				if (event.getEventType() == OperationHistoryEvent.REDONE) {
+					redone.countDown();
+				}
+			}
+		};
+		defaultHistory.removeOperationHistoryListener(asyncListener);
+		defaultHistory.addAsynchronousOperationHistoryListener(laterListener);
+		history.redo(contextA, null, null);
+		assertTrue("Asynchronous listener should receive the redo", redone
+				.await(5, TimeUnit.SECONDS));
+		assertEquals(expected.size(), events.size());
+		defaultHistory.removeOperationHistoryListener(laterListener);
+	}
+
+	public void testCompressedSnapshot() throws IOException {
+		byte[] bytes = new byte[256 * 1024];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (i % 61);
+		}
+		CompressedSnapshot snapshot = new CompressedSnapshot(bytes);
+		assertFalse(snapshot.isCompacted());
+		assertEquals(bytes.length, snapshot.getApproximateSize());
+
+		snapshot.compact(false);
+		assertTrue(snapshot.isCompacted());
+		assertTrue(snapshot.getApproximateSize() < bytes.length);
+		assertTrue(Arrays.equals(bytes, snapshot.getBytes()));
+
+		snapshot.compact(true);
+		assertTrue(snapshot.isCompacted());
+		assertTrue(Arrays.equals(bytes, snapshot.getBytes()));
+		snapshot.dispose();
+	}
 }
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.progress;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ui.internal.progress.IProgressUpdateCollector;
+import org.eclipse.ui.internal.progress.JobInfo;
+import org.eclipse.ui.internal.progress.ProgressManager;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests that the progress manager tracks jobs changing state on many threads
+ * at once, and that the progress view updater folds the updates of one batch.
+ */
+public class ProgressManagerTest extends UITestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private ProgressManager manager;
+	private Object updater;
+	private RecordingCollector collector;
+
+	/**
+	 * Records what the progress view updater asks a viewer to do.
+	 */
+	private static class RecordingCollector implements IProgressUpdateCollector {
+		List added = Collections.synchronizedList(new ArrayList());
+		List removed = Collections.synchronizedList(new ArrayList());
+		List refreshed = Collections.synchronizedList(new ArrayList());
+
+		public void refresh() {
+			// a full refresh covers every element, nothing to record
+		}
+
+		public void refresh(Object[] elements) {
+			refreshed.addAll(Arrays.asList(elements));
+		}
+
+		public void add(Object[] elements) {
+			added.addAll(Arrays.asList(elements));
+		}
+
+		public void remove(Object[] elements) {
+			removed.addAll(Arrays.asList(elements));
+		}
+
+		void clear() {
+			added.clear();
+			removed.clear();
+			refreshed.clear();
+		}
+	}
+
+	/**
+	 * A JobInfo for a job that is never scheduled.
+	 */
+	private static class TestJobInfo extends JobInfo {
+		TestJobInfo(String name) {
+			super(new Job(name) {
+				protected IStatus run(IProgressMonitor monitor) {
+					return Status.OK_STATUS;
+				}
+			});
+		}
+	}
+
+	/**
+	 * @param testName
+	 */
+	public ProgressManagerTest(String testName) {
+		super(testName);
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		manager = ProgressManager.getInstance();
+		collector = new RecordingCollector();
+		Class updaterClass = Class
+				.forName("org.eclipse.ui.internal.progress.ProgressViewUpdater");
+		Method getSingleton = updaterClass.getDeclaredMethod("getSingleton",
+				new Class[0]);
+		getSingleton.setAccessible(true);
+		updater = getSingleton.invoke(null, new Object[0]);
+		invokeUpdater("addCollector", collector);
+	}
+
+	protected void doTearDown() throws Exception {
+		invokeUpdater("removeCollector", collector);
+		updater = null;
+		super.doTearDown();
+	}
+
+	public void testAddIsDelivered() throws Exception {
+		JobInfo info = new TestJobInfo("testAddIsDelivered");
+
+		manager.addJobInfo(info);
+		waitForUpdates();
+
+		assertTrue("Addition not delivered", collector.added.contains(info));
+		manager.removeJobInfo(info);
+		waitForUpdates();
+		assertTrue("Removal not delivered", collector.removed.contains(info));
+	}
+
+	public void testAddAndRemoveInOneBatchIsDropped() throws Exception {
+		JobInfo info = new TestJobInfo("testAddAndRemoveInOneBatchIsDropped");
+
+		manager.addJobInfo(info);
+		manager.refreshJobInfo(info);
+		manager.removeJobInfo(info);
+		waitForUpdates();
+
+		assertFalse("Transient element added", collector.added.contains(info));
+		assertFalse("Transient element removed", collector.removed
+				.contains(info));
+		assertFalse("Transient element refreshed", collector.refreshed
+				.contains(info));
+	}
+
+	public void testRemoveAndAddInOneBatchIsRefreshed() throws Exception {
+		JobInfo info = new TestJobInfo("testRemoveAndAddInOneBatchIsRefreshed");
+		manager.addJobInfo(info);
+		waitForUpdates();
+		collector.clear();
+
+		manager.removeJobInfo(info);
+		manager.addJobInfo(info);
+		waitForUpdates();
+
+		assertTrue("Element not refreshed", collector.refreshed.contains(info));
+		assertFalse("Element added again", collector.added.contains(info));
+		assertFalse("Element removed", collector.removed.contains(info));
+		manager.removeJobInfo(info);
+		waitForUpdates();
+	}
+
+	public void testRefreshOfAddedElementIsDropped() throws Exception {
+		JobInfo info = new TestJobInfo("testRefreshOfAddedElementIsDropped");
+
+		manager.addJobInfo(info);
+		manager.refreshJobInfo(info);
+		manager.refreshJobInfo(info);
+		waitForUpdates();
+
+		assertTrue("Addition not delivered", collector.added.contains(info));
+		assertFalse("Added element refreshed", collector.refreshed
+				.contains(info));
+		manager.removeJobInfo(info);
+		waitForUpdates();
+	}
+
+	public void testJobsOfManyThreadsAreTracked() throws Exception {
+		final int jobCount = 20;
+		final CountDownLatch running = new CountDownLatch(jobCount);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Job[] jobs = new Job[jobCount];
+		for (int i = 0; i < jobCount; i++) {
+			jobs[i] = new Job("testJobsOfManyThreadsAreTracked" + i) {
+				protected IStatus run(IProgressMonitor monitor) {
+					monitor.beginTask(getName(), 10);
+					running.countDown();
+					try {
+						while (!release.await(10, TimeUnit.MILLISECONDS)) {
+							monitor.worked(1);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					monitor.done();
+					return Status.OK_STATUS;
+				}
+			};
+		}
+		// schedule from several threads so the job events overlap
+		Thread[] schedulers = new Thread[4];
+		for (int t = 0; t < schedulers.length; t++) {
+			final int first = t;
+			schedulers[t] = new Thread() {
+				public void run() {
+					for (int i = first; i < jobCount; i += 4) {
+						jobs[i].schedule();
+					}
+				}
+			};
+			schedulers[t].start();
+		}
+		for (int t = 0; t < schedulers.length; t++) {
+			schedulers[t].join();
+		}
+		try {
+			assertTrue("Jobs did not start", running.await(TIMEOUT,
+					TimeUnit.MILLISECONDS));
+			List tracked = getTrackedJobs();
+			for (int i = 0; i < jobCount; i++) {
+				assertTrue("Running job not tracked", tracked.contains(jobs[i]));
+			}
+		} finally {
+			release.countDown();
+		}
+		for (int i = 0; i < jobCount; i++) {
+			jobs[i].join();
+		}
+
+		assertTrue("Finished jobs still tracked", processEventsUntil(
+				new Condition() {
+					public boolean compute() {
+						List tracked = getTrackedJobs();
+						for (int i = 0; i < jobCount; i++) {
+							if (tracked.contains(jobs[i])) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}, TIMEOUT));
+	}
+
+	public void testProgressForReturnsOneMonitorPerJob() throws Exception {
+		final Job job = new Job("testProgressForReturnsOneMonitorPerJob") {
+			protected IStatus run(IProgressMonitor monitor) {
+				return Status.OK_STATUS;
+			}
+		};
+		final CountDownLatch start = new CountDownLatch(1);
+		final IProgressMonitor[] monitors = new IProgressMonitor[8];
+		Thread[] threads = new Thread[monitors.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					monitors[index] = manager.progressFor(job);
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+
+		for (int i = 0; i < monitors.length; i++) {
+			assertNotNull(monitors[i]);
+			assertSame("Monitor created twice", monitors[0], monitors[i]);
+		}
+		JobInfo[] infos = manager.getJobInfos(true);
+		for (int i = 0; i < infos.length; i++) {
+			if (infos[i].getJob() == job) {
+				manager.removeJobInfo(infos[i]);
+			}
+		}
+	}
+
+	/**
+	 * Return the jobs the progress manager tracks, including system jobs.
+	 *
+	 * @return List of Job
+	 */
+	private List getTrackedJobs() {
+		JobInfo[] infos = manager.getJobInfos(true);
+		List jobs = new ArrayList(infos.length);
+		for (int i = 0; i < infos.length; i++) {
+			jobs.add(infos[i].getJob());
+		}
+		return jobs;
+	}
+
+	/**
+	 * Process events until the update job of the progress view updater has
+	 * run.
+	 *
+	 * @throws Exception
+	 */
+	private void waitForUpdates() throws Exception {
+		Field field = updater.getClass().getDeclaredField("updateJob");
+		field.setAccessible(true);
+		final Job updateJob = (Job) field.get(updater);
+		assertTrue("Progress updates not processed", processEventsUntil(
+				new Condition() {
+					public boolean compute() {
+						return updateJob.getState() == Job.NONE;
+					}
+				}, TIMEOUT));
+	}
+
+	private void invokeUpdater(String methodName,
+			IProgressUpdateCollector argument) throws Exception {
+		Method method = updater.getClass().getDeclaredMethod(methodName,
+				new Class[] { IProgressUpdateCollector.class });
+		method.setAccessible(true);
+		method.invoke(updater, new Object[] { argument });
+	}
+}
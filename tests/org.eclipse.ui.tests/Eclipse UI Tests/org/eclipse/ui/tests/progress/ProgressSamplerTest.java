@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.progress;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ui.internal.IPreferenceConstants;
+import org.eclipse.ui.internal.WorkbenchPlugin;
+import org.eclipse.ui.internal.progress.JobInfo;
+import org.eclipse.ui.internal.progress.ProgressManager;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests that the progress reported through <code>worked()</code> and
+ * <code>subTask()</code> reaches the progress listeners sampled rather than
+ * once per call.
+ */
+public class ProgressSamplerTest extends UITestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private static final int CALLS = 5000;
+
+	/*
+	 * Refreshes the listeners may see for CALLS calls, the sampler refreshes
+	 * at most once per interval while the calls are made.
+	 */
+	private static final int MAX_REFRESHES = 50;
+
+	private ProgressManager manager;
+	private Class listenerClass;
+	private Object listener;
+	private ReportingJob job;
+	// refreshes of the job under test since it started reporting
+	private volatile int refreshes;
+
+	/**
+	 * A job that reports its progress and then waits until it is released.
+	 */
+	private static abstract class ReportingJob extends Job {
+		final CountDownLatch reported = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		volatile boolean reporting;
+
+		ReportingJob(String name) {
+			super(name);
+		}
+
+		protected IStatus run(IProgressMonitor monitor) {
+			monitor.beginTask(getName(), CALLS);
+			reporting = true;
+			report(monitor);
+			reported.countDown();
+			try {
+				release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			monitor.done();
+			return Status.OK_STATUS;
+		}
+
+		abstract void report(IProgressMonitor monitor);
+	}
+
+	/**
+	 * @param testName
+	 */
+	public ProgressSamplerTest(String testName) {
+		super(testName);
+	}
+
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		manager = ProgressManager.getInstance();
+		listenerClass = Class
+				.forName("org.eclipse.ui.internal.progress.IJobProgressManagerListener");
+		// count the refreshes of the job under test as the views would see them
+		listener = Proxy.newProxyInstance(listenerClass.getClassLoader(),
+				new Class[] { listenerClass }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method,
+							Object[] args) {
+						if (method.getName().equals("showsDebug")) {
+							return Boolean.TRUE;
+						}
+						if (method.getName().equals("refreshJobInfo")
+								&& job != null && job.reporting
+								&& ((JobInfo) args[0]).getJob() == job) {
+							refreshes++;
+						}
+						if (method.getName().equals("equals")) {
+							return Boolean.valueOf(proxy == args[0]);
+						}
+						if (method.getName().equals("hashCode")) {
+							return new Integer(System.identityHashCode(proxy));
+						}
+						return null;
+					}
+				});
+		invokeManager("addListener", listener);
+	}
+
+	protected void doTearDown() throws Exception {
+		invokeManager("removeListener", listener);
+		if (job != null) {
+			job.release.countDown();
+			job.join();
+			job = null;
+		}
+		super.doTearDown();
+	}
+
+	public void testWorkedIsSampled() throws Exception {
+		job = new ReportingJob("testWorkedIsSampled") {
+			void report(IProgressMonitor monitor) {
+				for (int i = 0; i < CALLS; i++) {
+					monitor.worked(1);
+				}
+			}
+		};
+
+		runUntilReported();
+
+		assertTrue("Too many refreshes: " + refreshes,
+				refreshes <= MAX_REFRESHES);
+		assertTrue("Progress not passed on", waitForRefresh());
+	}
+
+	public void testSubTaskIsSampled() throws Exception {
+		job = new ReportingJob("testSubTaskIsSampled") {
+			void report(IProgressMonitor monitor) {
+				for (int i = 0; i < CALLS; i++) {
+					monitor.subTask("Step " + i);
+				}
+			}
+		};
+
+		runUntilReported();
+
+		assertTrue("Too many refreshes: " + refreshes,
+				refreshes <= MAX_REFRESHES);
+		assertTrue("Sub task not passed on", waitForRefresh());
+		JobInfo info = getJobInfo();
+		assertNotNull(info);
+		Object[] children = (Object[]) invoke(info, "getChildren");
+		assertEquals(1, children.length);
+		assertEquals("Step " + (CALLS - 1), invoke(children[0],
+				"getDisplayString"));
+	}
+
+	public void testDefaultSampleInterval() {
+		assertEquals(100, WorkbenchPlugin.getDefault().getPreferenceStore()
+				.getDefaultInt(IPreferenceConstants.PROGRESS_SAMPLE_INTERVAL));
+	}
+
+	private void runUntilReported() throws InterruptedException {
+		job.schedule();
+		assertTrue("Job did not report", job.reported.await(TIMEOUT,
+				TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Wait until the sampler has refreshed the job since it started
+	 * reporting.
+	 *
+	 * @return <code>true</code> if it did before the timeout
+	 */
+	private boolean waitForRefresh() {
+		return processEventsUntil(new Condition() {
+			public boolean compute() {
+				return refreshes > 0;
+			}
+		}, TIMEOUT);
+	}
+
+	private JobInfo getJobInfo() {
+		JobInfo[] infos = manager.getJobInfos(true);
+		for (int i = 0; i < infos.length; i++) {
+			if (infos[i].getJob() == job) {
+				return infos[i];
+			}
+		}
+		return null;
+	}
+
+	private void invokeManager(String methodName, Object argument)
+			throws Exception {
+		Method method = ProgressManager.class.getDeclaredMethod(methodName,
+				new Class[] { listenerClass });
+		method.setAccessible(true);
+		method.invoke(manager, new Object[] { argument });
+	}
+
+	private Object invoke(Object target, String methodName) throws Exception {
+		Method method = null;
+		for (Class type = target.getClass(); method == null && type != null; type = type
+				.getSuperclass()) {
+			try {
+				method = type.getDeclaredMethod(methodName, new Class[0]);
+			} catch (NoSuchMethodException e) {
+				// look in the superclass
+			}
+		}
+		assertNotNull(methodName, method);
+		method.setAccessible(true);
+		return method.invoke(target, new Object[0]);
+	}
+}
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.ui.tests.quickaccess;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.internal.quickaccess.EditorProvider;
+import org.eclipse.ui.internal.quickaccess.QuickAccessElement;
+import org.eclipse.ui.internal.quickaccess.QuickAccessEntry;
+import org.eclipse.ui.internal.quickaccess.QuickAccessProvider;
+import org.eclipse.ui.part.FileEditorInput;
+import org.eclipse.ui.tests.api.MockEditorPart;
+import org.eclipse.ui.tests.harness.util.FileUtil;
+import org.eclipse.ui.tests.harness.util.UITestCase;
+
+/**
+ * Tests that narrowing the matches of the previous filter gives the same
+ * matches as matching all elements, also when the label of an element
+ * changes between two searches.
+ */
+public class QuickAccessMatcherTest extends UITestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	private Object matcher;
+
+	/**
+	 * An element with a label that can be changed, counting how often it is
+	 * matched.
+	 */
+	private static class TestElement extends QuickAccessElement {
+		String label;
+		boolean labelVolatile;
+		int matchCount;
+
+		TestElement(QuickAccessProvider provider, String label) {
+			super(provider);
+			this.label = label;
+		}
+
+		@Override
+		public String getLabel() {
+			return label;
+		}
+
+		@Override
+		public ImageDescriptor getImageDescriptor() {
+			return null;
+		}
+
+		@Override
+		public String getId() {
+			return label;
+		}
+
+		@Override
+		public void execute() {
+			// nothing to do
+		}
+
+		@Override
+		protected boolean isLabelVolatile() {
+			return labelVolatile;
+		}
+
+		@Override
+		public QuickAccessEntry match(String filter,
+				QuickAccessProvider providerForMatching) {
+			matchCount++;
+			return super.match(filter, providerForMatching);
+		}
+	}
+
+	private static class TestProvider extends QuickAccessProvider {
+		final List elements = new ArrayList();
+
+		TestProvider(String[] labels) {
+			for (int i = 0; i < labels.length; i++) {
+				elements.add(new TestElement(this, labels[i]));
+			}
+		}
+
+		TestElement getElement(String label) {
+			for (int i = 0; i < elements.size(); i++) {
+				TestElement element = (TestElement) elements.get(i);
+				if (element.label.equals(label)) {
+					return element;
+				}
+			}
+			return null;
+		}
+
+		int getMatchCount() {
+			int count = 0;
+			for (int i = 0; i < elements.size(); i++) {
+				count += ((TestElement) elements.get(i)).matchCount;
+			}
+			return count;
+		}
+
+		@Override
+		public String getId() {
+			return "org.eclipse.ui.tests.quickaccess.testProvider";
+		}
+
+		@Override
+		public String getName() {
+			return "Test";
+		}
+
+		@Override
+		public ImageDescriptor getImageDescriptor() {
+			return null;
+		}
+
+		@Override
+		public QuickAccessElement[] getElements() {
+			return (QuickAccessElement[]) elements
+					.toArray(new QuickAccessElement[elements.size()]);
+		}
+
+		@Override
+		public QuickAccessElement getElementForId(String id) {
+			return getElement(id);
+		}
+
+		@Override
+		protected void doReset() {
+			// the elements stay the same
+		}
+	}
+
+	/**
+	 * @param testName
+	 */
+	public QuickAccessMatcherTest(String testName) {
+		super(testName);
+	}
+
+	@Override
+	protected void doSetUp() throws Exception {
+		super.doSetUp();
+		matcher = newMatcher();
+	}
+
+	@Override
+	protected void doTearDown() throws Exception {
+		invoke(matcher, "cancel", new Class[0], new Object[0]);
+		super.doTearDown();
+	}
+
+	public void testNarrowingGivesSameMatches() throws Exception {
+		String[] labels = new String[] { "alpha", "alphabet", "beta",
+				"gamma", "alpine", "Alpha Centauri" };
+		TestProvider provider = new TestProvider(labels);
+		String[] filters = new String[] { "a", "al", "alp", "alph", "alpha",
+				"alpha c" };
+
+		for (int i = 0; i < filters.length; i++) {
+			List narrowed = search(matcher, provider, filters[i]);
+			List full = search(newMatcher(), new TestProvider(labels),
+					filters[i]);
+			assertEquals("Matches for " + filters[i], full, narrowed);
+		}
+	}
+
+	public void testOnlyPreviousMatchesMatchedAgain() throws Exception {
+		TestProvider provider = new TestProvider(new String[] { "alpha",
+				"beta", "gamma", "salad" });
+		assertEquals(Arrays.asList(new String[] { "alpha", "salad" }), search(
+				matcher, provider, "al"));
+		int matched = provider.getMatchCount();
+
+		assertEquals(Arrays.asList(new String[] { "alpha" }), search(matcher,
+				provider, "alp"));
+		assertEquals("Elements matched again", 2, provider.getMatchCount()
+				- matched);
+	}
+
+	public void testOtherFilterMatchesAllElements() throws Exception {
+		TestProvider provider = new TestProvider(new String[] { "alpha",
+				"beta" });
+		assertEquals(Arrays.asList(new String[] { "alpha" }), search(matcher,
+				provider, "al"));
+
+		assertEquals(Arrays.asList(new String[] { "beta" }), search(matcher,
+				provider, "be"));
+	}
+
+	public void testChangedVolatileLabelIsMatched() throws Exception {
+		TestProvider provider = new TestProvider(new String[] { "abc", "zzz" });
+		TestElement changing = provider.getElement("zzz");
+		changing.labelVolatile = true;
+		assertEquals(Arrays.asList(new String[] { "abc" }), search(matcher,
+				provider, "a"));
+
+		changing.label = "abd";
+
+		assertEquals(Arrays.asList(new String[] { "abc", "abd" }), search(
+				matcher, provider, "ab"));
+	}
+
+	public void testChangedVolatileLabelNoLongerMatched() throws Exception {
+		TestProvider provider = new TestProvider(new String[] { "abc", "abd" });
+		TestElement changing = provider.getElement("abd");
+		changing.labelVolatile = true;
+		assertEquals(Arrays.asList(new String[] { "abc", "abd" }), search(
+				matcher, provider, "a"));
+
+		changing.label = "zzz";
+
+		assertEquals(Arrays.asList(new String[] { "abc" }), search(matcher,
+				provider, "ab"));
+	}
+
+	public void testManyElementsMatchedInBackground() throws Exception {
+		String[] labels = new String[2000];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = "element " + i;
+		}
+		TestProvider provider = new TestProvider(labels);
+
+		List first = search(matcher, provider, "element 1");
+		List narrowed = search(matcher, provider, "element 19");
+		List full = search(newMatcher(), new TestProvider(labels), "element 19");
+
+		assertEquals(1111, first.size());
+		assertEquals(full, narrowed);
+		assertEquals(111, narrowed.size());
+	}
+
+	public void testDirtyEditorLabel() throws Exception {
+		IProject project = FileUtil.createProject("QuickAccessMatcherTest");
+		IFile file = FileUtil.createFile("QuickAccessMatcherTest.txt", project);
+		IWorkbenchPage page = getWorkbench().getActiveWorkbenchWindow()
+				.getActivePage();
+		MockEditorPart editor = (MockEditorPart) page.openEditor(
+				new FileEditorInput(file), MockEditorPart.ID1);
+		try {
+			EditorProvider provider = new EditorProvider();
+			assertTrue("Clean editor matched", search(matcher, provider, "*")
+					.isEmpty());
+
+			editor.setDirty(true);
+
+			List matches = search(matcher, provider, "*");
+			assertEquals(1, matches.size());
+			assertTrue("Dirty mark not matched", ((String) matches.get(0))
+					.startsWith("*" + editor.getTitle()));
+		} finally {
+			editor.setDirty(false);
+			page.closeEditor(editor, false);
+			FileUtil.deleteProject(project);
+		}
+	}
+
+	/**
+	 * Search the provider and wait until it is matched.
+	 *
+	 * @return the labels of the matched elements, in order
+	 */
+	private List search(Object aMatcher, QuickAccessProvider provider,
+			String filter) throws Exception {
+		final Object search = invoke(aMatcher, "search", new Class[] {
+				String.class, QuickAccessProvider[].class, Display.class,
+				Runnable.class }, new Object[] { filter,
+				new QuickAccessProvider[] { provider }, Display.getCurrent(),
+				new Runnable() {
+					public void run() {
+						// the entries are read when the search is complete
+					}
+				} });
+		assertTrue("Search not complete", processEventsUntil(new Condition() {
+			public boolean compute() {
+				try {
+					return ((Boolean) invoke(search, "isComplete", new Class[0],
+							new Object[0])).booleanValue();
+				} catch (Exception e) {
+					return true;
+				}
+			}
+		}, TIMEOUT));
+		QuickAccessEntry[][] entries = (QuickAccessEntry[][]) invoke(search,
+				"getEntries", new Class[0], new Object[0]);
+		Field field = QuickAccessEntry.class.getDeclaredField("element");
+		field.setAccessible(true);
+		List labels = new ArrayList();
+		for (int i = 0; i < entries[0].length; i++) {
+			labels.add(((QuickAccessElement) field.get(entries[0][i]))
+					.getLabel());
+		}
+		return labels;
+	}
+
+	private Object newMatcher() throws Exception {
+		Constructor constructor = Class.forName(
+				"org.eclipse.ui.internal.quickaccess.QuickAccessMatcher")
+				.getDeclaredConstructor(new Class[0]);
+		constructor.setAccessible(true);
+		return constructor.newInstance(new Object[0]);
+	}
+
+	private Object invoke(Object target, String name, Class[] types,
+			Object[] args) throws Exception {
+		Method method = target.getClass().getDeclaredMethod(name, types);
+		method.setAccessible(true);
+		return method.invoke(target, args);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,7 +15,11 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.expressions.EvaluationResult;
 import org.eclipse.core.expressions.Expression;
@@ -38,7 +42,10 @@ import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.TreeSelection;
 import org.eclipse.ui.IPerspectiveDescriptor;
 import org.eclipse.ui.IPerspectiveRegistry;
+import org.eclipse.ui.ISourceProvider;
+import org.eclipse.ui.ISourceProviderListener;
 import org.eclipse.ui.ISources;
+import org.eclipse.ui.IViewPart;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchPart;
 import org.eclipse.ui.IWorkbenchWindow;
@@ -672,6 +679,311 @@ public class EvaluationServiceTest extends UITestCase {
 				getPart(selection, callIdx).getSite().getId());
 	}
 
+	/**
+	 * The state behind a property tester, which can change without any
+	 * variable changing.
+	 */
+	private static class PropertyState {
+		boolean value;
+		int evaluations;
+	}
+
+	/**
+	 * An expression testing a property. Expressions with the same property
+	 * are equal, so their references share a node.
+	 */
+	private static class PropertyExpression extends Expression {
+		static final String PROPERTY = "org.eclipse.ui.tests.services.sharedProperty";
+
+		private final PropertyState state;
+
+		PropertyExpression(PropertyState state) {
+			this.state = state;
+		}
+
+		public void collectExpressionInfo(ExpressionInfo info) {
+			info.addAccessedPropertyName(PROPERTY);
+		}
+
+		public EvaluationResult evaluate(IEvaluationContext context) {
+			state.evaluations++;
+			return EvaluationResult.valueOf(state.value);
+		}
+
+		public boolean equals(Object object) {
+			return object instanceof PropertyExpression;
+		}
+
+		protected int computeHashCode() {
+			return PROPERTY.hashCode();
+		}
+	}
+
+	public void testEqualExpressionsShareEvaluation() throws Exception {
+		IEvaluationService service = (IEvaluationService) getWorkbench()
+				.getService(IEvaluationService.class);
+		PropertyState state = new PropertyState();
+		MyEval listener1 = new MyEval();
+		MyEval listener2 = new MyEval();
+		IEvaluationReference ref1 = service.addEvaluationListener(
+				new PropertyExpression(state), listener1, "PROP");
+		IEvaluationReference ref2 = service.addEvaluationListener(
+				new PropertyExpression(state), listener2, "PROP");
+		try {
+			assertNotNull(getField(ref1, "node"));
+			assertSame(getField(ref1, "node"), getField(ref2, "node"));
+			assertEquals(1, listener1.count);
+			assertEquals(1, listener2.count);
+
+			state.evaluations = 0;
+			long evaluationCount = getCount(service, "getEvaluationCount");
+			long sharedResultCount = getCount(service, "getSharedResultCount");
+			state.value = true;
+			service.requestEvaluation(PropertyExpression.PROPERTY);
+
+			// evaluated once for both references
+			assertEquals(1, state.evaluations);
+			assertEquals(evaluationCount + 1, getCount(service,
+					"getEvaluationCount"));
+			assertEquals(sharedResultCount + 1, getCount(service,
+					"getSharedResultCount"));
+			assertTrue(listener1.currentValue);
+			assertTrue(listener2.currentValue);
+			assertEquals(2, listener1.count);
+			assertEquals(2, listener2.count);
+		} finally {
+			service.removeEvaluationListener(ref1);
+			service.removeEvaluationListener(ref2);
+		}
+	}
+
+	public void testJoiningReferenceEvaluatesAgain() throws Exception {
+		IEvaluationService service = (IEvaluationService) getWorkbench()
+				.getService(IEvaluationService.class);
+		PropertyState state = new PropertyState();
+		MyEval listener1 = new MyEval();
+		MyEval listener2 = new MyEval();
+		IEvaluationReference ref1 = service.addEvaluationListener(
+				new PropertyExpression(state), listener1, "PROP");
+		IEvaluationReference ref2 = null;
+		try {
+			assertFalse(listener1.currentValue);
+
+			// the property changes without any variable changing
+			state.value = true;
+			ref2 = service.addEvaluationListener(
+					new PropertyExpression(state), listener2, "PROP");
+
+			assertTrue("Joining reference got a stale result",
+					listener2.currentValue);
+			assertTrue(listener1.currentValue);
+		} finally {
+			service.removeEvaluationListener(ref1);
+			if (ref2 != null) {
+				service.removeEvaluationListener(ref2);
+			}
+		}
+	}
+
+	public void testRemovedReferencesLeaveNode() throws Exception {
+		IEvaluationService service = (IEvaluationService) getWorkbench()
+				.getService(IEvaluationService.class);
+		PropertyState state = new PropertyState();
+		MyEval listener1 = new MyEval();
+		MyEval listener2 = new MyEval();
+		IEvaluationReference ref1 = service.addEvaluationListener(
+				new PropertyExpression(state), listener1, "PROP");
+		IEvaluationReference ref2 = service.addEvaluationListener(
+				new PropertyExpression(state), listener2, "PROP");
+		Object node = getField(ref1, "node");
+		Map nodes = (Map) getField(service, "nodes");
+		assertSame(node, nodes.get(new PropertyExpression(state)));
+
+		service.removeEvaluationListener(ref1);
+		assertNull(getField(ref1, "node"));
+		assertSame(node, nodes.get(new PropertyExpression(state)));
+
+		int count1 = listener1.count;
+		state.value = true;
+		service.requestEvaluation(PropertyExpression.PROPERTY);
+		assertEquals("Removed reference notified", count1, listener1.count);
+		assertTrue(listener2.currentValue);
+
+		service.removeEvaluationListener(ref2);
+		assertNull(getField(ref2, "node"));
+		assertNull("Node not disposed", nodes
+				.get(new PropertyExpression(state)));
+		assertEquals(Boolean.TRUE, getField(node, "disposed"));
+
+		state.evaluations = 0;
+		service.requestEvaluation(PropertyExpression.PROPERTY);
+		assertEquals(0, state.evaluations);
+	}
+
+	private static long getCount(IEvaluationService service, String name)
+			throws Exception {
+		return ((Long) invoke(service, name, new Class[0], new Object[0]))
+				.longValue();
+	}
+
+	/**
+	 * A listener recording the variables of each publication of a source
+	 * provider.
+	 */
+	private static class PublicationRecorder implements ISourceProviderListener {
+		final List publications = new ArrayList();
+
+		public void sourceChanged(int sourcePriority, Map sourceValuesByName) {
+			publications.add(new HashMap(sourceValuesByName));
+		}
+
+		public void sourceChanged(int sourcePriority, String sourceName,
+				Object sourceValue) {
+			publications.add(Collections.singletonMap(sourceName, sourceValue));
+		}
+
+		int count(String sourceName) {
+			int count = 0;
+			for (int i = 0; i < publications.size(); i++) {
+				if (((Map) publications.get(i)).containsKey(sourceName)) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		Map getPublication(String sourceName) {
+			for (int i = 0; i < publications.size(); i++) {
+				if (((Map) publications.get(i)).containsKey(sourceName)) {
+					return (Map) publications.get(i);
+				}
+			}
+			return null;
+		}
+	}
+
+	public void testOnePublicationPerShellActivation() throws Exception {
+		IWorkbenchWindow window1 = openTestWindow();
+		IWorkbenchWindow window2 = openTestWindow();
+		processEvents();
+		ISourceProvider provider = getWorkbenchSourceProvider();
+		PublicationRecorder recorder = new PublicationRecorder();
+		provider.addSourceProviderListener(recorder);
+		try {
+			window1.getShell().forceActive();
+			processEvents();
+			assertEquals(window1.getShell(), provider.getCurrentState().get(
+					ISources.ACTIVE_SHELL_NAME));
+
+			// the shell, the window, the part and the selection in one go
+			assertEquals(1, recorder.count(ISources.ACTIVE_SHELL_NAME));
+			Map publication = recorder
+					.getPublication(ISources.ACTIVE_SHELL_NAME);
+			assertEquals(window1, publication
+					.get(ISources.ACTIVE_WORKBENCH_WINDOW_NAME));
+			assertEquals(1, recorder.count(ISources.ACTIVE_WORKBENCH_WINDOW_NAME));
+
+			recorder.publications.clear();
+			window2.getShell().forceActive();
+			processEvents();
+			assertEquals(1, recorder.count(ISources.ACTIVE_SHELL_NAME));
+		} finally {
+			provider.removeSourceProviderListener(recorder);
+		}
+	}
+
+	public void testReactivatedWindowPublishedAgain() throws Exception {
+		IWorkbenchWindow window1 = openTestWindow();
+		IWorkbenchWindow window2 = openTestWindow();
+		window1.getShell().forceActive();
+		processEvents();
+		ISourceProvider provider = getWorkbenchSourceProvider();
+		PublicationRecorder recorder = new PublicationRecorder();
+		provider.addSourceProviderListener(recorder);
+		try {
+			window2.getShell().forceActive();
+			processEvents();
+			recorder.publications.clear();
+
+			// other code may have set the variables meanwhile, so a value
+			// published before is published again
+			window1.getShell().forceActive();
+			processEvents();
+			assertEquals(1, recorder.count(ISources.ACTIVE_SHELL_NAME));
+			Map publication = recorder
+					.getPublication(ISources.ACTIVE_SHELL_NAME);
+			assertEquals(window1.getShell(), publication
+					.get(ISources.ACTIVE_SHELL_NAME));
+			assertEquals(window1, publication
+					.get(ISources.ACTIVE_WORKBENCH_WINDOW_NAME));
+		} finally {
+			provider.removeSourceProviderListener(recorder);
+		}
+	}
+
+	public void testOnePublicationPerPartActivation() throws Exception {
+		IWorkbenchWindow window = openTestWindow();
+		IWorkbenchPage page = window.getActivePage();
+		IViewPart view1 = page.showView(SelectionProviderView.ID);
+		IViewPart view2 = page.showView(SelectionProviderView.ID_2);
+		processEvents();
+		ISourceProvider provider = getWorkbenchSourceProvider();
+		PublicationRecorder recorder = new PublicationRecorder();
+		provider.addSourceProviderListener(recorder);
+		try {
+			page.activate(view1);
+			processEvents();
+
+			// the part, its id and its site in one go
+			assertEquals(1, recorder.count(ISources.ACTIVE_PART_NAME));
+			Map publication = recorder
+					.getPublication(ISources.ACTIVE_PART_NAME);
+			assertEquals(view1, publication.get(ISources.ACTIVE_PART_NAME));
+			assertEquals(SelectionProviderView.ID, publication
+					.get(ISources.ACTIVE_PART_ID_NAME));
+			assertEquals(1, recorder.count(ISources.ACTIVE_PART_ID_NAME));
+
+			recorder.publications.clear();
+			page.activate(view2);
+			processEvents();
+			assertEquals(1, recorder.count(ISources.ACTIVE_PART_NAME));
+			assertEquals(view2, recorder.getPublication(
+					ISources.ACTIVE_PART_NAME).get(ISources.ACTIVE_PART_NAME));
+		} finally {
+			provider.removeSourceProviderListener(recorder);
+		}
+	}
+
+	private ISourceProvider getWorkbenchSourceProvider() {
+		ISourceProviderService sps = (ISourceProviderService) getWorkbench()
+				.getService(ISourceProviderService.class);
+		return sps.getSourceProvider(ISources.ACTIVE_SHELL_NAME);
+	}
+
+	private static Object getField(Object target, String name)
+			throws Exception {
+		Class clazz = target.getClass();
+		while (true) {
+			try {
+				Field field = clazz.getDeclaredField(name);
+				field.setAccessible(true);
+				return field.get(target);
+			} catch (NoSuchFieldException e) {
+				clazz = clazz.getSuperclass();
+				if (clazz == null) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private static Object invoke(Object target, String name, Class[] types,
+			Object[] args) throws Exception {
+		Method method = target.getClass().getDeclaredMethod(name, types);
+		method.setAccessible(true);
+		return method.invoke(target, args);
+	}
+
 	private ISelection getSelection(final ArrayList selection, int idx) {
 		return ((PartSelection) selection.get(idx)).selection;
 	}